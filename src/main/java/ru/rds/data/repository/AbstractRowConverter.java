@@ -1,8 +1,12 @@
 package ru.rds.data.repository;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
 
 /**
  * Общие механизмы для реализаций {@link RowConverter}
@@ -17,6 +21,9 @@ public abstract class AbstractRowConverter<OBJECT> implements RowConverter<OBJEC
 
 	private static final Logger logger = LoggerFactory.getLogger(AbstractRowConverter.class);
 
+	// Перечень названий Java-типов столбцов и соответствующих классов
+	private static final Map<String, Class<?>> columnTypes = new ConcurrentHashMap<>();
+
 	private ValueConvertersProvider provider;
 
 	public AbstractRowConverter(ValueConvertersProvider provider) {
@@ -33,9 +40,8 @@ public abstract class AbstractRowConverter<OBJECT> implements RowConverter<OBJEC
 			if (provider != null) {
 				// Поиск необходимого конвертера
 				Class sourceType = value.getClass();
-				Optional<ValueConverter<S, T>> optional = provider.getValueConverter(sourceType, targetType);
-				if (optional.isPresent()) {
-					ValueConverter<S, T> valueConverter = optional.get();
+				ValueConverter<S, T> valueConverter = provider.findValueConverter(sourceType, targetType);
+				if (valueConverter != null) {
 					return Optional.ofNullable(valueConverter.convertFrom(value));
 				} else {
 					logger.error(String.format("Не удалось преобразовать тип <%s> в <%s>, т.к. не найден подходящий <RowValueConverter>", sourceType.getName(), targetType.getName()));
@@ -50,9 +56,8 @@ public abstract class AbstractRowConverter<OBJECT> implements RowConverter<OBJEC
 	protected <S, T> Optional<T> convertRowValue(S value, Class<S> sourceType, Class<T> targetType) {
 		if (value != null && targetType != null) {
 			if (provider != null) {
-				Optional<ValueConverter<S, T>> optional = provider.getValueConverter(sourceType, targetType);
-				if (optional.isPresent()) {
-					ValueConverter<S, T> valueConverter = optional.get();
+				ValueConverter<S, T> valueConverter = provider.findValueConverter(sourceType, targetType);
+				if (valueConverter != null) {
 					return Optional.ofNullable(valueConverter.convertFrom(value));
 				} else {
 					logger.error(String.format("Не удалось преобразовать тип <%s> в <%s>, т.к. не найден подходящий <RowValueConverter>", sourceType.getName(), targetType.getName()));
@@ -64,4 +69,184 @@ public abstract class AbstractRowConverter<OBJECT> implements RowConverter<OBJEC
 		return Optional.empty();
 	}
 
+	/**
+	 * Значение столбца, преобразованное в целевой тип (без использования {@link Optional})
+	 *
+	 * @param row        строка
+	 * @param columnName название столбца
+	 * @param targetType целевой тип
+	 * @param <T>
+	 * @return NULL, если значение отсутствует или его не удалось преобразовать
+	 */
+	protected <T> T getValue(Row row, String columnName, Class<T> targetType) {
+		return toEntityValue(getRowValue(row, columnName), targetType, null);
+	}
+
+	/**
+	 * Значение столбца, преобразованное в тип <code>int</code> без упаковки, если конвертер реализует {@link IntValueConverter}
+	 *
+	 * @param row          строка
+	 * @param columnName   название столбца
+	 * @param defaultValue значение, если значение столбца отсутствует или его не удалось преобразовать
+	 * @return
+	 */
+	protected int getInt(Row row, String columnName, int defaultValue) {
+		Object value = getRowValue(row, columnName);
+		if (value != null) {
+			ValueConverter valueConverter = findValueConverter(value.getClass(), Integer.class, null);
+			if (valueConverter instanceof IntValueConverter) {
+				return ((IntValueConverter) valueConverter).convertFromAsInt(value);
+			} else if (valueConverter != null) {
+				Object convertedValue = valueConverter.convertFrom(value);
+				return convertedValue == null ? defaultValue : (Integer) convertedValue;
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Значение столбца, преобразованное в тип <code>long</code> без упаковки, если конвертер реализует {@link LongValueConverter}
+	 *
+	 * @param row          строка
+	 * @param columnName   название столбца
+	 * @param defaultValue значение, если значение столбца отсутствует или его не удалось преобразовать
+	 * @return
+	 */
+	protected long getLong(Row row, String columnName, long defaultValue) {
+		Object value = getRowValue(row, columnName);
+		if (value != null) {
+			ValueConverter valueConverter = findValueConverter(value.getClass(), Long.class, null);
+			if (valueConverter instanceof LongValueConverter) {
+				return ((LongValueConverter) valueConverter).convertFromAsLong(value);
+			} else if (valueConverter != null) {
+				Object convertedValue = valueConverter.convertFrom(value);
+				return convertedValue == null ? defaultValue : (Long) convertedValue;
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Значение столбца, преобразованное в тип <code>double</code> без упаковки, если конвертер реализует {@link DoubleValueConverter}
+	 *
+	 * @param row          строка
+	 * @param columnName   название столбца
+	 * @param defaultValue значение, если значение столбца отсутствует или его не удалось преобразовать
+	 * @return
+	 */
+	protected double getDouble(Row row, String columnName, double defaultValue) {
+		Object value = getRowValue(row, columnName);
+		if (value != null) {
+			ValueConverter valueConverter = findValueConverter(value.getClass(), Double.class, null);
+			if (valueConverter instanceof DoubleValueConverter) {
+				return ((DoubleValueConverter) valueConverter).convertFromAsDouble(value);
+			} else if (valueConverter != null) {
+				Object convertedValue = valueConverter.convertFrom(value);
+				return convertedValue == null ? defaultValue : (Double) convertedValue;
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Значение столбца, преобразованное в тип <code>boolean</code> без упаковки, если конвертер реализует {@link BooleanValueConverter}
+	 *
+	 * @param row          строка
+	 * @param columnName   название столбца
+	 * @param defaultValue значение, если значение столбца отсутствует или его не удалось преобразовать
+	 * @return
+	 */
+	protected boolean getBoolean(Row row, String columnName, boolean defaultValue) {
+		Object value = getRowValue(row, columnName);
+		if (value != null) {
+			ValueConverter valueConverter = findValueConverter(value.getClass(), Boolean.class, null);
+			if (valueConverter instanceof BooleanValueConverter) {
+				return ((BooleanValueConverter) valueConverter).convertFromAsBoolean(value);
+			} else if (valueConverter != null) {
+				Object convertedValue = valueConverter.convertFrom(value);
+				return convertedValue == null ? defaultValue : (Boolean) convertedValue;
+			}
+		}
+		return defaultValue;
+	}
+
+	private static Object getRowValue(Row row, String columnName) {
+		return row.getValue(columnName).orElse(null);
+	}
+
+	/**
+	 * Преобразование значения столбца в тип поля объекта.
+	 * <p>
+	 * Если в провайдере не зарегистрирован подходящий конвертер, используется переданный конвертер (например, указанный в аннотации поля)
+	 *
+	 * @param value          значение столбца
+	 * @param targetType     тип поля объекта
+	 * @param valueConverter запасной конвертер (может отсутствовать)
+	 * @param <T>
+	 * @return преобразованное значение, либо NULL, если подходящий конвертер не найден
+	 */
+	protected <T> T toEntityValue(Object value, Class<T> targetType, ValueConverter valueConverter) {
+		if (value != null) {
+			ValueConverter converter = findValueConverter(value.getClass(), targetType, valueConverter);
+			if (converter != null) {
+				return (T) converter.convertFrom(value);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Преобразование значения поля объекта в тип данных столбца.
+	 * <p>
+	 * Если в провайдере не зарегистрирован подходящий конвертер, используется переданный конвертер (например, указанный в аннотации поля)
+	 *
+	 * @param value          значение поля объекта
+	 * @param column         столбец, в который будет записано значение
+	 * @param fieldType      тип поля объекта
+	 * @param valueConverter запасной конвертер (может отсутствовать)
+	 * @return преобразованное значение, либо NULL, если подходящий конвертер не найден
+	 */
+	protected Object toRowValue(Object value, Column column, Class<?> fieldType, ValueConverter valueConverter) {
+		Class<?> columnType = getColumnType(column);
+		if (columnType != null) {
+			ValueConverter converter = findValueConverter(columnType, fieldType, valueConverter);
+			if (converter != null) {
+				return converter.convertTo(value);
+			}
+		}
+		return null;
+	}
+
+	private ValueConverter findValueConverter(Class<?> sourceType, Class<?> targetType, ValueConverter valueConverter) {
+		if (provider != null && targetType != null) {
+			ValueConverter converter = provider.findValueConverter(sourceType, targetType);
+			if (converter != null) {
+				return converter;
+			}
+		}
+		if (valueConverter == null) {
+			logger.error(String.format("Не удалось преобразовать тип <%s> в <%s>, т.к. не найден подходящий <RowValueConverter>", sourceType.getName(), targetType == null ? null : targetType.getName()));
+		}
+		return valueConverter;
+	}
+
+	/**
+	 * Java-тип данных столбца (результат определения типа запоминается)
+	 *
+	 * @param column
+	 * @return
+	 */
+	protected static Class<?> getColumnType(Column column) {
+		Class<?> columnType = columnTypes.get(column.getClassName());
+		if (columnType == null) {
+			try {
+				columnType = Class.forName(column.getClassName());
+				columnTypes.put(column.getClassName(), columnType);
+			} catch (Exception e) {
+				logger.error(String.format("Не удалось определить Java-тип <%s> для сохранения данных в Столбце <%s>", column.getClassName(), column.getName()), e);
+			}
+		}
+		return columnType;
+	}
+
 }
@@ -1,20 +1,23 @@
 package ru.rds.data.repository;
 
-import java.lang.reflect.Field;
-import java.util.Optional;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.rds.data.database.Column;
 import ru.rds.data.database.DatabaseQueryBuilder;
+import ru.rds.data.database.Column;
 import ru.rds.data.database.DatabaseStorage;
-import ru.rds.data.database.Row;
 
 /**
  * Расширенная реализация {@link DatabaseStorageRepository}, которая позволяет автоматизировать некоторые действий на основе аннотаций:
  * <lo>
  * <li>позволяет узнать название таблицы, если объект аннотирован {@link ru.rds.data.repository.annotations.RepositoryData}</li>
  * <li>позволяет найти конвертер данных, если он зарегистрирован в провайдере {@link ValueConvertersProvider}, либо если указан в {@link ru.rds.data.repository.annotations.RepositoryDataConverter} или {@link ru.rds.data.repository.annotations.RepositoryDataProperty}</li>
+ * <li>использует конвертер данных, созданный при компиляции обработчиком аннотаций {@link ru.rds.data.repository.processor.RepositoryDataProcessor}, если он имеется</li>
+ * <li>выполняет оптимистическую блокировку, если поле объекта аннотировано {@link ru.rds.data.repository.annotations.RepositoryDataVersion}</li>
+ * <li>определяет идентификатор объекта по полю, сопоставленному единственному столбцу-ключу Таблицы</li>
  * </lo>
  *
  * @param <T>
@@ -30,6 +33,11 @@ public abstract class AnnotationBasedDatabaseStorageRepository<T, ID> extends Da
 	private RepositoryDataDetails<T> repositoryDataDetails;
 	private ValueConvertersProvider  valueConvertersProvider;
 
+	private volatile RowConverter<T> dataRowConverter;
+
+	// Поле, сопоставленное единственному столбцу-ключу Таблицы, и тип идентификатора (определяются при первом обращении)
+	private volatile IdProperty idProperty;
+
 	public AnnotationBasedDatabaseStorageRepository(DataSource dataSource, DatabaseQueryBuilder databaseQueryBuilder) {
 		super(dataSource, databaseQueryBuilder);
 	}
@@ -45,10 +53,10 @@ public abstract class AnnotationBasedDatabaseStorageRepository<T, ID> extends Da
 
 	@Override
 	protected void initializeBefore() {
-		this.repositoryDataDetails = new RepositoryDataDetails<>(getClass());
+		this.repositoryDataDetails = RepositoryDataDetails.forRepository(getClass());
 		if (this.repositoryDataDetails.getDataConverterInstance() == null) {
 			if (this.valueConvertersProvider == null) {
-				this.valueConvertersProvider = new ValueConvertersProvider();
+				this.valueConvertersProvider = ValueConvertersProvider.getDefault();
 			}
 		}
 	}
@@ -60,145 +68,128 @@ public abstract class AnnotationBasedDatabaseStorageRepository<T, ID> extends Da
 
 	@Override
 	protected RowConverter<T> getRowConverter() {
-		return this.repositoryDataDetails.getDataConverterInstance();
+		RowConverter<T> rowConverter = this.repositoryDataDetails.getDataConverterInstance();
+		if (rowConverter != null) {
+			return rowConverter;
+		}
+		return getDataRowConverter();
 	}
 
 	@Override
-	protected T mapFromRow(Row row) {
-		if (getRowConverter() != null) {
-			return super.mapFromRow(row);
-		} else {
-			return mapFromRowByPresentAnnotations(row);
-		}
+	protected String getVersionColumnName() {
+		return this.repositoryDataDetails.getVersionColumnName();
 	}
 
-	private T mapFromRowByPresentAnnotations(Row row) {
-		T repositoryDataInstance = this.repositoryDataDetails.createDataInstance();
-		if (repositoryDataInstance != null) {
-			row.getSpaceProperties().forEach(column -> mapColumn(column, row.getValue(column.getName()), repositoryDataInstance));
+	@Override
+	protected void applyVersion(T entity, Object version) {
+		RepositoryDataPropertyAccessor accessor = this.repositoryDataDetails.getPropertyAccessor(getVersionColumnName());
+		if (accessor != null && version != null) {
+			ValueConverter valueConverter = getValueConvertersProvider().findValueConverter(version.getClass(), accessor.getFieldType());
+			try {
+				accessor.setValue(entity, valueConverter != null ? valueConverter.convertFrom(version) : version);
+			} catch (Throwable e) {
+				logger.error(String.format("Не удалось установить номер версии объекта Хранилища <%s>", getRepositoryName()), e);
+			}
 		}
-		return repositoryDataInstance;
 	}
 
-	private T mapColumn(Column column, Optional<Object> value, T object) {
-		if (value.isPresent()) {
-			try {
-				String fieldName = this.repositoryDataDetails.getPropertyFieldName(column.getName());
-				if (fieldName != null) {
-					Class fieldType = this.repositoryDataDetails.getPropertyFieldType(column.getName());
-
-					Optional<ValueConverter> rowValueConverter = this.valueConvertersProvider.getValueConverter(value.get().getClass(), fieldType);
-					if (!rowValueConverter.isPresent()) {
-						rowValueConverter = Optional.ofNullable(this.repositoryDataDetails.getPropertyValueConverterInstance(column.getName()));
-					}
-
-					if (rowValueConverter.isPresent()) {
-						setFieldValue(object, fieldName, rowValueConverter.get(), value.get());
-					} else {
-						logger.error(String.format("Не удалось найти подходящий <RowValueConverter> для преобразования типа <%s> в тип <%s>", value.get().getClass().getName(), fieldType.getName()));
-					}
-				}
-			} catch (Exception e) {
-				logger.error(e.getMessage(), e);
+	/**
+	 * Идентификатор объекта - значение поля, сопоставленного столбцу-ключу Таблицы через {@link ru.rds.data.repository.annotations.RepositoryDataProperty}.
+	 * <p>
+	 * Если тип поля отличается от типа идентификатора, значение преобразуется конвертером типов. Для составного ключа идентификатор не
+	 * определяется
+	 *
+	 * @param entity
+	 * @return NULL, если идентификатор не удалось определить
+	 */
+	@Override
+	protected ID getId(T entity) {
+		IdProperty currentIdProperty = getIdProperty();
+		if (entity == null || currentIdProperty.accessor == null) {
+			return null;
+		}
+		try {
+			Object value = currentIdProperty.accessor.getValue(entity);
+			if (value == null || currentIdProperty.idType == null || currentIdProperty.idType.isInstance(value)) {
+				return (ID) value;
+			}
+			ValueConverter valueConverter = getValueConvertersProvider().findValueConverter(value.getClass(), currentIdProperty.idType);
+			if (valueConverter != null) {
+				return (ID) valueConverter.convertFrom(value);
 			}
+			logger.warn(String.format("Не удалось преобразовать значение поля <%s> в идентификатор типа <%s> для Хранилища <%s>",
+			                          currentIdProperty.accessor.getFieldName(), currentIdProperty.idType.getName(), getRepositoryName()));
+		} catch (Throwable e) {
+			logger.error(String.format("Не удалось получить идентификатор объекта Хранилища <%s>", getRepositoryName()), e);
 		}
-		return object;
+		return null;
 	}
 
-	private void setFieldValue(T object, String fieldName, ValueConverter valueConverter, Object value) {
-		Class<?> classForFieldsSearch = object.getClass();
-		while (!Object.class.equals(classForFieldsSearch)) {
-			try {
-				Field field = classForFieldsSearch.getDeclaredField(fieldName);
-				boolean isAccessible = field.isAccessible();
-				if (!isAccessible) {
-					field.setAccessible(true);
-				}
-				field.set(object, valueConverter.convertFrom(value));
-				if (!isAccessible) {
-					field.setAccessible(false);
-				}
-				break;
-			} catch (Exception e) {
-				classForFieldsSearch = classForFieldsSearch.getSuperclass();
+	private IdProperty getIdProperty() {
+		IdProperty currentIdProperty = this.idProperty;
+		if (currentIdProperty == null) {
+			List<Column> idColumns = getTable().getIdColumns();
+			RepositoryDataPropertyAccessor accessor = idColumns.size() == 1 ? this.repositoryDataDetails.getPropertyAccessor(idColumns.get(0).getName()) : null;
+			if (accessor == null) {
+				logger.debug(String.format("Для Хранилища <%s> не найдено поле, соответствующее единственному столбцу-ключу", getRepositoryName()));
 			}
+			currentIdProperty = new IdProperty(accessor, resolveIdType(getClass()));
+			this.idProperty = currentIdProperty;
 		}
+		return currentIdProperty;
 	}
 
-	@Override
-	protected Row mapToRow(T entity) {
-		if (getRowConverter() != null) {
-			return super.mapToRow(entity);
-		} else {
-			return mapToRowByPresentAnnotations(entity);
+	/**
+	 * Тип идентификатора объекта, указанный при наследовании от {@link AnnotationBasedDatabaseStorageRepository}
+	 *
+	 * @param repositoryClass
+	 * @return NULL, если тип не удалось определить
+	 */
+	private static Class<?> resolveIdType(Class<?> repositoryClass) {
+		for (Class<?> type = repositoryClass; type != null && type != AnnotationBasedDatabaseStorageRepository.class; type = type.getSuperclass()) {
+			Type superClass = type.getGenericSuperclass();
+			if (superClass instanceof ParameterizedType && ((ParameterizedType) superClass).getRawType() == AnnotationBasedDatabaseStorageRepository.class) {
+				Type idType = ((ParameterizedType) superClass).getActualTypeArguments()[1];
+				return idType instanceof Class ? (Class<?>) idType : null;
+			}
 		}
+		return null;
 	}
 
-	private Row mapToRowByPresentAnnotations(T entity) {
-		Row row = new Row(getTable().getColumns());
-		row.getSpaceProperties()
-		   .forEach(column -> mapField(row, column, entity));
-		return row;
+	private ValueConvertersProvider getValueConvertersProvider() {
+		return this.valueConvertersProvider == null ? ValueConvertersProvider.getDefault() : this.valueConvertersProvider;
 	}
 
-	private void mapField(Row row, Column column, T entity) {
-		try {
-			String fieldName = this.repositoryDataDetails.getPropertyFieldName(column.getName());
-			if (fieldName != null) {
-				Class fieldType = this.repositoryDataDetails.getPropertyFieldType(column.getName());
-				Class columnType = null;
-				try {
-					columnType = Class.forName(column.getClassName());
-				} catch (Exception e) {
-					logger.error(e.getMessage(), e);
-				}
-
-				if (columnType != null) {
-					Optional<ValueConverter> rowValueConverter = this.valueConvertersProvider.getValueConverter(columnType, fieldType);
-					if (!rowValueConverter.isPresent()) {
-						rowValueConverter = Optional.ofNullable(this.repositoryDataDetails.getPropertyValueConverterInstance(column.getName()));
-					}
-
-					if (rowValueConverter.isPresent()) {
-						Object filedValue = getFieldValue(entity, fieldName, rowValueConverter.get());
-						row.setValue(column.getName(), filedValue);
-					} else {
-						logger.error(String.format("Не удалось найти подходящий <RowValueConverter> для преобразования типа <%s> в тип <%s>", columnType.getName(), fieldType.getName()));
-					}
-				} else {
-					logger.error(String.format("Не удалось определить Java-тип <%s> для сохранения данных в Столбце <%s>", column.getClassName(), column.getName()));
-				}
-				//row.setValue(column.getName(), getFieldValue(entity, fieldName));
-			}
-		} catch (Exception e) {
-			logger.error(e.getMessage(), e);
+	/**
+	 * Конвертер данных, если он явно не указан в {@link ru.rds.data.repository.annotations.RepositoryDataConverter}: созданный обработчиком аннотаций, либо
+	 * преобразующий данные на основе аннотаций.
+	 * <p>
+	 * Создается при первом обращении, т.к. провайдер конвертеров может быть передан уже после вызова {@link #initializeBefore()}
+	 *
+	 * @return
+	 */
+	private RowConverter<T> getDataRowConverter() {
+		RowConverter<T> rowConverter = this.dataRowConverter;
+		if (rowConverter == null) {
+			rowConverter = this.repositoryDataDetails.getDataRowConverter(getValueConvertersProvider());
+			this.dataRowConverter = rowConverter;
 		}
+		return rowConverter;
 	}
 
-	private Object getFieldValue(T object, String fieldName, ValueConverter valueConverter) {
-		Class<?> classForFieldsSearch = object.getClass();
-		Object fieldValue = null;
-		while (!Object.class.equals(classForFieldsSearch)) {
-			try {
-				Field field = classForFieldsSearch.getDeclaredField(fieldName);
-				boolean isAccessible = field.isAccessible();
-				if (!isAccessible) {
-					field.setAccessible(true);
-				}
-				if (valueConverter != null) {
-					fieldValue = valueConverter.convertTo(field.get(object));
-				} else {
-					fieldValue = field.get(object);
-				}
-				if (!isAccessible) {
-					field.setAccessible(false);
-				}
-				break;
-			} catch (Exception e) {
-				classForFieldsSearch = classForFieldsSearch.getSuperclass();
-			}
+	/**
+	 * Поле, содержащее идентификатор объекта, и тип идентификатора
+	 */
+	private static final class IdProperty {
+
+		private final RepositoryDataPropertyAccessor accessor;
+		private final Class<?>                       idType;
+
+		private IdProperty(RepositoryDataPropertyAccessor accessor, Class<?> idType) {
+			this.accessor = accessor;
+			this.idType = idType;
 		}
-		return fieldValue;
+
 	}
 
 }
@@ -0,0 +1,326 @@
+package ru.rds.data.repository;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.common.AssertChecker;
+import ru.rds.data.storage.*;
+
+/**
+ * Асинхронный доступ к {@link Repository}: каждая операция выполняется в отдельной задаче, а результат возвращается через {@link CompletableFuture}.
+ * <p>
+ * Количество одновременно выполняемых операций ограничено (обычно - размером пула соединений) и задается явно: операции сверх ограничения
+ * ожидают в очереди, не занимая потоков, и запускаются по мере завершения предыдущих. {@link DatabaseStorageRepository#createAsyncRepository()}
+ * определяет ограничение по размеру пула соединений Репозитория. Отмена {@link CompletableFuture} до запуска операции исключает ее из выполнения.
+ * <p>
+ * Если исполнитель не передан, используются виртуальные потоки (если среда выполнения их поддерживает), иначе - пул потоков по количеству
+ * одновременно выполняемых операций. Операции выполняются в других потоках, поэтому не участвуют в транзакции {@link RepositoryTransactions}
+ * и в единице работы {@link RepositoryUnitOfWork} вызывающего потока
+ *
+ * @param <T>  тип объекта
+ * @param <ID> тип идентификатора объекта
+ * @author RDS
+ * @version 1
+ * @see DatabaseStorageRepository#createAsyncRepository(int)
+ * @since 1.0.0
+ */
+public class AsyncRepository<T, ID> implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncRepository.class);
+
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+
+	private final Repository<T, ID> repository;
+	private final Executor          executor;
+
+	// Исполнитель создан этим объектом и должен быть остановлен при закрытии
+	private final boolean ownExecutor;
+
+	private final int maxConcurrency;
+
+	// Количество выполняемых в текущий момент операций
+	private final AtomicInteger running = new AtomicInteger();
+
+	// Операции, ожидающие запуска
+	private final Queue<Task<?>> pending = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean closed;
+
+	/**
+	 * @param repository     Репозиторий
+	 * @param maxConcurrency максимальное количество одновременно выполняемых операций (обычно - размер пула соединений)
+	 * @throws IllegalArgumentException если количество меньше 1
+	 */
+	public AsyncRepository(Repository<T, ID> repository, int maxConcurrency) {
+		this(repository, null, maxConcurrency, true);
+	}
+
+	/**
+	 * @param repository     Репозиторий
+	 * @param executor       исполнитель операций (не останавливается при закрытии)
+	 * @param maxConcurrency максимальное количество одновременно выполняемых операций (обычно - размер пула соединений)
+	 * @throws IllegalArgumentException если количество меньше 1
+	 */
+	public AsyncRepository(Repository<T, ID> repository, Executor executor, int maxConcurrency) {
+		this(repository, executor, maxConcurrency, false);
+	}
+
+	private AsyncRepository(Repository<T, ID> repository, Executor executor, int maxConcurrency, boolean ownExecutor) {
+		AssertChecker.notNull(repository, "Не передан Репозиторий для асинхронного доступа");
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException(String.format("Количество одновременно выполняемых операций должно быть больше 0: %d", maxConcurrency));
+		}
+		if (!ownExecutor) {
+			AssertChecker.notNull(executor, "Не передан исполнитель операций Репозитория");
+		}
+		this.repository = repository;
+		this.executor = ownExecutor ? createDefaultExecutor(maxConcurrency) : executor;
+		this.maxConcurrency = maxConcurrency;
+		this.ownExecutor = ownExecutor;
+	}
+
+	public Repository<T, ID> getRepository() {
+		return repository;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * Количество операций, ожидающих запуска
+	 *
+	 * @return
+	 */
+	public int getPendingCount() {
+		return this.pending.size();
+	}
+
+	public CompletableFuture<Optional<T>> findByIdAsync(ID id) {
+		return supplyAsync(repository -> repository.findById(id));
+	}
+
+	public CompletableFuture<Map<ID, T>> findAllByIdAsync(Collection<ID> ids) {
+		return supplyAsync(repository -> repository.findAllById(ids));
+	}
+
+	public CompletableFuture<List<T>> findAllAsync() {
+		return supplyAsync(Repository::findAll);
+	}
+
+	public CompletableFuture<List<T>> findAllAsync(List<ElementsSort> elementsSorts) {
+		return supplyAsync(repository -> repository.findAll(elementsSorts));
+	}
+
+	public CompletableFuture<List<T>> findAllAsync(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+		return supplyAsync(repository -> repository.findAll(selectionConditions, selectionType));
+	}
+
+	public CompletableFuture<List<T>> findAllAsync(List<ElementsSort> elementsSorts, List<ElementsSelectionCondition> selectionConditions,
+	                                               SelectionType selectionType) {
+		return supplyAsync(repository -> repository.findAll(elementsSorts, selectionConditions, selectionType));
+	}
+
+	public CompletableFuture<Section<T>> findAllAsync(Sectionable sectionable) {
+		return supplyAsync(repository -> repository.findAll(sectionable));
+	}
+
+	public CompletableFuture<RepositoryPage<T>> findPageAsync(RepositoryPageToken pageToken, int pageSize) {
+		return supplyAsync(repository -> repository.findPage(pageToken, pageSize));
+	}
+
+	public CompletableFuture<Long> countAsync() {
+		return supplyAsync(Repository::count);
+	}
+
+	public CompletableFuture<Long> countAsync(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+		return supplyAsync(repository -> repository.count(selectionConditions, selectionType));
+	}
+
+	public CompletableFuture<T> insertAsync(T entity) {
+		return supplyAsync(repository -> repository.insert(entity));
+	}
+
+	public CompletableFuture<List<RepositoryBatchResult>> insertAllAsync(Collection<T> entities) {
+		return supplyAsync(repository -> repository.insertAll(entities));
+	}
+
+	public CompletableFuture<T> saveAsync(T entity) {
+		return supplyAsync(repository -> repository.save(entity));
+	}
+
+	public CompletableFuture<List<RepositoryBatchResult>> saveAllAsync(Collection<T> entities) {
+		return supplyAsync(repository -> repository.saveAll(entities));
+	}
+
+	public CompletableFuture<RepositoryUpsertResult> upsertAsync(T entity) {
+		return supplyAsync(repository -> repository.upsert(entity));
+	}
+
+	public CompletableFuture<List<RepositoryUpsertResult>> upsertAllAsync(Collection<T> entities) {
+		return supplyAsync(repository -> repository.upsertAll(entities));
+	}
+
+	public CompletableFuture<Void> deleteAsync(T entity) {
+		return runAsync(repository -> repository.delete(entity));
+	}
+
+	public CompletableFuture<Void> deleteByIdAsync(ID id) {
+		return runAsync(repository -> repository.deleteById(id));
+	}
+
+	public CompletableFuture<Long> deleteAllByIdAsync(Collection<ID> ids) {
+		return supplyAsync(repository -> repository.deleteAllById(ids));
+	}
+
+	public CompletableFuture<Long> deleteByAsync(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+		return supplyAsync(repository -> repository.deleteBy(selectionConditions, selectionType));
+	}
+
+	public CompletableFuture<List<RepositoryBatchResult>> deleteAllAsync(Collection<T> entities) {
+		return supplyAsync(repository -> repository.deleteAll(entities));
+	}
+
+	public CompletableFuture<Void> deleteAllAsync() {
+		return runAsync(Repository::deleteAll);
+	}
+
+	/**
+	 * Асинхронное выполнение произвольной операции с Репозиторием с учетом ограничения количества одновременно выполняемых операций
+	 *
+	 * @param operation операция
+	 * @param <R>       тип результата
+	 * @return
+	 */
+	public <R> CompletableFuture<R> supplyAsync(Function<Repository<T, ID>, R> operation) {
+		AssertChecker.notNull(operation, "Не передана операция Репозитория");
+		if (this.closed) {
+			CompletableFuture<R> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("Асинхронный доступ к Репозиторию закрыт"));
+			return future;
+		}
+		Task<R> task = new Task<>(() -> operation.apply(this.repository));
+		this.pending.add(task);
+		dispatch();
+		return task.future;
+	}
+
+	private CompletableFuture<Void> runAsync(Consumer<Repository<T, ID>> operation) {
+		return supplyAsync(repository -> {
+			operation.accept(repository);
+			return null;
+		});
+	}
+
+	/**
+	 * Запуск ожидающих операций, пока не достигнуто ограничение количества одновременно выполняемых операций
+	 */
+	private void dispatch() {
+		while (!this.pending.isEmpty()) {
+			int currentRunning = this.running.get();
+			if (currentRunning >= this.maxConcurrency) {
+				// Операция будет запущена при завершении одной из выполняемых
+				return;
+			}
+			if (!this.running.compareAndSet(currentRunning, currentRunning + 1)) {
+				continue;
+			}
+			Task<?> task = this.pending.poll();
+			if (task == null) {
+				this.running.decrementAndGet();
+				continue;
+			}
+			try {
+				this.executor.execute(() -> {
+					try {
+						task.run();
+					} finally {
+						this.running.decrementAndGet();
+						dispatch();
+						shutdownIfCompleted();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				this.running.decrementAndGet();
+				task.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Прекращение приема новых операций. Уже запущенные и ожидающие операции выполняются, после чего исполнитель, созданный этим объектом,
+	 * останавливается
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		shutdownIfCompleted();
+	}
+
+	/**
+	 * Остановка собственного исполнителя после закрытия, когда все операции выполнены (ожидающие операции запускаются при завершении выполняемых,
+	 * поэтому до опустошения очереди исполнитель должен работать)
+	 */
+	private void shutdownIfCompleted() {
+		if (this.closed && this.ownExecutor && this.pending.isEmpty() && this.running.get() == 0) {
+			((ExecutorService) this.executor).shutdown();
+		}
+	}
+
+	/**
+	 * Исполнитель по-умолчанию: виртуальные потоки, если среда выполнения их поддерживает (Java 21+), иначе - пул потоков
+	 *
+	 * @param threadsCount количество потоков пула
+	 * @return
+	 */
+	private static ExecutorService createDefaultExecutor(int threadsCount) {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (NoSuchMethodException e) {
+			logger.debug("Виртуальные потоки не поддерживаются, операции Репозитория выполняются в пуле потоков");
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			logger.warn("Не удалось создать исполнитель на виртуальных потоках, операции Репозитория выполняются в пуле потоков", e);
+		}
+		return Executors.newFixedThreadPool(threadsCount, runnable -> {
+			Thread thread = new Thread(runnable, "repository-async-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Ожидающая запуска операция
+	 *
+	 * @param <R> тип результата
+	 */
+	private static final class Task<R> {
+
+		private final Supplier<R>          operation;
+		private final CompletableFuture<R> future = new CompletableFuture<>();
+
+		private Task(Supplier<R> operation) {
+			this.operation = operation;
+		}
+
+		private void run() {
+			// Операция, отмененная до запуска, не выполняется
+			if (this.future.isDone()) {
+				return;
+			}
+			try {
+				this.future.complete(this.operation.get());
+			} catch (Throwable e) {
+				this.future.completeExceptionally(e);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,29 @@
+package ru.rds.data.repository;
+
+/**
+ * Специализация {@link ValueConverter} для преобразования в примитивный тип <code>boolean</code> без упаковки значения.
+ * <p>
+ * Используется в {@link AbstractRowConverter#getBoolean(ru.rds.data.database.Row, String, boolean)}
+ *
+ * @param <SOURCE_TYPE> тип данных, из которого нужно преобразовать (обычно это тип данных в СУБД)
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public interface BooleanValueConverter<SOURCE_TYPE> extends ValueConverter<SOURCE_TYPE, Boolean> {
+
+	/**
+	 * Преобразование типа {@link SOURCE_TYPE} в тип <code>boolean</code>
+	 *
+	 * @param source экземпляр объекта типа {@link SOURCE_TYPE} (не может быть NULL)
+	 * @return
+	 */
+	boolean convertFromAsBoolean(SOURCE_TYPE source);
+
+	@Override
+	default Boolean convertFrom(SOURCE_TYPE source) {
+		return source == null ? null : convertFromAsBoolean(source);
+	}
+
+}
@@ -1,12 +1,30 @@
 package ru.rds.data.repository;
 
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.rds.data.database.*;
 import ru.rds.data.database.common.AssertChecker;
+import ru.rds.data.repository.cache.EntityCache;
+import ru.rds.data.repository.cache.OffHeapEntityCache;
+import ru.rds.data.repository.cache.QueryResultCache;
+import ru.rds.data.repository.flow.Publisher;
+import ru.rds.data.repository.flow.RepositoryPublisher;
+import ru.rds.data.repository.jdbc.JdbcDialect;
+import ru.rds.data.repository.jdbc.JdbcOperations;
+import ru.rds.data.repository.jdbc.JdbcRowCursor;
+import ru.rds.data.repository.jdbc.JdbcStatements;
+import ru.rds.data.repository.jdbc.JdbcValues;
 import ru.rds.data.storage.*;
 
 /**
@@ -23,22 +41,84 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 
 	private static final Logger logger = LoggerFactory.getLogger(DatabaseStorageRepository.class);
 
+	// Количество строк, получаемых от СУБД за одно обращение при последовательном чтении, по-умолчанию
+	public static final int DEFAULT_FETCH_SIZE = 500;
+
+	// Минимальное количество строк, начиная с которого преобразование выполняется параллельно, по-умолчанию
+	public static final int DEFAULT_PARALLEL_MAPPING_THRESHOLD = 10000;
+
+	// Максимальное количество идентификаторов в одном запросе при поиске по нескольким идентификаторам по-умолчанию
+	public static final int DEFAULT_ID_BATCH_SIZE = 500;
+
+	// Количество операций в одном пакете при массовом изменении данных по-умолчанию
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	// Количество групп идентификаторов, для которых отдельно учитываются изменения объектов в кэше (степень двойки)
+	private static final int ENTITY_GENERATION_STRIPES = 64;
+
+	// Get-методы максимального размера пула соединений: HikariCP, Apache DBCP 2, Tomcat JDBC, c3p0
+	private static final String[] POOL_SIZE_METHODS = {"getMaximumPoolSize", "getMaxTotal", "getMaxActive", "getMaxPoolSize"};
+
 	// Объект Таблицы, который будет соответствовать Репозиторий
 	private Table table;
 
+	// Источник соединений для операций, выполняемых напрямую через JDBC (может отсутствовать)
+	private DataSource dataSource;
+
+	// Количество строк, получаемых от СУБД за одно обращение при последовательном чтении
+	private int fetchSize = DEFAULT_FETCH_SIZE;
+
+	// Пул потоков для параллельного преобразования строк в объекты (если не задан, преобразование выполняется в вызывающем потоке)
+	private ForkJoinPool parallelMappingPool;
+
+	// Минимальное количество строк, начиная с которого преобразование выполняется параллельно
+	private int parallelMappingThreshold = DEFAULT_PARALLEL_MAPPING_THRESHOLD;
+
+	// Максимальное количество идентификаторов в одном запросе при поиске по нескольким идентификаторам
+	private int idBatchSize = DEFAULT_ID_BATCH_SIZE;
+
+	// Количество операций в одном пакете при массовом изменении данных
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	// Объединение одновременных запросов поиска по идентификатору (если не задано, каждый запрос выполняется отдельно)
+	private volatile RepositoryFindByIdCoalescer<T, ID> findByIdCoalescer;
+
+	// Кэш объектов по идентификатору (может отсутствовать)
+	private volatile EntityCache<ID, T> entityCache;
+
+	// Номера версий объектов в кэше для групп идентификаторов: увеличиваются при каждом изменении объекта через Репозиторий, чтобы загруженный
+	// до изменения объект не заменил в кэше измененный
+	private final AtomicLongArray entityGenerations = new AtomicLongArray(ENTITY_GENERATION_STRIPES);
+
+	// Кэш результатов выборок и подсчета количества объектов (может отсутствовать)
+	private volatile QueryResultCache<T> queryResultCache;
+
+	// Снимки значений столбцов загруженных объектов (если не заданы, сохраняются все столбцы)
+	private volatile EntitySnapshots entitySnapshots;
+
+	// Описание строк, использованное последним
+	private volatile RowDescriptor rowDescriptor;
+
 	public DatabaseStorageRepository(DataSource dataSource, DatabaseQueryBuilder databaseQueryBuilder) {
 		initializeBefore();
+		this.dataSource = dataSource;
 		DatabaseStorage database = new DatabaseStorage(dataSource, databaseQueryBuilder);
 		initialize(database.getSpace(getRepositoryName()).orElseGet(() -> null));
 	}
 
 	public DatabaseStorageRepository(DatabaseStorage databaseStorage) {
 		initializeBefore();
+		this.dataSource = databaseStorage.getDataSource();
 		initialize(databaseStorage.getSpace(getRepositoryName()).orElseGet(() -> null));
 	}
 
 	public DatabaseStorageRepository(Table table) {
+		this(table, null);
+	}
+
+	public DatabaseStorageRepository(Table table, DataSource dataSource) {
 		initializeBefore();
+		this.dataSource = dataSource;
 		initialize(table);
 	}
 
@@ -77,6 +157,44 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 	 */
 	protected abstract Object getIdValue(ID id, String idColumnName);
 
+	/**
+	 * Возвращает идентификатор объекта ({@link AnnotationBasedDatabaseStorageRepository} определяет его по полю, сопоставленному столбцу-ключу).
+	 * <p>
+	 * Используется для обновления кэша объектов при изменении данных: если идентификатор не известен, при любом изменении кэш очищается полностью
+	 *
+	 * @param entity
+	 * @return NULL, если идентификатор не известен
+	 */
+	protected ID getId(T entity) {
+		return null;
+	}
+
+	/**
+	 * Название столбца, содержащего номер версии объекта для оптимистической блокировки.
+	 * <p>
+	 * Если столбец указан, {@link #save(Object)}, {@link #upsert(Object)} и {@link #delete(Object)} изменяют строку только при совпадении номера версии
+	 * (сохранение при этом увеличивает номер версии тем же запросом), а при несовпадении выбрасывают {@link RepositoryOptimisticLockException}.
+	 * Пакетные {@link #saveAll(Collection)}, {@link #upsertAll(Collection)} и {@link #deleteAll(Collection)} выполняются в одной транзакции: конфликт
+	 * любого объекта отменяет изменения всех объектов. Удаление по идентификатору выполняется только с номером версии
+	 * ({@link #deleteById(Object, Object)}). Проверка номера версии и изменение строки
+	 * выполняются одним запросом через JDBC, поэтому для этих операций необходим {@link DataSource}. {@link #deleteBy(List, SelectionType)},
+	 * {@link #deleteAll()} и {@link #truncate()} номер версии не проверяют
+	 *
+	 * @return NULL, если оптимистическая блокировка не используется
+	 */
+	protected String getVersionColumnName() {
+		return null;
+	}
+
+	/**
+	 * Установка нового номера версии объекта после успешного сохранения
+	 *
+	 * @param entity  объект
+	 * @param version новый номер версии (значение столбца)
+	 */
+	protected void applyVersion(T entity, Object version) {
+	}
+
 	/**
 	 * Объект {@link Table}, соответствующий таблице Репозитория в БД.
 	 *
@@ -86,21 +204,553 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 		return table;
 	}
 
+	/**
+	 * Источник соединений для операций, которые Репозиторий выполняет напрямую через JDBC: переданный в конструктор, либо источник
+	 * {@link DatabaseStorage}, из которого создан Репозиторий. Может быть заменен через {@link #setDataSource(DataSource)}.
+	 * <p>
+	 * Источник отсутствует, только если Репозиторий создан из {@link Table} без {@link DataSource}. Тогда через {@link Table} выполняются только
+	 * операции, результат которых не зависит от способа выполнения: получение, добавление, сохранение и удаление одного объекта, выборка по
+	 * критериям, подсчет и удаление всех объектов, а также поиск нескольких объектов по простому ключу.
+	 * Остальные операции без {@link DataSource} выбрасывают {@link RepositoryException}, а не выполняются через {@link Table} с другим результатом:
+	 * <ul>
+	 * <li>последовательное чтение ({@link #stream()}, {@link #publisher(Executor)}) - через {@link Table} выборка загружается целиком;</li>
+	 * <li>получение страниц по ключу ({@link #findPage(RepositoryPageToken, int)}, {@link #findPageAfter(Object, int)});</li>
+	 * <li>поиск нескольких объектов по составному ключу ({@link #findAllById(Collection)}) - через {@link Table} выполняется запрос на каждый
+	 * идентификатор;</li>
+	 * <li>пакетные операции ({@link #insertAll(Collection)}, {@link #saveAll(Collection)}, {@link #deleteAll(Collection)}) - через {@link Table}
+	 * они выполняются построчно, не в одной транзакции и без количества измененных строк;</li>
+	 * <li>{@link #upsert(Object)}, {@link #upsertAll(Collection)}, {@link #deleteAllById(Collection)}, {@link #deleteBy(List, SelectionType)} -
+	 * через {@link Table} наличие строк проверяется отдельным запросом, и результат может не соответствовать изменениям других участников;</li>
+	 * <li>сохранение и удаление с проверкой номера версии (см. {@link #getVersionColumnName()}).</li>
+	 * </ul>
+	 * {@link #truncate()} без {@link DataSource} выполняется как {@link #deleteAll()}
+	 *
+	 * @return NULL, если источник соединений не известен
+	 */
+	protected DataSource getDataSource() {
+		return dataSource;
+	}
+
+	/**
+	 * Источник соединений для операции, которая не может быть выполнена через {@link Table} (см. {@link #getDataSource()})
+	 *
+	 * @param operation описание операции
+	 * @return никогда не возвращает NULL
+	 */
+	private DataSource requireDataSource(String operation) {
+		DataSource currentDataSource = getDataSource();
+		if (currentDataSource == null) {
+			throw new RepositoryException(String.format("Для выполнения операции <%s> Хранилищу <%s> необходим <DataSource>", operation, getRepositoryName()));
+		}
+		return currentDataSource;
+	}
+
+	public void setDataSource(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Установка количества строк, получаемых от СУБД за одно обращение при последовательном чтении ({@link #stream()})
+	 *
+	 * @param fetchSize
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public int getIdBatchSize() {
+		return idBatchSize;
+	}
+
+	/**
+	 * Установка максимального количества идентификаторов в одном запросе при поиске по нескольким идентификаторам ({@link #findAllById(Collection)})
+	 *
+	 * @param idBatchSize
+	 */
+	public void setIdBatchSize(int idBatchSize) {
+		this.idBatchSize = idBatchSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Установка количества операций в одном пакете при массовом изменении данных ({@link #insertAll(Collection)}, {@link #saveAll(Collection)},
+	 * {@link #deleteAll(Collection)})
+	 *
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Создание буфера отложенной записи изменений объектов этого Репозитория (идентификаторы объектов определяются через {@link #getId(Object)}).
+	 * <p>
+	 * Накопленные изменения записываются пакетными операциями, поэтому Репозиторию необходим {@link DataSource} (см. {@link #getDataSource()})
+	 *
+	 * @param capacity            максимальное количество объектов, ожидающих записи
+	 * @param flushSize           количество объектов, при накоплении которого выполняется запись
+	 * @param flushIntervalMillis интервал записи в миллисекундах
+	 * @return
+	 */
+	public RepositoryWriteBehindBuffer<T, ID> createWriteBehindBuffer(int capacity, int flushSize, long flushIntervalMillis) {
+		return new RepositoryWriteBehindBuffer<>(this, this::getId, capacity, flushSize, flushIntervalMillis);
+	}
+
+	/**
+	 * Создание асинхронного доступа к этому Репозиторию
+	 *
+	 * @param maxConcurrency максимальное количество одновременно выполняемых операций (обычно - размер пула соединений)
+	 * @return
+	 */
+	public AsyncRepository<T, ID> createAsyncRepository(int maxConcurrency) {
+		return new AsyncRepository<>(this, maxConcurrency);
+	}
+
+	/**
+	 * Создание асинхронного доступа к этому Репозиторию с ограничением одновременно выполняемых операций по размеру пула соединений {@link DataSource}
+	 * Репозитория (HikariCP, Apache DBCP, Tomcat JDBC, c3p0)
+	 *
+	 * @return
+	 * @throws RepositoryException если размер пула соединений не удается определить (тогда ограничение передается в
+	 *                             {@link #createAsyncRepository(int)})
+	 */
+	public AsyncRepository<T, ID> createAsyncRepository() {
+		int maximumPoolSize = getMaximumPoolSize(requireDataSource("определение размера пула соединений"));
+		if (maximumPoolSize < 1) {
+			throw new RepositoryException(String.format("Не удалось определить размер пула соединений Хранилища <%s>: передайте количество одновременно " +
+			                                            "выполняемых операций явно", getRepositoryName()));
+		}
+		return new AsyncRepository<>(this, maximumPoolSize);
+	}
+
+	/**
+	 * Максимальный размер пула соединений, определяемый по get-методам распространенных пулов
+	 *
+	 * @param dataSource источник соединений
+	 * @return 0, если размер не удалось определить
+	 */
+	private static int getMaximumPoolSize(DataSource dataSource) {
+		DataSource targetDataSource = dataSource instanceof RepositoryTransactionalDataSource
+		                              ? ((RepositoryTransactionalDataSource) dataSource).getTargetDataSource()
+		                              : dataSource;
+		for (String methodName : POOL_SIZE_METHODS) {
+			try {
+				Object size = targetDataSource.getClass().getMethod(methodName).invoke(targetDataSource);
+				if (size instanceof Integer && (Integer) size > 0) {
+					return (Integer) size;
+				}
+			} catch (NoSuchMethodException e) {
+				// Метод другого пула соединений
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				logger.debug(String.format("Не удалось получить размер пула соединений через <%s>", methodName), e);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Включение объединения одновременных запросов {@link #findById(Object)}: запросы, поступившие в течение windowMillis, выполняются одним запросом
+	 * {@link #findAllById(Collection)} (но не более maxBatchSize идентификаторов). Поиск в транзакции {@link RepositoryTransactions} и в единице
+	 * работы {@link RepositoryUnitOfWork} выполняется без объединения
+	 *
+	 * @param windowMillis интервал накопления запросов в миллисекундах (0 - выключить объединение)
+	 * @param maxBatchSize максимальное количество идентификаторов в одном запросе
+	 */
+	public void setFindByIdCoalescing(long windowMillis, int maxBatchSize) {
+		setFindByIdCoalescer(windowMillis > 0 ? new RepositoryFindByIdCoalescer<>(this, windowMillis, maxBatchSize) : null);
+	}
+
+	/**
+	 * Включение объединения одновременных запросов {@link #findById(Object)} с выполнением групп переданным исполнителем
+	 *
+	 * @param windowMillis интервал накопления запросов в миллисекундах (0 - выключить объединение)
+	 * @param maxBatchSize максимальное количество идентификаторов в одном запросе
+	 * @param executor     исполнитель групп запросов (не останавливается Репозиторием)
+	 * @see #setFindByIdCoalescing(long, int)
+	 */
+	public void setFindByIdCoalescing(long windowMillis, int maxBatchSize, Executor executor) {
+		setFindByIdCoalescer(windowMillis > 0 ? new RepositoryFindByIdCoalescer<>(this, windowMillis, maxBatchSize, executor) : null);
+	}
+
+	private void setFindByIdCoalescer(RepositoryFindByIdCoalescer<T, ID> coalescer) {
+		RepositoryFindByIdCoalescer<T, ID> previousCoalescer = this.findByIdCoalescer;
+		this.findByIdCoalescer = coalescer;
+		if (previousCoalescer != null) {
+			previousCoalescer.close();
+		}
+	}
+
+	public EntityCache<ID, T> getEntityCache() {
+		return entityCache;
+	}
+
+	/**
+	 * Установка кэша объектов по идентификатору: {@link #findById(Object)} и {@link #findAllById(Collection)} сначала обращаются к кэшу, а изменения
+	 * данных через Репозиторий обновляют его.
+	 * <p>
+	 * Внутри транзакции {@link RepositoryTransactions} кэш не читается и не пополняется, а изменения попадают в него только после фиксации транзакции
+	 *
+	 * @param entityCache кэш объектов (NULL - не использовать кэш)
+	 */
+	public void setEntityCache(EntityCache<ID, T> entityCache) {
+		this.entityCache = entityCache;
+	}
+
+	/**
+	 * Создание кэша объектов, хранящего данные вне кучи Java, для использования в {@link #setEntityCache(EntityCache)}: объекты сохраняются в виде
+	 * значений столбцов Таблицы и создаются заново с помощью {@link RowConverter} Репозитория
+	 *
+	 * @param memoryBudget максимальный объем памяти вне кучи в байтах
+	 * @return
+	 */
+	public OffHeapEntityCache<ID, T> createOffHeapEntityCache(long memoryBudget) {
+		return new OffHeapEntityCache<>(getRowConverter(), this.table.getColumns(), memoryBudget);
+	}
+
+	public boolean isDirtyChecking() {
+		return entitySnapshots != null;
+	}
+
+	/**
+	 * Включение сохранения только измененных столбцов: для объектов, загруженных или добавленных через Репозиторий, запоминаются значения столбцов,
+	 * и {@link #save(Object)} изменяет только столбцы, значения которых отличаются (либо не выполняет запрос, если изменений нет)
+	 *
+	 * @param dirtyChecking
+	 */
+	public void setDirtyChecking(boolean dirtyChecking) {
+		this.entitySnapshots = dirtyChecking ? new EntitySnapshots() : null;
+	}
+
+	/**
+	 * Создание кэша результатов для использования в {@link #setQueryResultCache(QueryResultCache)}, который копирует объекты через
+	 * {@link RowConverter} Репозитория: получатели результата не изменяют сохраненные объекты и объекты друг друга
+	 *
+	 * @param maximumWeight максимальное суммарное количество объектов в сохраненных результатах
+	 * @return
+	 */
+	public QueryResultCache<T> createQueryResultCache(long maximumWeight) {
+		RowConverter<T> rowConverter = getRowConverter();
+		List<Column> columns = this.table.getColumns();
+		return new QueryResultCache<>(maximumWeight, entity -> rowConverter.fromRow(rowConverter.toRow(columns, entity)));
+	}
+
+	public QueryResultCache<T> getQueryResultCache() {
+		return queryResultCache;
+	}
+
+	/**
+	 * Установка кэша результатов {@link #findAll(List, List, SelectionType)} и {@link #count(List, SelectionType)}: любое изменение данных через
+	 * Репозиторий очищает его
+	 *
+	 * @param queryResultCache кэш результатов (NULL - не использовать кэш)
+	 */
+	public void setQueryResultCache(QueryResultCache<T> queryResultCache) {
+		this.queryResultCache = queryResultCache;
+	}
+
+	public ForkJoinPool getParallelMappingPool() {
+		return parallelMappingPool;
+	}
+
+	public int getParallelMappingThreshold() {
+		return parallelMappingThreshold;
+	}
+
+	/**
+	 * Включение параллельного преобразования строк в объекты: результаты выборки, содержащие не менее threshold строк, преобразуются в потоках
+	 * переданного пула (порядок объектов сохраняется).
+	 * <p>
+	 * Используемый {@link RowConverter} должен допускать одновременное обращение из нескольких потоков
+	 *
+	 * @param pool      пул потоков (NULL - выключить параллельное преобразование)
+	 * @param threshold минимальное количество строк
+	 */
+	public void setParallelMapping(ForkJoinPool pool, int threshold) {
+		this.parallelMappingPool = pool;
+		this.parallelMappingThreshold = threshold;
+	}
+
 	@Override
 	public Optional<T> findById(ID id) {
+		// В рамках единицы работы объект загружается один раз
+		RepositoryUnitOfWork unitOfWork = RepositoryUnitOfWork.current().orElseGet(() -> null);
+		if (unitOfWork != null && unitOfWork.contains(this, id)) {
+			return unitOfWork.get(this, id);
+		}
+		Optional<T> entity = findByIdUncached(id);
+		if (unitOfWork != null) {
+			unitOfWork.put(this, id, entity.orElseGet(() -> null));
+		}
+		return entity;
+	}
+
+	/**
+	 * Поиск объекта по идентификатору без учета единицы работы
+	 *
+	 * @param id
+	 * @return
+	 */
+	private Optional<T> findByIdUncached(ID id) {
+		EntityCache<ID, T> cache = getSharedEntityCache();
+		if (cache != null) {
+			T entity = cache.get(id);
+			if (entity != null) {
+				return Optional.of(entity);
+			}
+		}
+		RepositoryFindByIdCoalescer<T, ID> coalescer = this.findByIdCoalescer;
+		// Группа запросов выполняется в другом потоке, поэтому поиск в транзакции или в единице работы выполняется без объединения
+		if (coalescer != null && !RepositoryTransactions.isActive() && !RepositoryUnitOfWork.current().isPresent()) {
+			// Найденный объект добавляется в кэш при выполнении группы запросов через findAllById
+			return coalescer.get(id);
+		}
+		long generation = getEntityGeneration(id);
 		// Формирование критериев отбора для поиска данных по идентификатору
-		List<ElementsSelectionCondition> selectionConditions = table.getIdColumns()
-		                                                            .stream()
-		                                                            .map(column -> {
-			                                                            ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
-			                                                            selectionCondition.setSpacePropertyName(column.getName());
-			                                                            selectionCondition.setSpacePropertyValue(getIdValue(id, column.getName()));
-			                                                            selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
-			                                                            return selectionCondition;
-		                                                            }).collect(Collectors.toList());
+		List<ElementsSelectionCondition> selectionConditions = getIdSelectionConditions(id);
 
 		Optional<Row> row = table.getElements(selectionConditions, SelectionType.AND).stream().findFirst();
-		return row.map(this::mapFromRow);
+		Optional<T> entity = row.map(this::mapFromRow);
+		if (cache != null) {
+			entity.ifPresent(value -> cacheLoadedEntity(cache, id, value, generation));
+		}
+		return entity;
+	}
+
+	/**
+	 * Кэш объектов для чтения и сохранения загруженных объектов. Внутри транзакции {@link RepositoryTransactions} кэш не используется: в нем нет
+	 * изменений этой транзакции, а объекты, загруженные в транзакции, могут содержать не зафиксированные изменения
+	 *
+	 * @return NULL, если кэш не используется
+	 */
+	private EntityCache<ID, T> getSharedEntityCache() {
+		return RepositoryTransactions.isActive() ? null : this.entityCache;
+	}
+
+	/**
+	 * Кэш результатов выборок, не используемый внутри транзакции (см. {@link #getSharedEntityCache()})
+	 *
+	 * @return NULL, если кэш не используется
+	 */
+	private QueryResultCache<T> getSharedQueryResultCache() {
+		return RepositoryTransactions.isActive() ? null : this.queryResultCache;
+	}
+
+	private int getEntityGenerationIndex(ID id) {
+		int hash = id.hashCode();
+		return (hash ^ (hash >>> 16)) & (ENTITY_GENERATION_STRIPES - 1);
+	}
+
+	/**
+	 * Номер версии объекта в кэше: запоминается до загрузки объекта из БД
+	 *
+	 * @param id
+	 * @return
+	 */
+	private long getEntityGeneration(ID id) {
+		return this.entityGenerations.get(getEntityGenerationIndex(id));
+	}
+
+	/**
+	 * Учет изменения объекта: выполняется до обновления кэша, чтобы объекты, загружаемые одновременно с изменением, не были сохранены в кэше
+	 *
+	 * @param id идентификатор объекта (NULL - изменены все объекты)
+	 */
+	private void advanceEntityGeneration(ID id) {
+		if (id != null) {
+			this.entityGenerations.incrementAndGet(getEntityGenerationIndex(id));
+		} else {
+			for (int i = 0; i < ENTITY_GENERATION_STRIPES; i++) {
+				this.entityGenerations.incrementAndGet(i);
+			}
+		}
+	}
+
+	/**
+	 * Добавление загруженного из БД объекта в кэш, если объект не был изменен через Репозиторий с момента начала загрузки.
+	 * <p>
+	 * Номер версии проверяется повторно после добавления: если изменение произошло между проверкой и добавлением, загруженный объект мог заменить
+	 * измененный, поэтому он удаляется из кэша
+	 *
+	 * @param cache      кэш объектов
+	 * @param id         идентификатор объекта
+	 * @param entity     загруженный объект
+	 * @param generation номер версии на момент начала загрузки
+	 */
+	private void cacheLoadedEntity(EntityCache<ID, T> cache, ID id, T entity, long generation) {
+		if (getEntityGeneration(id) != generation) {
+			return;
+		}
+		cache.put(id, entity);
+		if (getEntityGeneration(id) != generation) {
+			cache.invalidate(id);
+		}
+	}
+
+	@Override
+	public Map<ID, T> findAllById(Collection<ID> ids) {
+		List<ID> uniqueIds = ids.stream()
+		                        .filter(Objects::nonNull)
+		                        .distinct()
+		                        .collect(Collectors.toList());
+		Map<ID, T> entities = new LinkedHashMap<>();
+		if (uniqueIds.isEmpty()) {
+			return entities;
+		}
+		// Объекты, имеющиеся в единице работы или в кэше, из БД не запрашиваются
+		RepositoryUnitOfWork unitOfWork = RepositoryUnitOfWork.current().orElseGet(() -> null);
+		EntityCache<ID, T> cache = getSharedEntityCache();
+		Map<ID, T> cachedEntities = new HashMap<>();
+		uniqueIds.forEach(id -> {
+			if (unitOfWork != null && unitOfWork.contains(this, id)) {
+				cachedEntities.put(id, unitOfWork.get(this, id).orElseGet(() -> null));
+			} else if (cache != null) {
+				T entity = cache.get(id);
+				if (entity != null) {
+					cachedEntities.put(id, entity);
+				}
+			}
+		});
+		List<ID> missingIds = cachedEntities.isEmpty() ? uniqueIds : uniqueIds.stream()
+		                                                                      .filter(id -> !cachedEntities.containsKey(id))
+		                                                                      .collect(Collectors.toList());
+		Map<ID, Long> generations = new HashMap<>();
+		if (cache != null) {
+			missingIds.forEach(id -> generations.put(id, getEntityGeneration(id)));
+		}
+		// Строки сопоставляются с идентификаторами по значениям столбцов-ключей, приведенным к Java-типам столбцов
+		Map<List<Object>, Row> rows = new HashMap<>();
+		int batchSize = Math.max(1, this.idBatchSize);
+		for (int i = 0; i < missingIds.size(); i += batchSize) {
+			findRowsById(missingIds.subList(i, Math.min(i + batchSize, missingIds.size())))
+				.forEach(row -> rows.put(getRowKey(row), row));
+		}
+		for (ID id : uniqueIds) {
+			T entity = cachedEntities.get(id);
+			if (!cachedEntities.containsKey(id)) {
+				Row row = rows.get(getIdKey(id));
+				if (row != null) {
+					entity = mapFromRow(row);
+					if (entity != null && cache != null) {
+						cacheLoadedEntity(cache, id, entity, generations.get(id));
+					}
+				}
+				if (unitOfWork != null) {
+					unitOfWork.put(this, id, entity);
+				}
+			}
+			if (entity != null) {
+				entities.put(id, entity);
+			}
+		}
+		return entities;
+	}
+
+	/**
+	 * Получение строк для нескольких идентификаторов одним запросом
+	 *
+	 * @param ids перечень идентификаторов
+	 * @return
+	 */
+	private List<Row> findRowsById(List<ID> ids) {
+		List<Column> idColumns = this.table.getIdColumns();
+		if (idColumns.size() == 1 && getDataSource() == null) {
+			// Для простого ключа достаточно объединить условия на равенство через OR
+			String idColumnName = idColumns.get(0).getName();
+			List<ElementsSelectionCondition> selectionConditions = ids.stream()
+			                                                          .map(id -> {
+				                                                          ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
+				                                                          selectionCondition.setSpacePropertyName(idColumnName);
+				                                                          selectionCondition.setSpacePropertyValue(getIdValue(id, idColumnName));
+				                                                          selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
+				                                                          return selectionCondition;
+			                                                          }).collect(Collectors.toList());
+			return this.table.getElements(selectionConditions, SelectionType.OR);
+		}
+		DataSource currentDataSource = requireDataSource("поиск по составному ключу");
+		List<Column> columns = this.table.getColumns();
+		List<Object> parameters = new ArrayList<>();
+		ids.forEach(id -> idColumns.forEach(column -> parameters.add(JdbcValues.toParameterValue(column, getIdValue(id, column.getName())))));
+		String sql = JdbcStatements.selectByKeys(JdbcOperations.dialect(currentDataSource), getRepositoryName(), columns, idColumns, ids.size());
+		return JdbcOperations.query(currentDataSource, sql, parameters, columns, 0);
+	}
+
+	/**
+	 * Значения столбцов-ключей строки
+	 *
+	 * @param row
+	 * @return
+	 */
+	private List<Object> getRowKey(Row row) {
+		return this.table.getIdColumns()
+		                 .stream()
+		                 .map(column -> toKeyValue(column, row.getValue(column.getName()).orElseGet(() -> null)))
+		                 .collect(Collectors.toList());
+	}
+
+	/**
+	 * Значения столбцов-ключей для идентификатора
+	 *
+	 * @param id
+	 * @return
+	 */
+	private List<Object> getIdKey(ID id) {
+		return this.table.getIdColumns()
+		                 .stream()
+		                 .map(column -> toKeyValue(column, getIdValue(id, column.getName())))
+		                 .collect(Collectors.toList());
+	}
+
+	/**
+	 * Значение столбца-ключа для сравнения: значение приводится к Java-типу столбца так же, как значение параметра запроса, а числа сравниваются по
+	 * величине (значение строки и значение идентификатора могут иметь разные числовые типы и масштаб)
+	 *
+	 * @param column столбец-ключ
+	 * @param value  значение строки либо идентификатора
+	 * @return
+	 */
+	private static Object toKeyValue(Column column, Object value) {
+		Object keyValue;
+		try {
+			keyValue = JdbcValues.toConditionValue(column, value);
+		} catch (IllegalArgumentException e) {
+			// Строка, которая не приводится к типу столбца, сравнивается без преобразования
+			keyValue = JdbcValues.toParameterValue(column, value);
+		}
+		if (keyValue instanceof Number) {
+			try {
+				BigDecimal number = new BigDecimal(keyValue.toString());
+				return number.signum() == 0 ? BigDecimal.ZERO : number.stripTrailingZeros();
+			} catch (NumberFormatException e) {
+				// Бесконечность и NaN сравниваются без преобразования
+				return keyValue;
+			}
+		}
+		return keyValue;
+	}
+
+	/**
+	 * Формирование критериев отбора для поиска данных по идентификатору
+	 *
+	 * @param id
+	 * @return
+	 */
+	protected List<ElementsSelectionCondition> getIdSelectionConditions(ID id) {
+		return this.table.getIdColumns()
+		                 .stream()
+		                 .map(column -> {
+			                 ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
+			                 selectionCondition.setSpacePropertyName(column.getName());
+			                 selectionCondition.setSpacePropertyValue(getIdValue(id, column.getName()));
+			                 selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
+			                 return selectionCondition;
+		                 }).collect(Collectors.toList());
 	}
 
 	@Override
@@ -120,6 +770,11 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 
 	@Override
 	public List<T> findAll(List<ElementsSort> elementsSorts, List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+		QueryResultCache<T> cache = getSharedQueryResultCache();
+		if (cache != null) {
+			return cache.getElements(elementsSorts, selectionConditions, selectionType,
+			                         () -> mapFromRows(this.table.getElements(elementsSorts, selectionConditions, selectionType)));
+		}
 		List<Row> rows = this.table.getElements(elementsSorts, selectionConditions, selectionType);
 		return mapFromRows(rows);
 	}
@@ -131,6 +786,95 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 		return repositorySection;
 	}
 
+	@Override
+	public RepositoryPage<T> findPage(RepositoryPageToken pageToken, int pageSize) {
+		return findPageAfterKey(pageToken == null ? null : pageToken.getKeyValues(), pageSize);
+	}
+
+	@Override
+	public RepositoryPage<T> findPageAfter(ID lastId, int pageSize) {
+		if (lastId == null) {
+			return findPageAfterKey(null, pageSize);
+		}
+		List<Object> keyValues = table.getIdColumns()
+		                              .stream()
+		                              .map(column -> getIdValue(lastId, column.getName()))
+		                              .collect(Collectors.toList());
+		return findPageAfterKey(keyValues, pageSize);
+	}
+
+	/**
+	 * Получение страницы объектов, ключ которых больше переданного
+	 *
+	 * @param keyValues значения столбцов-ключей (NULL - первая страница)
+	 * @param pageSize  количество объектов на странице
+	 * @return
+	 */
+	private RepositoryPage<T> findPageAfterKey(List<Object> keyValues, int pageSize) {
+		DataSource currentDataSource = requireDataSource("получение страниц по ключу");
+		if (pageSize <= 0) {
+			return RepositoryPage.empty();
+		}
+		List<Column> columns = this.table.getColumns();
+		List<Column> idColumns = this.table.getIdColumns();
+		List<Object> parameters = new ArrayList<>();
+		if (keyValues != null) {
+			for (int i = 0; i < idColumns.size(); i++) {
+				parameters.add(JdbcValues.toParameterValue(idColumns.get(i), keyValues.get(i)));
+			}
+			parameters = JdbcStatements.keysetParameters(parameters);
+		}
+		String sql = JdbcStatements.selectAfterKey(JdbcOperations.dialect(currentDataSource), getRepositoryName(), columns, idColumns, keyValues == null);
+		// Лишняя строка запрашивается только для того, чтобы определить наличие следующей страницы
+		List<Row> rows = JdbcOperations.query(currentDataSource, sql, parameters, columns, pageSize + 1);
+		RepositoryPageToken nextPageToken = null;
+		if (rows.size() > pageSize) {
+			rows = rows.subList(0, pageSize);
+			Row lastRow = rows.get(pageSize - 1);
+			nextPageToken = new RepositoryPageToken(idColumns.stream()
+			                                                 .map(column -> lastRow.getValue(column.getName()).orElseGet(() -> null))
+			                                                 .collect(Collectors.toList()));
+		}
+		return new RepositoryPage<>(mapFromRows(rows), nextPageToken);
+	}
+
+	@Override
+	public Stream<T> stream() {
+		return openStream(cancelAction -> {
+		});
+	}
+
+	/**
+	 * Последовательное чтение, запрос которого может быть прерван из другого потока
+	 *
+	 * @param cancellation получает действие, прерывающее выполняемый запрос
+	 * @return
+	 */
+	private Stream<T> openStream(Consumer<Runnable> cancellation) {
+		DataSource currentDataSource = requireDataSource("последовательное чтение");
+		List<Column> columns = this.table.getColumns();
+		String sql = JdbcStatements.select(JdbcOperations.dialect(currentDataSource), getRepositoryName(), columns);
+		JdbcRowCursor cursor = new JdbcRowCursor(currentDataSource, sql, Collections.emptyList(), columns, this.fetchSize, cancellation);
+		Spliterator<Row> rows = Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(rows, false)
+		                    .onClose(cursor::close)
+		                    .map(this::mapFromRow)
+		                    .filter(Objects::nonNull);
+	}
+
+	/**
+	 * Наличие {@link DataSource} проверяется при создании {@link Publisher}, а не при первом запросе объектов получателем. Отмена подписки во время
+	 * чтения в другом потоке прерывает выполняемый запрос
+	 *
+	 * @param executor исполнитель чтения (NULL - чтение в потоке, запросившем объекты)
+	 * @return
+	 */
+	@Override
+	public Publisher<T> publisher(Executor executor) {
+		requireDataSource("последовательное чтение");
+		return new RepositoryPublisher<>(this::openStream, executor);
+	}
+
 	@Override
 	public long count() {
 		return count(null, null);
@@ -138,6 +882,10 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 
 	@Override
 	public long count(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+		QueryResultCache<T> cache = getSharedQueryResultCache();
+		if (cache != null) {
+			return cache.getCount(selectionConditions, selectionType, () -> this.table.getElementsCount(selectionConditions, selectionType));
+		}
 		return this.table.getElementsCount(selectionConditions, selectionType);
 	}
 
@@ -146,77 +894,804 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 		AssertChecker.notNull(entity, "Переданная сущность не может быть сохранена в Репозитории <%>");
 		Row row = mapToRow(entity);
 		this.table.createElement(row);
+		takeSnapshot(entity, row);
+		cacheEntity(entity);
 		return entity;
 	}
 
 	@Override
 	public T save(T entity) {
 		Row row = mapToRow(entity);
+		EntitySnapshots snapshots = this.entitySnapshots;
+		Object[] snapshot = snapshots == null ? null : snapshots.get(entity);
+		if (snapshot != null || getVersionColumn() != null) {
+			saveChanges(entity, row, snapshot);
+			return entity;
+		}
 		// Формирование условий, чтобы найти и сохранить данные для нужного объекта
-		List<ElementsSelectionCondition> selectionConditions = table.getIdColumns()
-		                                                            .stream()
-		                                                            .map(column -> {
-			                                                            Object idValue = row.getValue(column.getName()).orElseGet(() -> null);
-
-			                                                            ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
-			                                                            selectionCondition.setSpacePropertyName(column.getName());
-			                                                            selectionCondition.setSpacePropertyValue(idValue == null ? null : String.valueOf(idValue));
-			                                                            selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
-			                                                            return selectionCondition;
-		                                                            }).collect(Collectors.toList());
+		List<ElementsSelectionCondition> selectionConditions = getIdSelectionConditions(row);
 		table.updateElements(row, selectionConditions);
+		takeSnapshot(entity, row);
+		cacheEntity(entity);
 		return entity;
 	}
 
+	/**
+	 * Сохранение только тех столбцов, значения которых отличаются от снимка объекта, и (или) с проверкой номера версии объекта
+	 *
+	 * @param entity   объект
+	 * @param row      текущие значения столбцов
+	 * @param snapshot значения столбцов на момент загрузки или предыдущего сохранения (NULL - сохраняются все столбцы)
+	 */
+	private void saveChanges(T entity, Row row, Object[] snapshot) {
+		List<Column> columns = this.table.getColumns();
+		List<Column> idColumns = this.table.getIdColumns();
+		Column versionColumn = getVersionColumn();
+		List<Column> changedColumns = new ArrayList<>();
+		for (int i = 0; i < columns.size(); i++) {
+			Column column = columns.get(i);
+			if (column == versionColumn) {
+				continue;
+			}
+			Object value = row.getValue(column.getName()).orElseGet(() -> null);
+			if (snapshot == null ? !isIdColumn(column) : !Objects.deepEquals(snapshot[i], JdbcValues.toParameterValue(column, value))) {
+				changedColumns.add(column);
+			}
+		}
+		if (changedColumns.isEmpty() && snapshot != null) {
+			logger.debug(String.format("Сущность в Репозитории <%s> не изменена, сохранение не требуется", getRepositoryName()));
+			return;
+		}
+		// Строка ищется по значениям ключа из снимка (на случай, если изменен сам ключ)
+		Row idRow = new Row(idColumns);
+		for (int i = 0; i < columns.size(); i++) {
+			Column column = columns.get(i);
+			if (isIdColumn(column)) {
+				idRow.setValue(column.getName(), snapshot == null ? row.getValue(column.getName()).orElseGet(() -> null) : snapshot[i]);
+			}
+		}
+		Object version = null;
+		Object newVersion = null;
+		if (versionColumn != null) {
+			version = row.getValue(versionColumn.getName()).orElseGet(() -> null);
+			AssertChecker.notNull(version, String.format("Не задан номер версии сущности в Репозитории <%s>", getRepositoryName()));
+			newVersion = nextVersion(version);
+			row.setValue(versionColumn.getName(), newVersion);
+			changedColumns.add(versionColumn);
+		}
+		DataSource currentDataSource = versionColumn == null ? getDataSource() : requireDataSource("сохранение с проверкой номера версии");
+		if (currentDataSource != null) {
+			List<Object> parameters = getParameterValues(row, changedColumns);
+			parameters.addAll(getParameterValues(idRow, idColumns));
+			List<Column> conditionColumns = idColumns;
+			if (versionColumn != null) {
+				conditionColumns = new ArrayList<>(idColumns);
+				conditionColumns.add(versionColumn);
+				parameters.add(JdbcValues.toParameterValue(versionColumn, version));
+			}
+			String sql = JdbcStatements.update(JdbcOperations.dialect(currentDataSource), getRepositoryName(), changedColumns, conditionColumns);
+			int updatedRowsCount = JdbcOperations.update(currentDataSource, sql, parameters);
+			if (versionColumn != null && updatedRowsCount == 0) {
+				throw optimisticLockException(version);
+			}
+		} else {
+			Row changedRow = new Row(changedColumns);
+			changedColumns.forEach(column -> changedRow.setValue(column.getName(), row.getValue(column.getName()).orElseGet(() -> null)));
+			this.table.updateElements(changedRow, getIdSelectionConditions(idRow));
+		}
+		if (versionColumn != null) {
+			applyVersion(entity, newVersion);
+		}
+		takeSnapshot(entity, row);
+		cacheEntity(entity);
+	}
+
+	/**
+	 * Столбец, содержащий номер версии объекта
+	 *
+	 * @return NULL, если оптимистическая блокировка не используется
+	 */
+	private Column getVersionColumn() {
+		String versionColumnName = getVersionColumnName();
+		if (versionColumnName == null) {
+			return null;
+		}
+		return this.table.getColumns()
+		                 .stream()
+		                 .filter(column -> column.getName().equals(versionColumnName))
+		                 .findFirst()
+		                 .orElse(null);
+	}
+
+	private boolean isIdColumn(Column column) {
+		return this.table.getIdColumns().stream().anyMatch(idColumn -> idColumn.getName().equals(column.getName()));
+	}
+
+	/**
+	 * Следующий номер версии объекта
+	 *
+	 * @param version текущий номер версии
+	 * @return
+	 */
+	private Object nextVersion(Object version) {
+		if (version instanceof Integer) {
+			return (Integer) version + 1;
+		} else if (version instanceof Long) {
+			return (Long) version + 1;
+		} else if (version instanceof Short) {
+			return (short) ((Short) version + 1);
+		} else if (version instanceof java.math.BigInteger) {
+			return ((java.math.BigInteger) version).add(java.math.BigInteger.ONE);
+		} else if (version instanceof java.math.BigDecimal) {
+			return ((java.math.BigDecimal) version).add(java.math.BigDecimal.ONE);
+		}
+		throw new RepositoryException(String.format("Тип номера версии <%s> сущности в Репозитории <%s> не поддерживается", version.getClass().getName(),
+		                                            getRepositoryName()));
+	}
+
+	private RepositoryOptimisticLockException optimisticLockException(Object version) {
+		String message = String.format("Сущность в Репозитории <%s> с номером версии <%s> изменена или удалена другим участником", getRepositoryName(), version);
+		logger.warn(message);
+		return new RepositoryOptimisticLockException(message);
+	}
+
+	@Override
+	public RepositoryUpsertResult upsert(T entity) {
+		return upsertAll(Collections.singletonList(entity)).get(0);
+	}
+
+	@Override
+	public List<RepositoryUpsertResult> upsertAll(Collection<T> entities) {
+		List<Column> columns = this.table.getColumns();
+		List<Row> rows = mapToRows(entities, columns);
+		List<RepositoryUpsertResult> results = new ArrayList<>(rows.size());
+		DataSource currentDataSource = requireDataSource("добавление или сохранение");
+		List<List<Object>> values = rows.stream()
+		                                .map(row -> getParameterValues(row, columns))
+		                                .collect(Collectors.toList());
+		Column versionColumn = getVersionColumn();
+		if (versionColumn == null) {
+			JdbcOperations.upsert(currentDataSource, getRepositoryName(), columns, this.table.getIdColumns(), values)
+			              .forEach(inserted -> results.add(inserted ? RepositoryUpsertResult.INSERTED : RepositoryUpsertResult.UPDATED));
+		} else {
+			upsertVersioned(currentDataSource, entities, rows, values, versionColumn).forEach(results::add);
+		}
+		takeSnapshots(entities, rows);
+		entities.forEach(this::cacheEntity);
+		return results;
+	}
+
+	/**
+	 * Добавление или сохранение объектов с проверкой номера версии: существующая строка обновляется только при совпадении номера версии
+	 *
+	 * @param dataSource
+	 * @param entities
+	 * @param rows          строки объектов (номер версии сохраненных объектов заменяется новым)
+	 * @param values        значения параметров строк
+	 * @param versionColumn
+	 * @return
+	 */
+	private List<RepositoryUpsertResult> upsertVersioned(DataSource dataSource, Collection<T> entities, List<Row> rows, List<List<Object>> values,
+	                                                     Column versionColumn) {
+		List<Object> nextVersions = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			Object version = row.getValue(versionColumn.getName()).orElseGet(() -> null);
+			AssertChecker.notNull(version, String.format("Не задан номер версии сущности в Репозитории <%s>", getRepositoryName()));
+			nextVersions.add(nextVersion(version));
+		}
+		List<Object> nextVersionValues = nextVersions.stream()
+		                                             .map(version -> JdbcValues.toParameterValue(versionColumn, version))
+		                                             .collect(Collectors.toList());
+		List<Boolean> inserted;
+		try {
+			inserted = JdbcOperations.upsertVersioned(dataSource, getRepositoryName(), this.table.getColumns(), this.table.getIdColumns(), versionColumn,
+			                                          values, nextVersionValues);
+		} catch (RepositoryOptimisticLockException e) {
+			logger.warn(e.getMessage());
+			throw e;
+		}
+		List<RepositoryUpsertResult> results = new ArrayList<>(rows.size());
+		Iterator<T> iterator = entities.iterator();
+		for (int i = 0; i < rows.size(); i++) {
+			T entity = iterator.next();
+			if (inserted.get(i)) {
+				results.add(RepositoryUpsertResult.INSERTED);
+			} else {
+				rows.get(i).setValue(versionColumn.getName(), nextVersions.get(i));
+				applyVersion(entity, nextVersions.get(i));
+				results.add(RepositoryUpsertResult.UPDATED);
+			}
+		}
+		return results;
+	}
+
 	@Override
 	public void delete(T entity) {
-		Row row = mapToRow(entity);
+		Column versionColumn = getVersionColumn();
+		if (versionColumn != null) {
+			deleteVersioned(entity, versionColumn);
+			return;
+		}
+		// Для удаления достаточно значений столбцов-ключей
+		Row row = mapToRow(entity, table.getIdColumns());
 		// Формирование критериев, чтобы удалить только нужный объект
-		List<ElementsSelectionCondition> selectionConditions = table.getIdColumns()
-		                                                            .stream()
-		                                                            .map(column -> {
-			                                                            Object idValue = row.getValue(column.getName()).orElseGet(() -> null);
-
-			                                                            ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
-			                                                            selectionCondition.setSpacePropertyName(column.getName());
-			                                                            selectionCondition.setSpacePropertyValue(idValue == null ? null : String.valueOf(idValue));
-			                                                            selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
-			                                                            return selectionCondition;
-		                                                            }).collect(Collectors.toList());
+		List<ElementsSelectionCondition> selectionConditions = getIdSelectionConditions(row);
 		table.deleteElements(selectionConditions);
+		evictEntity(entity);
+	}
+
+	/**
+	 * Удаление объекта с проверкой номера версии
+	 *
+	 * @param entity
+	 * @param versionColumn
+	 */
+	private void deleteVersioned(T entity, Column versionColumn) {
+		Row row = mapToRow(entity);
+		Object version = row.getValue(versionColumn.getName()).orElseGet(() -> null);
+		AssertChecker.notNull(version, String.format("Не задан номер версии сущности в Репозитории <%s>", getRepositoryName()));
+		deleteRowVersioned(row, versionColumn, version);
+		evictEntity(entity);
+	}
+
+	/**
+	 * Удаление строки по значениям столбцов-ключей и номеру версии одним запросом
+	 *
+	 * @param row           строка, содержащая значения столбцов-ключей
+	 * @param versionColumn столбец, содержащий номер версии
+	 * @param version       ожидаемый номер версии
+	 */
+	private void deleteRowVersioned(Row row, Column versionColumn, Object version) {
+		DataSource currentDataSource = requireDataSource("удаление с проверкой номера версии");
+		List<Column> conditionColumns = new ArrayList<>(this.table.getIdColumns());
+		conditionColumns.add(versionColumn);
+		List<Object> parameters = getParameterValues(row, this.table.getIdColumns());
+		parameters.add(JdbcValues.toParameterValue(versionColumn, version));
+		String sql = JdbcStatements.delete(JdbcOperations.dialect(currentDataSource), getRepositoryName(), conditionColumns);
+		if (JdbcOperations.update(currentDataSource, sql, parameters) == 0) {
+			throw optimisticLockException(version);
+		}
 	}
 
+	/**
+	 * Удаление объекта по идентификатору. Если используется оптимистическая блокировка ({@link #getVersionColumnName()}), номер версии удаляемого
+	 * объекта не известен, поэтому необходимо использовать {@link #deleteById(Object, Object)} или {@link #delete(Object)}
+	 *
+	 * @param id идентификатор объекта
+	 */
 	@Override
 	public void deleteById(ID id) {
-		List<ElementsSelectionCondition> selectionConditions = table.getIdColumns()
-		                                                            .stream()
-		                                                            .map(column -> {
-			                                                            ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
-			                                                            selectionCondition.setSpacePropertyName(column.getName());
-			                                                            selectionCondition.setSpacePropertyValue(getIdValue(id, column.getName()));
-			                                                            selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
-			                                                            return selectionCondition;
-		                                                            }).collect(Collectors.toList());
+		if (getVersionColumn() != null) {
+			throw new RepositoryException(String.format("Удаление из Репозитория <%s> по идентификатору выполняется только с номером версии", getRepositoryName()));
+		}
+		List<ElementsSelectionCondition> selectionConditions = getIdSelectionConditions(id);
 		table.deleteElements(selectionConditions);
+		evictId(id);
+	}
+
+	/**
+	 * Удаление объекта по идентификатору при совпадении номера версии
+	 *
+	 * @param id      идентификатор объекта
+	 * @param version ожидаемый номер версии
+	 * @throws RepositoryOptimisticLockException если объект изменен или удален другим участником
+	 */
+	public void deleteById(ID id, Object version) {
+		Column versionColumn = getVersionColumn();
+		AssertChecker.notNull(versionColumn, String.format("Для Репозитория <%s> не используется оптимистическая блокировка", getRepositoryName()));
+		AssertChecker.notNull(id, String.format("Не передан идентификатор для удаления из Репозитория <%s>", getRepositoryName()));
+		AssertChecker.notNull(version, String.format("Не задан номер версии сущности в Репозитории <%s>", getRepositoryName()));
+		Row row = new Row(this.table.getIdColumns());
+		this.table.getIdColumns().forEach(column -> row.setValue(column.getName(), getIdValue(id, column.getName())));
+		deleteRowVersioned(row, versionColumn, version);
+		evictId(id);
+	}
+
+	/**
+	 * Исключение удаленного объекта из кэша и единицы работы
+	 *
+	 * @param id
+	 */
+	private void evictId(ID id) {
+		invalidateCachedEntity(id);
+		RepositoryUnitOfWork.current().ifPresent(unitOfWork -> unitOfWork.put(this, id, null));
+		invalidateQueryResults();
+	}
+
+	@Override
+	public List<RepositoryBatchResult> insertAll(Collection<T> entities) {
+		List<Column> columns = this.table.getColumns();
+		List<Row> rows = mapToRows(entities, columns);
+		DataSource currentDataSource = requireDataSource("пакетное добавление");
+		List<List<Object>> parameters = rows.stream()
+		                                    .map(row -> getParameterValues(row, columns))
+		                                    .collect(Collectors.toList());
+		String sql = JdbcStatements.insert(JdbcOperations.dialect(currentDataSource), getRepositoryName(), columns);
+		List<RepositoryBatchResult> results = executeBatches(currentDataSource, sql, parameters);
+		takeSnapshots(entities, rows);
+		entities.forEach(this::cacheEntity);
+		return results;
+	}
+
+	@Override
+	public List<RepositoryBatchResult> saveAll(Collection<T> entities) {
+		if (getVersionColumn() != null) {
+			return saveAllVersioned(entities, getVersionColumn());
+		}
+		List<Column> columns = this.table.getColumns();
+		List<Column> idColumns = this.table.getIdColumns();
+		List<Row> rows = mapToRows(entities, columns);
+		List<RepositoryBatchResult> results;
+		DataSource currentDataSource = requireDataSource("пакетное сохранение");
+		List<Column> updateColumns = columns.stream()
+		                                    .filter(column -> idColumns.stream().noneMatch(idColumn -> idColumn.getName().equals(column.getName())))
+		                                    .collect(Collectors.toList());
+		if (!updateColumns.isEmpty()) {
+			List<List<Object>> parameters = rows.stream()
+			                                    .map(row -> {
+				                                    List<Object> values = getParameterValues(row, updateColumns);
+				                                    values.addAll(getParameterValues(row, idColumns));
+				                                    return values;
+			                                    })
+			                                    .collect(Collectors.toList());
+			String sql = JdbcStatements.update(JdbcOperations.dialect(currentDataSource), getRepositoryName(), updateColumns, idColumns);
+			results = executeBatches(currentDataSource, sql, parameters);
+		} else {
+			// Таблица состоит только из столбцов-ключей: изменять нечего
+			results = Collections.singletonList(RepositoryBatchResult.noInfo(rows.size()));
+		}
+		takeSnapshots(entities, rows);
+		entities.forEach(this::cacheEntity);
+		return results;
+	}
+
+	@Override
+	public List<RepositoryBatchResult> deleteAll(Collection<T> entities) {
+		if (getVersionColumn() != null) {
+			return deleteAllVersioned(entities, getVersionColumn());
+		}
+		List<Column> idColumns = this.table.getIdColumns();
+		// Для удаления достаточно значений столбцов-ключей
+		List<Row> rows = mapToRows(entities, idColumns);
+		DataSource currentDataSource = requireDataSource("пакетное удаление");
+		List<List<Object>> parameters = rows.stream()
+		                                    .map(row -> getParameterValues(row, idColumns))
+		                                    .collect(Collectors.toList());
+		String sql = JdbcStatements.delete(JdbcOperations.dialect(currentDataSource), getRepositoryName(), idColumns);
+		List<RepositoryBatchResult> results = executeBatches(currentDataSource, sql, parameters);
+		entities.forEach(this::evictEntity);
+		return results;
+	}
+
+	/**
+	 * Преобразование всех объектов до начала изменения данных
+	 *
+	 * @param entities
+	 * @param columns
+	 * @return
+	 */
+	private List<Row> mapToRows(Collection<T> entities, List<Column> columns) {
+		List<Row> rows = new ArrayList<>(entities.size());
+		for (T entity : entities) {
+			AssertChecker.notNull(entity, String.format("Переданная сущность не может быть сохранена в Репозитории <%s>", getRepositoryName()));
+			Row row = mapToRow(entity, columns);
+			AssertChecker.notNull(row, String.format("Не удалось преобразовать сущность для Репозитория <%s>", getRepositoryName()));
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	/**
+	 * Значения параметров JDBC-запроса для переданных столбцов строки
+	 *
+	 * @param row
+	 * @param columns
+	 * @return
+	 */
+	private List<Object> getParameterValues(Row row, List<Column> columns) {
+		List<Object> values = new ArrayList<>(columns.size());
+		columns.forEach(column -> values.add(JdbcValues.toParameterValue(column, row.getValue(column.getName()).orElseGet(() -> null))));
+		return values;
+	}
+
+	/**
+	 * Выполнение пакетов через JDBC в одной транзакции
+	 *
+	 * @param dataSource
+	 * @param sql
+	 * @param parameters
+	 * @return
+	 */
+	private List<RepositoryBatchResult> executeBatches(DataSource dataSource, String sql, List<List<Object>> parameters) {
+		return JdbcOperations.executeBatches(dataSource, sql, parameters, Math.max(1, this.batchSize))
+		                     .stream()
+		                     .map(RepositoryBatchResult::new)
+		                     .collect(Collectors.toList());
+	}
+
+	/**
+	 * Пакетное сохранение с проверкой номера версии: каждая строка изменяется отдельным запросом с условием по номеру версии, все запросы
+	 * выполняются в одной транзакции, и первый же конфликт отменяет изменения всех объектов
+	 *
+	 * @param entities
+	 * @param versionColumn столбец, содержащий номер версии
+	 * @return
+	 * @throws RepositoryOptimisticLockException если хотя бы один объект изменен или удален другим участником
+	 */
+	private List<RepositoryBatchResult> saveAllVersioned(Collection<T> entities, Column versionColumn) {
+		List<Column> columns = this.table.getColumns();
+		List<Column> idColumns = this.table.getIdColumns();
+		List<Row> rows = mapToRows(entities, columns);
+		DataSource currentDataSource = requireDataSource("пакетное сохранение с проверкой номера версии");
+		List<Column> updateColumns = columns.stream()
+		                                    .filter(column -> !isIdColumn(column))
+		                                    .collect(Collectors.toList());
+		List<Column> conditionColumns = new ArrayList<>(idColumns);
+		conditionColumns.add(versionColumn);
+		List<Object> versions = new ArrayList<>(rows.size());
+		List<Object> nextVersions = new ArrayList<>(rows.size());
+		List<List<Object>> parameters = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			Object version = row.getValue(versionColumn.getName()).orElseGet(() -> null);
+			AssertChecker.notNull(version, String.format("Не задан номер версии сущности в Репозитории <%s>", getRepositoryName()));
+			Object nextVersion = nextVersion(version);
+			row.setValue(versionColumn.getName(), nextVersion);
+			List<Object> values = getParameterValues(row, updateColumns);
+			values.addAll(getParameterValues(row, idColumns));
+			values.add(JdbcValues.toParameterValue(versionColumn, version));
+			versions.add(version);
+			nextVersions.add(nextVersion);
+			parameters.add(values);
+		}
+		String sql = JdbcStatements.update(JdbcOperations.dialect(currentDataSource), getRepositoryName(), updateColumns, conditionColumns);
+		int[] updateCounts = JdbcOperations.executeEach(currentDataSource, sql, parameters, i -> optimisticLockException(versions.get(i)));
+		Iterator<Object> nextVersionIterator = nextVersions.iterator();
+		entities.forEach(entity -> applyVersion(entity, nextVersionIterator.next()));
+		takeSnapshots(entities, rows);
+		entities.forEach(this::cacheEntity);
+		return Collections.singletonList(new RepositoryBatchResult(updateCounts));
+	}
+
+	/**
+	 * Пакетное удаление с проверкой номера версии: каждая строка удаляется отдельным запросом с условием по номеру версии, все запросы
+	 * выполняются в одной транзакции, и первый же конфликт отменяет удаление всех объектов
+	 *
+	 * @param entities
+	 * @param versionColumn столбец, содержащий номер версии
+	 * @return
+	 * @throws RepositoryOptimisticLockException если хотя бы один объект изменен или удален другим участником
+	 */
+	private List<RepositoryBatchResult> deleteAllVersioned(Collection<T> entities, Column versionColumn) {
+		List<Column> idColumns = this.table.getIdColumns();
+		List<Row> rows = mapToRows(entities, this.table.getColumns());
+		DataSource currentDataSource = requireDataSource("пакетное удаление с проверкой номера версии");
+		List<Column> conditionColumns = new ArrayList<>(idColumns);
+		conditionColumns.add(versionColumn);
+		List<Object> versions = new ArrayList<>(rows.size());
+		List<List<Object>> parameters = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			Object version = row.getValue(versionColumn.getName()).orElseGet(() -> null);
+			AssertChecker.notNull(version, String.format("Не задан номер версии сущности в Репозитории <%s>", getRepositoryName()));
+			List<Object> values = getParameterValues(row, idColumns);
+			values.add(JdbcValues.toParameterValue(versionColumn, version));
+			versions.add(version);
+			parameters.add(values);
+		}
+		String sql = JdbcStatements.delete(JdbcOperations.dialect(currentDataSource), getRepositoryName(), conditionColumns);
+		int[] updateCounts = JdbcOperations.executeEach(currentDataSource, sql, parameters, i -> optimisticLockException(versions.get(i)));
+		entities.forEach(this::evictEntity);
+		return Collections.singletonList(new RepositoryBatchResult(updateCounts));
+	}
+
+	/**
+	 * Формирование критериев отбора строки по значениям ее столбцов-ключей
+	 *
+	 * @param row
+	 * @return
+	 */
+	protected List<ElementsSelectionCondition> getIdSelectionConditions(Row row) {
+		return this.table.getIdColumns()
+		                 .stream()
+		                 .map(column -> {
+			                 Object idValue = row.getValue(column.getName()).orElseGet(() -> null);
+
+			                 ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
+			                 selectionCondition.setSpacePropertyName(column.getName());
+			                 selectionCondition.setSpacePropertyValue(idValue == null ? null : String.valueOf(idValue));
+			                 selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
+			                 return selectionCondition;
+		                 }).collect(Collectors.toList());
+	}
+
+	@Override
+	public long deleteAllById(Collection<ID> ids) {
+		AssertChecker.notNull(ids, String.format("Не переданы идентификаторы для удаления из Репозитория <%s>", getRepositoryName()));
+		if (getVersionColumn() != null) {
+			throw new RepositoryException(String.format("Удаление из Репозитория <%s> по идентификатору выполняется только с номером версии", getRepositoryName()));
+		}
+		List<ID> uniqueIds = ids.stream()
+		                        .filter(Objects::nonNull)
+		                        .distinct()
+		                        .collect(Collectors.toList());
+		DataSource currentDataSource = requireDataSource("удаление по идентификаторам");
+		// Каждая часть идентификаторов удаляется отдельным запросом, чтобы ограничить количество параметров запроса; все части удаляются в одной
+		// транзакции, поэтому при ошибке не остается частично выполненного удаления
+		List<Column> idColumns = this.table.getIdColumns();
+		JdbcDialect dialect = JdbcOperations.dialect(currentDataSource);
+		int currentIdBatchSize = Math.max(1, this.idBatchSize);
+		List<String> sqls = new ArrayList<>();
+		List<List<Object>> parameters = new ArrayList<>();
+		for (int i = 0; i < uniqueIds.size(); i += currentIdBatchSize) {
+			List<ID> batchIds = uniqueIds.subList(i, Math.min(i + currentIdBatchSize, uniqueIds.size()));
+			List<Object> batchParameters = new ArrayList<>();
+			batchIds.forEach(id -> idColumns.forEach(column -> batchParameters.add(JdbcValues.toParameterValue(column, getIdValue(id, column.getName())))));
+			sqls.add(JdbcStatements.deleteWhere(dialect, getRepositoryName(), JdbcStatements.keysCondition(dialect, idColumns, batchIds.size())));
+			parameters.add(batchParameters);
+		}
+		long deletedCount = Arrays.stream(JdbcOperations.updateAll(currentDataSource, sqls, parameters)).asLongStream().sum();
+		RepositoryUnitOfWork unitOfWork = RepositoryUnitOfWork.current().orElseGet(() -> null);
+		for (ID id : uniqueIds) {
+			invalidateCachedEntity(id);
+			if (unitOfWork != null) {
+				unitOfWork.put(this, id, null);
+			}
+		}
+		invalidateQueryResults();
+		return deletedCount;
+	}
+
+	@Override
+	public long deleteBy(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+		DataSource currentDataSource = requireDataSource("удаление по критериям");
+		JdbcDialect dialect = JdbcOperations.dialect(currentDataSource);
+		List<Object> parameters = new ArrayList<>();
+		String condition = JdbcStatements.where(dialect, this.table.getColumns(), selectionConditions, selectionType, parameters);
+		if (condition == null) {
+			throw new RepositoryException(String.format("Критерии отбора для Хранилища <%s> не могут быть выражены запросом", getRepositoryName()));
+		}
+		long deletedCount = JdbcOperations.update(currentDataSource, JdbcStatements.deleteWhere(dialect, getRepositoryName(), condition), parameters);
+		invalidateEntities();
+		return deletedCount;
 	}
 
 	@Override
 	public void deleteAll() {
 		table.deleteElements(Collections.emptyList());
+		invalidateEntities();
+	}
+
+	/**
+	 * Очистка таблицы запросом <code>TRUNCATE TABLE</code>, если {@link DataSource} известен и СУБД его поддерживает, иначе - {@link #deleteAll()}.
+	 * <p>
+	 * Внутри транзакции {@link RepositoryTransactions} всегда используется {@link #deleteAll()}, т.к. в некоторых СУБД (например, H2)
+	 * <code>TRUNCATE TABLE</code> фиксирует открытую транзакцию
+	 */
+	@Override
+	public void truncate() {
+		DataSource currentDataSource = getDataSource();
+		if (currentDataSource == null || RepositoryTransactions.isActive() || !JdbcOperations.truncate(currentDataSource, getRepositoryName())) {
+			deleteAll();
+			return;
+		}
+		invalidateEntities();
+	}
+
+	/**
+	 * Очистка кэша и единицы работы после удаления неизвестного набора объектов
+	 */
+	private void invalidateEntities() {
+		invalidateCachedEntity(null);
+		RepositoryUnitOfWork.current().ifPresent(unitOfWork -> unitOfWork.clear(this));
+		invalidateQueryResults();
+	}
+
+	/**
+	 * Запоминание значений столбцов нескольких объектов после массового изменения данных
+	 *
+	 * @param entities
+	 * @param rows     значения всех столбцов объектов (в порядке объектов)
+	 */
+	private void takeSnapshots(Collection<T> entities, List<Row> rows) {
+		if (this.entitySnapshots != null) {
+			Iterator<Row> rowIterator = rows.iterator();
+			entities.forEach(entity -> takeSnapshot(entity, rowIterator.next()));
+		}
+	}
+
+	/**
+	 * Запоминание значений столбцов объекта, если включено сохранение только измененных столбцов.
+	 * <p>
+	 * Для загруженного объекта используется исходная строка выборки, поэтому повторное преобразование объекта в строку не требуется. Значения
+	 * запоминаются в виде параметров запроса ({@link JdbcValues#toParameterValue(Column, Object)}), чтобы значения из БД и значения, полученные
+	 * из объекта, сравнивались в одном представлении
+	 *
+	 * @param entity
+	 * @param row    значения всех столбцов объекта
+	 * @return переданный объект
+	 */
+	private T takeSnapshot(T entity, Row row) {
+		EntitySnapshots snapshots = this.entitySnapshots;
+		if (snapshots != null && entity != null && row != null) {
+			List<Column> columns = this.table.getColumns();
+			Object[] values = new Object[columns.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = JdbcValues.toParameterValue(columns.get(i), row.getValue(columns.get(i).getName()).orElseGet(() -> null));
+			}
+			snapshots.put(entity, values);
+		}
+		return entity;
+	}
+
+	/**
+	 * Очистка кэша результатов выборок после изменения данных
+	 */
+	protected void invalidateQueryResults() {
+		QueryResultCache<T> cache = this.queryResultCache;
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+		if (RepositoryTransactions.isActive()) {
+			// До фиксации другие потоки могут снова сохранить в кэшах прежние данные, поэтому кэши очищаются и при фиксации, и при откате транзакции
+			RepositoryTransactions.onRollback(this, this::invalidateCaches);
+			if (cache != null) {
+				RepositoryTransactions.afterCommit(cache::invalidateAll);
+			}
+		}
+	}
+
+	/**
+	 * Очистка всех кэшей и единицы работы после отката транзакции
+	 */
+	private void invalidateCaches() {
+		QueryResultCache<T> currentQueryResultCache = this.queryResultCache;
+		if (currentQueryResultCache != null) {
+			currentQueryResultCache.invalidateAll();
+		}
+		advanceEntityGeneration(null);
+		EntityCache<ID, T> cache = this.entityCache;
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+		EntitySnapshots snapshots = this.entitySnapshots;
+		if (snapshots != null) {
+			snapshots.clear();
+		}
+		RepositoryUnitOfWork.current().ifPresent(unitOfWork -> unitOfWork.clear(this));
+	}
+
+	/**
+	 * Обновление объекта в кэше и в единице работы после его добавления или изменения
+	 *
+	 * @param entity
+	 */
+	protected void cacheEntity(T entity) {
+		invalidateQueryResults();
+		ID id = getId(entity);
+		advanceEntityGeneration(id);
+		RepositoryUnitOfWork unitOfWork = RepositoryUnitOfWork.current().orElseGet(() -> null);
+		if (unitOfWork != null) {
+			if (id != null) {
+				unitOfWork.put(this, id, entity);
+			} else {
+				unitOfWork.clear(this);
+			}
+		}
+		EntityCache<ID, T> cache = this.entityCache;
+		if (cache != null) {
+			if (id == null) {
+				invalidateCachedEntity(null);
+			} else if (RepositoryTransactions.isActive()) {
+				// Не зафиксированные изменения не должны быть видны другим потокам: объект добавляется в кэш после фиксации транзакции
+				cache.invalidate(id);
+				RepositoryTransactions.afterCommit(() -> {
+					advanceEntityGeneration(id);
+					cache.put(id, entity);
+				});
+			} else {
+				cache.put(id, entity);
+			}
+		}
+	}
+
+	/**
+	 * Удаление объекта из кэша и из единицы работы после его удаления
+	 *
+	 * @param entity
+	 */
+	protected void evictEntity(T entity) {
+		invalidateQueryResults();
+		EntitySnapshots snapshots = this.entitySnapshots;
+		if (snapshots != null) {
+			snapshots.remove(entity);
+		}
+		ID id = getId(entity);
+		RepositoryUnitOfWork unitOfWork = RepositoryUnitOfWork.current().orElseGet(() -> null);
+		if (unitOfWork != null) {
+			if (id != null) {
+				unitOfWork.put(this, id, null);
+			} else {
+				unitOfWork.clear(this);
+			}
+		}
+		invalidateCachedEntity(id);
+	}
+
+	/**
+	 * Удаление измененного объекта из кэша. Внутри транзакции объект удаляется из кэша повторно после ее фиксации, т.к. до фиксации другие потоки
+	 * могут снова загрузить в кэш прежнее состояние объекта (при откате кэш очищается полностью, см. {@link #invalidateQueryResults()})
+	 *
+	 * @param id идентификатор объекта (NULL - удаляются все объекты)
+	 */
+	private void invalidateCachedEntity(ID id) {
+		advanceEntityGeneration(id);
+		EntityCache<ID, T> cache = this.entityCache;
+		if (cache == null) {
+			return;
+		}
+		Runnable invalidation = () -> {
+			if (id != null) {
+				cache.invalidate(id);
+			} else {
+				cache.invalidateAll();
+			}
+		};
+		invalidation.run();
+		if (RepositoryTransactions.isActive()) {
+			RepositoryTransactions.afterCommit(() -> {
+				advanceEntityGeneration(id);
+				invalidation.run();
+			});
+		}
 	}
 
 	protected List<T> mapFromRows(List<Row> rows) {
+		Function<Row, T> mapper = this::mapFromRow;
+		RowConverter<T> rowConverter = getRowConverter();
+		if (rowConverter instanceof IndexedRowConverter && !rows.isEmpty()) {
+			// Строки одного результата выборки имеют один перечень столбцов, поэтому описание проверяется только по первой строке
+			RowDescriptor descriptor = getRowDescriptor(rows.get(0));
+			IndexedRowConverter<T> indexedRowConverter = (IndexedRowConverter<T>) rowConverter;
+			mapper = row -> takeSnapshot(indexedRowConverter.fromRow(row, descriptor), row);
+		}
+		ForkJoinPool pool = this.parallelMappingPool;
+		if (pool != null && rows.size() >= this.parallelMappingThreshold) {
+			Function<Row, T> rowMapper = mapper;
+			// Параллельный поток, запущенный из задачи пула, выполняется в потоках этого пула
+			return pool.submit(() -> rows.parallelStream()
+			                             .map(rowMapper)
+			                             .filter(Objects::nonNull)
+			                             .collect(Collectors.toList()))
+			           .join();
+		}
 		List<T> entities = rows.stream()
-		                       .map(this::mapFromRow)
+		                       .map(mapper)
 		                       .filter(Objects::nonNull)
 		                       .collect(Collectors.toList());
 		return entities;
 	}
 
+	/**
+	 * Описание строк для {@link IndexedRowConverter}: повторно используется, пока строки имеют тот же перечень столбцов. Это единственное место, где
+	 * Репозиторий хранит описание строк: конвертер получает его вместе со строкой
+	 *
+	 * @param row
+	 * @return
+	 */
+	protected RowDescriptor getRowDescriptor(Row row) {
+		RowDescriptor descriptor = this.rowDescriptor;
+		if (descriptor == null || !descriptor.matches(row)) {
+			descriptor = RowDescriptor.of(row.getSpaceProperties());
+			this.rowDescriptor = descriptor;
+		}
+		return descriptor;
+	}
+
 	protected T mapFromRow(Row row) {
 		RowConverter<T> rowConverter = getRowConverter();
-		if (rowConverter != null) {
-			return rowConverter.fromRow(row);
+		if (rowConverter instanceof IndexedRowConverter) {
+			return takeSnapshot(((IndexedRowConverter<T>) rowConverter).fromRow(row, getRowDescriptor(row)), row);
+		} else if (rowConverter != null) {
+			return takeSnapshot(rowConverter.fromRow(row), row);
 		} else {
 			logger.warn(String.format("Для Хранилища <%s> не предоставлен <RowConverter>", getRepositoryName()));
 		}
@@ -224,9 +1699,20 @@ public abstract class DatabaseStorageRepository<T, ID> implements Repository<T,
 	}
 
 	protected Row mapToRow(T entity) {
+		return mapToRow(entity, this.table.getColumns());
+	}
+
+	/**
+	 * Преобразование объекта в {@link Row}, содержащую только переданные столбцы
+	 *
+	 * @param entity  объект
+	 * @param columns перечень столбцов (например, только столбцы-ключи)
+	 * @return
+	 */
+	protected Row mapToRow(T entity, List<Column> columns) {
 		RowConverter<T> rowConverter = getRowConverter();
 		if (rowConverter != null) {
-			return rowConverter.toRow(this.table.getColumns(), entity);
+			return rowConverter.toRow(columns, entity);
 		} else {
 			logger.warn(String.format("Для Хранилища <%s> не предоставлен <RowConverter>", getRepositoryName()));
 		}
@@ -0,0 +1,29 @@
+package ru.rds.data.repository;
+
+/**
+ * Специализация {@link ValueConverter} для преобразования в примитивный тип <code>double</code> без упаковки значения.
+ * <p>
+ * Используется в {@link AbstractRowConverter#getDouble(ru.rds.data.database.Row, String, double)}
+ *
+ * @param <SOURCE_TYPE> тип данных, из которого нужно преобразовать (обычно это тип данных в СУБД)
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public interface DoubleValueConverter<SOURCE_TYPE> extends ValueConverter<SOURCE_TYPE, Double> {
+
+	/**
+	 * Преобразование типа {@link SOURCE_TYPE} в тип <code>double</code>
+	 *
+	 * @param source экземпляр объекта типа {@link SOURCE_TYPE} (не может быть NULL)
+	 * @return
+	 */
+	double convertFromAsDouble(SOURCE_TYPE source);
+
+	@Override
+	default Double convertFrom(SOURCE_TYPE source) {
+		return source == null ? null : convertFromAsDouble(source);
+	}
+
+}
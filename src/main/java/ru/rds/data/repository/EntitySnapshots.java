@@ -0,0 +1,103 @@
+package ru.rds.data.repository;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Снимки значений столбцов объектов, загруженных Репозиторием, для определения измененных столбцов при сохранении.
+ * <p>
+ * Объекты сравниваются по ссылке и не удерживаются от сборки мусора: снимок удаляется вместе с объектом
+ *
+ * @author RDS
+ * @version 1
+ * @see DatabaseStorageRepository#setDirtyChecking(boolean)
+ * @since 1.0.0
+ */
+final class EntitySnapshots {
+
+	private final ReferenceQueue<Object>   queue     = new ReferenceQueue<>();
+	private final Map<EntityKey, Object[]> snapshots = new HashMap<>();
+
+	/**
+	 * Получение снимка объекта
+	 *
+	 * @param entity
+	 * @return NULL, если снимок отсутствует
+	 */
+	synchronized Object[] get(Object entity) {
+		expunge();
+		return this.snapshots.get(new EntityKey(entity, null));
+	}
+
+	/**
+	 * Запоминание снимка объекта
+	 *
+	 * @param entity
+	 * @param values значения столбцов (в порядке столбцов Таблицы)
+	 */
+	synchronized void put(Object entity, Object[] values) {
+		expunge();
+		this.snapshots.put(new EntityKey(entity, this.queue), values);
+	}
+
+	/**
+	 * Удаление снимка объекта
+	 *
+	 * @param entity
+	 */
+	synchronized void remove(Object entity) {
+		expunge();
+		this.snapshots.remove(new EntityKey(entity, null));
+	}
+
+	synchronized void clear() {
+		this.snapshots.clear();
+		expunge();
+	}
+
+	synchronized int size() {
+		expunge();
+		return this.snapshots.size();
+	}
+
+	private void expunge() {
+		Object reference;
+		while ((reference = this.queue.poll()) != null) {
+			this.snapshots.remove(reference);
+		}
+	}
+
+	/**
+	 * Слабая ссылка на объект, сравниваемая по идентичности объекта
+	 */
+	private static final class EntityKey extends WeakReference<Object> {
+
+		private final int hashCode;
+
+		private EntityKey(Object entity, ReferenceQueue<Object> queue) {
+			super(entity, queue);
+			this.hashCode = System.identityHashCode(entity);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof EntityKey)) {
+				return false;
+			}
+			Object entity = get();
+			return entity != null && entity == ((EntityKey) o).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+	}
+
+}
@@ -0,0 +1,32 @@
+package ru.rds.data.repository;
+
+import ru.rds.data.database.Row;
+
+/**
+ * Расширение {@link RowConverter}, позволяющее преобразовывать строки с использованием {@link RowDescriptor}.
+ * <p>
+ * Репозиторий формирует описание один раз для всех строк результата выборки, поэтому конвертер может один раз сопоставить столбцы с полями объекта
+ * и не выполнять этот поиск для каждой строки.
+ * <p>
+ * Интерфейс нужен конвертерам, которые сопоставляют столбцы с полями во время выполнения ({@link RepositoryDataRowConverter}). Конвертеры,
+ * сформированные {@link ru.rds.data.repository.processor.RepositoryDataProcessor}, и написанные вручную наследники {@link AbstractRowConverter}
+ * читают значения по названиям столбцов, известным при компиляции, поэтому сопоставлять для них нечего и реализовывать интерфейс им не нужно
+ *
+ * @param <T> тип объекта
+ * @author RDS
+ * @version 1
+ * @see RowDescriptor
+ * @since 1.0.0
+ */
+public interface IndexedRowConverter<T> extends RowConverter<T> {
+
+	/**
+	 * Преобразование данных {@link Row} в тип {@link T}
+	 *
+	 * @param row        строка
+	 * @param descriptor описание структуры строки
+	 * @return
+	 */
+	T fromRow(Row row, RowDescriptor descriptor);
+
+}
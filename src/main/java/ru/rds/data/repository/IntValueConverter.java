@@ -0,0 +1,29 @@
+package ru.rds.data.repository;
+
+/**
+ * Специализация {@link ValueConverter} для преобразования в примитивный тип <code>int</code> без упаковки значения.
+ * <p>
+ * Используется в {@link AbstractRowConverter#getInt(ru.rds.data.database.Row, String, int)}
+ *
+ * @param <SOURCE_TYPE> тип данных, из которого нужно преобразовать (обычно это тип данных в СУБД)
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public interface IntValueConverter<SOURCE_TYPE> extends ValueConverter<SOURCE_TYPE, Integer> {
+
+	/**
+	 * Преобразование типа {@link SOURCE_TYPE} в тип <code>int</code>
+	 *
+	 * @param source экземпляр объекта типа {@link SOURCE_TYPE} (не может быть NULL)
+	 * @return
+	 */
+	int convertFromAsInt(SOURCE_TYPE source);
+
+	@Override
+	default Integer convertFrom(SOURCE_TYPE source) {
+		return source == null ? null : convertFromAsInt(source);
+	}
+
+}
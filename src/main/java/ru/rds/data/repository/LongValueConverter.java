@@ -0,0 +1,29 @@
+package ru.rds.data.repository;
+
+/**
+ * Специализация {@link ValueConverter} для преобразования в примитивный тип <code>long</code> без упаковки значения.
+ * <p>
+ * Используется в {@link AbstractRowConverter#getLong(ru.rds.data.database.Row, String, long)}
+ *
+ * @param <SOURCE_TYPE> тип данных, из которого нужно преобразовать (обычно это тип данных в СУБД)
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public interface LongValueConverter<SOURCE_TYPE> extends ValueConverter<SOURCE_TYPE, Long> {
+
+	/**
+	 * Преобразование типа {@link SOURCE_TYPE} в тип <code>long</code>
+	 *
+	 * @param source экземпляр объекта типа {@link SOURCE_TYPE} (не может быть NULL)
+	 * @return
+	 */
+	long convertFromAsLong(SOURCE_TYPE source);
+
+	@Override
+	default Long convertFrom(SOURCE_TYPE source) {
+		return source == null ? null : convertFromAsLong(source);
+	}
+
+}
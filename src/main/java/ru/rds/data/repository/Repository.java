@@ -1,7 +1,11 @@
 package ru.rds.data.repository;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import ru.rds.data.repository.flow.Publisher;
+import ru.rds.data.repository.flow.RepositoryPublisher;
 import ru.rds.data.storage.*;
 
 /**
@@ -25,6 +29,23 @@ public interface Repository<T, ID> {
 	 */
 	Optional<T> findById(ID id);
 
+	/**
+	 * Поиск объектов по нескольким идентификаторам
+	 *
+	 * @param ids перечень идентификаторов
+	 * @return найденные объекты в порядке переданных идентификаторов (идентификаторы, для которых объекты не найдены, отсутствуют); никогда не
+	 * возвращает NULL
+	 */
+	default Map<ID, T> findAllById(Collection<ID> ids) {
+		Map<ID, T> entities = new LinkedHashMap<>();
+		for (ID id : ids) {
+			if (id != null && !entities.containsKey(id)) {
+				findById(id).ifPresent(entity -> entities.put(id, entity));
+			}
+		}
+		return entities;
+	}
+
 	/**
 	 * Поиск всех объектов
 	 *
@@ -73,6 +94,87 @@ public interface Repository<T, ID> {
 	 */
 	Section<T> findAll(Sectionable sectionable);
 
+	/**
+	 * Получение первой страницы объектов в порядке возрастания идентификатора (см. {@link #findPage(RepositoryPageToken, int)})
+	 *
+	 * @param pageSize количество объектов на странице
+	 * @return никогда не возвращает NULL
+	 */
+	default RepositoryPage<T> findPage(int pageSize) {
+		return findPage((RepositoryPageToken) null, pageSize);
+	}
+
+	/**
+	 * Получение следующей страницы объектов по ключу: в отличие от {@link #findAll(Sectionable)} страница выбирается по условию на значение
+	 * идентификатора, а не по смещению, поэтому время получения не зависит от номера страницы. Общее количество объектов не подсчитывается
+	 *
+	 * <p>
+	 * Реализация по-умолчанию не знает порядка идентификаторов и выбрасывает {@link UnsupportedOperationException}
+	 *
+	 * @param pageToken признак продолжения, полученный вместе с предыдущей страницей (NULL - первая страница)
+	 * @param pageSize  количество объектов на странице
+	 * @return никогда не возвращает NULL
+	 */
+	default RepositoryPage<T> findPage(RepositoryPageToken pageToken, int pageSize) {
+		throw new UnsupportedOperationException(String.format("Репозиторий <%s> не поддерживает получение страниц по ключу", getClass().getName()));
+	}
+
+	/**
+	 * Получение страницы объектов, идентификатор которых больше переданного (см. {@link #findPage(RepositoryPageToken, int)})
+	 *
+	 * <p>
+	 * Реализация по-умолчанию выбрасывает {@link UnsupportedOperationException}
+	 *
+	 * @param lastId   идентификатор последнего полученного объекта (NULL - первая страница)
+	 * @param pageSize количество объектов на странице
+	 * @return никогда не возвращает NULL
+	 */
+	default RepositoryPage<T> findPageAfter(ID lastId, int pageSize) {
+		throw new UnsupportedOperationException(String.format("Репозиторий <%s> не поддерживает получение страниц по ключу", getClass().getName()));
+	}
+
+	/**
+	 * Последовательное получение всех объектов: объекты создаются по мере чтения данных, а не после получения всего результата выборки.
+	 * <p>
+	 * Возвращаемый поток удерживает ресурсы СУБД, поэтому его необходимо закрыть (например, с помощью try-with-resources)
+	 *
+	 * @return никогда не возвращает NULL
+	 */
+	default Stream<T> stream() {
+		return findAll().stream();
+	}
+
+	/**
+	 * Последовательное чтение всех объектов по запросу получателя: объекты читаются и преобразуются только в запрошенном количестве,
+	 * отмена подписки прекращает чтение (см. {@link RepositoryPublisher})
+	 *
+	 * @return
+	 */
+	default Publisher<T> publisher() {
+		return publisher(null);
+	}
+
+	/**
+	 * Последовательное чтение всех объектов по запросу получателя с чтением в потоках исполнителя
+	 *
+	 * @param executor исполнитель чтения (NULL - чтение в потоке, запросившем объекты)
+	 * @return
+	 */
+	default Publisher<T> publisher(Executor executor) {
+		return new RepositoryPublisher<>(this::stream, executor);
+	}
+
+	/**
+	 * Обработка всех объектов по мере их получения (см. {@link #stream()})
+	 *
+	 * @param action действие, выполняемое для каждого объекта
+	 */
+	default void forEach(Consumer<? super T> action) {
+		try (Stream<T> entities = stream()) {
+			entities.forEach(action);
+		}
+	}
+
 	/**
 	 * Общее количество объектов
 	 *
@@ -99,6 +201,17 @@ public interface Repository<T, ID> {
 	 */
 	T insert(T entity);
 
+	/**
+	 * Добавление нескольких новых объектов пакетами
+	 *
+	 * @param entities
+	 * @return результаты выполнения каждого пакета
+	 */
+	default List<RepositoryBatchResult> insertAll(Collection<T> entities) {
+		entities.forEach(this::insert);
+		return Collections.singletonList(RepositoryBatchResult.noInfo(entities.size()));
+	}
+
 	/**
 	 * Сохранение (обновление) данных существующего объекта
 	 *
@@ -107,6 +220,41 @@ public interface Repository<T, ID> {
 	 */
 	T save(T entity);
 
+	/**
+	 * Сохранение (обновление) данных нескольких существующих объектов пакетами
+	 *
+	 * @param entities
+	 * @return результаты выполнения каждого пакета
+	 */
+	default List<RepositoryBatchResult> saveAll(Collection<T> entities) {
+		entities.forEach(this::save);
+		return Collections.singletonList(RepositoryBatchResult.noInfo(entities.size()));
+	}
+
+	/**
+	 * Добавление объекта либо обновление существующего объекта с тем же идентификатором.
+	 * <p>
+	 * Реализация по-умолчанию не может определить идентификатор объекта и выбрасывает {@link UnsupportedOperationException}
+	 *
+	 * @param entity
+	 * @return
+	 */
+	default RepositoryUpsertResult upsert(T entity) {
+		throw new UnsupportedOperationException(String.format("Репозиторий <%s> не поддерживает добавление либо обновление объекта", getClass().getName()));
+	}
+
+	/**
+	 * Добавление нескольких объектов либо обновление существующих объектов с теми же идентификаторами
+	 *
+	 * @param entities
+	 * @return результат для каждого объекта (в порядке объектов)
+	 */
+	default List<RepositoryUpsertResult> upsertAll(Collection<T> entities) {
+		List<RepositoryUpsertResult> results = new ArrayList<>(entities.size());
+		entities.forEach(entity -> results.add(upsert(entity)));
+		return results;
+	}
+
 	/**
 	 * Удаление объекта
 	 *
@@ -121,9 +269,58 @@ public interface Repository<T, ID> {
 	 */
 	void deleteById(ID id);
 
+	/**
+	 * Удаление объектов по нескольким идентификаторам.
+	 * <p>
+	 * Реализация по-умолчанию удаляет найденные объекты по одному через {@link #deleteById(Object)} без общей транзакции: ошибка прерывает
+	 * удаление, а уже удаленные объекты остаются удаленными
+	 *
+	 * @param ids идентификаторы объектов
+	 * @return количество удаленных объектов
+	 */
+	default long deleteAllById(Collection<ID> ids) {
+		Map<ID, T> entities = findAllById(ids);
+		entities.keySet().forEach(this::deleteById);
+		return entities.size();
+	}
+
+	/**
+	 * Удаление объектов, удовлетворяющих критериям отбора.
+	 * <p>
+	 * Реализация по-умолчанию находит объекты через {@link #findAll(List, SelectionType)} и удаляет их по одному через {@link #delete(Object)} без
+	 * общей транзакции (как и {@link #deleteAllById(Collection)})
+	 *
+	 * @param selectionConditions критерии отбора
+	 * @param selectionType       способ объединения критериев
+	 * @return количество удаленных объектов
+	 */
+	default long deleteBy(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+		List<T> entities = findAll(selectionConditions, selectionType);
+		entities.forEach(this::delete);
+		return entities.size();
+	}
+
+	/**
+	 * Удаление нескольких объектов пакетами
+	 *
+	 * @param entities
+	 * @return результаты выполнения каждого пакета
+	 */
+	default List<RepositoryBatchResult> deleteAll(Collection<T> entities) {
+		entities.forEach(this::delete);
+		return Collections.singletonList(RepositoryBatchResult.noInfo(entities.size()));
+	}
+
 	/**
 	 * Удаление всех объектов
 	 */
 	void deleteAll();
 
+	/**
+	 * Быстрое удаление всех объектов без обработки каждой строки (если СУБД это позволяет)
+	 */
+	default void truncate() {
+		deleteAll();
+	}
+
 }
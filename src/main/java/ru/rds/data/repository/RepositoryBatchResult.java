@@ -0,0 +1,78 @@
+package ru.rds.data.repository;
+
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Результат выполнения одного пакета операций массового изменения данных ({@link Repository#insertAll(java.util.Collection)} и т.п.)
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public class RepositoryBatchResult {
+
+	// Признак успешного выполнения операции, для которой количество измененных строк не известно
+	public static final int SUCCESS_NO_INFO = Statement.SUCCESS_NO_INFO;
+
+	// Количество измененных строк для каждой операции пакета (в порядке объектов)
+	private final int[] updateCounts;
+
+	public RepositoryBatchResult(int[] updateCounts) {
+		this.updateCounts = updateCounts;
+	}
+
+	/**
+	 * Результат пакета, для операций которого количество измененных строк не известно
+	 *
+	 * @param size количество операций в пакете
+	 * @return
+	 */
+	public static RepositoryBatchResult noInfo(int size) {
+		int[] updateCounts = new int[size];
+		Arrays.fill(updateCounts, SUCCESS_NO_INFO);
+		return new RepositoryBatchResult(updateCounts);
+	}
+
+	/**
+	 * Количество операций в пакете
+	 *
+	 * @return
+	 */
+	public int getSize() {
+		return updateCounts.length;
+	}
+
+	/**
+	 * Количество измененных строк для каждой операции пакета ({@link #SUCCESS_NO_INFO}, если не известно)
+	 *
+	 * @return
+	 */
+	public int[] getUpdateCounts() {
+		return updateCounts.clone();
+	}
+
+	/**
+	 * Общее количество измененных строк
+	 *
+	 * @return -1, если количество не известно хотя бы для одной операции
+	 */
+	public long getAffectedRowsCount() {
+		long count = 0;
+		for (int updateCount : updateCounts) {
+			if (updateCount < 0) {
+				return -1;
+			}
+			count += updateCount;
+		}
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "RepositoryBatchResult{" +
+		       "updateCounts=" + Arrays.toString(updateCounts) +
+		       '}';
+	}
+
+}
@@ -1,23 +1,26 @@
 package ru.rds.data.repository;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.rds.data.repository.annotations.RepositoryData;
 import ru.rds.data.repository.annotations.RepositoryDataConverter;
 import ru.rds.data.repository.annotations.RepositoryDataProperty;
+import ru.rds.data.repository.annotations.RepositoryDataVersion;
+import ru.rds.data.repository.processor.RepositoryDataProcessor;
 
 /**
  * Класс-контейнер для хранения всё необходимой информации, которая нужна для класса {@link AnnotationBasedDatabaseStorageRepository}
  * <p>Выполняет действия по поиску всех необходимых данных самостоятельно при создании экземпляра и передачи в конструктор класса Репозитория
+ * <p>Для повторного использования сведений следует получать их через {@link #forRepository(Class)} или {@link #forDataClass(Class)}
  *
  * @param <T>
  * @author RDS
@@ -28,6 +31,27 @@ public class RepositoryDataDetails<T> {
 
 	private static final Logger logger = LoggerFactory.getLogger(RepositoryDataDetails.class);
 
+	// Сведения для каждого класса объекта
+	private static final ClassValue<RepositoryDataDetails<?>> DATA_DETAILS = new ClassValue<RepositoryDataDetails<?>>() {
+
+		@Override
+		protected RepositoryDataDetails<?> computeValue(Class<?> dataClass) {
+			return new RepositoryDataDetails<>(dataClass, dataClass.getName());
+		}
+
+	};
+
+	// Сведения для каждого класса Репозитория
+	private static final ClassValue<RepositoryDataDetails<?>> REPOSITORY_DETAILS = new ClassValue<RepositoryDataDetails<?>>() {
+
+		@Override
+		protected RepositoryDataDetails<?> computeValue(Class<?> repositoryClass) {
+			Class<?> dataClass = resolveDataClass(repositoryClass);
+			return dataClass != null ? DATA_DETAILS.get(dataClass) : new RepositoryDataDetails<>(null, repositoryClass.getName());
+		}
+
+	};
+
 	// Класс объекта, с которым работает Репозиторий
 	private Class<?> dataClass;
 
@@ -40,6 +64,9 @@ public class RepositoryDataDetails<T> {
 	// Экземпляр класса конвертера данных объекта
 	private RowConverter<T> dataConverterInstance;
 
+	// Класс конвертера данных объекта, созданного обработчиком аннотаций (если такой имеется)
+	private Class<? extends RowConverter> generatedDataConverterClass;
+
 	// Перечень имен полей и соответствущих имен столбцов в таблице БД
 	private Map<String, String> dataPropertiesFieldsMap = new HashMap<>();
 
@@ -52,44 +79,53 @@ public class RepositoryDataDetails<T> {
 	// Перечень имен полей и соответствующих экземпляров конвертеров типов
 	private Map<String, ValueConverter> dataPropertiesConvertersInstancesMap = new HashMap<>();
 
+	// Перечень имен столбцов и соответствующих средств доступа к полям
+	private Map<String, RepositoryDataPropertyAccessor> dataPropertiesAccessorsMap = new LinkedHashMap<>();
+
+	// Название столбца, содержащего номер версии объекта (если имеется)
+	private String versionColumnName;
+
+	// Конструктор класса объекта без параметров
+	private MethodHandle dataConstructor;
+
+	// Конвертер данных для провайдера конвертеров типов по-умолчанию
+	private volatile RowConverter<T> defaultDataRowConverter;
+
 	public RepositoryDataDetails(Class repositoryClass) {
-		Type superClass = repositoryClass.getGenericSuperclass();
-		if (superClass instanceof ParameterizedType) {
-			Type[] genericTypes = ((ParameterizedType) superClass).getActualTypeArguments();
-			Type dataType = genericTypes[0];
-			try {
-				this.dataClass = Class.forName(dataType.getTypeName());
-				logger.debug(String.format("Для Хранилища <%s> тип данных идентифицирован как <%s>", repositoryClass.getName(), this.dataClass.getName()));
-			} catch (Exception e) {
-				logger.error(String.format("Для Хранилища <%s> не удалось загрузить сведения о классе типа данных <%s>: %s", repositoryClass.getName(), dataType.getTypeName(), e.getMessage()), e);
-			}
-		} else {
-			logger.warn(String.format("Не удалось идентифицировать тип данных для Хранилища <%s>", repositoryClass.getName()));
-		}
+		this(resolveDataClass(repositoryClass), repositoryClass.getName());
+	}
+
+	private RepositoryDataDetails(Class<?> dataClass, String repositoryClassName) {
+		this.dataClass = dataClass;
 
 		if (this.dataClass != null) {
 			if (this.dataClass.isAnnotationPresent(RepositoryData.class)) {
 				RepositoryData repositoryData = this.dataClass.getAnnotation(RepositoryData.class);
 				this.repositoryName = repositoryData.repositoryName();
-				logger.debug(String.format("Название Хранилища <%s> определено как <%s>", repositoryClass.getName(), this.repositoryName));
+				logger.debug(String.format("Название Хранилища <%s> определено как <%s>", repositoryClassName, this.repositoryName));
 			} else {
-				logger.error(String.format("Не удалось определить название Хранилища <%s>, т.к. тип данных <%s> не аннотирован аннотацией <RepositoryData>", repositoryClass.getName(), this.dataClass.getName()));
+				logger.error(String.format("Не удалось определить название Хранилища <%s>, т.к. тип данных <%s> не аннотирован аннотацией <RepositoryData>", repositoryClassName, this.dataClass.getName()));
 			}
 
 
 			if (this.dataClass.isAnnotationPresent(RepositoryDataConverter.class)) {
 				RepositoryDataConverter repositoryDataConverter = this.dataClass.getAnnotation(RepositoryDataConverter.class);
 				dataConverterClass = repositoryDataConverter.value();
-				logger.debug(String.format("Тип Конвертера данных для Хранилища <%s> определен как <%s>", repositoryClass.getName(), this.dataConverterClass.getName()));
+				logger.debug(String.format("Тип Конвертера данных для Хранилища <%s> определен как <%s>", repositoryClassName, this.dataConverterClass.getName()));
 				try {
 					Constructor<? extends RowConverter> constructor = this.dataConverterClass.getDeclaredConstructor(ValueConvertersProvider.class);
-					this.dataConverterInstance = constructor.newInstance(new ValueConvertersProvider());
+					this.dataConverterInstance = constructor.newInstance(ValueConvertersProvider.getDefault());
 				} catch (Exception e) {
-					logger.error(String.format("Не удалось создать экземпляр Конвертера данных типа <%s> для Хранилища <%s>", this.dataConverterClass.getName(), repositoryClass.getName()), e);
+					logger.error(String.format("Не удалось создать экземпляр Конвертера данных типа <%s> для Хранилища <%s>", this.dataConverterClass.getName(), repositoryClassName), e);
 				}
 			} else {
-				logger.warn(
-						String.format("Не удалось определить тип Конвертера данных Хранилища <%s>, т.к. тип данных <%s> не аннотирован аннотацией <DataConverter>", repositoryClass.getName(), this.dataClass.getName()));
+				this.generatedDataConverterClass = findGeneratedDataConverterClass(this.dataClass);
+				if (this.generatedDataConverterClass != null) {
+					logger.debug(String.format("Для Хранилища <%s> будет использован созданный при компиляции Конвертер данных <%s>", repositoryClassName, this.generatedDataConverterClass.getName()));
+				} else {
+					logger.warn(String.format("Не удалось определить тип Конвертера данных Хранилища <%s>, т.к. тип данных <%s> не аннотирован аннотацией <DataConverter>", repositoryClassName,
+					                          this.dataClass.getName()));
+				}
 			}
 
 			Class<?> classForFieldsSearch = this.dataClass;
@@ -100,11 +136,8 @@ public class RepositoryDataDetails<T> {
 						String propertyName = repositoryDataProperty.columnName();
 						if (propertyName != null && !propertyName.isEmpty()) {
 							this.dataPropertiesFieldsMap.putIfAbsent(propertyName, field.getName());
-							try {
-								this.dataPropertiesTypesMap.putIfAbsent(propertyName, Class.forName(field.getGenericType().getTypeName()));
-							} catch (Exception e) {
-								logger.error(e.getMessage(), e);
-							}
+							// Тип поля без параметров: поля примитивных и параметризованных типов по названию типа не определяются
+							this.dataPropertiesTypesMap.putIfAbsent(propertyName, field.getType());
 						}
 						Class<? extends ValueConverter>[] valueConverters = repositoryDataProperty.valueConverter();
 						if (valueConverters.length > 0) {
@@ -115,14 +148,79 @@ public class RepositoryDataDetails<T> {
 								logger.error(e.getMessage(), e);
 							}
 						}
+						if (field.isAnnotationPresent(RepositoryDataVersion.class) && propertyName != null && !propertyName.isEmpty() && this.versionColumnName == null) {
+							this.versionColumnName = propertyName;
+							logger.debug(String.format("Номер версии объектов Хранилища <%s> хранится в столбце <%s>", repositoryClassName, propertyName));
+						}
+						if (propertyName != null && !propertyName.isEmpty() && !this.dataPropertiesAccessorsMap.containsKey(propertyName)) {
+							try {
+								this.dataPropertiesAccessorsMap.put(propertyName, new RepositoryDataPropertyAccessor(propertyName, field, this.dataPropertiesTypesMap.get(propertyName),
+								                                                                                   this.dataPropertiesConvertersInstancesMap.get(propertyName)));
+							} catch (Exception e) {
+								logger.error(String.format("Не удалось получить доступ к полю <%s> типа данных <%s>", field.getName(), this.dataClass.getName()), e);
+							}
+						}
 					}
 				}
 
 				classForFieldsSearch = classForFieldsSearch.getSuperclass();
 			}
+
+			try {
+				Constructor<?> constructor = this.dataClass.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				this.dataConstructor = MethodHandles.lookup()
+				                                    .unreflectConstructor(constructor)
+				                                    .asType(MethodType.methodType(Object.class));
+			} catch (Exception e) {
+				logger.error(String.format("Не удалось найти конструктор без параметров для типа данных <%s>", this.dataClass.getName()), e);
+			}
 		}
 	}
 
+	/**
+	 * Сведения для класса Репозитория.
+	 * <p>
+	 * Сведения формируются один раз для каждого класса объекта и используются совместно всеми Репозиториями этого класса объекта, поэтому создание
+	 * очередного экземпляра Репозитория не требует повторного анализа классов и создания конвертеров
+	 *
+	 * @param repositoryClass класс Репозитория
+	 * @param <T>
+	 * @return
+	 */
+	public static <T> RepositoryDataDetails<T> forRepository(Class<?> repositoryClass) {
+		return (RepositoryDataDetails<T>) REPOSITORY_DETAILS.get(repositoryClass);
+	}
+
+	/**
+	 * Сведения для класса объекта (формируются один раз для каждого класса объекта)
+	 *
+	 * @param dataClass класс объекта
+	 * @param <T>
+	 * @return
+	 */
+	public static <T> RepositoryDataDetails<T> forDataClass(Class<T> dataClass) {
+		return (RepositoryDataDetails<T>) DATA_DETAILS.get(dataClass);
+	}
+
+	private static Class<?> resolveDataClass(Class<?> repositoryClass) {
+		Type superClass = repositoryClass.getGenericSuperclass();
+		if (superClass instanceof ParameterizedType) {
+			Type[] genericTypes = ((ParameterizedType) superClass).getActualTypeArguments();
+			Type dataType = genericTypes[0];
+			try {
+				Class<?> dataClass = dataType instanceof Class ? (Class<?>) dataType : Class.forName(dataType.getTypeName());
+				logger.debug(String.format("Для Хранилища <%s> тип данных идентифицирован как <%s>", repositoryClass.getName(), dataClass.getName()));
+				return dataClass;
+			} catch (Exception e) {
+				logger.error(String.format("Для Хранилища <%s> не удалось загрузить сведения о классе типа данных <%s>: %s", repositoryClass.getName(), dataType.getTypeName(), e.getMessage()), e);
+			}
+		} else {
+			logger.warn(String.format("Не удалось идентифицировать тип данных для Хранилища <%s>", repositoryClass.getName()));
+		}
+		return null;
+	}
+
 	public Class<?> getDataClass() {
 		return dataClass;
 	}
@@ -139,17 +237,71 @@ public class RepositoryDataDetails<T> {
 		return dataConverterInstance;
 	}
 
-	public T createDataInstance() {
-		if (getDataClass() != null) {
+	public Class<? extends RowConverter> getGeneratedDataConverterClass() {
+		return generatedDataConverterClass;
+	}
+
+	/**
+	 * Создание экземпляра конвертера данных, созданного обработчиком аннотаций {@link RepositoryDataProcessor}
+	 *
+	 * @param valueConvertersProvider провайдер конвертеров типов, который будет использован конвертером
+	 * @return NULL, если такой конвертер отсутствует или его не удалось создать
+	 */
+	public RowConverter<T> createGeneratedDataConverterInstance(ValueConvertersProvider valueConvertersProvider) {
+		if (this.generatedDataConverterClass != null) {
 			try {
-				return (T) getDataClass().getConstructor().newInstance();
+				return this.generatedDataConverterClass.getConstructor(ValueConvertersProvider.class).newInstance(valueConvertersProvider);
 			} catch (Exception e) {
+				logger.error(String.format("Не удалось создать экземпляр Конвертера данных типа <%s>", this.generatedDataConverterClass.getName()), e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Конвертер данных для случая, когда он явно не указан в {@link RepositoryDataConverter}: созданный обработчиком аннотаций, либо преобразующий данные на
+	 * основе аннотаций.
+	 * <p>
+	 * Для провайдера по-умолчанию ({@link ValueConvertersProvider#getDefault()}) конвертер создается один раз и используется совместно
+	 *
+	 * @param valueConvertersProvider провайдер конвертеров типов
+	 * @return
+	 */
+	public RowConverter<T> getDataRowConverter(ValueConvertersProvider valueConvertersProvider) {
+		boolean isDefaultProvider = valueConvertersProvider == ValueConvertersProvider.getDefault();
+		RowConverter<T> rowConverter = isDefaultProvider ? this.defaultDataRowConverter : null;
+		if (rowConverter == null) {
+			rowConverter = createGeneratedDataConverterInstance(valueConvertersProvider);
+			if (rowConverter == null) {
+				rowConverter = new RepositoryDataRowConverter<>(this, valueConvertersProvider);
+			}
+			if (isDefaultProvider) {
+				this.defaultDataRowConverter = rowConverter;
+			}
+		}
+		return rowConverter;
+	}
+
+	public T createDataInstance() {
+		if (this.dataConstructor != null) {
+			try {
+				return (T) (Object) this.dataConstructor.invokeExact();
+			} catch (Throwable e) {
 				logger.error(e.getMessage(), e);
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Название столбца, содержащего номер версии объекта ({@link RepositoryDataVersion})
+	 *
+	 * @return NULL, если объект не имеет номера версии
+	 */
+	public String getVersionColumnName() {
+		return versionColumnName;
+	}
+
 	public List<String> getPropertyColumnNames() {
 		return new ArrayList<>(this.dataPropertiesFieldsMap.keySet());
 	}
@@ -170,4 +322,32 @@ public class RepositoryDataDetails<T> {
 		return this.dataPropertiesConvertersInstancesMap.get(propertyColumnName);
 	}
 
+	public RepositoryDataPropertyAccessor getPropertyAccessor(String propertyColumnName) {
+		return this.dataPropertiesAccessorsMap.get(propertyColumnName);
+	}
+
+	public Collection<RepositoryDataPropertyAccessor> getPropertyAccessors() {
+		return Collections.unmodifiableCollection(this.dataPropertiesAccessorsMap.values());
+	}
+
+	private static Class<? extends RowConverter> findGeneratedDataConverterClass(Class<?> dataClass) {
+		String converterClassName = dataClass.getName();
+		String packageName = "";
+		int packageSeparatorIndex = converterClassName.lastIndexOf('.');
+		if (packageSeparatorIndex >= 0) {
+			packageName = converterClassName.substring(0, packageSeparatorIndex + 1);
+			converterClassName = converterClassName.substring(packageSeparatorIndex + 1);
+		}
+		converterClassName = packageName + converterClassName.replace('$', '_') + RepositoryDataProcessor.ROW_CONVERTER_SUFFIX;
+		try {
+			Class<?> converterClass = Class.forName(converterClassName, true, dataClass.getClassLoader());
+			if (RowConverter.class.isAssignableFrom(converterClass)) {
+				return (Class<? extends RowConverter>) converterClass;
+			}
+		} catch (ClassNotFoundException e) {
+			// Обработчик аннотаций не использовался при компиляции класса объекта
+		}
+		return null;
+	}
+
 }
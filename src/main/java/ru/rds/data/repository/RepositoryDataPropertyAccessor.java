@@ -0,0 +1,89 @@
+package ru.rds.data.repository;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Сведения о поле объекта, отмеченном аннотацией {@link ru.rds.data.repository.annotations.RepositoryDataProperty}, вместе с заранее подготовленными
+ * {@link MethodHandle} для чтения и записи его значения.
+ * <p>
+ * Создается один раз при анализе класса объекта, чтобы при преобразовании каждой строки не выполнять поиск полей через Reflection API
+ *
+ * @author RDS
+ * @version 1
+ * @see RepositoryDataDetails
+ * @since 1.0.0
+ */
+public class RepositoryDataPropertyAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	// Название столбца в таблице БД
+	private final String columnName;
+
+	// Название поля
+	private final String fieldName;
+
+	// Тип поля
+	private final Class<?> fieldType;
+
+	// Экземпляр конвертера типов, указанный в аннотации поля (может отсутствовать)
+	private final ValueConverter valueConverter;
+
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+
+	public RepositoryDataPropertyAccessor(String columnName, Field field, Class<?> fieldType, ValueConverter valueConverter) throws IllegalAccessException {
+		this.columnName = columnName;
+		this.fieldName = field.getName();
+		this.fieldType = fieldType;
+		this.valueConverter = valueConverter;
+
+		field.setAccessible(true);
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+		this.setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	public Class<?> getFieldType() {
+		return fieldType;
+	}
+
+	public ValueConverter getValueConverter() {
+		return valueConverter;
+	}
+
+	/**
+	 * Получение значения поля объекта
+	 *
+	 * @param object экземпляр объекта
+	 * @return
+	 * @throws Throwable
+	 */
+	public Object getValue(Object object) throws Throwable {
+		return (Object) this.getter.invokeExact(object);
+	}
+
+	/**
+	 * Установка значения поля объекта
+	 *
+	 * @param object экземпляр объекта
+	 * @param value  значение поля
+	 * @throws Throwable
+	 */
+	public void setValue(Object object, Object value) throws Throwable {
+		this.setter.invokeExact(object, value);
+	}
+
+}
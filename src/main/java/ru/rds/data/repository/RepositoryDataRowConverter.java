@@ -0,0 +1,336 @@
+package ru.rds.data.repository;
+
+import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+
+/**
+ * Реализация {@link RowConverter}, которая преобразует данные на основе аннотаций класса объекта.
+ * <p>
+ * План преобразования (средства доступа к полям и конвертеры типов для каждого столбца) формируется один раз на основе {@link RepositoryDataDetails},
+ * после чего преобразование каждой строки сводится к проходу по этому плану без поиска полей через Reflection API.
+ * <p>
+ * При чтении столбцы, для которых имеются поля, определяются один раз для каждого {@link RowDescriptor}, при записи Java-типы столбцов и конвертеры
+ * определяются один раз для каждого набора названий и Java-типов столбцов (перечни столбцов с одинаковыми названиями и типами используют один план,
+ * даже если это разные объекты)
+ *
+ * @param <T> тип объекта
+ * @author RDS
+ * @version 1
+ * @see AnnotationBasedDatabaseStorageRepository
+ * @since 1.0.0
+ */
+public class RepositoryDataRowConverter<T> implements IndexedRowConverter<T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepositoryDataRowConverter.class);
+
+	private static final int MAX_PLANS = 16;
+
+	private final RepositoryDataDetails<T> repositoryDataDetails;
+	private final ValueConvertersProvider  valueConvertersProvider;
+
+	// План преобразования: перечень имен столбцов и соответствующих сведений о полях
+	private final Map<String, PropertyMapping> propertyMappings = new HashMap<>();
+
+	// Планы чтения для описаний строк (описания сравниваются по названиям столбцов)
+	private volatile Map<RowDescriptor, ReadPlan> readPlans = new HashMap<>();
+
+	// Планы записи для наборов названий и Java-типов столбцов
+	private volatile Map<ColumnsKey, WritePlan> writePlans = new HashMap<>();
+
+	// Перечень столбцов, использованный при последней записи, и его план (перечни столбцов Таблицы обычно передаются одним и тем же объектом)
+	private volatile LastWritePlan lastWritePlan;
+
+	public RepositoryDataRowConverter(RepositoryDataDetails<T> repositoryDataDetails, ValueConvertersProvider valueConvertersProvider) {
+		this.repositoryDataDetails = repositoryDataDetails;
+		this.valueConvertersProvider = valueConvertersProvider;
+		repositoryDataDetails.getPropertyAccessors()
+		                     .forEach(accessor -> this.propertyMappings.put(accessor.getColumnName(), new PropertyMapping(accessor, valueConvertersProvider)));
+	}
+
+	/**
+	 * Преобразование строки без описания строк: описание формируется для каждой строки. Репозиторий передает описание, общее для результата
+	 * выборки, через {@link #fromRow(Row, RowDescriptor)}
+	 *
+	 * @param row
+	 * @return
+	 */
+	@Override
+	public T fromRow(Row row) {
+		return fromRow(row, RowDescriptor.of(row.getSpaceProperties()));
+	}
+
+	@Override
+	public T fromRow(Row row, RowDescriptor descriptor) {
+		T object = this.repositoryDataDetails.createDataInstance();
+		if (object != null) {
+			getReadPlan(descriptor).read(row, object);
+		}
+		return object;
+	}
+
+	@Override
+	public Row toRow(List<Column> columns, T entity) {
+		return getWritePlan(columns).toRow(columns, entity);
+	}
+
+	/**
+	 * План чтения для описания строк: столбцы, для которых имеются поля, определяются один раз
+	 *
+	 * @param descriptor
+	 * @return
+	 */
+	private ReadPlan getReadPlan(RowDescriptor descriptor) {
+		Map<RowDescriptor, ReadPlan> currentReadPlans = this.readPlans;
+		ReadPlan readPlan = currentReadPlans.get(descriptor);
+		if (readPlan == null) {
+			readPlan = new ReadPlan(descriptor);
+			// Разных перечней столбцов у Таблицы немного; сверх ограничения план используется без запоминания, а запомненные планы сохраняются
+			if (currentReadPlans.size() < MAX_PLANS) {
+				Map<RowDescriptor, ReadPlan> newReadPlans = new HashMap<>(currentReadPlans);
+				newReadPlans.put(descriptor, readPlan);
+				this.readPlans = newReadPlans;
+			}
+		}
+		return readPlan;
+	}
+
+	/**
+	 * План записи для перечня столбцов: Java-типы столбцов и конвертеры определяются один раз для каждого набора названий и Java-типов столбцов
+	 *
+	 * @param columns
+	 * @return
+	 */
+	private WritePlan getWritePlan(List<Column> columns) {
+		LastWritePlan last = this.lastWritePlan;
+		if (last != null && last.columns == columns) {
+			return last.writePlan;
+		}
+		ColumnsKey key = new ColumnsKey(columns);
+		Map<ColumnsKey, WritePlan> currentWritePlans = this.writePlans;
+		WritePlan writePlan = currentWritePlans.get(key);
+		if (writePlan == null) {
+			writePlan = new WritePlan(columns);
+			// Разных наборов столбцов у Таблицы немного; сверх ограничения план используется без запоминания, а запомненные планы сохраняются
+			if (currentWritePlans.size() < MAX_PLANS) {
+				Map<ColumnsKey, WritePlan> newWritePlans = new HashMap<>(currentWritePlans);
+				newWritePlans.put(key, writePlan);
+				this.writePlans = newWritePlans;
+			}
+		}
+		this.lastWritePlan = new LastWritePlan(columns, writePlan);
+		return writePlan;
+	}
+
+
+	/**
+	 * Запомненный результат поиска конвертера для конкретного типа данных
+	 */
+	private static final class ResolvedValueConverter {
+
+		private final Class<?>       sourceType;
+		private final ValueConverter valueConverter;
+
+		private ResolvedValueConverter(Class<?> sourceType, ValueConverter valueConverter) {
+			this.sourceType = sourceType;
+			this.valueConverter = valueConverter;
+		}
+
+	}
+
+	/**
+	 * Элемент плана преобразования для одного столбца (не зависит от типа объекта, поэтому массивы элементов создаются без приведения типов)
+	 */
+	private static final class PropertyMapping {
+
+		private final RepositoryDataPropertyAccessor accessor;
+		private final ValueConvertersProvider        valueConvertersProvider;
+
+		// Конвертер запоминается для последнего встреченного типа, т.к. для одного столбца тип данных практически всегда один и тот же
+		private volatile ResolvedValueConverter readConverter;
+
+		private PropertyMapping(RepositoryDataPropertyAccessor accessor, ValueConvertersProvider valueConvertersProvider) {
+			this.accessor = accessor;
+			this.valueConvertersProvider = valueConvertersProvider;
+		}
+
+		/**
+		 * Поиск конвертера типов: сначала среди зарегистрированных в провайдере, затем среди указанных в аннотации поля
+		 *
+		 * @param sourceType
+		 * @return
+		 */
+		private ValueConverter resolveValueConverter(Class<?> sourceType) {
+			ValueConverter valueConverter = this.valueConvertersProvider.findValueConverter(sourceType, this.accessor.getFieldType());
+			if (valueConverter != null) {
+				return valueConverter;
+			}
+			ValueConverter propertyValueConverter = this.accessor.getValueConverter();
+			if (propertyValueConverter == null) {
+				logger.error(String.format("Не удалось найти подходящий <RowValueConverter> для преобразования типа <%s> в тип <%s>", sourceType.getName(),
+				                           this.accessor.getFieldType() == null ? null : this.accessor.getFieldType().getName()));
+			}
+			return propertyValueConverter;
+		}
+
+		private void read(Object object, Object value) {
+			try {
+				ResolvedValueConverter resolved = this.readConverter;
+				Class<?> sourceType = value.getClass();
+				if (resolved == null || resolved.sourceType != sourceType) {
+					resolved = new ResolvedValueConverter(sourceType, resolveValueConverter(sourceType));
+					this.readConverter = resolved;
+				}
+				if (resolved.valueConverter != null) {
+					Object fieldValue = resolved.valueConverter.convertFrom(value);
+					// Поле примитивного типа сохраняет значение по-умолчанию, если значение не удалось преобразовать
+					if (fieldValue != null || !this.accessor.getFieldType().isPrimitive()) {
+						this.accessor.setValue(object, fieldValue);
+					}
+				}
+			} catch (Throwable e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+
+	}
+
+	/**
+	 * План чтения данных из {@link Row} для конкретного описания строк: содержит только столбцы, для которых имеются поля
+	 */
+	private final class ReadPlan {
+
+		// Названия столбцов, для которых имеются поля ({@link Row} предоставляет значения только по названию столбца)
+		private final String[]          columnNames;
+		private final PropertyMapping[] mappings;
+
+		private ReadPlan(RowDescriptor descriptor) {
+			List<String> names = new ArrayList<>();
+			List<PropertyMapping> columnMappings = new ArrayList<>();
+			for (int i = 0; i < descriptor.getColumnsCount(); i++) {
+				PropertyMapping propertyMapping = propertyMappings.get(descriptor.getColumnName(i));
+				if (propertyMapping != null) {
+					names.add(descriptor.getColumnName(i));
+					columnMappings.add(propertyMapping);
+				}
+			}
+			this.columnNames = names.toArray(new String[0]);
+			this.mappings = columnMappings.toArray(new PropertyMapping[0]);
+		}
+
+		private void read(Row row, T object) {
+			for (int i = 0; i < this.columnNames.length; i++) {
+				Object value = row.getValue(this.columnNames[i]).orElse(null);
+				if (value != null) {
+					this.mappings[i].read(object, value);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Ключ плана записи: названия и Java-типы столбцов в порядке их следования
+	 */
+	private static final class ColumnsKey {
+
+		private final String[] columnNames;
+		private final String[] classNames;
+		private final int      hashCode;
+
+		private ColumnsKey(List<Column> columns) {
+			this.columnNames = new String[columns.size()];
+			this.classNames = new String[columns.size()];
+			for (int i = 0; i < columns.size(); i++) {
+				this.columnNames[i] = columns.get(i).getName();
+				this.classNames[i] = columns.get(i).getClassName();
+			}
+			this.hashCode = 31 * Arrays.hashCode(this.columnNames) + Arrays.hashCode(this.classNames);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ColumnsKey)) {
+				return false;
+			}
+			ColumnsKey that = (ColumnsKey) o;
+			return Arrays.equals(this.columnNames, that.columnNames) && Arrays.equals(this.classNames, that.classNames);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+	}
+
+	/**
+	 * Перечень столбцов, использованный при последней записи, и его план
+	 */
+	private final class LastWritePlan {
+
+		private final List<Column> columns;
+		private final WritePlan    writePlan;
+
+		private LastWritePlan(List<Column> columns, WritePlan writePlan) {
+			this.columns = columns;
+			this.writePlan = writePlan;
+		}
+
+	}
+
+	/**
+	 * План записи данных объекта в {@link Row} для набора названий и Java-типов столбцов
+	 */
+	private final class WritePlan {
+
+		private final String[]                         columnNames;
+		private final RepositoryDataPropertyAccessor[] accessors;
+		private final ValueConverter[]                 valueConverters;
+
+		private WritePlan(List<Column> columns) {
+			this.columnNames = new String[columns.size()];
+			this.accessors = new RepositoryDataPropertyAccessor[columns.size()];
+			this.valueConverters = new ValueConverter[columns.size()];
+			for (int i = 0; i < columns.size(); i++) {
+				Column column = columns.get(i);
+				this.columnNames[i] = column.getName();
+				PropertyMapping propertyMapping = propertyMappings.get(column.getName());
+				if (propertyMapping != null) {
+					Class<?> columnType = AbstractRowConverter.getColumnType(column);
+					if (columnType != null) {
+						this.accessors[i] = propertyMapping.accessor;
+						this.valueConverters[i] = propertyMapping.resolveValueConverter(columnType);
+					}
+				}
+			}
+		}
+
+		/**
+		 * @param columns перечень столбцов строки (названия и типы столбцов совпадают с теми, для которых сформирован план)
+		 * @param entity
+		 * @return
+		 */
+		private Row toRow(List<Column> columns, T entity) {
+			Row row = new Row(columns);
+			for (int i = 0; i < this.columnNames.length; i++) {
+				ValueConverter valueConverter = this.valueConverters[i];
+				if (valueConverter != null) {
+					try {
+						row.setValue(this.columnNames[i], valueConverter.convertTo(this.accessors[i].getValue(entity)));
+					} catch (Throwable e) {
+						logger.error(e.getMessage(), e);
+					}
+				}
+			}
+			return row;
+		}
+
+	}
+
+}
@@ -0,0 +1,20 @@
+package ru.rds.data.repository;
+
+/**
+ * Ошибка при выполнении операции Репозитория
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public class RepositoryException extends RuntimeException {
+
+	public RepositoryException(String message) {
+		super(message);
+	}
+
+	public RepositoryException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,288 @@
+package ru.rds.data.repository;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.common.AssertChecker;
+
+/**
+ * Объединение одновременных запросов поиска объекта по идентификатору.
+ * <p>
+ * Запросы, поступившие в течение заданного интервала (или до достижения максимального количества идентификаторов), выполняются одним запросом
+ * {@link Repository#findAllById(Collection)}; одинаковые идентификаторы запрашиваются один раз. Результат каждого запроса становится доступен после
+ * выполнения всей группы.
+ * <p>
+ * Группы выполняются исполнителем групп (переданным либо собственным пулом потоков), а не в потоке одного из ожидающих: запрос группы не должен
+ * зависеть от транзакции или единицы работы потока, запрос которого заполнил группу. Поэтому поиск в транзакции {@link RepositoryTransactions} или в
+ * единице работы {@link RepositoryUnitOfWork} Репозиторий выполняет без объединения. Поток объединения только отсчитывает интервалы накопления,
+ * поэтому долгий запрос одной группы не задерживает выполнение следующих. После закрытия новые запросы не принимаются
+ *
+ * @param <T>  тип объекта
+ * @param <ID> тип идентификатора объекта
+ * @author RDS
+ * @version 1
+ * @see DatabaseStorageRepository#setFindByIdCoalescing(long, int)
+ * @since 1.0.0
+ */
+public class RepositoryFindByIdCoalescer<T, ID> implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepositoryFindByIdCoalescer.class);
+
+	// Количество потоков собственного исполнителя групп
+	private static final int DEFAULT_THREADS_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+
+	private final Repository<T, ID> repository;
+
+	// Интервал накопления запросов (в миллисекундах)
+	private final long windowMillis;
+
+	// Максимальное количество идентификаторов в группе
+	private final int maxBatchSize;
+
+	// Отсчет интервалов накопления
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	// Выполнение групп
+	private final Executor executor;
+
+	// Исполнитель групп создан этим объектом и должен быть остановлен при закрытии
+	private final boolean ownExecutor;
+
+	private final Object lock = new Object();
+
+	// Группа запросов, которая накапливается в текущий момент
+	private Batch   currentBatch;
+	private boolean closed;
+
+	// Группы, переданные на выполнение, но еще не выполненные
+	private final Set<Batch> submittedBatches = new HashSet<>();
+
+	public RepositoryFindByIdCoalescer(Repository<T, ID> repository, long windowMillis, int maxBatchSize) {
+		this(repository, windowMillis, maxBatchSize, createDefaultExecutor(), true);
+	}
+
+	/**
+	 * @param repository   Репозиторий
+	 * @param windowMillis интервал накопления запросов в миллисекундах
+	 * @param maxBatchSize максимальное количество идентификаторов в группе
+	 * @param executor     исполнитель групп (не останавливается при закрытии)
+	 */
+	public RepositoryFindByIdCoalescer(Repository<T, ID> repository, long windowMillis, int maxBatchSize, Executor executor) {
+		this(repository, windowMillis, maxBatchSize, executor, false);
+	}
+
+	private RepositoryFindByIdCoalescer(Repository<T, ID> repository, long windowMillis, int maxBatchSize, Executor executor, boolean ownExecutor) {
+		AssertChecker.notNull(repository, "Не передан Репозиторий для объединения запросов");
+		AssertChecker.notNull(executor, "Не передан исполнитель групп запросов");
+		this.repository = repository;
+		this.windowMillis = windowMillis;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.executor = executor;
+		this.ownExecutor = ownExecutor;
+		this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "repository-find-by-id-timer-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		// Накопленные группы выполняются при закрытии, поэтому ожидать окончания их интервалов не нужно
+		this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * Асинхронный поиск объекта по идентификатору в составе группы запросов
+	 *
+	 * @param id
+	 * @return
+	 */
+	public CompletableFuture<Optional<T>> findById(ID id) {
+		if (id == null) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		CompletableFuture<Optional<T>> future;
+		Batch fullBatch = null;
+		synchronized (this.lock) {
+			if (this.closed) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(new RepositoryException("Объединение запросов поиска по идентификатору завершено"));
+				return future;
+			}
+			Batch batch = this.currentBatch;
+			if (batch == null) {
+				batch = new Batch();
+				this.currentBatch = batch;
+				Batch scheduledBatch = batch;
+				this.scheduler.schedule(() -> dispatch(scheduledBatch), this.windowMillis, TimeUnit.MILLISECONDS);
+			}
+			future = batch.futures.computeIfAbsent(id, key -> new CompletableFuture<>());
+			if (batch.futures.size() >= this.maxBatchSize) {
+				// Группа заполнена - выполняется сразу, не дожидаясь окончания интервала
+				fullBatch = takeCurrentBatch();
+			}
+		}
+		submit(fullBatch);
+		return future;
+	}
+
+	/**
+	 * Поиск объекта по идентификатору в составе группы запросов с ожиданием результата
+	 *
+	 * @param id
+	 * @return
+	 */
+	public Optional<T> get(ID id) {
+		try {
+			return findById(id).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Выполнение накопленных запросов без ожидания окончания интервала накопления
+	 */
+	public void flush() {
+		Batch batch;
+		synchronized (this.lock) {
+			batch = takeCurrentBatch();
+		}
+		submit(batch);
+	}
+
+	/**
+	 * Завершение работы: новые запросы не принимаются, а накопленные выполняются до возврата из метода
+	 */
+	@Override
+	public void close() {
+		Batch batch;
+		List<CompletableFuture<Void>> completions = new ArrayList<>();
+		synchronized (this.lock) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			batch = takeCurrentBatch();
+			this.submittedBatches.forEach(submittedBatch -> completions.add(submittedBatch.completion));
+		}
+		this.scheduler.shutdown();
+		submit(batch);
+		try {
+			CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+		} catch (TimeoutException e) {
+			logger.warn("Не дождались выполнения накопленных запросов поиска по идентификатору");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// Ошибки групп переданы ожидающим запросам
+		}
+		if (this.ownExecutor) {
+			((ExecutorService) this.executor).shutdown();
+		}
+	}
+
+	/**
+	 * Изъятие накапливаемой группы для выполнения (выполняется под блокировкой): до выполнения группа учитывается при закрытии
+	 *
+	 * @return NULL, если группы нет
+	 */
+	private Batch takeCurrentBatch() {
+		Batch batch = this.currentBatch;
+		this.currentBatch = null;
+		if (batch != null) {
+			this.submittedBatches.add(batch);
+		}
+		return batch;
+	}
+
+	/**
+	 * Передача группы исполнителю групп (вне блокировки, т.к. исполнитель может выполнить группу в текущем потоке)
+	 *
+	 * @param batch группа (NULL - ничего не выполняется)
+	 */
+	private void submit(Batch batch) {
+		if (batch == null) {
+			return;
+		}
+		try {
+			this.executor.execute(() -> execute(batch));
+		} catch (RuntimeException e) {
+			logger.error("Исполнитель не принял группу запросов поиска по идентификатору", e);
+			batch.futures.values().forEach(future -> future.completeExceptionally(e));
+			complete(batch);
+		}
+	}
+
+	/**
+	 * Передача группы на выполнение по истечении интервала накопления (если группа еще не выполнена)
+	 *
+	 * @param batch
+	 */
+	private void dispatch(Batch batch) {
+		synchronized (this.lock) {
+			if (this.currentBatch != batch) {
+				return;
+			}
+			takeCurrentBatch();
+		}
+		submit(batch);
+	}
+
+	private void execute(Batch batch) {
+		try {
+			Map<ID, T> entities = this.repository.findAllById(batch.futures.keySet());
+			batch.futures.forEach((id, future) -> future.complete(Optional.ofNullable(entities.get(id))));
+		} catch (Throwable e) {
+			logger.error(String.format("Не удалось выполнить поиск объектов по %d идентификаторам", batch.futures.size()), e);
+			batch.futures.values().forEach(future -> future.completeExceptionally(e));
+		} finally {
+			complete(batch);
+		}
+	}
+
+	private void complete(Batch batch) {
+		synchronized (this.lock) {
+			this.submittedBatches.remove(batch);
+		}
+		batch.completion.complete(null);
+	}
+
+	/**
+	 * Собственный исполнитель групп
+	 *
+	 * @return
+	 */
+	private static ExecutorService createDefaultExecutor() {
+		return Executors.newFixedThreadPool(DEFAULT_THREADS_COUNT, runnable -> {
+			Thread thread = new Thread(runnable, "repository-find-by-id-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Группа запросов: идентификатор -> результат
+	 */
+	private final class Batch {
+
+		private final Map<ID, CompletableFuture<Optional<T>>> futures = new LinkedHashMap<>();
+
+		// Завершается после выполнения группы
+		private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+	}
+
+}
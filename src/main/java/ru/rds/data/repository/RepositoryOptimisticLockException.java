@@ -0,0 +1,17 @@
+package ru.rds.data.repository;
+
+/**
+ * Ошибка оптимистической блокировки: объект был изменен или удален после того, как был получен
+ *
+ * @author RDS
+ * @version 1
+ * @see ru.rds.data.repository.annotations.RepositoryDataVersion
+ * @since 1.0.0
+ */
+public class RepositoryOptimisticLockException extends RepositoryException {
+
+	public RepositoryOptimisticLockException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,60 @@
+package ru.rds.data.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Страница объектов, полученная по ключу (без подсчета общего количества объектов)
+ *
+ * @param <T> тип объекта
+ * @author RDS
+ * @version 1
+ * @see Repository#findPage(RepositoryPageToken, int)
+ * @since 1.0.0
+ */
+public class RepositoryPage<T> {
+
+	// Перечень объектов страницы
+	private final List<T> elements;
+
+	// Признак продолжения для получения следующей страницы (NULL, если страница последняя)
+	private final RepositoryPageToken nextPageToken;
+
+	public RepositoryPage(List<T> elements, RepositoryPageToken nextPageToken) {
+		this.elements = elements;
+		this.nextPageToken = nextPageToken;
+	}
+
+	/**
+	 * Создание пустой (последней) страницы
+	 *
+	 * @param <T>
+	 * @return
+	 */
+	public static <T> RepositoryPage<T> empty() {
+		return new RepositoryPage<>(Collections.emptyList(), null);
+	}
+
+	/**
+	 * Перечень объектов страницы
+	 *
+	 * @return никогда не возвращает NULL
+	 */
+	public List<T> getElements() {
+		return elements;
+	}
+
+	/**
+	 * Признак продолжения для получения следующей страницы
+	 *
+	 * @return NULL, если страница последняя
+	 */
+	public RepositoryPageToken getNextPageToken() {
+		return nextPageToken;
+	}
+
+	public boolean hasNext() {
+		return nextPageToken != null;
+	}
+
+}
@@ -0,0 +1,56 @@
+package ru.rds.data.repository;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Признак продолжения для постраничного получения объектов по ключу ({@link Repository#findPage(RepositoryPageToken, int)}).
+ * <p>
+ * Содержит значения столбцов-ключей последнего объекта страницы: следующая страница начинается с объекта, ключ которого больше
+ *
+ * @author RDS
+ * @version 1
+ * @see RepositoryPage
+ * @since 1.0.0
+ */
+public final class RepositoryPageToken implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	// Значения столбцов-ключей (в порядке столбцов-ключей Таблицы)
+	private final List<Object> keyValues;
+
+	public RepositoryPageToken(List<Object> keyValues) {
+		this.keyValues = Collections.unmodifiableList(new ArrayList<>(keyValues));
+	}
+
+	public List<Object> getKeyValues() {
+		return keyValues;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		return keyValues.equals(((RepositoryPageToken) o).keyValues);
+	}
+
+	@Override
+	public int hashCode() {
+		return keyValues.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "RepositoryPageToken{" +
+		       "keyValues=" + keyValues +
+		       '}';
+	}
+
+}
@@ -0,0 +1,156 @@
+package ru.rds.data.repository;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import ru.rds.data.database.common.AssertChecker;
+
+/**
+ * Источник соединений, который учитывает транзакции {@link RepositoryTransactions}.
+ * <p>
+ * Вне транзакции соединения выдаются исходным источником. Внутри транзакции, открытой в текущем потоке для этого источника, выдается закрепленное за
+ * транзакцией соединение: его закрытие, фиксация, откат и изменение режима autocommit не выполняются, т.к. ими управляет сама транзакция.
+ * <p>
+ * Для того, чтобы в транзакции участвовали и операции через {@link ru.rds.data.database.Table}, этот источник нужно передать в
+ * {@link ru.rds.data.database.DatabaseStorage} (либо в конструктор Репозитория)
+ *
+ * @author RDS
+ * @version 1
+ * @see RepositoryTransactions
+ * @since 1.0.0
+ */
+public class RepositoryTransactionalDataSource implements DataSource {
+
+	private final DataSource targetDataSource;
+
+	public RepositoryTransactionalDataSource(DataSource targetDataSource) {
+		AssertChecker.notNull(targetDataSource, "Не передан источник соединений");
+		this.targetDataSource = targetDataSource;
+	}
+
+	/**
+	 * Исходный источник соединений
+	 *
+	 * @return
+	 */
+	public DataSource getTargetDataSource() {
+		return targetDataSource;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		Connection connection = RepositoryTransactions.getConnection(this);
+		return connection == null ? this.targetDataSource.getConnection() : createTransactionConnection(connection);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		Connection connection = RepositoryTransactions.getConnection(this);
+		return connection == null ? this.targetDataSource.getConnection(username, password) : createTransactionConnection(connection);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return this.targetDataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		this.targetDataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		this.targetDataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return this.targetDataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return this.targetDataSource.getParentLogger();
+	}
+
+	@Override
+	public <W> W unwrap(Class<W> type) throws SQLException {
+		return type.isInstance(this) ? type.cast(this) : this.targetDataSource.unwrap(type);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> type) throws SQLException {
+		return type.isInstance(this) || this.targetDataSource.isWrapperFor(type);
+	}
+
+	/**
+	 * Соединение транзакции, которое не позволяет завершить транзакцию или вернуть соединение в пул
+	 *
+	 * @param connection закрепленное за транзакцией соединение
+	 * @return
+	 */
+	private static Connection createTransactionConnection(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+		                                           new TransactionConnectionHandler(connection));
+	}
+
+	private static final class TransactionConnectionHandler implements InvocationHandler {
+
+		private final Connection connection;
+
+		private boolean closed;
+
+		private TransactionConnectionHandler(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			int argsCount = args == null ? 0 : args.length;
+			switch (method.getName()) {
+				case "close":
+					this.closed = true;
+					return null;
+				case "isClosed":
+					return this.closed || this.connection.isClosed();
+				case "commit":
+				case "setAutoCommit":
+					return null;
+				case "rollback":
+					// Откат к точке сохранения выполняется, откат всей транзакции - только самой транзакцией
+					if (argsCount == 0) {
+						return null;
+					}
+					break;
+				case "getAutoCommit":
+					return false;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Transaction connection <" + this.connection + ">";
+				default:
+					break;
+			}
+			if (this.closed) {
+				throw new SQLException("Соединение закрыто");
+			}
+			try {
+				return method.invoke(this.connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,258 @@
+package ru.rds.data.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.common.AssertChecker;
+
+/**
+ * Транзакции, в которых все обращения к БД через один {@link RepositoryTransactionalDataSource} в текущем потоке используют одно соединение.
+ * <p>
+ * Соединение получается один раз при открытии транзакции, изменения фиксируются один раз при ее успешном завершении и откатываются при ошибке.
+ * Все Репозитории, использующие этот источник соединений (в том числе через общий {@link ru.rds.data.database.DatabaseStorage}), выполняют запросы
+ * в этой транзакции:
+ * <pre>
+ * RepositoryTransactions.inTransaction(dataSource, () -&gt; {
+ *     tasksRepository.save(task);
+ *     historyRepository.insert(history);
+ * });
+ * </pre>
+ * Вложенный вызов для того же источника соединений присоединяется к внешней транзакции. Транзакция привязана к потоку, поэтому операции, которые
+ * Репозиторий выполняет в других потоках (например, объединение поиска по идентификатору), в ней не участвуют.
+ * <p>
+ * Кэши, разделяемые с другими потоками, обновляются действиями {@link #afterCommit(Runnable)} и {@link #onRollback(Object, Runnable)}, чтобы не
+ * зафиксированные изменения не были видны другим участникам
+ *
+ * @author RDS
+ * @version 1
+ * @see RepositoryTransactionalDataSource
+ * @since 1.0.0
+ */
+public final class RepositoryTransactions {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepositoryTransactions.class);
+
+	// Транзакции текущего потока в порядке их открытия: источник соединений -> транзакция
+	private static final ThreadLocal<Map<RepositoryTransactionalDataSource, Transaction>> TRANSACTIONS = new ThreadLocal<>();
+
+	private RepositoryTransactions() {
+	}
+
+	/**
+	 * Выполнение действия в транзакции
+	 *
+	 * @param dataSource источник соединений
+	 * @param action     действие
+	 * @param <R>
+	 * @return результат действия
+	 */
+	public static <R> R inTransaction(RepositoryTransactionalDataSource dataSource, Supplier<R> action) {
+		AssertChecker.notNull(dataSource, "Не передан источник соединений для транзакции");
+		AssertChecker.notNull(action, "Не передано действие для выполнения в транзакции");
+		Map<RepositoryTransactionalDataSource, Transaction> transactions = TRANSACTIONS.get();
+		if (transactions != null && transactions.containsKey(dataSource)) {
+			return action.get();
+		}
+		if (transactions == null) {
+			// Источник соединений не переопределяет equals(), поэтому транзакции различаются по ссылке на него
+			transactions = new LinkedHashMap<>();
+			TRANSACTIONS.set(transactions);
+		}
+		// Действия после фиксации регистрируются в самой внешней транзакции: при откате отменяются только действия, зарегистрированные в этой
+		List<Runnable> outerCommitActions = transactions.isEmpty() ? null : transactions.values().iterator().next().commitActions;
+		int outerCommitActionsCount = outerCommitActions == null ? 0 : outerCommitActions.size();
+		Transaction transaction = Transaction.begin(dataSource.getTargetDataSource());
+		transactions.put(dataSource, transaction);
+		R result;
+		try {
+			result = action.get();
+			transaction.commit();
+		} catch (RuntimeException | Error e) {
+			transaction.rollback(e);
+			if (outerCommitActions != null) {
+				outerCommitActions.subList(outerCommitActionsCount, outerCommitActions.size()).clear();
+			}
+			throw e;
+		} finally {
+			transactions.remove(dataSource);
+			if (transactions.isEmpty()) {
+				TRANSACTIONS.remove();
+			}
+			transaction.close();
+		}
+		transaction.afterCommit();
+		return result;
+	}
+
+	/**
+	 * Выполнение действия в транзакции
+	 *
+	 * @param dataSource источник соединений
+	 * @param action     действие
+	 */
+	public static void inTransaction(RepositoryTransactionalDataSource dataSource, Runnable action) {
+		AssertChecker.notNull(action, "Не передано действие для выполнения в транзакции");
+		inTransaction(dataSource, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Проверка наличия открытой транзакции в текущем потоке
+	 *
+	 * @return
+	 */
+	public static boolean isActive() {
+		return TRANSACTIONS.get() != null;
+	}
+
+	/**
+	 * Проверка наличия открытой в текущем потоке транзакции для источника соединений
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	public static boolean isActive(RepositoryTransactionalDataSource dataSource) {
+		return getConnection(dataSource) != null;
+	}
+
+	/**
+	 * Регистрация действия, которое нужно выполнить при откате всех открытых в текущем потоке транзакций (например, очистка кэшей, в которые попали
+	 * отмененные изменения). Действие с тем же ключом регистрируется в транзакции один раз
+	 *
+	 * @param key    ключ действия
+	 * @param action действие
+	 */
+	public static void onRollback(Object key, Runnable action) {
+		Map<RepositoryTransactionalDataSource, Transaction> transactions = TRANSACTIONS.get();
+		if (transactions != null) {
+			transactions.values().forEach(transaction -> transaction.rollbackActions.putIfAbsent(key, action));
+		}
+	}
+
+	/**
+	 * Регистрация действия, которое нужно выполнить после фиксации всех открытых в текущем потоке транзакций (например, обновление кэшей, разделяемых
+	 * с другими потоками, изменениями, которые до фиксации не видны другим участникам). Действие выполняется после фиксации самой внешней транзакции
+	 * и не выполняется, если откатывается транзакция, открытая при его регистрации, или любая из внешних к ней. Если транзакция не открыта, действие
+	 * выполняется сразу
+	 *
+	 * @param action действие
+	 */
+	public static void afterCommit(Runnable action) {
+		Map<RepositoryTransactionalDataSource, Transaction> transactions = TRANSACTIONS.get();
+		if (transactions == null) {
+			action.run();
+		} else {
+			transactions.values().iterator().next().commitActions.add(action);
+		}
+	}
+
+	/**
+	 * Соединение, закрепленное за открытой в текущем потоке транзакцией
+	 *
+	 * @param dataSource
+	 * @return NULL, если транзакция не открыта
+	 */
+	static Connection getConnection(RepositoryTransactionalDataSource dataSource) {
+		Map<RepositoryTransactionalDataSource, Transaction> transactions = TRANSACTIONS.get();
+		Transaction transaction = transactions == null ? null : transactions.get(dataSource);
+		return transaction == null ? null : transaction.connection;
+	}
+
+	private static final class Transaction {
+
+		private final Connection connection;
+
+		// Режим autocommit соединения до начала транзакции
+		private final boolean autoCommit;
+
+		private final Map<Object, Runnable> rollbackActions = new IdentityHashMap<>();
+		private final List<Runnable>        commitActions   = new ArrayList<>();
+
+		private Transaction(Connection connection, boolean autoCommit) {
+			this.connection = connection;
+			this.autoCommit = autoCommit;
+		}
+
+		private static Transaction begin(javax.sql.DataSource dataSource) {
+			Connection connection = null;
+			try {
+				connection = dataSource.getConnection();
+				boolean autoCommit = connection.getAutoCommit();
+				if (autoCommit) {
+					connection.setAutoCommit(false);
+				}
+				return new Transaction(connection, autoCommit);
+			} catch (SQLException e) {
+				closeQuietly(connection);
+				throw new RepositoryException("Не удалось начать транзакцию", e);
+			}
+		}
+
+		private void commit() {
+			try {
+				this.connection.commit();
+			} catch (SQLException e) {
+				throw new RepositoryException("Не удалось зафиксировать транзакцию", e);
+			}
+		}
+
+		private void rollback(Throwable cause) {
+			try {
+				this.connection.rollback();
+			} catch (SQLException e) {
+				cause.addSuppressed(e);
+				logger.error("Не удалось откатить транзакцию", e);
+			}
+			List<Runnable> actions = new ArrayList<>(this.rollbackActions.values());
+			for (Runnable action : actions) {
+				try {
+					action.run();
+				} catch (RuntimeException e) {
+					logger.error(e.getMessage(), e);
+				}
+			}
+		}
+
+		private void afterCommit() {
+			for (Runnable action : this.commitActions) {
+				try {
+					action.run();
+				} catch (RuntimeException e) {
+					logger.error(e.getMessage(), e);
+				}
+			}
+		}
+
+		private void close() {
+			try {
+				if (this.autoCommit) {
+					this.connection.setAutoCommit(true);
+				}
+			} catch (SQLException e) {
+				logger.error("Не удалось восстановить режим autocommit соединения", e);
+			}
+			closeQuietly(this.connection);
+		}
+
+		private static void closeQuietly(Connection connection) {
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException e) {
+					logger.error("Не удалось закрыть соединение", e);
+				}
+			}
+		}
+
+	}
+
+}
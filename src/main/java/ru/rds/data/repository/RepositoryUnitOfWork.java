@@ -0,0 +1,160 @@
+package ru.rds.data.repository;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Единица работы: карта объектов, загруженных Репозиториями в рамках одной операции.
+ * <p>
+ * Пока единица работы открыта в текущем потоке, повторный поиск объекта по тому же идентификатору в том же Репозитории не выполняет запрос и
+ * возвращает тот же экземпляр объекта (в том числе запоминается отсутствие объекта). Добавление, сохранение и удаление объектов через Репозиторий
+ * обновляют карту. Карта существует только до закрытия единицы работы, поэтому, в отличие от кэша, не накапливает устаревшие данные.
+ * <pre>
+ * try (RepositoryUnitOfWork unitOfWork = RepositoryUnitOfWork.begin()) {
+ *     ...
+ * }
+ * </pre>
+ * Вложенная единица работы имеет свою карту объектов; после ее закрытия в потоке снова действует внешняя
+ *
+ * @author RDS
+ * @version 1
+ * @see DatabaseStorageRepository#findById(Object)
+ * @since 1.0.0
+ */
+public final class RepositoryUnitOfWork implements AutoCloseable {
+
+	private static final ThreadLocal<RepositoryUnitOfWork> CURRENT = new ThreadLocal<>();
+
+	// Признак отсутствия объекта с идентификатором
+	private static final Object ABSENT = new Object();
+
+	// Единица работы, действовавшая в потоке до открытия текущей
+	private final RepositoryUnitOfWork previous;
+	private final Thread               thread;
+
+	// Объекты для каждого Репозитория: Репозиторий -> идентификатор -> объект
+	private final Map<Object, Map<Object, Object>> entities = new IdentityHashMap<>();
+
+	private boolean closed;
+
+	private RepositoryUnitOfWork(RepositoryUnitOfWork previous) {
+		this.previous = previous;
+		this.thread = Thread.currentThread();
+	}
+
+	/**
+	 * Открытие единицы работы в текущем потоке
+	 *
+	 * @return
+	 */
+	public static RepositoryUnitOfWork begin() {
+		RepositoryUnitOfWork unitOfWork = new RepositoryUnitOfWork(CURRENT.get());
+		CURRENT.set(unitOfWork);
+		return unitOfWork;
+	}
+
+	/**
+	 * Выполнение действия в рамках новой единицы работы
+	 *
+	 * @param action
+	 * @param <R>
+	 * @return результат действия
+	 */
+	public static <R> R execute(Supplier<R> action) {
+		try (RepositoryUnitOfWork ignored = begin()) {
+			return action.get();
+		}
+	}
+
+	/**
+	 * Единица работы, открытая в текущем потоке
+	 *
+	 * @return
+	 */
+	public static Optional<RepositoryUnitOfWork> current() {
+		return Optional.ofNullable(CURRENT.get());
+	}
+
+	/**
+	 * Проверка наличия сведений об объекте (в том числе об его отсутствии)
+	 *
+	 * @param repository Репозиторий
+	 * @param id         идентификатор объекта
+	 * @return
+	 */
+	public boolean contains(Repository<?, ?> repository, Object id) {
+		Map<Object, Object> repositoryEntities = this.entities.get(repository);
+		return repositoryEntities != null && repositoryEntities.containsKey(id);
+	}
+
+	/**
+	 * Получение объекта
+	 *
+	 * @param repository Репозиторий
+	 * @param id         идентификатор объекта
+	 * @param <T>
+	 * @return пустое значение, если объект отсутствует (см. {@link #contains(Repository, Object)})
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Optional<T> get(Repository<T, ?> repository, Object id) {
+		Map<Object, Object> repositoryEntities = this.entities.get(repository);
+		Object entity = repositoryEntities == null ? null : repositoryEntities.get(id);
+		return entity == null || entity == ABSENT ? Optional.empty() : Optional.of((T) entity);
+	}
+
+	/**
+	 * Запоминание объекта (NULL - объект отсутствует)
+	 *
+	 * @param repository Репозиторий
+	 * @param id         идентификатор объекта
+	 * @param entity     объект
+	 * @param <T>
+	 */
+	public <T> void put(Repository<T, ?> repository, Object id, T entity) {
+		if (id != null) {
+			this.entities.computeIfAbsent(repository, key -> new HashMap<>()).put(id, entity == null ? ABSENT : entity);
+		}
+	}
+
+	/**
+	 * Удаление сведений об объекте
+	 *
+	 * @param repository Репозиторий
+	 * @param id         идентификатор объекта
+	 */
+	public void remove(Repository<?, ?> repository, Object id) {
+		Map<Object, Object> repositoryEntities = this.entities.get(repository);
+		if (repositoryEntities != null) {
+			repositoryEntities.remove(id);
+		}
+	}
+
+	/**
+	 * Удаление сведений обо всех объектах Репозитория
+	 *
+	 * @param repository
+	 */
+	public void clear(Repository<?, ?> repository) {
+		this.entities.remove(repository);
+	}
+
+	@Override
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.entities.clear();
+		if (Thread.currentThread() == this.thread && CURRENT.get() == this) {
+			if (this.previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(this.previous);
+			}
+		}
+	}
+
+}
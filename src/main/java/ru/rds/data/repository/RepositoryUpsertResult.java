@@ -0,0 +1,18 @@
+package ru.rds.data.repository;
+
+/**
+ * Результат добавления или обновления объекта ({@link Repository#upsert(Object)})
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public enum RepositoryUpsertResult {
+
+	// Объект добавлен
+	INSERTED,
+
+	// Обновлен существующий объект с тем же идентификатором
+	UPDATED
+
+}
@@ -0,0 +1,466 @@
+package ru.rds.data.repository;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.common.AssertChecker;
+
+/**
+ * Отложенная запись изменений объектов.
+ * <p>
+ * Вызовы {@link #insert(Object)}, {@link #save(Object)} и {@link #delete(Object)} только запоминают изменение, а запись в Репозиторий выполняется
+ * пакетами ({@link Repository#deleteAll(Collection)}, {@link Repository#insertAll(Collection)}, {@link Repository#saveAll(Collection)}) в фоновом
+ * потоке - по истечении интервала или при накоплении заданного количества изменений. Повторные изменения объекта с тем же идентификатором
+ * объединяются, так что записывается только последнее состояние объекта:
+ * <ul>
+ * <li>добавление и последующее сохранение - добавление последнего состояния;</li>
+ * <li>добавление и последующее удаление - изменение не записывается;</li>
+ * <li>сохранение и последующее удаление - удаление;</li>
+ * <li>удаление и последующее добавление - сохранение (строка еще не удалена);</li>
+ * <li>удаление и последующее сохранение - удаление.</li>
+ * </ul>
+ * Количество объектов, ожидающих записи, ограничено: при заполнении вызывающий поток ожидает очередной записи, но не дольше заданного времени
+ * ({@link #setEnqueueTimeoutMillis(long)}); по истечении времени или при прерывании потока выбрасывается {@link RepositoryException}.
+ * <p>
+ * Изменения, которые не удалось записать, возвращаются в очередь и записываются повторно, но не более {@link #setMaxAttempts(int)} раз. После
+ * последней неудачной попытки пакет записывается по одному объекту, а объекты, которые так и не удалось записать, передаются обработчику
+ * {@link #setDeadLetterHandler(BiConsumer)} и исключаются из очереди, чтобы один ошибочный объект не блокировал запись остальных.
+ * <p>
+ * {@link #close()} записывает все накопленные изменения (с учетом повторных попыток)
+ *
+ * @param <T>  тип объекта
+ * @param <ID> тип идентификатора объекта
+ * @author RDS
+ * @version 1
+ * @see DatabaseStorageRepository#createWriteBehindBuffer(int, int, long)
+ * @since 1.0.0
+ */
+public class RepositoryWriteBehindBuffer<T, ID> implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepositoryWriteBehindBuffer.class);
+
+	// Максимальное количество попыток записи изменения по-умолчанию
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+	// Максимальное время ожидания места в очереди по-умолчанию (в миллисекундах)
+	public static final long DEFAULT_ENQUEUE_TIMEOUT_MILLIS = 60000;
+
+	private static final AtomicInteger threadNumber = new AtomicInteger();
+
+	private final Repository<T, ID> repository;
+	private final Function<T, ID>   idExtractor;
+
+	// Максимальное количество объектов, ожидающих записи
+	private final int capacity;
+
+	// Количество объектов, при накоплении которого запись выполняется не дожидаясь интервала
+	private final int flushSize;
+
+	private final ScheduledExecutorService scheduler;
+
+	private final ReentrantLock lock     = new ReentrantLock();
+	private final Condition     notFull  = lock.newCondition();
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	// Изменения, ожидающие записи, в порядке поступления
+	private Map<ID, PendingWrite<T>> pendingWrites = new LinkedHashMap<>();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private volatile boolean    closed;
+
+	// Максимальное количество попыток записи изменения
+	private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	// Максимальное время ожидания места в очереди (в миллисекундах)
+	private volatile long enqueueTimeoutMillis = DEFAULT_ENQUEUE_TIMEOUT_MILLIS;
+
+	// Обработчик объектов, которые не удалось записать (по-умолчанию ошибка только журналируется)
+	private volatile BiConsumer<List<T>, RuntimeException> deadLetterHandler;
+
+	/**
+	 * @param repository          Репозиторий, в который записываются изменения
+	 * @param idExtractor         получение идентификатора объекта
+	 * @param capacity            максимальное количество объектов, ожидающих записи
+	 * @param flushSize           количество объектов, при накоплении которого выполняется запись
+	 * @param flushIntervalMillis интервал записи в миллисекундах
+	 */
+	public RepositoryWriteBehindBuffer(Repository<T, ID> repository, Function<T, ID> idExtractor, int capacity, int flushSize, long flushIntervalMillis) {
+		AssertChecker.notNull(repository, "Не передан Репозиторий для отложенной записи");
+		AssertChecker.notNull(idExtractor, "Не передан способ получения идентификатора объекта для отложенной записи");
+		this.repository = repository;
+		this.idExtractor = idExtractor;
+		this.capacity = Math.max(1, capacity);
+		this.flushSize = Math.max(1, Math.min(flushSize, this.capacity));
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "repository-write-behind-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Установка максимального количества попыток записи изменения
+	 *
+	 * @param maxAttempts
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = Math.max(1, maxAttempts);
+	}
+
+	public long getEnqueueTimeoutMillis() {
+		return enqueueTimeoutMillis;
+	}
+
+	/**
+	 * Установка максимального времени ожидания места в очереди при ее заполнении
+	 *
+	 * @param enqueueTimeoutMillis время в миллисекундах
+	 */
+	public void setEnqueueTimeoutMillis(long enqueueTimeoutMillis) {
+		this.enqueueTimeoutMillis = Math.max(0, enqueueTimeoutMillis);
+	}
+
+	/**
+	 * Установка обработчика объектов, которые не удалось записать за {@link #getMaxAttempts()} попыток: обработчик получает объекты и ошибку
+	 * последней попытки записи
+	 *
+	 * @param deadLetterHandler обработчик (NULL - ошибка только журналируется)
+	 */
+	public void setDeadLetterHandler(BiConsumer<List<T>, RuntimeException> deadLetterHandler) {
+		this.deadLetterHandler = deadLetterHandler;
+	}
+
+	/**
+	 * Отложенное добавление объекта
+	 *
+	 * @param entity
+	 */
+	public void insert(T entity) {
+		enqueue(WriteType.INSERT, entity);
+	}
+
+	/**
+	 * Отложенное сохранение объекта
+	 *
+	 * @param entity
+	 */
+	public void save(T entity) {
+		enqueue(WriteType.SAVE, entity);
+	}
+
+	/**
+	 * Отложенное удаление объекта
+	 *
+	 * @param entity
+	 */
+	public void delete(T entity) {
+		enqueue(WriteType.DELETE, entity);
+	}
+
+	/**
+	 * Количество объектов, ожидающих записи
+	 *
+	 * @return
+	 */
+	public int getPendingCount() {
+		this.lock.lock();
+		try {
+			return this.pendingWrites.size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Немедленная запись всех накопленных изменений
+	 */
+	public void flush() {
+		this.flushLock.lock();
+		try {
+			// Признак сбрасывается до получения изменений, чтобы изменения, поступившие во время записи, запланировали следующую запись
+			this.flushScheduled.set(false);
+			Map<ID, PendingWrite<T>> writes;
+			this.lock.lock();
+			try {
+				writes = this.pendingWrites;
+				this.pendingWrites = new LinkedHashMap<>();
+				this.notFull.signalAll();
+			} finally {
+				this.lock.unlock();
+			}
+			if (!writes.isEmpty()) {
+				write(writes);
+			}
+		} finally {
+			this.flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Завершение работы: запись всех накопленных изменений (изменения, которые не удалось записать за {@link #getMaxAttempts()} попыток, передаются
+	 * обработчику), после чего новые изменения не принимаются
+	 */
+	@Override
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.scheduler.shutdown();
+		try {
+			this.scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// Каждая неудачная запись увеличивает количество попыток, поэтому очередь опустошается не более чем за maxAttempts записей
+		for (int attempt = 0; attempt < this.maxAttempts && getPendingCount() > 0; attempt++) {
+			flushQuietly();
+		}
+	}
+
+	private void enqueue(WriteType type, T entity) {
+		AssertChecker.notNull(entity, "Переданная сущность не может быть записана");
+		ID id = this.idExtractor.apply(entity);
+		AssertChecker.notNull(id, "Для отложенной записи сущности необходим ее идентификатор");
+		boolean flushNeeded;
+		this.lock.lock();
+		try {
+			if (this.closed) {
+				throw new RepositoryException("Отложенная запись завершена");
+			}
+			long remainingNanos = TimeUnit.MILLISECONDS.toNanos(this.enqueueTimeoutMillis);
+			while (!this.pendingWrites.containsKey(id) && this.pendingWrites.size() >= this.capacity) {
+				// Обратное давление: ожидание записи накопленных изменений
+				if (remainingNanos <= 0) {
+					throw new RepositoryException(String.format("Очередь отложенной записи заполнена (%d объектов) и не освободилась за %d мс", this.capacity,
+					                                            this.enqueueTimeoutMillis));
+				}
+				scheduleFlush();
+				try {
+					remainingNanos = this.notFull.awaitNanos(remainingNanos);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RepositoryException("Ожидание места в очереди отложенной записи прервано");
+				}
+				if (this.closed) {
+					throw new RepositoryException("Отложенная запись завершена");
+				}
+			}
+			merge(this.pendingWrites, id, new PendingWrite<>(type, entity));
+			flushNeeded = this.pendingWrites.size() >= this.flushSize;
+		} finally {
+			this.lock.unlock();
+		}
+		if (flushNeeded) {
+			scheduleFlush();
+		}
+	}
+
+	/**
+	 * Объединение нового изменения с уже ожидающим записи
+	 *
+	 * @param writes ожидающие изменения
+	 * @param id     идентификатор объекта
+	 * @param write  новое изменение
+	 */
+	private void merge(Map<ID, PendingWrite<T>> writes, ID id, PendingWrite<T> write) {
+		PendingWrite<T> previous = writes.get(id);
+		if (previous == null) {
+			writes.put(id, write);
+			return;
+		}
+		switch (previous.type) {
+			case INSERT:
+				if (write.type == WriteType.DELETE) {
+					writes.remove(id);
+				} else {
+					writes.put(id, new PendingWrite<>(WriteType.INSERT, write.entity));
+				}
+				break;
+			case SAVE:
+				writes.put(id, new PendingWrite<>(write.type == WriteType.DELETE ? WriteType.DELETE : WriteType.SAVE, write.entity));
+				break;
+			case DELETE:
+				if (write.type == WriteType.INSERT) {
+					writes.put(id, new PendingWrite<>(WriteType.SAVE, write.entity));
+				} else {
+					writes.put(id, new PendingWrite<>(WriteType.DELETE, previous.entity));
+				}
+				break;
+		}
+	}
+
+	private void scheduleFlush() {
+		if (!this.closed && this.flushScheduled.compareAndSet(false, true)) {
+			try {
+				this.scheduler.execute(this::flushQuietly);
+			} catch (RuntimeException e) {
+				this.flushScheduled.set(false);
+				logger.warn(e.getMessage(), e);
+			}
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			logger.error("Не удалось выполнить отложенную запись изменений", e);
+		}
+	}
+
+	/**
+	 * Запись изменений: сначала удаление, затем добавление, затем сохранение. При ошибке невыполненные изменения возвращаются в очередь, а изменения,
+	 * исчерпавшие количество попыток, записываются по одному
+	 *
+	 * @param writes
+	 */
+	private void write(Map<ID, PendingWrite<T>> writes) {
+		Map<WriteType, Map<ID, PendingWrite<T>>> groups = new EnumMap<>(WriteType.class);
+		writes.forEach((id, write) -> groups.computeIfAbsent(write.type, type -> new LinkedHashMap<>()).put(id, write));
+		List<WriteType> order = Arrays.asList(WriteType.DELETE, WriteType.INSERT, WriteType.SAVE);
+		for (int i = 0; i < order.size(); i++) {
+			Map<ID, PendingWrite<T>> group = groups.get(order.get(i));
+			if (group == null) {
+				continue;
+			}
+			List<T> entities = new ArrayList<>();
+			group.values().forEach(write -> entities.add(write.entity));
+			try {
+				write(order.get(i), entities);
+			} catch (RuntimeException e) {
+				// Количество попыток учитывается только для пакета, запись которого не удалась; следующие пакеты возвращаются в очередь без изменений
+				Map<ID, PendingWrite<T>> failedGroup = new LinkedHashMap<>();
+				group.forEach((id, write) -> {
+					if (write.attempts + 1 < this.maxAttempts) {
+						failedGroup.put(id, new PendingWrite<>(write.type, write.entity, write.attempts + 1));
+					}
+				});
+				if (failedGroup.size() < group.size()) {
+					writeSeparately(order.get(i), group, failedGroup.keySet(), e);
+				}
+				groups.put(order.get(i), failedGroup);
+				requeue(groups, order.subList(i, order.size()));
+				throw e;
+			}
+		}
+	}
+
+	private void write(WriteType type, List<T> entities) {
+		switch (type) {
+			case DELETE:
+				this.repository.deleteAll(entities);
+				break;
+			case INSERT:
+				this.repository.insertAll(entities);
+				break;
+			case SAVE:
+				this.repository.saveAll(entities);
+				break;
+		}
+	}
+
+	/**
+	 * Запись по одному объекту изменений, исчерпавших количество попыток: объекты, которые не удалось записать, передаются обработчику
+	 *
+	 * @param type       тип изменений
+	 * @param group      изменения пакета, запись которого не удалась
+	 * @param retriedIds идентификаторы изменений, для которых еще будет выполнена повторная попытка
+	 * @param batchError ошибка записи пакета
+	 */
+	private void writeSeparately(WriteType type, Map<ID, PendingWrite<T>> group, Set<ID> retriedIds, RuntimeException batchError) {
+		List<T> failedEntities = new ArrayList<>();
+		RuntimeException error = batchError;
+		for (Map.Entry<ID, PendingWrite<T>> entry : group.entrySet()) {
+			if (retriedIds.contains(entry.getKey())) {
+				continue;
+			}
+			T entity = entry.getValue().entity;
+			try {
+				write(type, Collections.singletonList(entity));
+			} catch (RuntimeException e) {
+				failedEntities.add(entity);
+				error = e;
+			}
+		}
+		if (failedEntities.isEmpty()) {
+			return;
+		}
+		logger.error(String.format("Не удалось выполнить отложенную запись %d объектов за %d попыток", failedEntities.size(), this.maxAttempts), error);
+		BiConsumer<List<T>, RuntimeException> handler = this.deadLetterHandler;
+		if (handler != null) {
+			try {
+				handler.accept(Collections.unmodifiableList(failedEntities), error);
+			} catch (RuntimeException e) {
+				logger.error("Ошибка обработчика объектов, которые не удалось записать", e);
+			}
+		}
+	}
+
+	/**
+	 * Возврат невыполненных изменений в очередь (перед изменениями, поступившими за время записи)
+	 *
+	 * @param groups
+	 * @param types
+	 */
+	private void requeue(Map<WriteType, Map<ID, PendingWrite<T>>> groups, List<WriteType> types) {
+		this.lock.lock();
+		try {
+			Map<ID, PendingWrite<T>> writes = new LinkedHashMap<>();
+			types.forEach(type -> {
+				Map<ID, PendingWrite<T>> group = groups.get(type);
+				if (group != null) {
+					writes.putAll(group);
+				}
+			});
+			this.pendingWrites.forEach((id, write) -> merge(writes, id, write));
+			this.pendingWrites = writes;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private enum WriteType {
+		INSERT,
+		SAVE,
+		DELETE
+	}
+
+	/**
+	 * Изменение, ожидающее записи
+	 */
+	private static final class PendingWrite<T> {
+
+		private final WriteType type;
+		private final T         entity;
+
+		// Количество неудачных попыток записи
+		private final int attempts;
+
+		private PendingWrite(WriteType type, T entity) {
+			this(type, entity, 0);
+		}
+
+		private PendingWrite(WriteType type, T entity, int attempts) {
+			this.type = type;
+			this.entity = entity;
+			this.attempts = attempts;
+		}
+
+	}
+
+}
@@ -0,0 +1,145 @@
+package ru.rds.data.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+
+/**
+ * Описание структуры строк {@link Row} одного результата выборки: перечень столбцов и их порядковые номера.
+ * <p>
+ * Формируется один раз для перечня столбцов Таблицы (или результата выборки) и передается в {@link IndexedRowConverter}, чтобы конвертер мог один раз
+ * сопоставить столбцы с полями объекта (план чтения) и не выполнять этот поиск для каждой строки. {@link Row} предоставляет значения только по названию
+ * столбца, поэтому значение по порядковому номеру читается по названию, соответствующему номеру.
+ * <p>
+ * Описания сравниваются по названиям столбцов: строки, перечни столбцов которых - разные объекты с одинаковыми названиями, соответствуют одному
+ * описанию
+ *
+ * @author RDS
+ * @version 1
+ * @see IndexedRowConverter
+ * @since 1.0.0
+ */
+public final class RowDescriptor {
+
+	private final List<Column>         columns;
+	private final String[]             columnNames;
+	private final Map<String, Integer> columnIndexes;
+	private final int                  hashCode;
+
+	private RowDescriptor(List<Column> columns) {
+		this.columns = columns;
+		this.columnNames = new String[columns.size()];
+		Map<String, Integer> indexes = new HashMap<>();
+		for (int i = 0; i < columns.size(); i++) {
+			this.columnNames[i] = columns.get(i).getName();
+			indexes.putIfAbsent(this.columnNames[i], i);
+		}
+		this.columnIndexes = Collections.unmodifiableMap(indexes);
+		// Описание используется как ключ планов чтения
+		this.hashCode = Arrays.hashCode(this.columnNames);
+	}
+
+	/**
+	 * Создание описания для перечня столбцов
+	 *
+	 * @param columns перечень столбцов строки
+	 * @return
+	 */
+	public static RowDescriptor of(List<Column> columns) {
+		return new RowDescriptor(columns);
+	}
+
+	/**
+	 * Перечень столбцов, для которого создано описание
+	 *
+	 * @return
+	 */
+	public List<Column> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Количество столбцов
+	 *
+	 * @return
+	 */
+	public int getColumnsCount() {
+		return columnNames.length;
+	}
+
+	/**
+	 * Порядковый номер столбца
+	 *
+	 * @param columnName название столбца
+	 * @return -1, если столбец отсутствует
+	 */
+	public int indexOf(String columnName) {
+		Integer index = columnIndexes.get(columnName);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Название столбца по порядковому номеру
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getColumnName(int index) {
+		return columnNames[index];
+	}
+
+	/**
+	 * Значение столбца строки по порядковому номеру (читается по названию столбца с этим номером)
+	 *
+	 * @param row   строка, соответствующая описанию
+	 * @param index порядковый номер столбца
+	 * @return NULL, если значение отсутствует
+	 */
+	public Object getValue(Row row, int index) {
+		return row.getValue(columnNames[index]).orElse(null);
+	}
+
+	/**
+	 * Соответствует ли строка описанию: перечень столбцов строки содержит те же названия столбцов в том же порядке
+	 *
+	 * @param row
+	 * @return
+	 */
+	public boolean matches(Row row) {
+		List<Column> rowColumns = row.getSpaceProperties();
+		// Строки одного результата выборки обычно используют один и тот же перечень столбцов
+		if (rowColumns == columns) {
+			return true;
+		}
+		if (rowColumns == null || rowColumns.size() != columnNames.length) {
+			return false;
+		}
+		for (int i = 0; i < columnNames.length; i++) {
+			if (!columnNames[i].equals(rowColumns.get(i).getName())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		return Arrays.equals(columnNames, ((RowDescriptor) o).columnNames);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+}
@@ -2,10 +2,10 @@ package ru.rds.data.repository;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.lang.reflect.TypeVariable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.rds.data.repository.converters.*;
@@ -14,6 +14,10 @@ import ru.rds.data.repository.converters.*;
  * Провайдер конвертеров данных {@link ValueConverter}.
  * <p>
  * По-умолчанию содержит в себе начальный набор конвертеров данный, который можно дополнить своими конвертерами
+ * <p>
+ * Результаты поиска конвертеров (в том числе отрицательные) запоминаются для каждой пары типов, поэтому повторный поиск не требует создания объектов.
+ * Добавление конвертера заменяет набор данных вместе с запомненными результатами, поэтому поиск конвертеров безопасен при одновременном
+ * добавлении новых
  *
  * @author RDS
  * @version 1
@@ -24,11 +28,43 @@ public class ValueConvertersProvider {
 
 	private static final Logger logger = LoggerFactory.getLogger(AbstractRowConverter.class);
 
-	private final Map<RowValueConverterDetails, ValueConverter> valueConverters = new HashMap<>();
+	// Признак отсутствия подходящего конвертера
+	private static final ValueConverter<Object, Object> NONE = new ValueConverter<Object, Object>() {
+
+		@Override
+		public Object convertFrom(Object source) {
+			return null;
+		}
+
+		@Override
+		public Object convertTo(Object object) {
+			return null;
+		}
+
+	};
+
+	// Перечень зарегистрированных конвертеров: исходный тип -> целевой тип -> конвертер (не изменяется после создания)
+	private volatile Map<Class<?>, Map<Class<?>, ValueConverter>> valueConverters = Collections.emptyMap();
+
+	// Результаты поиска конвертеров для набора valueConverters
+	private volatile ResolvedValueConverters resolvedValueConverters = new ResolvedValueConverters(this.valueConverters);
+
+	/**
+	 * Провайдер с начальным набором конвертеров данных, используемый совместно всеми Репозиториями, для которых не передан свой провайдер
+	 *
+	 * @return
+	 */
+	public static ValueConvertersProvider getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
 
 	public ValueConvertersProvider() {
 		registerValueConverter(new StringsValueConverter());
 		registerValueConverter(new IntegersValueConverter());
+		registerValueConverter(new LongsValueConverter());
+		registerValueConverter(new DoublesValueConverter());
+		registerValueConverter(new BooleansValueConverter());
+		registerValueConverter(new IntegerLongValueConverter());
 
 		registerValueConverter(new StringUUIDValueConverter());
 		registerValueConverter(new StringDateValueConverter());
@@ -40,22 +76,24 @@ public class ValueConvertersProvider {
 	 *
 	 * @param valueConverter
 	 */
-	protected void registerValueConverter(ValueConverter valueConverter) {
+	protected synchronized void registerValueConverter(ValueConverter valueConverter) {
 		if (valueConverter != null) {
-			Type[] genericInterfaces = valueConverter.getClass().getGenericInterfaces();
-			for (Type genericInterface : genericInterfaces) {
-				if (genericInterface instanceof ParameterizedType) {
-					Type[] genericTypes = ((ParameterizedType) genericInterface).getActualTypeArguments();
-					if (genericTypes.length == 2) {
-						Type typeFrom = genericTypes[0];
-						Type typeTo = genericTypes[1];
-						RowValueConverterDetails valueConverterDetails = new RowValueConverterDetails(typeFrom.getTypeName(), typeTo.getTypeName());
-						logger.debug(String.format("Добавлен конвертер типов <%s> <-> <%s>", typeFrom, typeTo));
-						valueConverters.putIfAbsent(valueConverterDetails, valueConverter);
-					} else {
-						logger.warn(String.format("Неправильное количество типов в конвертере типов <%s> - должно быть 2", valueConverter.getClass().getName()));
-					}
+			Class<?>[] types = resolveValueConverterTypes(valueConverter.getClass(), Collections.emptyMap());
+			if (types != null && types[0] != null && types[1] != null) {
+				Class<?> typeFrom = wrap(types[0]);
+				Class<?> typeTo = wrap(types[1]);
+				Map<Class<?>, ValueConverter> targetConverters = this.valueConverters.get(typeFrom);
+				if (targetConverters == null || !targetConverters.containsKey(typeTo)) {
+					Map<Class<?>, Map<Class<?>, ValueConverter>> newValueConverters = new HashMap<>(this.valueConverters);
+					Map<Class<?>, ValueConverter> newTargetConverters = targetConverters == null ? new HashMap<>() : new HashMap<>(targetConverters);
+					newTargetConverters.put(typeTo, valueConverter);
+					newValueConverters.put(typeFrom, newTargetConverters);
+					this.valueConverters = newValueConverters;
+					this.resolvedValueConverters = new ResolvedValueConverters(newValueConverters);
+					logger.debug(String.format("Добавлен конвертер типов <%s> <-> <%s>", typeFrom.getName(), typeTo.getName()));
 				}
+			} else {
+				logger.warn(String.format("Не удалось определить типы данных конвертера типов <%s> - должно быть 2", valueConverter.getClass().getName()));
 			}
 		}
 	}
@@ -72,52 +110,223 @@ public class ValueConvertersProvider {
 	 * @return
 	 */
 	public <S, T> Optional<ValueConverter<S, T>> getValueConverter(Class<S> sourceType, Class<T> targetType) {
+		return Optional.ofNullable(findValueConverter(sourceType, targetType));
+	}
+
+	/**
+	 * Получение имеющегося конвертера данных в соответствии с типами, если такой зарегистрирован в провайдере.
+	 * <p>
+	 * Если конвертер для исходного типа не зарегистрирован, используется конвертер для ближайшего родительского типа (например, конвертер для
+	 * {@link java.util.Date} подойдет для {@link java.sql.Timestamp}). Если не зарегистрирован конвертер в целевой тип, используется конвертер в
+	 * наиболее конкретный из совместимых с ним типов. Если таких типов несколько (например, для целевого типа {@link Object} или
+	 * {@link java.io.Serializable}), выбор был бы произвольным, поэтому конвертер не найден.
+	 * <p>
+	 * В отличие от {@link #getValueConverter(Class, Class)} не создает новых объектов
+	 *
+	 * @param sourceType
+	 * @param targetType
+	 * @param <S>
+	 * @param <T>
+	 * @return NULL, если подходящий конвертер не найден
+	 */
+	public <S, T> ValueConverter<S, T> findValueConverter(Class<S> sourceType, Class<T> targetType) {
 		if (sourceType != null && targetType != null) {
-			RowValueConverterDetails details = new RowValueConverterDetails(sourceType.getTypeName(), targetType.getTypeName());
-			return Optional.ofNullable(valueConverters.get(details));
+			ValueConverter valueConverter = this.resolvedValueConverters.get(sourceType, targetType);
+			if (valueConverter != NONE) {
+				return valueConverter;
+			}
 		}
-		return Optional.empty();
+		return null;
 	}
 
-	private class RowValueConverterDetails {
+	/**
+	 * Поиск подходящего конвертера среди зарегистрированных
+	 *
+	 * @param valueConverters перечень зарегистрированных конвертеров
+	 * @param sourceType      исходный тип
+	 * @param targetType      целевой тип
+	 * @return
+	 */
+	private static ValueConverter resolveValueConverter(Map<Class<?>, Map<Class<?>, ValueConverter>> valueConverters, Class<?> sourceType, Class<?> targetType) {
+		Class<?> wrappedTargetType = wrap(targetType);
+		for (Class<?> type : getTypeHierarchy(wrap(sourceType))) {
+			Map<Class<?>, ValueConverter> targetConverters = valueConverters.get(type);
+			if (targetConverters != null) {
+				ValueConverter valueConverter = targetConverters.get(wrappedTargetType);
+				if (valueConverter != null) {
+					return valueConverter;
+				}
+				Class<?> assignableType = getMostSpecificType(targetConverters.keySet(), wrappedTargetType);
+				if (assignableType == Object.class) {
+					// Несколько несвязанных совместимых типов: поиск по родительским исходным типам дал бы такой же произвольный выбор
+					return NONE;
+				}
+				if (assignableType != null) {
+					return targetConverters.get(assignableType);
+				}
+			}
+		}
+		return NONE;
+	}
 
-		private String fromTypeName;
-		private String toTypeName;
+	/**
+	 * Наиболее конкретный из типов, совместимых с целевым: тип, для которого среди совместимых нет дочерних типов
+	 *
+	 * @param types      перечень типов
+	 * @param targetType целевой тип
+	 * @return NULL, если совместимых типов нет, {@link Object}, если наиболее конкретных типов несколько
+	 */
+	private static Class<?> getMostSpecificType(Collection<Class<?>> types, Class<?> targetType) {
+		Class<?> mostSpecificType = null;
+		for (Class<?> type : types) {
+			if (!targetType.isAssignableFrom(type) || hasSubtype(types, type)) {
+				continue;
+			}
+			if (mostSpecificType != null) {
+				return Object.class;
+			}
+			mostSpecificType = type;
+		}
+		return mostSpecificType;
+	}
+
+	private static boolean hasSubtype(Collection<Class<?>> types, Class<?> type) {
+		for (Class<?> otherType : types) {
+			if (otherType != type && type.isAssignableFrom(otherType)) {
+				return true;
+			}
+		}
+		return false;
+	}
 
-		public RowValueConverterDetails(String fromTypeName, String toTypeName) {
-			this.fromTypeName = fromTypeName;
-			this.toTypeName = toTypeName;
+	/**
+	 * Перечень типов, которым соответствует переданный тип: сам тип, его родительские классы, затем интерфейсы
+	 *
+	 * @param type
+	 * @return
+	 */
+	private static Set<Class<?>> getTypeHierarchy(Class<?> type) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		for (Class<?> superclass = type; superclass != null; superclass = superclass.getSuperclass()) {
+			types.add(superclass);
+		}
+		Deque<Class<?>> interfaces = new ArrayDeque<>();
+		for (Class<?> superclass = type; superclass != null; superclass = superclass.getSuperclass()) {
+			interfaces.addAll(Arrays.asList(superclass.getInterfaces()));
+		}
+		while (!interfaces.isEmpty()) {
+			Class<?> interfaceType = interfaces.poll();
+			if (types.add(interfaceType)) {
+				interfaces.addAll(Arrays.asList(interfaceType.getInterfaces()));
+			}
 		}
+		return types;
+	}
 
-		public String getFromTypeName() {
-			return fromTypeName;
+	/**
+	 * Определение типов данных {@link ValueConverter} с учетом всей иерархии класса конвертера
+	 *
+	 * @param type     тип, для которого выполняется поиск
+	 * @param bindings значения параметров типа
+	 * @return NULL, если тип не реализует {@link ValueConverter}
+	 */
+	private static Class<?>[] resolveValueConverterTypes(Type type, Map<TypeVariable<?>, Type> bindings) {
+		Class<?> rawType;
+		Map<TypeVariable<?>, Type> typeBindings = new HashMap<>();
+		if (type instanceof ParameterizedType) {
+			rawType = (Class<?>) ((ParameterizedType) type).getRawType();
+			Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+			TypeVariable<?>[] parameters = rawType.getTypeParameters();
+			for (int i = 0; i < parameters.length && i < arguments.length; i++) {
+				Type argument = arguments[i];
+				typeBindings.put(parameters[i], argument instanceof TypeVariable && bindings.containsKey(argument) ? bindings.get(argument) : argument);
+			}
+			if (ValueConverter.class.equals(rawType)) {
+				return new Class<?>[]{toClass(typeBindings.get(parameters[0])), toClass(typeBindings.get(parameters[1]))};
+			}
+		} else if (type instanceof Class) {
+			rawType = (Class<?>) type;
+		} else {
+			return null;
 		}
 
-		public void setFromTypeName(String fromTypeName) {
-			this.fromTypeName = fromTypeName;
+		if (!ValueConverter.class.isAssignableFrom(rawType) || ValueConverter.class.equals(rawType)) {
+			return null;
+		}
+		for (Type genericInterface : rawType.getGenericInterfaces()) {
+			Class<?>[] types = resolveValueConverterTypes(genericInterface, typeBindings);
+			if (types != null) {
+				return types;
+			}
 		}
+		return rawType.getGenericSuperclass() == null ? null : resolveValueConverterTypes(rawType.getGenericSuperclass(), typeBindings);
+	}
 
-		public String getToTypeName() {
-			return toTypeName;
+	private static Class<?> toClass(Type type) {
+		if (type instanceof Class) {
+			return (Class<?>) type;
+		}
+		if (type instanceof ParameterizedType) {
+			return (Class<?>) ((ParameterizedType) type).getRawType();
 		}
+		return null;
+	}
 
-		public void setToTypeName(String toTypeName) {
-			this.toTypeName = toTypeName;
+	private static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		if (int.class.equals(type)) {
+			return Integer.class;
+		} else if (long.class.equals(type)) {
+			return Long.class;
+		} else if (double.class.equals(type)) {
+			return Double.class;
+		} else if (boolean.class.equals(type)) {
+			return Boolean.class;
+		} else if (float.class.equals(type)) {
+			return Float.class;
+		} else if (short.class.equals(type)) {
+			return Short.class;
+		} else if (byte.class.equals(type)) {
+			return Byte.class;
+		} else if (char.class.equals(type)) {
+			return Character.class;
 		}
+		return Void.class;
+	}
 
-		@Override
-		public boolean equals(Object o) {
-			if (this == o) return true;
-			if (o == null || getClass() != o.getClass()) return false;
-			RowValueConverterDetails that = (RowValueConverterDetails) o;
-			return Objects.equals(fromTypeName, that.fromTypeName) && Objects.equals(toTypeName, that.toTypeName);
+	/**
+	 * Результаты поиска конвертеров для одного набора зарегистрированных конвертеров: исходный тип -> целевой тип -> конвертер
+	 */
+	private static final class ResolvedValueConverters {
+
+		private final Map<Class<?>, Map<Class<?>, ValueConverter>>                     valueConverters;
+		private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, ValueConverter>> resolved = new ConcurrentHashMap<>();
+
+		private ResolvedValueConverters(Map<Class<?>, Map<Class<?>, ValueConverter>> valueConverters) {
+			this.valueConverters = valueConverters;
 		}
 
-		@Override
-		public int hashCode() {
-			return Objects.hash(fromTypeName, toTypeName);
+		private ValueConverter get(Class<?> sourceType, Class<?> targetType) {
+			ConcurrentMap<Class<?>, ValueConverter> targetConverters = this.resolved.get(sourceType);
+			if (targetConverters == null) {
+				targetConverters = this.resolved.computeIfAbsent(sourceType, type -> new ConcurrentHashMap<>());
+			}
+			ValueConverter valueConverter = targetConverters.get(targetType);
+			if (valueConverter == null) {
+				valueConverter = resolveValueConverter(this.valueConverters, sourceType, targetType);
+				targetConverters.putIfAbsent(targetType, valueConverter);
+			}
+			return valueConverter;
 		}
 
 	}
 
+	private static final class DefaultHolder {
+
+		private static final ValueConvertersProvider INSTANCE = new ValueConvertersProvider();
+
+	}
+
 }
@@ -0,0 +1,24 @@
+package ru.rds.data.repository.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Отмечает поле (аннотированное также {@link RepositoryDataProperty}), которое содержит номер версии объекта для оптимистической блокировки.
+ * <p>
+ * При сохранении (в том числе через upsert) и удалении объекта условие отбора дополняется текущим номером версии, а при сохранении номер версии
+ * увеличивается тем же запросом. Если строка с таким номером версии не найдена (объект изменен или удален другим участником), выбрасывается
+ * {@link ru.rds.data.repository.RepositoryOptimisticLockException}. Проверка выполняется через JDBC, поэтому Репозиторию необходим
+ * {@link javax.sql.DataSource}
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD})
+public @interface RepositoryDataVersion {
+
+}
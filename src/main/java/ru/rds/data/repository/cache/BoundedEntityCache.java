@@ -0,0 +1,181 @@
+package ru.rds.data.repository.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Кэш объектов ограниченного размера.
+ * <p>
+ * При заполнении кэша новый объект вытесняет объект, к которому дольше всего не обращались, только если к новому объекту обращались не реже (частота
+ * обращений оценивается приблизительно, см. {@link FrequencySketch}). Благодаря этому часто используемые объекты не вытесняются однократными
+ * обращениями к остальным объектам.
+ * <p>
+ * Для изменяемых объектов необходимо передать функцию копирования: в кэше хранится копия объекта, а при получении возвращается еще одна копия, поэтому
+ * изменение полученного объекта не влияет на содержимое кэша
+ *
+ * @param <ID> тип идентификатора объекта
+ * @param <T>  тип объекта
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public class BoundedEntityCache<ID, T> implements EntityCache<ID, T> {
+
+	// Максимальное количество объектов
+	private final int maximumSize;
+
+	// Срок хранения объекта в наносекундах (0 - без ограничения)
+	private final long expireAfterWriteNanos;
+
+	// Функция копирования объектов (NULL - объекты не копируются)
+	private final UnaryOperator<T> copier;
+
+	// Объекты в порядке обращения к ним (первый - самый давний)
+	private final LinkedHashMap<ID, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final FrequencySketch sketch;
+
+	private final LongAdder hitCount      = new LongAdder();
+	private final LongAdder missCount     = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	public BoundedEntityCache(int maximumSize) {
+		this(maximumSize, 0, TimeUnit.MILLISECONDS, null);
+	}
+
+	/**
+	 * @param maximumSize      максимальное количество объектов
+	 * @param expireAfterWrite срок хранения объекта (0 - без ограничения)
+	 * @param timeUnit         единица измерения срока хранения
+	 * @param copier           функция копирования объектов (NULL - объекты неизменяемые и не копируются)
+	 */
+	public BoundedEntityCache(int maximumSize, long expireAfterWrite, TimeUnit timeUnit, UnaryOperator<T> copier) {
+		this.maximumSize = Math.max(1, maximumSize);
+		this.expireAfterWriteNanos = timeUnit.toNanos(Math.max(0, expireAfterWrite));
+		this.copier = copier;
+		this.sketch = new FrequencySketch(this.maximumSize);
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	@Override
+	public T get(ID id) {
+		if (id == null) {
+			return null;
+		}
+		T entity;
+		synchronized (this) {
+			this.sketch.increment(id.hashCode());
+			Entry<T> entry = this.entries.get(id);
+			if (entry != null && isExpired(entry, System.nanoTime())) {
+				this.entries.remove(id);
+				this.evictionCount.increment();
+				entry = null;
+			}
+			if (entry == null) {
+				this.missCount.increment();
+				return null;
+			}
+			entity = entry.entity;
+		}
+		this.hitCount.increment();
+		return copy(entity);
+	}
+
+	@Override
+	public void put(ID id, T entity) {
+		if (id == null) {
+			return;
+		}
+		if (entity == null) {
+			invalidate(id);
+			return;
+		}
+		Entry<T> entry = new Entry<>(copy(entity), this.expireAfterWriteNanos == 0 ? 0 : System.nanoTime() + this.expireAfterWriteNanos);
+		synchronized (this) {
+			if (this.entries.containsKey(id)) {
+				this.entries.put(id, entry);
+				return;
+			}
+			if (this.entries.size() >= this.maximumSize) {
+				removeExpired();
+			}
+			if (this.entries.size() >= this.maximumSize) {
+				Iterator<Map.Entry<ID, Entry<T>>> iterator = this.entries.entrySet().iterator();
+				ID victim = iterator.next().getKey();
+				this.evictionCount.increment();
+				if (this.sketch.frequency(id.hashCode()) < this.sketch.frequency(victim.hashCode())) {
+					// Новый объект используется реже вытесняемого - не сохраняется
+					return;
+				}
+				iterator.remove();
+			}
+			this.entries.put(id, entry);
+		}
+	}
+
+	@Override
+	public synchronized void invalidate(ID id) {
+		if (id != null) {
+			this.entries.remove(id);
+		}
+	}
+
+	@Override
+	public synchronized void invalidateAll() {
+		this.entries.clear();
+	}
+
+	@Override
+	public synchronized long size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public EntityCacheStatistics getStatistics() {
+		return new EntityCacheStatistics(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum());
+	}
+
+	private void removeExpired() {
+		if (this.expireAfterWriteNanos > 0) {
+			long now = System.nanoTime();
+			Iterator<Entry<T>> iterator = this.entries.values().iterator();
+			while (iterator.hasNext()) {
+				if (isExpired(iterator.next(), now)) {
+					iterator.remove();
+					this.evictionCount.increment();
+				}
+			}
+		}
+	}
+
+	private boolean isExpired(Entry<T> entry, long now) {
+		return entry.expiresAt != 0 && now - entry.expiresAt >= 0;
+	}
+
+	private T copy(T entity) {
+		return this.copier == null ? entity : this.copier.apply(entity);
+	}
+
+	/**
+	 * Объект кэша вместе со сроком его хранения
+	 */
+	private static final class Entry<T> {
+
+		private final T    entity;
+		private final long expiresAt;
+
+		private Entry(T entity, long expiresAt) {
+			this.entity = entity;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
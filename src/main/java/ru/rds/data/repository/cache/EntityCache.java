@@ -0,0 +1,59 @@
+package ru.rds.data.repository.cache;
+
+/**
+ * Кэш объектов Репозитория по идентификатору.
+ * <p>
+ * Реализации должны допускать одновременное обращение из нескольких потоков
+ *
+ * @param <ID> тип идентификатора объекта
+ * @param <T>  тип объекта
+ * @author RDS
+ * @version 1
+ * @see ru.rds.data.repository.DatabaseStorageRepository#setEntityCache(EntityCache)
+ * @since 1.0.0
+ */
+public interface EntityCache<ID, T> {
+
+	/**
+	 * Получение объекта из кэша
+	 *
+	 * @param id
+	 * @return NULL, если объект отсутствует в кэше
+	 */
+	T get(ID id);
+
+	/**
+	 * Добавление (замена) объекта в кэше
+	 *
+	 * @param id
+	 * @param entity
+	 */
+	void put(ID id, T entity);
+
+	/**
+	 * Удаление объекта из кэша
+	 *
+	 * @param id
+	 */
+	void invalidate(ID id);
+
+	/**
+	 * Удаление всех объектов из кэша
+	 */
+	void invalidateAll();
+
+	/**
+	 * Количество объектов в кэше
+	 *
+	 * @return
+	 */
+	long size();
+
+	/**
+	 * Статистика обращений к кэшу
+	 *
+	 * @return
+	 */
+	EntityCacheStatistics getStatistics();
+
+}
@@ -0,0 +1,59 @@
+package ru.rds.data.repository.cache;
+
+/**
+ * Статистика обращений к кэшу на момент получения
+ *
+ * @author RDS
+ * @version 1
+ * @see EntityCache#getStatistics()
+ * @since 1.0.0
+ */
+public final class EntityCacheStatistics {
+
+	// Количество обращений, для которых объект найден в кэше
+	private final long hitCount;
+
+	// Количество обращений, для которых объект отсутствовал в кэше
+	private final long missCount;
+
+	// Количество объектов, вытесненных из кэша (в том числе по истечении срока хранения)
+	private final long evictionCount;
+
+	public EntityCacheStatistics(long hitCount, long missCount, long evictionCount) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Доля обращений, для которых объект найден в кэше
+	 *
+	 * @return
+	 */
+	public double getHitRate() {
+		long requestCount = hitCount + missCount;
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	@Override
+	public String toString() {
+		return "EntityCacheStatistics{" +
+		       "hitCount=" + hitCount +
+		       ", missCount=" + missCount +
+		       ", evictionCount=" + evictionCount +
+		       '}';
+	}
+
+}
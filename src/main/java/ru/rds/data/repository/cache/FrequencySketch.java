@@ -0,0 +1,92 @@
+package ru.rds.data.repository.cache;
+
+/**
+ * Приблизительный подсчет частоты обращений к ключам (Count-Min Sketch с 4-битными счетчиками).
+ * <p>
+ * Счетчики периодически уменьшаются вдвое, поэтому частота отражает недавние обращения
+ *
+ * @author RDS
+ * @version 1
+ * @see BoundedEntityCache
+ * @since 1.0.0
+ */
+final class FrequencySketch {
+
+	private static final int  DEPTH     = 4;
+	private static final int  MAX_COUNT = 15;
+	private static final long[] SEEDS   = {0x97cb3127L, 0xab8c2f91L, 0x5f356495L, 0xd6e8feb8L};
+
+	// Счетчики: DEPTH строк по width 4-битных счетчиков, упакованных по 16 в long
+	private final long[] table;
+	private final int    widthMask;
+
+	// Количество обращений, после которого счетчики уменьшаются вдвое
+	private final int sampleSize;
+	private       int additions;
+
+	FrequencySketch(int maximumSize) {
+		int width = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+		this.widthMask = width - 1;
+		this.table = new long[DEPTH * width / 16];
+		this.sampleSize = 10 * Math.max(16, maximumSize);
+	}
+
+	/**
+	 * Оценка частоты обращений к ключу
+	 *
+	 * @param hashCode хэш-код ключа
+	 * @return
+	 */
+	int frequency(int hashCode) {
+		int frequency = MAX_COUNT;
+		for (int i = 0; i < DEPTH; i++) {
+			frequency = Math.min(frequency, get(i, index(hashCode, i)));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Учет обращения к ключу
+	 *
+	 * @param hashCode хэш-код ключа
+	 */
+	void increment(int hashCode) {
+		boolean added = false;
+		for (int i = 0; i < DEPTH; i++) {
+			added |= incrementAt(i, index(hashCode, i));
+		}
+		if (added && ++this.additions >= this.sampleSize) {
+			reset();
+		}
+	}
+
+	private int index(int hashCode, int row) {
+		long hash = (hashCode + SEEDS[row]) * SEEDS[row];
+		hash += hash >>> 32;
+		return (int) hash & this.widthMask;
+	}
+
+	private int get(int row, int index) {
+		int position = row * (this.widthMask + 1) + index;
+		return (int) ((this.table[position >>> 4] >>> ((position & 15) << 2)) & 0xfL);
+	}
+
+	private boolean incrementAt(int row, int index) {
+		int position = row * (this.widthMask + 1) + index;
+		int offset = (position & 15) << 2;
+		long mask = 0xfL << offset;
+		if ((this.table[position >>> 4] & mask) != mask) {
+			this.table[position >>> 4] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	private void reset() {
+		for (int i = 0; i < this.table.length; i++) {
+			this.table[i] = (this.table[i] >>> 1) & 0x7777777777777777L;
+		}
+		this.additions /= 2;
+	}
+
+}
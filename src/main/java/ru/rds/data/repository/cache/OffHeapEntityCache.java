@@ -0,0 +1,319 @@
+package ru.rds.data.repository.cache;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+import ru.rds.data.database.common.AssertChecker;
+import ru.rds.data.repository.RowConverter;
+
+/**
+ * Кэш объектов, хранящий данные вне кучи Java.
+ * <p>
+ * Объект преобразуется в {@link Row} с помощью {@link RowConverter} Репозитория, значения столбцов записываются в двоичном виде в сегменты памяти
+ * ({@link ByteBuffer#allocateDirect(int)}), а при получении объект создается заново из прочитанной {@link Row}. Поэтому в куче хранятся только
+ * идентификаторы и расположение записей, а каждый вызов {@link #get(Object)} возвращает новый экземпляр объекта.
+ * <p>
+ * Записи добавляются последовательно в текущий сегмент, для каждого сегмента учитывается объем действующих (не замененных и не удаленных)
+ * записей. Когда для новой записи требуется сегмент, а заданный объем памяти исчерпан, сегмент с наименьшим объемом действующих записей
+ * уплотняется: если действующие записи занимают не более половины сегмента, они переписываются в начало сегмента, и он становится текущим.
+ * Иначе вытесняется самый старый сегмент вместе со всеми записями в нем. Поэтому многократная замена одних и тех же объектов не вытесняет
+ * остальные, а объем копирования при уплотнении не превышает объема освобожденной памяти
+ *
+ * @param <ID> тип идентификатора объекта
+ * @param <T>  тип объекта
+ * @author RDS
+ * @version 1
+ * @see ru.rds.data.repository.DatabaseStorageRepository#createOffHeapEntityCache(long)
+ * @since 1.0.0
+ */
+public class OffHeapEntityCache<ID, T> implements EntityCache<ID, T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(OffHeapEntityCache.class);
+
+	// Размер сегмента по-умолчанию
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	// Минимальный размер сегмента (и минимальный объем памяти кэша)
+	public static final int MIN_SEGMENT_SIZE = 1024;
+
+	private final RowConverter<T> rowConverter;
+	private final List<Column>    columns;
+
+	// Размер одного сегмента в байтах
+	private final int segmentSize;
+
+	// Максимальное количество сегментов
+	private final int maximumSegments;
+
+	// Сегменты в порядке их заполнения (последний - текущий)
+	private final Deque<Segment<ID>> segments = new ArrayDeque<>();
+
+	// Освобожденные сегменты для повторного использования
+	private final Deque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+
+	// Расположение записей: идентификатор -> запись
+	private final Map<ID, Location> locations = new HashMap<>();
+
+	private final LongAdder hitCount      = new LongAdder();
+	private final LongAdder missCount     = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	public OffHeapEntityCache(RowConverter<T> rowConverter, List<Column> columns, long memoryBudget) {
+		this(rowConverter, columns, memoryBudget, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param rowConverter конвертер строк Репозитория
+	 * @param columns      перечень столбцов, значения которых сохраняются
+	 * @param memoryBudget максимальный объем памяти вне кучи в байтах (не меньше {@link #MIN_SEGMENT_SIZE})
+	 * @param segmentSize  размер одного сегмента в байтах (не меньше {@link #MIN_SEGMENT_SIZE}, но не больше memoryBudget; запись, превышающая
+	 *                     размер сегмента, не сохраняется)
+	 * @throws IllegalArgumentException если объем памяти или размер сегмента меньше {@link #MIN_SEGMENT_SIZE}
+	 */
+	public OffHeapEntityCache(RowConverter<T> rowConverter, List<Column> columns, long memoryBudget, int segmentSize) {
+		AssertChecker.notNull(rowConverter, "Для кэша объектов вне кучи необходим <RowConverter>");
+		AssertChecker.notNull(columns, "Для кэша объектов вне кучи необходим перечень столбцов");
+		if (memoryBudget < MIN_SEGMENT_SIZE) {
+			throw new IllegalArgumentException(String.format("Объем памяти кэша объектов вне кучи должен быть не меньше %d байт: %d", MIN_SEGMENT_SIZE,
+			                                                 memoryBudget));
+		}
+		if (segmentSize < MIN_SEGMENT_SIZE) {
+			throw new IllegalArgumentException(String.format("Размер сегмента кэша объектов вне кучи должен быть не меньше %d байт: %d", MIN_SEGMENT_SIZE,
+			                                                 segmentSize));
+		}
+		this.rowConverter = rowConverter;
+		this.columns = columns;
+		this.segmentSize = (int) Math.min(segmentSize, memoryBudget);
+		this.maximumSegments = (int) Math.min(Integer.MAX_VALUE, memoryBudget / this.segmentSize);
+	}
+
+	@Override
+	public T get(ID id) {
+		if (id == null) {
+			return null;
+		}
+		byte[] data;
+		synchronized (this) {
+			Location location = this.locations.get(id);
+			if (location == null) {
+				this.missCount.increment();
+				return null;
+			}
+			data = new byte[location.length];
+			ByteBuffer buffer = location.segment.buffer.duplicate();
+			buffer.position(location.offset);
+			buffer.get(data);
+		}
+		try {
+			T entity = this.rowConverter.fromRow(decode(data));
+			this.hitCount.increment();
+			return entity;
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			invalidate(id);
+			this.missCount.increment();
+			return null;
+		}
+	}
+
+	@Override
+	public void put(ID id, T entity) {
+		if (id == null) {
+			return;
+		}
+		if (entity == null) {
+			invalidate(id);
+			return;
+		}
+		byte[] data;
+		try {
+			data = encode(this.rowConverter.toRow(this.columns, entity));
+		} catch (IOException e) {
+			logger.warn(String.format("Объект с идентификатором <%s> не может быть сохранен в кэше: %s", id, e.getMessage()));
+			invalidate(id);
+			return;
+		}
+		synchronized (this) {
+			removeLocation(id);
+			if (data.length > this.segmentSize) {
+				logger.debug(String.format("Объект с идентификатором <%s> превышает размер сегмента кэша", id));
+				return;
+			}
+			Segment<ID> segment = this.segments.peekLast();
+			if (segment == null || segment.buffer.remaining() < data.length) {
+				segment = allocateSegment(data.length);
+			}
+			append(segment, id, data);
+		}
+	}
+
+	@Override
+	public synchronized void invalidate(ID id) {
+		if (id != null) {
+			removeLocation(id);
+		}
+	}
+
+	@Override
+	public synchronized void invalidateAll() {
+		this.locations.clear();
+		this.segments.forEach(segment -> releaseBuffer(segment.buffer));
+		this.segments.clear();
+	}
+
+	@Override
+	public synchronized long size() {
+		return this.locations.size();
+	}
+
+	@Override
+	public EntityCacheStatistics getStatistics() {
+		return new EntityCacheStatistics(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum());
+	}
+
+	/**
+	 * Объем памяти, занятый сегментами, в байтах
+	 *
+	 * @return
+	 */
+	public synchronized long getAllocatedBytes() {
+		return (long) (this.segments.size() + this.freeBuffers.size()) * this.segmentSize;
+	}
+
+	/**
+	 * Новый текущий сегмент, в котором есть место для записи заданного размера: при достижении максимального количества сегментов уплотняется
+	 * сегмент с наименьшим объемом действующих записей либо вытесняется самый старый
+	 *
+	 * @param length размер записи
+	 * @return
+	 */
+	private Segment<ID> allocateSegment(int length) {
+		if (this.segments.size() >= this.maximumSegments) {
+			Segment<ID> sparsestSegment = Collections.min(this.segments, Comparator.comparingInt(segment -> segment.liveBytes));
+			if (sparsestSegment.liveBytes <= this.segmentSize / 2 && sparsestSegment.liveBytes + length <= this.segmentSize) {
+				return compact(sparsestSegment);
+			}
+		}
+		while (this.segments.size() >= this.maximumSegments) {
+			Segment<ID> oldestSegment = this.segments.pollFirst();
+			for (ID id : oldestSegment.ids) {
+				this.locations.remove(id);
+				this.evictionCount.increment();
+			}
+			releaseBuffer(oldestSegment.buffer);
+		}
+		ByteBuffer buffer = this.freeBuffers.pollFirst();
+		if (buffer == null) {
+			buffer = ByteBuffer.allocateDirect(this.segmentSize);
+		}
+		Segment<ID> segment = new Segment<>(buffer);
+		this.segments.addLast(segment);
+		return segment;
+	}
+
+	/**
+	 * Уплотнение сегмента: действующие записи переписываются в начало сегмента, который становится текущим
+	 *
+	 * @param segment
+	 * @return
+	 */
+	private Segment<ID> compact(Segment<ID> segment) {
+		Map<ID, byte[]> liveData = new LinkedHashMap<>();
+		for (ID id : segment.ids) {
+			Location location = this.locations.get(id);
+			byte[] data = new byte[location.length];
+			ByteBuffer buffer = segment.buffer.duplicate();
+			buffer.position(location.offset);
+			buffer.get(data);
+			liveData.put(id, data);
+		}
+		this.segments.remove(segment);
+		releaseBuffer(segment.buffer);
+		Segment<ID> compactedSegment = new Segment<>(this.freeBuffers.pollLast());
+		this.segments.addLast(compactedSegment);
+		liveData.forEach((id, data) -> append(compactedSegment, id, data));
+		return compactedSegment;
+	}
+
+	private void append(Segment<ID> segment, ID id, byte[] data) {
+		int offset = segment.buffer.position();
+		segment.buffer.put(data);
+		segment.ids.add(id);
+		segment.liveBytes += data.length;
+		this.locations.put(id, new Location(segment, offset, data.length));
+	}
+
+	private void removeLocation(ID id) {
+		Location location = this.locations.remove(id);
+		if (location != null) {
+			location.segment.ids.remove(id);
+			location.segment.liveBytes -= location.length;
+		}
+	}
+
+	private void releaseBuffer(ByteBuffer buffer) {
+		buffer.clear();
+		this.freeBuffers.addLast(buffer);
+	}
+
+	private byte[] encode(Row row) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			for (Column column : this.columns) {
+				RowValueCodec.write(output, row.getValue(column.getName()).orElseGet(() -> null));
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private Row decode(byte[] data) throws IOException {
+		Row row = new Row(this.columns);
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+			for (Column column : this.columns) {
+				row.setValue(column.getName(), RowValueCodec.read(input));
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Сегмент памяти вместе с перечнем идентификаторов действующих записей в нем
+	 */
+	private static final class Segment<ID> {
+
+		private final ByteBuffer buffer;
+		// Идентификатор удаляется при замене или удалении записи, поэтому перечень не растет при многократной замене объекта
+		private final Set<ID>    ids = new LinkedHashSet<>();
+
+		// Объем действующих записей в байтах
+		private int liveBytes;
+
+		private Segment(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+	}
+
+	/**
+	 * Расположение записи в сегменте
+	 */
+	private static final class Location {
+
+		private final Segment<?> segment;
+		private final int        offset;
+		private final int        length;
+
+		private Location(Segment<?> segment, int offset, int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+
+	}
+
+}
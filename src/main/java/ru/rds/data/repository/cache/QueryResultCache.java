@@ -0,0 +1,346 @@
+package ru.rds.data.repository.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.storage.ElementsSelectionCondition;
+import ru.rds.data.storage.ElementsSort;
+import ru.rds.data.storage.SelectionType;
+
+/**
+ * Кэш результатов выборок и подсчета количества объектов Репозитория.
+ * <p>
+ * Ключом служит каноническое представление параметров сортировки, критериев отбора и способа их комбинации: критерии отбора сравниваются по
+ * названию столбца, значению и выражению отбора (порядок критериев не учитывается), параметры сортировки - по значениям их публичных get-методов.
+ * Значения копируются в ключ (массивы и коллекции - поэлементно, даты - по времени), поэтому изменение переданных объектов после выборки не изменяет
+ * ключ сохраненного результата. Объем кэша ограничен суммарным количеством объектов в сохраненных результатах, при превышении вытесняются
+ * результаты, к которым дольше всего не обращались.
+ * <p>
+ * Без функции копирования все получатели результата и сам кэш используют одни и те же экземпляры объектов, поэтому изменение полученного объекта
+ * изменяет сохраненный результат. Для изменяемых объектов нужно передать функцию копирования, например, через
+ * {@link ru.rds.data.repository.DatabaseStorageRepository#createQueryResultCache(long)}, которая копирует объекты через конвертер строк.
+ * <p>
+ * Любое изменение данных через Репозиторий очищает кэш полностью ({@link #invalidateAll()})
+ *
+ * @param <T> тип объекта
+ * @author RDS
+ * @version 1
+ * @see ru.rds.data.repository.DatabaseStorageRepository#setQueryResultCache(QueryResultCache)
+ * @since 1.0.0
+ */
+public class QueryResultCache<T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(QueryResultCache.class);
+
+	// Публичные get-методы классов параметров сортировки и значений критериев отбора (в порядке названий)
+	private static final ClassValue<Method[]> GETTERS = new ClassValue<Method[]>() {
+
+		@Override
+		protected Method[] computeValue(Class<?> type) {
+			List<Method> getters = new ArrayList<>();
+			for (Method method : type.getMethods()) {
+				String name = method.getName();
+				boolean getter = name.startsWith("get") && name.length() > 3 || name.startsWith("is") && name.length() > 2;
+				if (getter && method.getParameterCount() == 0 && method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())
+				    && method.getDeclaringClass() != Object.class) {
+					getters.add(method);
+				}
+			}
+			getters.sort(Comparator.comparing(Method::getName));
+			return getters.toArray(new Method[0]);
+		}
+
+	};
+
+	// Классы неизменяемых значений, которые включаются в ключ без копирования
+	private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(String.class, Boolean.class, Character.class, Byte.class,
+	                                                                                 Short.class, Integer.class, Long.class, Float.class,
+	                                                                                 Double.class, java.math.BigInteger.class,
+	                                                                                 java.math.BigDecimal.class, UUID.class, Class.class));
+
+	// Глубина вложенности объектов, значения get-методов которых включаются в ключ
+	private static final int MAX_SNAPSHOT_DEPTH = 4;
+
+	// Максимальное суммарное количество объектов в сохраненных результатах
+	private final long maximumWeight;
+
+	// Функция копирования объектов (NULL - объекты не копируются)
+	private final UnaryOperator<T> copier;
+
+	// Результаты в порядке обращения к ним (первый - самый давний)
+	private final LinkedHashMap<QueryKey, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private       long                            weight;
+
+	// Номер версии данных: увеличивается при каждой очистке, чтобы не сохранить результат, полученный до изменения данных
+	private final AtomicLong generation = new AtomicLong();
+
+	private final LongAdder hitCount      = new LongAdder();
+	private final LongAdder missCount     = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Кэш, который не копирует объекты: только для неизменяемых объектов (получатели результата используют сохраненные экземпляры)
+	 *
+	 * @param maximumWeight максимальное суммарное количество объектов в сохраненных результатах
+	 */
+	public QueryResultCache(long maximumWeight) {
+		this(maximumWeight, null);
+	}
+
+	/**
+	 * @param maximumWeight максимальное суммарное количество объектов в сохраненных результатах (результат подсчета количества учитывается как один
+	 *                      объект)
+	 * @param copier        функция копирования объектов при сохранении и получении результата (NULL - объекты неизменяемые и не копируются)
+	 */
+	public QueryResultCache(long maximumWeight, UnaryOperator<T> copier) {
+		this.maximumWeight = Math.max(1, maximumWeight);
+		this.copier = copier;
+	}
+
+	/**
+	 * Получение результата выборки из кэша либо выполнение выборки и сохранение ее результата
+	 *
+	 * @param elementsSorts       перечень параметров сортировки
+	 * @param selectionConditions перечень критериев отбора
+	 * @param selectionType       способ комбинации критериев отбора
+	 * @param loader              выполнение выборки
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> getElements(List<ElementsSort> elementsSorts, List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType,
+	                           Supplier<List<T>> loader) {
+		QueryKey key = new QueryKey(false, elementsSorts, selectionConditions, selectionType);
+		Object value = get(key);
+		if (value == null) {
+			long currentGeneration = this.generation.get();
+			List<T> elements = loader.get();
+			List<T> cachedElements = new ArrayList<>(elements.size());
+			elements.forEach(element -> cachedElements.add(copy(element)));
+			put(key, Collections.unmodifiableList(cachedElements), cachedElements.size() + 1, currentGeneration);
+			return elements;
+		}
+		List<T> elements = new ArrayList<>(((List<T>) value).size());
+		((List<T>) value).forEach(element -> elements.add(copy(element)));
+		return elements;
+	}
+
+	/**
+	 * Получение результата подсчета количества объектов из кэша либо выполнение подсчета и сохранение его результата
+	 *
+	 * @param selectionConditions перечень критериев отбора
+	 * @param selectionType       способ комбинации критериев отбора
+	 * @param loader              выполнение подсчета
+	 * @return
+	 */
+	public long getCount(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType, LongSupplier loader) {
+		QueryKey key = new QueryKey(true, null, selectionConditions, selectionType);
+		Object value = get(key);
+		if (value == null) {
+			long currentGeneration = this.generation.get();
+			long count = loader.getAsLong();
+			put(key, count, 1, currentGeneration);
+			return count;
+		}
+		return (Long) value;
+	}
+
+	/**
+	 * Удаление всех результатов из кэша
+	 */
+	public synchronized void invalidateAll() {
+		this.generation.incrementAndGet();
+		this.entries.clear();
+		this.weight = 0;
+	}
+
+	/**
+	 * Количество сохраненных результатов
+	 *
+	 * @return
+	 */
+	public synchronized long size() {
+		return this.entries.size();
+	}
+
+	public EntityCacheStatistics getStatistics() {
+		return new EntityCacheStatistics(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum());
+	}
+
+	private synchronized Object get(QueryKey key) {
+		Object value = this.entries.get(key);
+		if (value == null) {
+			this.missCount.increment();
+		} else {
+			this.hitCount.increment();
+		}
+		return value;
+	}
+
+	private synchronized void put(QueryKey key, Object value, long valueWeight, long expectedGeneration) {
+		if (this.generation.get() != expectedGeneration || valueWeight > this.maximumWeight) {
+			return;
+		}
+		Object previousValue = this.entries.put(key, value);
+		this.weight += valueWeight - (previousValue == null ? 0 : weigh(previousValue));
+		Iterator<Object> iterator = this.entries.values().iterator();
+		while (this.weight > this.maximumWeight && iterator.hasNext()) {
+			this.weight -= weigh(iterator.next());
+			iterator.remove();
+			this.evictionCount.increment();
+		}
+	}
+
+	private static long weigh(Object value) {
+		return value instanceof List ? ((List<?>) value).size() + 1 : 1;
+	}
+
+	private T copy(T element) {
+		return this.copier == null || element == null ? element : this.copier.apply(element);
+	}
+
+	/**
+	 * Каноническое представление критерия отбора: название столбца, значение и выражение отбора
+	 *
+	 * @param condition
+	 * @return
+	 */
+	private static List<Object> conditionKey(ElementsSelectionCondition condition) {
+		if (condition == null) {
+			return null;
+		}
+		return Arrays.asList(condition.getSpacePropertyName(), canonicalValue(condition.getSpacePropertyValue(), 0),
+		                     condition.getSelectionConditionExpression());
+	}
+
+	/**
+	 * Каноническое представление объекта: класс и значения публичных get-методов (используется для параметров сортировки и значений критериев
+	 * отбора, состав которых Репозиторию не известен)
+	 *
+	 * @param object
+	 * @param depth  глубина вложенности объекта
+	 * @return
+	 */
+	private static List<Object> snapshot(Object object, int depth) {
+		if (object == null) {
+			return null;
+		}
+		Method[] getters = GETTERS.get(object.getClass());
+		List<Object> values = new ArrayList<>(getters.length * 2 + 1);
+		values.add(object.getClass().getName());
+		for (Method getter : getters) {
+			try {
+				values.add(getter.getName());
+				values.add(canonicalValue(getter.invoke(object), depth + 1));
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				logger.warn(String.format("Значение <%s> класса <%s> не учитывается в ключе кэша", getter.getName(), object.getClass().getName()), e);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Значение, сравниваемое по содержимому и не изменяющееся вместе с исходным значением: массивы и коллекции копируются поэлементно, даты заменяются
+	 * временем, прочие изменяемые объекты - значениями их get-методов
+	 *
+	 * @param value
+	 * @param depth глубина вложенности значения
+	 * @return
+	 */
+	private static Object canonicalValue(Object value, int depth) {
+		if (value == null || IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum) {
+			return value;
+		}
+		if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			List<Object> elements = new ArrayList<>(length);
+			for (int i = 0; i < length; i++) {
+				elements.add(canonicalValue(Array.get(value, i), depth));
+			}
+			return elements;
+		}
+		if (value instanceof Set) {
+			Set<Object> elements = new HashSet<>();
+			((Set<?>) value).forEach(element -> elements.add(canonicalValue(element, depth)));
+			return elements;
+		}
+		if (value instanceof Collection) {
+			List<Object> elements = new ArrayList<>(((Collection<?>) value).size());
+			((Collection<?>) value).forEach(element -> elements.add(canonicalValue(element, depth)));
+			return elements;
+		}
+		if (value instanceof Map) {
+			Map<Object, Object> entries = new HashMap<>();
+			((Map<?, ?>) value).forEach((entryKey, entryValue) -> entries.put(canonicalValue(entryKey, depth), canonicalValue(entryValue, depth)));
+			return entries;
+		}
+		if (value instanceof java.sql.Timestamp) {
+			return Arrays.asList(java.sql.Timestamp.class.getName(), ((java.sql.Timestamp) value).getTime(), ((java.sql.Timestamp) value).getNanos());
+		}
+		if (value instanceof Date) {
+			return Arrays.asList(value.getClass().getName(), ((Date) value).getTime());
+		}
+		if (value.getClass().getName().startsWith("java.time.") || depth >= MAX_SNAPSHOT_DEPTH || GETTERS.get(value.getClass()).length == 0) {
+			// Значения java.time неизменяемые; для прочих объектов без get-методов используется их собственное сравнение
+			return value;
+		}
+		return snapshot(value, depth);
+	}
+
+	/**
+	 * Ключ кэша
+	 */
+	private static final class QueryKey {
+
+		private final boolean                    count;
+		private final List<List<Object>>         sorts;
+		private final Map<List<Object>, Integer> conditions;
+		private final SelectionType              selectionType;
+		private final int                        hashCode;
+
+		private QueryKey(boolean count, List<ElementsSort> elementsSorts, List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+			this.count = count;
+			this.sorts = new ArrayList<>();
+			if (elementsSorts != null) {
+				// Порядок параметров сортировки имеет значение
+				elementsSorts.forEach(sort -> this.sorts.add(snapshot(sort, 0)));
+			}
+			this.conditions = new HashMap<>();
+			if (selectionConditions != null) {
+				// Порядок критериев отбора на результат не влияет, поэтому критерии сравниваются как набор с учетом повторений
+				selectionConditions.forEach(condition -> this.conditions.merge(conditionKey(condition), 1, Integer::sum));
+			}
+			this.selectionType = this.conditions.isEmpty() ? null : selectionType;
+			this.hashCode = Objects.hash(count, this.sorts, this.conditions, this.selectionType);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			QueryKey queryKey = (QueryKey) o;
+			return count == queryKey.count &&
+			       sorts.equals(queryKey.sorts) &&
+			       conditions.equals(queryKey.conditions) &&
+			       selectionType == queryKey.selectionType;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+	}
+
+}
@@ -0,0 +1,178 @@
+package ru.rds.data.repository.cache;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Компактная двоичная запись значений столбцов для {@link OffHeapEntityCache}.
+ * <p>
+ * Распространенные типы значений записываются в виде признака типа и самого значения, остальные сериализуемые значения - средствами Java
+ * Serialization
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+final class RowValueCodec {
+
+	private static final byte NULL         = 0;
+	private static final byte STRING       = 1;
+	private static final byte INTEGER      = 2;
+	private static final byte LONG         = 3;
+	private static final byte DOUBLE       = 4;
+	private static final byte FLOAT        = 5;
+	private static final byte SHORT        = 6;
+	private static final byte BYTE         = 7;
+	private static final byte BOOLEAN      = 8;
+	private static final byte BIG_DECIMAL  = 9;
+	private static final byte TIMESTAMP    = 10;
+	private static final byte SQL_DATE     = 11;
+	private static final byte TIME         = 12;
+	private static final byte DATE         = 13;
+	private static final byte UUID_VALUE   = 14;
+	private static final byte BYTES        = 15;
+	private static final byte SERIALIZABLE = 16;
+
+	private RowValueCodec() {
+	}
+
+	static void write(DataOutputStream output, Object value) throws IOException {
+		if (value == null) {
+			output.writeByte(NULL);
+		} else if (value instanceof String) {
+			output.writeByte(STRING);
+			writeString(output, (String) value);
+		} else if (value instanceof Integer) {
+			output.writeByte(INTEGER);
+			output.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			output.writeByte(LONG);
+			output.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			output.writeByte(DOUBLE);
+			output.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			output.writeByte(FLOAT);
+			output.writeFloat((Float) value);
+		} else if (value instanceof Short) {
+			output.writeByte(SHORT);
+			output.writeShort((Short) value);
+		} else if (value instanceof Byte) {
+			output.writeByte(BYTE);
+			output.writeByte((Byte) value);
+		} else if (value instanceof Boolean) {
+			output.writeByte(BOOLEAN);
+			output.writeBoolean((Boolean) value);
+		} else if (value instanceof BigDecimal) {
+			output.writeByte(BIG_DECIMAL);
+			BigDecimal decimal = (BigDecimal) value;
+			output.writeInt(decimal.scale());
+			writeBytes(output, decimal.unscaledValue().toByteArray());
+		} else if (value instanceof Timestamp) {
+			output.writeByte(TIMESTAMP);
+			output.writeLong(((Timestamp) value).getTime());
+			output.writeInt(((Timestamp) value).getNanos());
+		} else if (value instanceof java.sql.Date) {
+			output.writeByte(SQL_DATE);
+			output.writeLong(((java.sql.Date) value).getTime());
+		} else if (value instanceof Time) {
+			output.writeByte(TIME);
+			output.writeLong(((Time) value).getTime());
+		} else if (value.getClass() == Date.class) {
+			output.writeByte(DATE);
+			output.writeLong(((Date) value).getTime());
+		} else if (value instanceof UUID) {
+			output.writeByte(UUID_VALUE);
+			output.writeLong(((UUID) value).getMostSignificantBits());
+			output.writeLong(((UUID) value).getLeastSignificantBits());
+		} else if (value instanceof byte[]) {
+			output.writeByte(BYTES);
+			writeBytes(output, (byte[]) value);
+		} else if (value instanceof Serializable) {
+			output.writeByte(SERIALIZABLE);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+				objectOutput.writeObject(value);
+			}
+			writeBytes(output, bytes.toByteArray());
+		} else {
+			throw new NotSerializableException(value.getClass().getName());
+		}
+	}
+
+	static Object read(DataInputStream input) throws IOException {
+		byte type = input.readByte();
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return readString(input);
+			case INTEGER:
+				return input.readInt();
+			case LONG:
+				return input.readLong();
+			case DOUBLE:
+				return input.readDouble();
+			case FLOAT:
+				return input.readFloat();
+			case SHORT:
+				return input.readShort();
+			case BYTE:
+				return input.readByte();
+			case BOOLEAN:
+				return input.readBoolean();
+			case BIG_DECIMAL:
+				int scale = input.readInt();
+				return new BigDecimal(new BigInteger(readBytes(input)), scale);
+			case TIMESTAMP:
+				Timestamp timestamp = new Timestamp(input.readLong());
+				timestamp.setNanos(input.readInt());
+				return timestamp;
+			case SQL_DATE:
+				return new java.sql.Date(input.readLong());
+			case TIME:
+				return new Time(input.readLong());
+			case DATE:
+				return new Date(input.readLong());
+			case UUID_VALUE:
+				return new UUID(input.readLong(), input.readLong());
+			case BYTES:
+				return readBytes(input);
+			case SERIALIZABLE:
+				try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+					return objectInput.readObject();
+				} catch (ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+			default:
+				throw new IOException(String.format("Неизвестный признак типа значения <%d>", type));
+		}
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		// writeUTF ограничен 64 КБ, поэтому строка записывается как массив байт UTF-8
+		writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		return new String(readBytes(input), StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream output, byte[] value) throws IOException {
+		output.writeInt(value.length);
+		output.write(value);
+	}
+
+	private static byte[] readBytes(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return bytes;
+	}
+
+}
@@ -0,0 +1,31 @@
+package ru.rds.data.repository.converters;
+
+import ru.rds.data.repository.BooleanValueConverter;
+import ru.rds.data.repository.ValueConverter;
+
+/**
+ * Реализация {@link ValueConverter} для преобразования данных типа {@link Boolean} в {@link Boolean} и наоборот
+ *
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public class BooleansValueConverter implements BooleanValueConverter<Boolean> {
+
+	@Override
+	public boolean convertFromAsBoolean(Boolean source) {
+		return source;
+	}
+
+	@Override
+	public Boolean convertFrom(Boolean source) {
+		return source;
+	}
+
+	@Override
+	public Boolean convertTo(Boolean object) {
+		return object;
+	}
+
+}
@@ -0,0 +1,31 @@
+package ru.rds.data.repository.converters;
+
+import ru.rds.data.repository.DoubleValueConverter;
+import ru.rds.data.repository.ValueConverter;
+
+/**
+ * Реализация {@link ValueConverter} для преобразования данных типа {@link Double} в {@link Double} и наоборот
+ *
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public class DoublesValueConverter implements DoubleValueConverter<Double> {
+
+	@Override
+	public double convertFromAsDouble(Double source) {
+		return source;
+	}
+
+	@Override
+	public Double convertFrom(Double source) {
+		return source;
+	}
+
+	@Override
+	public Double convertTo(Double object) {
+		return object;
+	}
+
+}
@@ -1,5 +1,6 @@
 package ru.rds.data.repository.converters;
 
+import ru.rds.data.repository.BooleanValueConverter;
 import ru.rds.data.repository.ValueConverter;
 
 /**
@@ -10,7 +11,12 @@ import ru.rds.data.repository.ValueConverter;
  * @see ValueConverter
  * @since 1.0.0
  */
-public class IntegerBooleanValueConverter implements ValueConverter<Integer, Boolean> {
+public class IntegerBooleanValueConverter implements BooleanValueConverter<Integer> {
+
+	@Override
+	public boolean convertFromAsBoolean(Integer source) {
+		return source == 1;
+	}
 
 	@Override
 	public Boolean convertFrom(Integer source) {
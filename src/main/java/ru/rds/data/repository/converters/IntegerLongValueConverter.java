@@ -0,0 +1,33 @@
+package ru.rds.data.repository.converters;
+
+import ru.rds.data.repository.LongValueConverter;
+import ru.rds.data.repository.ValueConverter;
+
+/**
+ * Реализация {@link ValueConverter} для преобразования данных типа {@link Integer} в {@link Long} и наоборот.
+ * <p>
+ * Значение, которое не помещается в {@link Integer}, не может быть записано: выбрасывается {@link ArithmeticException}
+ *
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public class IntegerLongValueConverter implements LongValueConverter<Integer> {
+
+	@Override
+	public long convertFromAsLong(Integer source) {
+		return source;
+	}
+
+	@Override
+	public Long convertFrom(Integer source) {
+		return source == null ? null : source.longValue();
+	}
+
+	@Override
+	public Integer convertTo(Long object) {
+		return object == null ? null : Math.toIntExact(object);
+	}
+
+}
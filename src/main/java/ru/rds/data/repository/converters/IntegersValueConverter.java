@@ -1,5 +1,6 @@
 package ru.rds.data.repository.converters;
 
+import ru.rds.data.repository.IntValueConverter;
 import ru.rds.data.repository.ValueConverter;
 
 /**
@@ -10,7 +11,12 @@ import ru.rds.data.repository.ValueConverter;
  * @see ValueConverter
  * @since 1.0.0
  */
-public class IntegersValueConverter implements ValueConverter<Integer, Integer> {
+public class IntegersValueConverter implements IntValueConverter<Integer> {
+
+	@Override
+	public int convertFromAsInt(Integer source) {
+		return source;
+	}
 
 	@Override
 	public Integer convertFrom(Integer source) {
@@ -0,0 +1,31 @@
+package ru.rds.data.repository.converters;
+
+import ru.rds.data.repository.LongValueConverter;
+import ru.rds.data.repository.ValueConverter;
+
+/**
+ * Реализация {@link ValueConverter} для преобразования данных типа {@link Long} в {@link Long} и наоборот
+ *
+ * @author RDS
+ * @version 1
+ * @see ValueConverter
+ * @since 1.0.0
+ */
+public class LongsValueConverter implements LongValueConverter<Long> {
+
+	@Override
+	public long convertFromAsLong(Long source) {
+		return source;
+	}
+
+	@Override
+	public Long convertFrom(Long source) {
+		return source;
+	}
+
+	@Override
+	public Long convertTo(Long object) {
+		return object;
+	}
+
+}
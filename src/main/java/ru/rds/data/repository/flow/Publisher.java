@@ -0,0 +1,24 @@
+package ru.rds.data.repository.flow;
+
+/**
+ * Источник последовательности объектов, выдающий их по запросу получателя.
+ * <p>
+ * Повторяет {@code java.util.concurrent.Flow.Publisher} (Java 9+) и {@code org.reactivestreams.Publisher}, поэтому может быть адаптирован к ним
+ * без изменения поведения
+ *
+ * @param <T> тип объекта
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface Publisher<T> {
+
+	/**
+	 * Подписка получателя на последовательность объектов
+	 *
+	 * @param subscriber получатель
+	 */
+	void subscribe(Subscriber<? super T> subscriber);
+
+}
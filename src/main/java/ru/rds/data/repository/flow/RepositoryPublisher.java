@@ -0,0 +1,255 @@
+package ru.rds.data.repository.flow;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.common.AssertChecker;
+
+/**
+ * {@link Publisher}, выдающий объекты последовательного чтения Репозитория ({@link ru.rds.data.repository.Repository#stream()}) по запросу получателя.
+ * <p>
+ * Для каждого получателя выполняется свой запрос, который начинается при первом запросе объектов. Очередные строки читаются из результата выборки
+ * и преобразуются в объекты только в пределах запрошенного количества, поэтому скорость чтения определяется получателем. При отмене подписки,
+ * завершении последовательности или ошибке результат выборки закрывается. Если источник передает действие, прерывающее выполняемый запрос
+ * ({@link CancellableSource}), отмена подписки из другого потока во время чтения прерывает запрос, не дожидаясь очередной строки.
+ * <p>
+ * Чтение выполняется исполнителем, если он передан, иначе - в потоке, запросившем объекты. Вызовы {@link Subscriber} для одной подписки никогда
+ * не выполняются одновременно, а запрос объектов из {@link Subscriber#onNext(Object)} не приводит к рекурсии
+ *
+ * @param <T> тип объекта
+ * @author RDS
+ * @version 1
+ * @see ru.rds.data.repository.Repository#publisher(Executor)
+ * @since 1.0.0
+ */
+public class RepositoryPublisher<T> implements Publisher<T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepositoryPublisher.class);
+
+	private final CancellableSource<? extends T> source;
+	private final Executor                       executor;
+
+	/**
+	 * @param source   источник последовательного чтения (вызывается для каждого получателя)
+	 * @param executor исполнитель чтения (NULL - чтение в потоке, запросившем объекты)
+	 */
+	public RepositoryPublisher(Supplier<? extends Stream<? extends T>> source, Executor executor) {
+		AssertChecker.notNull(source, "Не передан источник последовательного чтения");
+		this.source = cancellation -> source.get();
+		this.executor = executor;
+	}
+
+	/**
+	 * @param source   источник последовательного чтения, запрос которого может быть прерван (вызывается для каждого получателя)
+	 * @param executor исполнитель чтения (NULL - чтение в потоке, запросившем объекты)
+	 */
+	public RepositoryPublisher(CancellableSource<? extends T> source, Executor executor) {
+		AssertChecker.notNull(source, "Не передан источник последовательного чтения");
+		this.source = source;
+		this.executor = executor;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException("Не передан получатель объектов");
+		}
+		RepositorySubscription subscription = new RepositorySubscription(subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+
+	/**
+	 * Источник последовательного чтения, выполняемый запрос которого может быть прерван из другого потока
+	 *
+	 * @param <T> тип объекта
+	 */
+	@FunctionalInterface
+	public interface CancellableSource<T> {
+
+		/**
+		 * Начало последовательного чтения
+		 *
+		 * @param cancellation получает действие, прерывающее выполняемый запрос (вызывается при отмене подписки во время чтения)
+		 * @return
+		 */
+		Stream<? extends T> open(Consumer<Runnable> cancellation);
+
+	}
+
+	private final class RepositorySubscription implements Subscription {
+
+		private final Subscriber<? super T> subscriber;
+
+		// Количество запрошенных, но еще не выданных объектов
+		private final AtomicLong demand = new AtomicLong();
+
+		// Количество необработанных сигналов: чтение выполняет только тот, кто увеличил счетчик с 0
+		private final AtomicInteger signals = new AtomicInteger();
+
+		private volatile boolean   cancelled;
+		private volatile Throwable invalidRequest;
+
+		// Действие, прерывающее выполняемый запрос источника, и поток, выполняющий чтение
+		private volatile Runnable cancelAction;
+		private volatile Thread   drainThread;
+
+		// Доступны только в потоке, выполняющем чтение
+		private Stream<? extends T>   stream;
+		private Iterator<? extends T> iterator;
+		private boolean               terminated;
+
+		private RepositorySubscription(Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				this.invalidRequest = new IllegalArgumentException(String.format("Количество запрашиваемых объектов должно быть больше 0: %d", n));
+			} else {
+				this.demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			}
+			signal();
+		}
+
+		@Override
+		public void cancel() {
+			this.cancelled = true;
+			Runnable currentCancelAction = this.cancelAction;
+			Thread currentDrainThread = this.drainThread;
+			// Чтение в потоке, отменяющем подписку, прекращается и без прерывания запроса
+			if (currentCancelAction != null && currentDrainThread != null && currentDrainThread != Thread.currentThread()) {
+				try {
+					currentCancelAction.run();
+				} catch (RuntimeException e) {
+					logger.warn(e.getMessage(), e);
+				}
+			}
+			signal();
+		}
+
+		private void signal() {
+			if (this.signals.getAndIncrement() == 0) {
+				if (RepositoryPublisher.this.executor == null) {
+					drain();
+				} else {
+					try {
+						RepositoryPublisher.this.executor.execute(this::drain);
+					} catch (RuntimeException e) {
+						this.cancelled = true;
+						this.signals.set(0);
+						terminate();
+						this.subscriber.onError(e);
+					}
+				}
+			}
+		}
+
+		private void drain() {
+			this.drainThread = Thread.currentThread();
+			int missed = 1;
+			while (true) {
+				if (!this.terminated) {
+					try {
+						emit();
+					} catch (Throwable e) {
+						// Ошибка самого получателя при обработке завершения и ошибка чтения после отмены подписки получателю не передаются
+						boolean alreadyTerminated = this.terminated;
+						boolean alreadyCancelled = this.cancelled;
+						terminate();
+						if (alreadyTerminated) {
+							logger.warn(e.getMessage(), e);
+						} else if (alreadyCancelled) {
+							logger.debug(e.getMessage(), e);
+						} else {
+							this.subscriber.onError(e);
+						}
+					}
+				}
+				// Поток сбрасывается до уменьшения счетчика: после этого чтение может начать другой поток
+				this.drainThread = null;
+				missed = this.signals.addAndGet(-missed);
+				if (missed == 0) {
+					return;
+				}
+				this.drainThread = Thread.currentThread();
+			}
+		}
+
+		/**
+		 * Выдача объектов в пределах запрошенного количества
+		 */
+		private void emit() {
+			if (this.cancelled) {
+				terminate();
+				return;
+			}
+			Throwable error = this.invalidRequest;
+			if (error != null) {
+				terminate();
+				this.subscriber.onError(error);
+				return;
+			}
+			long requested = this.demand.get();
+			if (requested == 0) {
+				return;
+			}
+			if (this.iterator == null) {
+				this.stream = RepositoryPublisher.this.source.open(action -> this.cancelAction = action);
+				this.iterator = this.stream.iterator();
+			}
+			long emitted = 0;
+			while (emitted < requested) {
+				if (this.cancelled) {
+					terminate();
+					return;
+				}
+				if (!this.iterator.hasNext()) {
+					// Чтение, прерванное отменой подписки, не завершает последовательность
+					boolean completed = !this.cancelled;
+					terminate();
+					if (completed) {
+						this.subscriber.onComplete();
+					}
+					return;
+				}
+				this.subscriber.onNext(this.iterator.next());
+				emitted++;
+			}
+			if (requested != Long.MAX_VALUE) {
+				this.demand.addAndGet(-emitted);
+			}
+			if (this.demand.get() > 0) {
+				// Объекты были запрошены во время выдачи (в том числе из onNext) - выдача продолжается без рекурсии
+				this.signals.incrementAndGet();
+			}
+		}
+
+		/**
+		 * Завершение подписки и закрытие результата выборки
+		 */
+		private void terminate() {
+			this.terminated = true;
+			this.cancelled = true;
+			Stream<? extends T> currentStream = this.stream;
+			this.stream = null;
+			this.iterator = null;
+			this.cancelAction = null;
+			if (currentStream != null) {
+				try {
+					currentStream.close();
+				} catch (RuntimeException e) {
+					logger.warn(e.getMessage(), e);
+				}
+			}
+		}
+
+	}
+
+}
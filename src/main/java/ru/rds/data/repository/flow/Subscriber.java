@@ -0,0 +1,41 @@
+package ru.rds.data.repository.flow;
+
+/**
+ * Получатель последовательности объектов от {@link Publisher}.
+ * <p>
+ * Повторяет {@code java.util.concurrent.Flow.Subscriber} (Java 9+) и {@code org.reactivestreams.Subscriber}
+ *
+ * @param <T> тип объекта
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public interface Subscriber<T> {
+
+	/**
+	 * Начало подписки: объекты выдаются только после запроса через {@link Subscription#request(long)}
+	 *
+	 * @param subscription
+	 */
+	void onSubscribe(Subscription subscription);
+
+	/**
+	 * Получение очередного объекта
+	 *
+	 * @param item
+	 */
+	void onNext(T item);
+
+	/**
+	 * Завершение последовательности с ошибкой
+	 *
+	 * @param throwable
+	 */
+	void onError(Throwable throwable);
+
+	/**
+	 * Завершение последовательности
+	 */
+	void onComplete();
+
+}
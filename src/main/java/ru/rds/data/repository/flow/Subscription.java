@@ -0,0 +1,26 @@
+package ru.rds.data.repository.flow;
+
+/**
+ * Подписка получателя на последовательность объектов.
+ * <p>
+ * Повторяет {@code java.util.concurrent.Flow.Subscription} (Java 9+) и {@code org.reactivestreams.Subscription}
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public interface Subscription {
+
+	/**
+	 * Запрос очередных объектов
+	 *
+	 * @param n количество объектов (должно быть больше 0)
+	 */
+	void request(long n);
+
+	/**
+	 * Отмена подписки: выдача объектов прекращается, ресурсы источника освобождаются
+	 */
+	void cancel();
+
+}
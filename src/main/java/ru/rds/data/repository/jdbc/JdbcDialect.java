@@ -0,0 +1,118 @@
+package ru.rds.data.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+
+/**
+ * Диалект СУБД для запросов, синтаксис которых различается (например, добавление или обновление строки одним запросом), и правила записи
+ * названий таблиц и столбцов в запросах
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public enum JdbcDialect {
+
+	// Названия без кавычек приводятся к верхнему регистру
+	H2("\"", true),
+	// Названия без кавычек приводятся к нижнему регистру
+	POSTGRESQL("\"", false),
+	// Регистр названий не изменяется (зависит от настроек сервера)
+	MYSQL("`", null),
+	// Прочие СУБД: используются только запросы и правила записи названий стандартного SQL
+	GENERIC("\"", true);
+
+	// Название, которое СУБД записывает без кавычек: буквы, цифры и знак подчеркивания
+	private static final Pattern PLAIN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+	// Диалекты уже использованных источников соединений
+	private static final Map<DataSource, JdbcDialect> DIALECTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final String  quote;
+	private final Boolean upperCase;
+
+	JdbcDialect(String quote, Boolean upperCase) {
+		this.quote = quote;
+		this.upperCase = upperCase;
+	}
+
+	/**
+	 * Определение диалекта по сведениям о СУБД соединения
+	 *
+	 * @param connection
+	 * @return
+	 * @throws SQLException
+	 */
+	public static JdbcDialect of(Connection connection) throws SQLException {
+		String productName = connection.getMetaData().getDatabaseProductName();
+		if ("H2".equalsIgnoreCase(productName)) {
+			return H2;
+		}
+		if ("PostgreSQL".equalsIgnoreCase(productName)) {
+			return POSTGRESQL;
+		}
+		if ("MySQL".equalsIgnoreCase(productName) || "MariaDB".equalsIgnoreCase(productName)) {
+			return MYSQL;
+		}
+		return GENERIC;
+	}
+
+	/**
+	 * Определение диалекта по сведениям о СУБД источника соединений. Соединение открывается только при первом обращении для источника
+	 *
+	 * @param dataSource
+	 * @return
+	 * @throws SQLException
+	 */
+	public static JdbcDialect of(DataSource dataSource) throws SQLException {
+		JdbcDialect dialect = DIALECTS.get(dataSource);
+		if (dialect == null) {
+			try (Connection connection = dataSource.getConnection()) {
+				dialect = of(connection);
+			}
+			DIALECTS.put(dataSource, dialect);
+		}
+		return dialect;
+	}
+
+	/**
+	 * Запись названия таблицы или столбца в запросе.
+	 * <p>
+	 * Название из букв, цифр и знаков подчеркивания (в том числе с названием схемы через точку) заключается в кавычки после приведения к регистру,
+	 * к которому СУБД приводит названия без кавычек: оно обозначает тот же объект, что и без кавычек, но не может быть принято за ключевое слово.
+	 * Прочие названия заключаются в кавычки без изменений. Название, уже заключенное в кавычки, не изменяется
+	 *
+	 * @param name название
+	 * @return
+	 */
+	public String quote(String name) {
+		if (name.startsWith(this.quote)) {
+			return name;
+		}
+		String[] parts = name.split("\\.", -1);
+		for (String part : parts) {
+			if (!PLAIN_NAME.matcher(part).matches()) {
+				return quoteExact(name);
+			}
+		}
+		StringBuilder quotedName = new StringBuilder();
+		for (String part : parts) {
+			if (quotedName.length() > 0) {
+				quotedName.append('.');
+			}
+			quotedName.append(quoteExact(this.upperCase == null ? part : this.upperCase ? part.toUpperCase(Locale.ROOT) : part.toLowerCase(Locale.ROOT)));
+		}
+		return quotedName.toString();
+	}
+
+	private String quoteExact(String name) {
+		return this.quote + name.replace(this.quote, this.quote + this.quote) + this.quote;
+	}
+
+}
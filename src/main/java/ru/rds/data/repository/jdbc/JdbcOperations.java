@@ -0,0 +1,478 @@
+package ru.rds.data.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.IntFunction;
+import javax.sql.DataSource;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.RepositoryException;
+import ru.rds.data.repository.RepositoryOptimisticLockException;
+
+/**
+ * Выполнение запросов, которые Репозиторий выполняет напрямую через JDBC
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public final class JdbcOperations {
+
+	private JdbcOperations() {
+	}
+
+	/**
+	 * Выполнение выборки
+	 *
+	 * @param dataSource источник соединений
+	 * @param sql        текст запроса
+	 * @param parameters значения параметров запроса
+	 * @param columns    перечень столбцов результата выборки (в порядке их следования в запросе)
+	 * @param maxRows    максимальное количество строк (0 - без ограничений)
+	 * @return никогда не возвращает NULL
+	 */
+	public static List<Row> query(DataSource dataSource, String sql, List<Object> parameters, List<Column> columns, int maxRows) {
+		try (Connection connection = dataSource.getConnection();
+		     PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setMaxRows(maxRows);
+			setParameters(statement, parameters);
+			List<Row> rows = new ArrayList<>();
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					rows.add(JdbcValues.readRow(resultSet, columns));
+				}
+			}
+			return rows;
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось выполнить запрос <%s>", sql), e);
+		}
+	}
+
+	/**
+	 * Выполнение запроса изменения данных
+	 *
+	 * @param dataSource источник соединений
+	 * @param sql        текст запроса
+	 * @param parameters значения параметров запроса
+	 * @return количество измененных строк
+	 */
+	public static int update(DataSource dataSource, String sql, List<Object> parameters) {
+		try (Connection connection = dataSource.getConnection();
+		     PreparedStatement statement = connection.prepareStatement(sql)) {
+			setParameters(statement, parameters);
+			return statement.executeUpdate();
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось выполнить запрос <%s>", sql), e);
+		}
+	}
+
+	/**
+	 * Диалект СУБД источника соединений ({@link JdbcDialect#of(DataSource)})
+	 *
+	 * @param dataSource источник соединений
+	 * @return
+	 */
+	public static JdbcDialect dialect(DataSource dataSource) {
+		try {
+			return JdbcDialect.of(dataSource);
+		} catch (SQLException e) {
+			throw new RepositoryException("Не удалось определить СУБД источника соединений", e);
+		}
+	}
+
+	/**
+	 * Быстрое удаление всех строк таблицы ({@link JdbcStatements#truncate(JdbcDialect, String)})
+	 *
+	 * @param dataSource источник соединений
+	 * @param tableName  название таблицы
+	 * @return FALSE, если для СУБД соединения нет такого запроса (строки не удалены)
+	 */
+	public static boolean truncate(DataSource dataSource, String tableName) {
+		try (Connection connection = dataSource.getConnection()) {
+			String sql = JdbcStatements.truncate(JdbcDialect.of(connection), tableName);
+			if (sql == null) {
+				return false;
+			}
+			try (PreparedStatement statement = connection.prepareStatement(sql)) {
+				statement.executeUpdate();
+			}
+			return true;
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось очистить таблицу <%s>", tableName), e);
+		}
+	}
+
+	/**
+	 * Установка значений параметров запроса
+	 *
+	 * @param statement  запрос
+	 * @param parameters значения параметров (в порядке их следования в запросе)
+	 * @throws SQLException
+	 */
+	public static void setParameters(PreparedStatement statement, List<Object> parameters) throws SQLException {
+		for (int i = 0; i < parameters.size(); i++) {
+			statement.setObject(i + 1, parameters.get(i));
+		}
+	}
+
+	/**
+	 * Выполнение запроса пакетами в одной транзакции: при ошибке изменения всех пакетов отменяются
+	 *
+	 * @param dataSource источник соединений
+	 * @param sql        текст запроса
+	 * @param parameters значения параметров для каждого выполнения запроса
+	 * @param batchSize  количество выполнений запроса в одном пакете
+	 * @return количество измененных строк для каждого пакета
+	 */
+	public static List<int[]> executeBatches(DataSource dataSource, String sql, List<List<Object>> parameters, int batchSize) {
+		List<int[]> updateCounts = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			inTransaction(connection, () -> {
+				try (PreparedStatement statement = connection.prepareStatement(sql)) {
+					for (int i = 0; i < parameters.size(); i += batchSize) {
+						for (List<Object> batchParameters : parameters.subList(i, Math.min(i + batchSize, parameters.size()))) {
+							setParameters(statement, batchParameters);
+							statement.addBatch();
+						}
+						updateCounts.add(statement.executeBatch());
+					}
+				}
+			});
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось выполнить пакет запросов <%s>", sql), e);
+		}
+		return updateCounts;
+	}
+
+	/**
+	 * Выполнение нескольких запросов изменения данных в одной транзакции: при ошибке любого запроса изменения всех запросов отменяются. Подряд идущие
+	 * одинаковые запросы используют один подготовленный запрос
+	 *
+	 * @param dataSource источник соединений
+	 * @param sqls       тексты запросов
+	 * @param parameters значения параметров для каждого запроса
+	 * @return количество измененных строк для каждого запроса
+	 */
+	public static int[] updateAll(DataSource dataSource, List<String> sqls, List<List<Object>> parameters) {
+		int[] updateCounts = new int[sqls.size()];
+		try (Connection connection = dataSource.getConnection()) {
+			inTransaction(connection, () -> {
+				PreparedStatement statement = null;
+				try {
+					for (int i = 0; i < sqls.size(); i++) {
+						if (i == 0 || !sqls.get(i).equals(sqls.get(i - 1))) {
+							if (statement != null) {
+								statement.close();
+							}
+							statement = connection.prepareStatement(sqls.get(i));
+						}
+						setParameters(statement, parameters.get(i));
+						updateCounts[i] = statement.executeUpdate();
+					}
+				} finally {
+					if (statement != null) {
+						statement.close();
+					}
+				}
+			});
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось выполнить запросы <%s>", String.join("; ", new LinkedHashSet<>(sqls))), e);
+		}
+		return updateCounts;
+	}
+
+	/**
+	 * Выполнение запроса для каждого набора параметров отдельно в одной транзакции: если запрос не изменил ни одной строки, изменения по всем
+	 * наборам параметров отменяются и выбрасывается исключение, сформированное для номера этого набора
+	 *
+	 * @param dataSource      источник соединений
+	 * @param sql             текст запроса
+	 * @param parameters      значения параметров для каждого выполнения запроса
+	 * @param noRowsException исключение для номера набора параметров, по которому не изменено ни одной строки
+	 * @return количество измененных строк для каждого набора параметров
+	 */
+	public static int[] executeEach(DataSource dataSource, String sql, List<List<Object>> parameters, IntFunction<? extends RuntimeException> noRowsException) {
+		int[] updateCounts = new int[parameters.size()];
+		try (Connection connection = dataSource.getConnection()) {
+			inTransaction(connection, () -> {
+				try (PreparedStatement statement = connection.prepareStatement(sql)) {
+					for (int i = 0; i < parameters.size(); i++) {
+						setParameters(statement, parameters.get(i));
+						updateCounts[i] = statement.executeUpdate();
+						if (updateCounts[i] == 0) {
+							throw noRowsException.apply(i);
+						}
+					}
+				}
+			});
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось выполнить запрос <%s>", sql), e);
+		}
+		return updateCounts;
+	}
+
+	/**
+	 * Добавление строк либо обновление существующих строк с теми же ключами в одной транзакции.
+	 * <p>
+	 * Для H2 и PostgreSQL каждая строка обрабатывается одним запросом ({@link JdbcStatements#upsert(JdbcDialect, String, List, List)}), для прочих СУБД -
+	 * обновлением и, если строка не найдена, добавлением
+	 *
+	 * @param dataSource источник соединений
+	 * @param tableName  название таблицы
+	 * @param columns    перечень столбцов
+	 * @param idColumns  перечень столбцов-ключей
+	 * @param values     значения всех столбцов для каждой строки
+	 * @return признак добавления для каждой строки (FALSE - строка обновлена)
+	 */
+	public static List<Boolean> upsert(DataSource dataSource, String tableName, List<Column> columns, List<Column> idColumns, List<List<Object>> values) {
+		List<Boolean> inserted = new ArrayList<>(values.size());
+		try (Connection connection = dataSource.getConnection()) {
+			JdbcDialect dialect = JdbcDialect.of(connection);
+			String sql = JdbcStatements.upsert(dialect, tableName, columns, idColumns);
+			inTransaction(connection, () -> {
+				if (sql == null) {
+					upsertGeneric(connection, dialect, tableName, columns, idColumns, values, inserted);
+					return;
+				}
+				try (PreparedStatement statement = connection.prepareStatement(sql)) {
+					for (List<Object> rowValues : values) {
+						setParameters(statement, rowValues);
+						try (ResultSet resultSet = statement.executeQuery()) {
+							resultSet.next();
+							inserted.add(dialect == JdbcDialect.POSTGRESQL ? resultSet.getBoolean(1) : resultSet.getInt(1) == 0);
+						}
+					}
+				}
+			});
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось добавить или обновить строки таблицы <%s>", tableName), e);
+		}
+		return inserted;
+	}
+
+	/**
+	 * Добавление строк либо обновление существующих строк с теми же ключами в одной транзакции с проверкой номера версии.
+	 * <p>
+	 * Строка обновляется (с увеличением номера версии) только при совпадении номера версии, иначе добавляется. Если строка с тем же ключом
+	 * существует с другим номером версии, изменения всех строк отменяются и выбрасывается {@link RepositoryOptimisticLockException}; нарушение
+	 * прочих ограничений уникальности приводит к {@link RepositoryException}.
+	 * <p>
+	 * Для H2 и PostgreSQL каждая строка обрабатывается одним запросом ({@link JdbcStatements#upsertVersioned(JdbcDialect, String, List, List, Column)}),
+	 * поэтому изменения других участников не теряются. Для прочих СУБД стандартного запроса с таким условием нет: строка обновляется с условием по
+	 * номеру версии и, если не обновлена, добавляется, а при нарушении уникальности наличие строки с тем же ключом проверяется выборкой
+	 *
+	 * @param dataSource    источник соединений
+	 * @param tableName     название таблицы
+	 * @param columns       перечень столбцов
+	 * @param idColumns     перечень столбцов-ключей
+	 * @param versionColumn столбец, содержащий номер версии
+	 * @param values        значения всех столбцов для каждой строки (значение столбца версии - ожидаемый номер версии)
+	 * @param nextVersions  новый номер версии для каждой строки
+	 * @return признак добавления для каждой строки (FALSE - строка обновлена)
+	 */
+	public static List<Boolean> upsertVersioned(DataSource dataSource, String tableName, List<Column> columns, List<Column> idColumns, Column versionColumn,
+	                                            List<List<Object>> values, List<Object> nextVersions) {
+		int versionIndex = -1;
+		for (int i = 0; i < columns.size(); i++) {
+			if (columns.get(i).getName().equals(versionColumn.getName())) {
+				versionIndex = i;
+			}
+		}
+		int currentVersionIndex = versionIndex;
+		List<Boolean> inserted = new ArrayList<>(values.size());
+		try (Connection connection = dataSource.getConnection()) {
+			JdbcDialect dialect = JdbcDialect.of(connection);
+			String sql = JdbcStatements.upsertVersioned(dialect, tableName, columns, idColumns, versionColumn);
+			inTransaction(connection, () -> {
+				if (sql == null) {
+					upsertVersionedGeneric(connection, dialect, tableName, columns, idColumns, currentVersionIndex, values, nextVersions, inserted);
+					return;
+				}
+				try (PreparedStatement statement = connection.prepareStatement(sql)) {
+					for (int i = 0; i < values.size(); i++) {
+						List<Object> rowValues = values.get(i);
+						setParameters(statement, JdbcStatements.upsertVersionedParameters(dialect, rowValues, nextVersions.get(i)));
+						try (ResultSet resultSet = statement.executeQuery()) {
+							if (!resultSet.next()) {
+								throw optimisticLockException(tableName, rowValues.get(currentVersionIndex));
+							}
+							inserted.add(resultSet.getBoolean(1));
+						}
+					}
+				}
+			});
+		} catch (SQLException e) {
+			throw new RepositoryException(String.format("Не удалось добавить или обновить строки таблицы <%s>", tableName), e);
+		}
+		return inserted;
+	}
+
+	private static void upsertVersionedGeneric(Connection connection, JdbcDialect dialect, String tableName, List<Column> columns, List<Column> idColumns,
+	                                           int versionIndex, List<List<Object>> values, List<Object> nextVersions, List<Boolean> inserted)
+			throws SQLException {
+		List<Integer> idIndexes = new ArrayList<>();
+		List<Integer> updateIndexes = new ArrayList<>();
+		List<Column> updateColumns = new ArrayList<>();
+		for (int i = 0; i < columns.size(); i++) {
+			String columnName = columns.get(i).getName();
+			if (idColumns.stream().anyMatch(idColumn -> idColumn.getName().equals(columnName))) {
+				idIndexes.add(i);
+			} else {
+				updateIndexes.add(i);
+				updateColumns.add(columns.get(i));
+			}
+		}
+		List<Column> conditionColumns = new ArrayList<>(idColumns);
+		conditionColumns.add(columns.get(versionIndex));
+		try (PreparedStatement updateStatement = connection.prepareStatement(JdbcStatements.update(dialect, tableName, updateColumns, conditionColumns));
+		     PreparedStatement insertStatement = connection.prepareStatement(JdbcStatements.insert(dialect, tableName, columns));
+		     PreparedStatement countStatement = connection.prepareStatement(JdbcStatements.countByKey(dialect, tableName, idColumns))) {
+			for (int i = 0; i < values.size(); i++) {
+				List<Object> rowValues = values.get(i);
+				List<Object> parameters = new ArrayList<>();
+				for (int index : updateIndexes) {
+					parameters.add(index == versionIndex ? nextVersions.get(i) : rowValues.get(index));
+				}
+				List<Object> idValues = new ArrayList<>();
+				idIndexes.forEach(index -> idValues.add(rowValues.get(index)));
+				parameters.addAll(idValues);
+				parameters.add(rowValues.get(versionIndex));
+				setParameters(updateStatement, parameters);
+				if (updateStatement.executeUpdate() > 0) {
+					inserted.add(Boolean.FALSE);
+					continue;
+				}
+				setParameters(insertStatement, rowValues);
+				try {
+					insertStatement.executeUpdate();
+				} catch (SQLException e) {
+					if (isDuplicateKey(e) && exists(countStatement, idValues)) {
+						throw optimisticLockException(tableName, rowValues.get(versionIndex));
+					}
+					throw e;
+				}
+				inserted.add(Boolean.TRUE);
+			}
+		}
+	}
+
+	/**
+	 * Наличие строки с заданным ключом ({@link JdbcStatements#countByKey(JdbcDialect, String, List)})
+	 *
+	 * @param countStatement запрос количества строк
+	 * @param idValues       значения столбцов-ключей
+	 * @return
+	 * @throws SQLException
+	 */
+	private static boolean exists(PreparedStatement countStatement, List<Object> idValues) throws SQLException {
+		setParameters(countStatement, idValues);
+		try (ResultSet resultSet = countStatement.executeQuery()) {
+			return resultSet.next() && resultSet.getInt(1) > 0;
+		}
+	}
+
+	private static RepositoryOptimisticLockException optimisticLockException(String tableName, Object version) {
+		return new RepositoryOptimisticLockException(String.format("Строка таблицы <%s> с номером версии <%s> изменена другим участником", tableName, version));
+	}
+
+	/**
+	 * Признак ошибки нарушения уникальности (SQLSTATE 23505)
+	 *
+	 * @param e
+	 * @return
+	 */
+	private static boolean isDuplicateKey(SQLException e) {
+		return "23505".equals(e.getSQLState());
+	}
+
+	/**
+	 * Выполнение действия в транзакции соединения. Если соединение уже участвует в транзакции (autocommit выключен), фиксацией и откатом управляет
+	 * она, иначе изменения фиксируются после выполнения действия и откатываются при ошибке
+	 *
+	 * @param connection соединение
+	 * @param action     действие
+	 * @throws SQLException
+	 */
+	private static void inTransaction(Connection connection, SqlAction action) throws SQLException {
+		boolean autoCommit = connection.getAutoCommit();
+		if (autoCommit) {
+			connection.setAutoCommit(false);
+		}
+		try {
+			action.execute();
+			if (autoCommit) {
+				connection.commit();
+			}
+		} catch (SQLException | RuntimeException e) {
+			if (autoCommit) {
+				connection.rollback();
+			}
+			throw e;
+		} finally {
+			if (autoCommit) {
+				connection.setAutoCommit(true);
+			}
+		}
+	}
+
+	private static void upsertGeneric(Connection connection, JdbcDialect dialect, String tableName, List<Column> columns, List<Column> idColumns,
+	                                  List<List<Object>> values, List<Boolean> inserted) throws SQLException {
+		List<Integer> idIndexes = new ArrayList<>();
+		List<Integer> updateIndexes = new ArrayList<>();
+		List<Column> updateColumns = new ArrayList<>();
+		for (int i = 0; i < columns.size(); i++) {
+			String columnName = columns.get(i).getName();
+			if (idColumns.stream().anyMatch(idColumn -> idColumn.getName().equals(columnName))) {
+				idIndexes.add(i);
+			} else {
+				updateIndexes.add(i);
+				updateColumns.add(columns.get(i));
+			}
+		}
+		// Если все столбцы - ключи, наличие строки проверяется выборкой
+		String updateSql = updateColumns.isEmpty()
+		                   ? JdbcStatements.countByKey(dialect, tableName, idColumns)
+		                   : JdbcStatements.update(dialect, tableName, updateColumns, idColumns);
+		try (PreparedStatement updateStatement = connection.prepareStatement(updateSql);
+		     PreparedStatement insertStatement = connection.prepareStatement(JdbcStatements.insert(dialect, tableName, columns))) {
+			for (List<Object> rowValues : values) {
+				List<Object> parameters = new ArrayList<>();
+				updateIndexes.forEach(index -> parameters.add(rowValues.get(index)));
+				idIndexes.forEach(index -> parameters.add(rowValues.get(index)));
+				setParameters(updateStatement, parameters);
+				int updateCount;
+				if (updateColumns.isEmpty()) {
+					try (ResultSet resultSet = updateStatement.executeQuery()) {
+						resultSet.next();
+						updateCount = resultSet.getInt(1);
+					}
+				} else {
+					updateCount = updateStatement.executeUpdate();
+				}
+				if (updateCount == 0) {
+					setParameters(insertStatement, rowValues);
+					insertStatement.executeUpdate();
+					inserted.add(Boolean.TRUE);
+				} else {
+					inserted.add(Boolean.FALSE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Действие с соединением
+	 */
+	@FunctionalInterface
+	private interface SqlAction {
+
+		void execute() throws SQLException;
+
+	}
+
+}
@@ -0,0 +1,176 @@
+package ru.rds.data.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.RepositoryException;
+
+/**
+ * Курсор, последовательно читающий строки результата выборки по мере обращения к ним.
+ * <p>
+ * Удерживает соединение, запрос и результат выборки до вызова {@link #close()} (либо до прочтения последней строки). Для того, чтобы драйвер не загружал
+ * весь результат выборки в память, запрос выполняется с заданным fetch size и выключенным autocommit.
+ * <p>
+ * Выполняемый запрос может быть прерван из другого потока ({@link #cancel()}): после этого курсор не возвращает строк
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public class JdbcRowCursor implements Iterator<Row>, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(JdbcRowCursor.class);
+
+	private final List<Column> columns;
+
+	private          Connection        connection;
+	private volatile PreparedStatement statement;
+	private          ResultSet         resultSet;
+	private          boolean           restoreAutoCommit;
+
+	private volatile boolean cancelled;
+
+	private Row     nextRow;
+	private boolean closed;
+
+	/**
+	 * Открытие курсора
+	 *
+	 * @param dataSource источник соединений
+	 * @param sql        текст запроса
+	 * @param parameters значения параметров запроса
+	 * @param columns    перечень столбцов результата выборки (в порядке их следования в запросе)
+	 * @param fetchSize  количество строк, получаемых от СУБД за одно обращение
+	 */
+	public JdbcRowCursor(DataSource dataSource, String sql, List<Object> parameters, List<Column> columns, int fetchSize) {
+		this(dataSource, sql, parameters, columns, fetchSize, cancelAction -> {
+		});
+	}
+
+	/**
+	 * Открытие курсора с передачей действия, прерывающего запрос, до начала его выполнения
+	 *
+	 * @param dataSource   источник соединений
+	 * @param sql          текст запроса
+	 * @param parameters   значения параметров запроса
+	 * @param columns      перечень столбцов результата выборки (в порядке их следования в запросе)
+	 * @param fetchSize    количество строк, получаемых от СУБД за одно обращение
+	 * @param cancellation получает действие, прерывающее выполняемый запрос ({@link #cancel()})
+	 */
+	public JdbcRowCursor(DataSource dataSource, String sql, List<Object> parameters, List<Column> columns, int fetchSize,
+	                     Consumer<Runnable> cancellation) {
+		this.columns = columns;
+		try {
+			this.connection = dataSource.getConnection();
+			if (this.connection.getAutoCommit()) {
+				this.connection.setAutoCommit(false);
+				this.restoreAutoCommit = true;
+			}
+			this.statement = this.connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			this.statement.setFetchSize(fetchSize);
+			for (int i = 0; i < parameters.size(); i++) {
+				this.statement.setObject(i + 1, parameters.get(i));
+			}
+			cancellation.accept(this::cancel);
+			this.resultSet = this.statement.executeQuery();
+		} catch (SQLException e) {
+			close();
+			if (this.cancelled) {
+				// Запрос прерван намеренно: курсор не возвращает строк
+				return;
+			}
+			throw new RepositoryException(String.format("Не удалось выполнить запрос <%s>", sql), e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.cancelled) {
+			close();
+		}
+		if (this.nextRow == null && !this.closed) {
+			try {
+				if (this.resultSet.next()) {
+					this.nextRow = JdbcValues.readRow(this.resultSet, this.columns);
+				} else {
+					close();
+				}
+			} catch (SQLException e) {
+				close();
+				if (this.cancelled) {
+					return false;
+				}
+				throw new RepositoryException("Не удалось прочитать строку результата выборки", e);
+			}
+		}
+		return this.nextRow != null;
+	}
+
+	@Override
+	public Row next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Row row = this.nextRow;
+		this.nextRow = null;
+		return row;
+	}
+
+	/**
+	 * Отмена выполняемого запроса (может быть вызвана из другого потока). Курсор закрывается в потоке, читающем строки, при следующем обращении к нему
+	 */
+	public void cancel() {
+		this.cancelled = true;
+		PreparedStatement currentStatement = this.statement;
+		if (currentStatement != null) {
+			try {
+				currentStatement.cancel();
+			} catch (SQLException e) {
+				logger.debug(e.getMessage(), e);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.nextRow = null;
+		closeQuietly(this.resultSet);
+		closeQuietly(this.statement);
+		if (this.connection != null) {
+			try {
+				if (this.restoreAutoCommit) {
+					this.connection.commit();
+					this.connection.setAutoCommit(true);
+				}
+			} catch (SQLException e) {
+				logger.warn(e.getMessage(), e);
+			}
+			closeQuietly(this.connection);
+		}
+	}
+
+	private static void closeQuietly(AutoCloseable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (Exception e) {
+				logger.warn(e.getMessage(), e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,395 @@
+package ru.rds.data.repository.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import ru.rds.data.database.Column;
+import ru.rds.data.storage.ElementsSelectionCondition;
+import ru.rds.data.storage.SelectionConditionExpression;
+import ru.rds.data.storage.SelectionType;
+
+/**
+ * Формирование текстов SQL-запросов, которые Репозиторий выполняет напрямую через JDBC (минуя {@link ru.rds.data.database.Table}).
+ * <p>
+ * Названия таблиц и столбцов записываются по правилам диалекта СУБД ({@link JdbcDialect#quote(String)})
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public final class JdbcStatements {
+
+	private JdbcStatements() {
+	}
+
+	/**
+	 * Выборка всех строк таблицы
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @param columns   перечень столбцов (значения в результате выборки будут расположены в том же порядке)
+	 * @return
+	 */
+	public static String select(JdbcDialect dialect, String tableName, List<Column> columns) {
+		return "SELECT " + columnNames(dialect, columns) + " FROM " + dialect.quote(tableName);
+	}
+
+	/**
+	 * Перечень названий столбцов через запятую
+	 *
+	 * @param dialect
+	 * @param columns
+	 * @return
+	 */
+	public static String columnNames(JdbcDialect dialect, List<Column> columns) {
+		return columns.stream()
+		              .map(column -> dialect.quote(column.getName()))
+		              .collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * Выборка строк, ключ которых больше заданного, в порядке возрастания ключа.
+	 * <p>
+	 * Для составного ключа условие раскрывается в виде <code>(A &gt; ?) OR (A = ? AND B &gt; ?)</code>, значения параметров формируются с помощью
+	 * {@link #keysetParameters(List)}
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @param columns   перечень столбцов
+	 * @param idColumns перечень столбцов-ключей
+	 * @param first     признак первой страницы (условие по ключу не требуется)
+	 * @return
+	 */
+	public static String selectAfterKey(JdbcDialect dialect, String tableName, List<Column> columns, List<Column> idColumns, boolean first) {
+		StringBuilder sql = new StringBuilder(select(dialect, tableName, columns));
+		if (!first) {
+			sql.append(" WHERE ");
+			for (int i = 0; i < idColumns.size(); i++) {
+				if (i > 0) {
+					sql.append(" OR ");
+				}
+				sql.append('(');
+				for (int j = 0; j < i; j++) {
+					sql.append(dialect.quote(idColumns.get(j).getName())).append(" = ? AND ");
+				}
+				sql.append(dialect.quote(idColumns.get(i).getName())).append(" > ?)");
+			}
+		}
+		sql.append(" ORDER BY ").append(columnNames(dialect, idColumns));
+		return sql.toString();
+	}
+
+	/**
+	 * Значения параметров для условия {@link #selectAfterKey(JdbcDialect, String, List, List, boolean)}
+	 *
+	 * @param keyValues значения столбцов-ключей
+	 * @return
+	 */
+	public static List<Object> keysetParameters(List<Object> keyValues) {
+		List<Object> parameters = new ArrayList<>();
+		for (int i = 0; i < keyValues.size(); i++) {
+			parameters.addAll(keyValues.subList(0, i + 1));
+		}
+		return parameters;
+	}
+
+	/**
+	 * Выборка строк по нескольким значениям ключа: для простого ключа <code>WHERE A IN (?, ?)</code>, для составного
+	 * <code>WHERE (A = ? AND B = ?) OR (A = ? AND B = ?)</code>
+	 *
+	 * @param dialect    диалект СУБД
+	 * @param tableName  название таблицы
+	 * @param columns    перечень столбцов
+	 * @param idColumns  перечень столбцов-ключей
+	 * @param keysCount  количество значений ключа
+	 * @return
+	 */
+	public static String selectByKeys(JdbcDialect dialect, String tableName, List<Column> columns, List<Column> idColumns, int keysCount) {
+		return select(dialect, tableName, columns) + " WHERE " + keysCondition(dialect, idColumns, keysCount);
+	}
+
+	/**
+	 * Условие отбора строк по нескольким значениям ключа (значения параметров перечисляются по ключам, для каждого ключа - по столбцам-ключам)
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param idColumns перечень столбцов-ключей
+	 * @param keysCount количество значений ключа
+	 * @return
+	 */
+	public static String keysCondition(JdbcDialect dialect, List<Column> idColumns, int keysCount) {
+		if (idColumns.size() == 1) {
+			return dialect.quote(idColumns.get(0).getName()) + " IN (" + String.join(", ", Collections.nCopies(keysCount, "?")) + ")";
+		}
+		String keyCondition = idColumns.stream()
+		                               .map(column -> dialect.quote(column.getName()) + " = ?")
+		                               .collect(Collectors.joining(" AND ", "(", ")"));
+		return String.join(" OR ", Collections.nCopies(keysCount, keyCondition));
+	}
+
+	/**
+	 * Добавление строки
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @param columns   перечень столбцов
+	 * @return
+	 */
+	public static String insert(JdbcDialect dialect, String tableName, List<Column> columns) {
+		return "INSERT INTO " + dialect.quote(tableName) + " (" + columnNames(dialect, columns) + ") VALUES ("
+		       + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+	}
+
+	/**
+	 * Изменение строки по ключу (параметры: значения изменяемых столбцов, затем значения столбцов-ключей)
+	 *
+	 * @param dialect       диалект СУБД
+	 * @param tableName     название таблицы
+	 * @param updateColumns перечень изменяемых столбцов
+	 * @param idColumns     перечень столбцов-ключей
+	 * @return
+	 */
+	public static String update(JdbcDialect dialect, String tableName, List<Column> updateColumns, List<Column> idColumns) {
+		return "UPDATE " + dialect.quote(tableName) + " SET " + assignments(dialect, updateColumns, ", ") + " WHERE "
+		       + assignments(dialect, idColumns, " AND ");
+	}
+
+	/**
+	 * Удаление строки по ключу
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @param idColumns перечень столбцов-ключей
+	 * @return
+	 */
+	public static String delete(JdbcDialect dialect, String tableName, List<Column> idColumns) {
+		return "DELETE FROM " + dialect.quote(tableName) + " WHERE " + assignments(dialect, idColumns, " AND ");
+	}
+
+	/**
+	 * Количество строк с заданным ключом
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @param idColumns перечень столбцов-ключей
+	 * @return
+	 */
+	public static String countByKey(JdbcDialect dialect, String tableName, List<Column> idColumns) {
+		return "SELECT COUNT(*) FROM " + dialect.quote(tableName) + " WHERE " + assignments(dialect, idColumns, " AND ");
+	}
+
+	/**
+	 * Перечень выражений вида <code>A = ?</code>
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param columns   перечень столбцов
+	 * @param delimiter разделитель выражений
+	 * @return
+	 */
+	public static String assignments(JdbcDialect dialect, List<Column> columns, String delimiter) {
+		return columns.stream()
+		              .map(column -> dialect.quote(column.getName()) + " = ?")
+		              .collect(Collectors.joining(delimiter));
+	}
+
+	/**
+	 * Добавление строки либо обновление существующей строки с тем же ключом одним запросом. Запрос возвращает одну строку с одним значением:
+	 * <ul>
+	 * <li>{@link JdbcDialect#H2} - количество обновленных строк (0 - строка добавлена);</li>
+	 * <li>{@link JdbcDialect#POSTGRESQL} - признак добавления строки.</li>
+	 * </ul>
+	 * Параметры запроса - значения всех столбцов
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @param columns   перечень столбцов
+	 * @param idColumns перечень столбцов-ключей
+	 * @return NULL, если для диалекта нет такого запроса
+	 */
+	public static String upsert(JdbcDialect dialect, String tableName, List<Column> columns, List<Column> idColumns) {
+		switch (dialect) {
+			case H2:
+				return "SELECT COUNT(*) FROM OLD TABLE (MERGE INTO " + dialect.quote(tableName) + " (" + columnNames(dialect, columns) + ") KEY ("
+				       + columnNames(dialect, idColumns)
+				       + ") VALUES (" + String.join(", ", Collections.nCopies(columns.size(), "?")) + "))";
+			case POSTGRESQL:
+				List<Column> updateColumns = columns.stream()
+				                                    .filter(column -> idColumns.stream().noneMatch(idColumn -> idColumn.getName().equals(column.getName())))
+				                                    .collect(Collectors.toList());
+				// Обновление хотя бы одного столбца необходимо, чтобы запрос вернул строку и для существующей строки
+				String assignments = (updateColumns.isEmpty() ? idColumns : updateColumns).stream()
+				                                                                        .map(column -> dialect.quote(column.getName()) + " = EXCLUDED."
+				                                                                                       + dialect.quote(column.getName()))
+				                                                                        .collect(Collectors.joining(", "));
+				return insert(dialect, tableName, columns) + " ON CONFLICT (" + columnNames(dialect, idColumns) + ") DO UPDATE SET " + assignments
+				       + " RETURNING (xmax = 0)";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Добавление строки либо обновление существующей строки с тем же ключом при совпадении номера версии одним запросом. Запрос возвращает
+	 * строку с признаком добавления строки, если строка добавлена или обновлена, и не возвращает строк, если строка с тем же ключом существует
+	 * с другим номером версии. Нарушение прочих ограничений уникальности приводит к ошибке запроса.
+	 * <p>
+	 * Значения параметров формируются с помощью {@link #upsertVersionedParameters(JdbcDialect, List, Object)}
+	 *
+	 * @param dialect       диалект СУБД
+	 * @param tableName     название таблицы
+	 * @param columns       перечень столбцов
+	 * @param idColumns     перечень столбцов-ключей
+	 * @param versionColumn столбец, содержащий номер версии
+	 * @return NULL, если для диалекта нет такого запроса
+	 */
+	public static String upsertVersioned(JdbcDialect dialect, String tableName, List<Column> columns, List<Column> idColumns, Column versionColumn) {
+		String target = dialect.quote("target");
+		String version = dialect.quote(versionColumn.getName());
+		String parameters = String.join(", ", Collections.nCopies(columns.size(), "?"));
+		List<String> updateColumnNames = columns.stream()
+		                                        .map(Column::getName)
+		                                        .filter(columnName -> !columnName.equals(versionColumn.getName()))
+		                                        .filter(columnName -> idColumns.stream().noneMatch(idColumn -> idColumn.getName().equals(columnName)))
+		                                        .map(dialect::quote)
+		                                        .collect(Collectors.toList());
+		switch (dialect) {
+			case H2:
+				String source = dialect.quote("source");
+				String keyCondition = idColumns.stream()
+				                               .map(column -> dialect.quote(column.getName()))
+				                               .map(columnName -> target + "." + columnName + " = " + source + "." + columnName)
+				                               .collect(Collectors.joining(" AND "));
+				String sourceValues = columns.stream()
+				                             .map(column -> source + "." + dialect.quote(column.getName()))
+				                             .collect(Collectors.joining(", "));
+				String h2Updates = updateColumnNames.stream()
+				                                    .map(columnName -> columnName + " = " + source + "." + columnName + ", ")
+				                                    .collect(Collectors.joining());
+				return "SELECT " + version + " <> ? FROM FINAL TABLE (MERGE INTO " + dialect.quote(tableName) + " " + target
+				       + " USING (VALUES (" + parameters + ")) " + source + " (" + columnNames(dialect, columns) + ") ON " + keyCondition
+				       + " WHEN MATCHED AND " + target + "." + version + " = " + source + "." + version + " THEN UPDATE SET " + h2Updates + version + " = ?"
+				       + " WHEN NOT MATCHED THEN INSERT (" + columnNames(dialect, columns) + ") VALUES (" + sourceValues + "))";
+			case POSTGRESQL:
+				String postgreSqlUpdates = updateColumnNames.stream()
+				                                            .map(columnName -> columnName + " = EXCLUDED." + columnName + ", ")
+				                                            .collect(Collectors.joining());
+				return "INSERT INTO " + dialect.quote(tableName) + " AS " + target + " (" + columnNames(dialect, columns) + ") VALUES (" + parameters + ")"
+				       + " ON CONFLICT (" + columnNames(dialect, idColumns) + ") DO UPDATE SET " + postgreSqlUpdates + version + " = ?"
+				       + " WHERE " + target + "." + version + " = EXCLUDED." + version + " RETURNING (xmax = 0)";
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Значения параметров для запроса {@link #upsertVersioned(JdbcDialect, String, List, List, Column)}
+	 *
+	 * @param dialect     диалект СУБД
+	 * @param values      значения всех столбцов (значение столбца версии - ожидаемый номер версии, с ним же добавляется строка)
+	 * @param nextVersion новый номер версии обновляемой строки
+	 * @return
+	 */
+	public static List<Object> upsertVersionedParameters(JdbcDialect dialect, List<Object> values, Object nextVersion) {
+		List<Object> parameters = new ArrayList<>(values.size() + 2);
+		if (dialect == JdbcDialect.H2) {
+			// Новый номер версии в результате запроса означает, что строка обновлена
+			parameters.add(nextVersion);
+		}
+		parameters.addAll(values);
+		parameters.add(nextVersion);
+		return parameters;
+	}
+
+	/**
+	 * Быстрое удаление всех строк таблицы
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @return NULL, если для диалекта нет такого запроса
+	 */
+	public static String truncate(JdbcDialect dialect, String tableName) {
+		switch (dialect) {
+			case H2:
+			case POSTGRESQL:
+				return "TRUNCATE TABLE " + dialect.quote(tableName);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Удаление строк по условию
+	 *
+	 * @param dialect   диалект СУБД
+	 * @param tableName название таблицы
+	 * @param condition условие отбора строк (пустое - удаляются все строки)
+	 * @return
+	 */
+	public static String deleteWhere(JdbcDialect dialect, String tableName, String condition) {
+		return condition.isEmpty() ? "DELETE FROM " + dialect.quote(tableName) : "DELETE FROM " + dialect.quote(tableName) + " WHERE " + condition;
+	}
+
+	/**
+	 * Условие отбора строк по критериям отбора {@link ElementsSelectionCondition}. Значения параметров дополняются значениями критериев,
+	 * преобразованными к Java-типам столбцов
+	 *
+	 * @param dialect             диалект СУБД
+	 * @param columns             перечень столбцов таблицы
+	 * @param selectionConditions критерии отбора
+	 * @param selectionType       способ объединения критериев (NULL - {@link SelectionType#AND})
+	 * @param parameters          значения параметров запроса
+	 * @return NULL, если какой-либо из критериев не может быть выражен запросом (неизвестный столбец или вид сравнения)
+	 */
+	public static String where(JdbcDialect dialect, List<Column> columns, List<ElementsSelectionCondition> selectionConditions,
+	                           SelectionType selectionType, List<Object> parameters) {
+		if (selectionConditions == null || selectionConditions.isEmpty()) {
+			return "";
+		}
+		List<String> conditions = new ArrayList<>(selectionConditions.size());
+		for (ElementsSelectionCondition selectionCondition : selectionConditions) {
+			Column column = columns.stream()
+			                       .filter(tableColumn -> tableColumn.getName().equals(selectionCondition.getSpacePropertyName()))
+			                       .findFirst()
+			                       .orElse(null);
+			SelectionConditionExpression expression = selectionCondition.getSelectionConditionExpression();
+			String operator = expression == null ? null : comparisonOperator(expression.name());
+			if (column == null || operator == null) {
+				return null;
+			}
+			Object value = selectionCondition.getSpacePropertyValue();
+			if (value == null && ("=".equals(operator) || "<>".equals(operator))) {
+				conditions.add(dialect.quote(column.getName()) + ("=".equals(operator) ? " IS NULL" : " IS NOT NULL"));
+			} else {
+				conditions.add(dialect.quote(column.getName()) + " " + operator + " ?");
+				parameters.add(JdbcValues.toConditionValue(column, value));
+			}
+		}
+		return String.join(selectionType == SelectionType.OR ? " OR " : " AND ", conditions);
+	}
+
+	/**
+	 * Оператор сравнения для вида сравнения критерия отбора
+	 *
+	 * @param expressionName название вида сравнения
+	 * @return NULL, если вид сравнения не поддерживается
+	 */
+	private static String comparisonOperator(String expressionName) {
+		switch (expressionName) {
+			case "EQUAL":
+				return "=";
+			case "NOT_EQUAL":
+				return "<>";
+			case "GREATER_THAN":
+				return ">";
+			case "GREATER_THAN_OR_EQUAL":
+				return ">=";
+			case "LESS_THAN":
+				return "<";
+			case "LESS_THAN_OR_EQUAL":
+				return "<=";
+			default:
+				return null;
+		}
+	}
+
+}
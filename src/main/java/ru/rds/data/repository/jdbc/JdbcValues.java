@@ -0,0 +1,116 @@
+package ru.rds.data.repository.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+
+/**
+ * Преобразование значений {@link Row} в параметры JDBC-запросов и обратно
+ *
+ * @author RDS
+ * @version 1
+ * @since 1.0.0
+ */
+public final class JdbcValues {
+
+	private JdbcValues() {
+	}
+
+	/**
+	 * Чтение текущей строки результата выборки
+	 *
+	 * @param resultSet результат выборки, в котором столбцы расположены в порядке перечня columns
+	 * @param columns   перечень столбцов
+	 * @return
+	 * @throws SQLException
+	 */
+	public static Row readRow(ResultSet resultSet, List<Column> columns) throws SQLException {
+		Row row = new Row(columns);
+		for (int i = 0; i < columns.size(); i++) {
+			row.setValue(columns.get(i).getName(), resultSet.getObject(i + 1));
+		}
+		return row;
+	}
+
+	/**
+	 * Установка значения параметра запроса с учетом Java-типа столбца
+	 *
+	 * @param statement запрос
+	 * @param index     номер параметра (начиная с 1)
+	 * @param column    столбец, которому соответствует параметр
+	 * @param value     значение
+	 * @throws SQLException
+	 */
+	public static void setParameter(PreparedStatement statement, int index, Column column, Object value) throws SQLException {
+		statement.setObject(index, toParameterValue(column, value));
+	}
+
+	/**
+	 * Значение параметра запроса с учетом Java-типа столбца: для строковых столбцов значения передаются в виде строки (так же, как значения ключей
+	 * при работе через {@link ru.rds.data.database.Table})
+	 *
+	 * @param column столбец, которому соответствует параметр
+	 * @param value  значение
+	 * @return
+	 */
+	public static Object toParameterValue(Column column, Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (String.class.getName().equals(column.getClassName()) && !(value instanceof String)) {
+			return String.valueOf(value);
+		}
+		if (value instanceof Date && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time) && !(value instanceof Timestamp)) {
+			return new Timestamp(((Date) value).getTime());
+		}
+		if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
+		return value;
+	}
+
+	/**
+	 * Значение параметра запроса для значения критерия отбора {@link ru.rds.data.storage.ElementsSelectionCondition}: значения критериев задаются
+	 * строками, поэтому для столбцов числовых и некоторых других типов строка преобразуется к Java-типу столбца
+	 *
+	 * @param column столбец, которому соответствует параметр
+	 * @param value  значение критерия
+	 * @return
+	 */
+	public static Object toConditionValue(Column column, Object value) {
+		if (!(value instanceof String)) {
+			return toParameterValue(column, value);
+		}
+		String stringValue = ((String) value).trim();
+		switch (column.getClassName()) {
+			case "java.lang.Integer":
+				return Integer.valueOf(stringValue);
+			case "java.lang.Long":
+				return Long.valueOf(stringValue);
+			case "java.lang.Short":
+				return Short.valueOf(stringValue);
+			case "java.lang.Double":
+				return Double.valueOf(stringValue);
+			case "java.lang.Float":
+				return Float.valueOf(stringValue);
+			case "java.math.BigDecimal":
+				return new BigDecimal(stringValue);
+			case "java.lang.Boolean":
+				return Boolean.valueOf(stringValue);
+			case "java.util.UUID":
+				return UUID.fromString(stringValue);
+			case "java.sql.Timestamp":
+				return Timestamp.valueOf(stringValue);
+			default:
+				return value;
+		}
+	}
+
+}
@@ -0,0 +1,355 @@
+package ru.rds.data.repository.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Обработчик аннотаций, который на этапе компиляции создает реализации {@link ru.rds.data.repository.RowConverter} для классов, отмеченных аннотацией
+ * {@link ru.rds.data.repository.annotations.RepositoryData}.
+ * <p>
+ * Созданный конвертер является наследником {@link ru.rds.data.repository.AbstractRowConverter}, размещается в том же пакете, что и класс объекта, имеет
+ * название вида <code>TaskEntity_RowConverter</code> и обращается к полям объекта напрямую (через get/set методы), без использования Reflection API.
+ * Названия столбцов известны при компиляции и записаны в конвертере константами, поэтому {@link ru.rds.data.repository.IndexedRowConverter} он не
+ * реализует: сопоставлять столбцы с полями для каждого результата выборки не требуется.
+ * <p>
+ * Get/set-методы используются, только если тип их значения совпадает с типом поля, иначе конвертер обращается к полю напрямую.
+ * <p>
+ * Обработчик зарегистрирован в <code>META-INF/services</code> и поэтому выполняется при компиляции любого кода, в classpath которого есть эта
+ * библиотека. Если создание конвертеров не требуется, обработчик отключается параметром компилятора <code>-proc:none</code> (в maven-compiler-plugin -
+ * <code>&lt;proc&gt;none&lt;/proc&gt;</code>) либо явным перечнем обработчиков (<code>-processor</code>, <code>&lt;annotationProcessors&gt;</code>),
+ * в который он не включен.
+ * <p>
+ * Конвертер не создается, если для класса явно указан {@link ru.rds.data.repository.annotations.RepositoryDataConverter}, либо если к какому-либо из полей
+ * нельзя обратиться из пакета класса - в этом случае {@link ru.rds.data.repository.AnnotationBasedDatabaseStorageRepository} использует преобразование на
+ * основе аннотаций
+ *
+ * @author RDS
+ * @version 1
+ * @see ru.rds.data.repository.RepositoryDataDetails
+ * @since 1.0.0
+ */
+@SupportedAnnotationTypes(RepositoryDataProcessor.REPOSITORY_DATA_ANNOTATION)
+public class RepositoryDataProcessor extends AbstractProcessor {
+
+	/**
+	 * Суффикс названия создаваемого конвертера
+	 */
+	public static final String ROW_CONVERTER_SUFFIX = "_RowConverter";
+
+	static final String REPOSITORY_DATA_ANNOTATION           = "ru.rds.data.repository.annotations.RepositoryData";
+	static final String REPOSITORY_DATA_CONVERTER_ANNOTATION = "ru.rds.data.repository.annotations.RepositoryDataConverter";
+	static final String REPOSITORY_DATA_PROPERTY_ANNOTATION  = "ru.rds.data.repository.annotations.RepositoryDataProperty";
+
+	// Методы AbstractRowConverter для чтения значений примитивных типов
+	private static final Map<String, String> PRIMITIVE_ACCESSORS = new HashMap<>();
+
+	static {
+		PRIMITIVE_ACCESSORS.put(Integer.class.getName(), "getInt");
+		PRIMITIVE_ACCESSORS.put(Long.class.getName(), "getLong");
+		PRIMITIVE_ACCESSORS.put(Double.class.getName(), "getDouble");
+		PRIMITIVE_ACCESSORS.put(Boolean.class.getName(), "getBoolean");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+				try {
+					processType(typeElement);
+				} catch (Exception e) {
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, String.format("Не удалось создать <RowConverter> для типа <%s>: %s", typeElement, e.getMessage()), typeElement);
+				}
+			}
+		}
+		return false;
+	}
+
+	private void processType(TypeElement typeElement) throws IOException {
+		if (findAnnotation(typeElement, REPOSITORY_DATA_CONVERTER_ANNOTATION) != null) {
+			return;
+		}
+		if (typeElement.getModifiers().contains(Modifier.ABSTRACT) || !typeElement.getTypeParameters().isEmpty()) {
+			note(typeElement, "класс является абстрактным или параметризованным");
+			return;
+		}
+		String packageName = processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+		if (!hasAccessibleConstructor(typeElement, packageName)) {
+			note(typeElement, "отсутствует доступный конструктор без параметров");
+			return;
+		}
+
+		List<Property> properties = new ArrayList<>();
+		Set<String> columnNames = new HashSet<>();
+		TypeElement classForFieldsSearch = typeElement;
+		while (classForFieldsSearch != null && !Object.class.getName().equals(classForFieldsSearch.getQualifiedName().toString())) {
+			for (VariableElement field : ElementFilter.fieldsIn(classForFieldsSearch.getEnclosedElements())) {
+				AnnotationMirror propertyAnnotation = findAnnotation(field, REPOSITORY_DATA_PROPERTY_ANNOTATION);
+				if (propertyAnnotation == null) {
+					continue;
+				}
+				String columnName = (String) getAnnotationValue(propertyAnnotation, "columnName");
+				if (columnName == null || columnName.isEmpty() || !columnNames.add(columnName)) {
+					continue;
+				}
+				Property property = createProperty(typeElement, packageName, field, columnName, propertyAnnotation);
+				if (property == null) {
+					note(typeElement, String.format("к полю <%s> нельзя обратиться из пакета <%s>", field.getSimpleName(), packageName));
+					return;
+				}
+				properties.add(property);
+			}
+			TypeMirror superclass = classForFieldsSearch.getSuperclass();
+			classForFieldsSearch = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+		}
+
+		writeRowConverter(typeElement, packageName, properties);
+	}
+
+	private Property createProperty(TypeElement typeElement, String packageName, VariableElement field, String columnName, AnnotationMirror propertyAnnotation) {
+		Property property = new Property();
+		property.columnName = columnName;
+		property.primitive = field.asType().getKind().isPrimitive();
+		TypeMirror fieldType = property.primitive ? processingEnv.getTypeUtils().boxedClass((PrimitiveType) field.asType()).asType() : field.asType();
+		property.fieldType = processingEnv.getTypeUtils().erasure(fieldType).toString();
+
+		Object valueConverters = getAnnotationValue(propertyAnnotation, "valueConverter");
+		if (valueConverters instanceof List && !((List<?>) valueConverters).isEmpty()) {
+			Object valueConverter = ((AnnotationValue) ((List<?>) valueConverters).get(0)).getValue();
+			property.valueConverterType = processingEnv.getTypeUtils().erasure((TypeMirror) valueConverter).toString();
+		}
+
+		// Методы, тип значения которых отличается от типа поля, не используются: обращение выполняется к полю напрямую
+		String capitalizedName = capitalize(field.getSimpleName().toString());
+		String getterPrefix = field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get";
+		ExecutableElement getter = findMethod(typeElement, packageName, getterPrefix + capitalizedName, field.asType(), false);
+		if (getter == null) {
+			getter = findMethod(typeElement, packageName, "get" + capitalizedName, field.asType(), false);
+		}
+		ExecutableElement setter = findMethod(typeElement, packageName, "set" + capitalizedName, field.asType(), true);
+		boolean fieldAccessible = isAccessible(field, packageName) && !field.getModifiers().contains(Modifier.FINAL);
+		if (getter != null) {
+			property.readExpression = "entity." + getter.getSimpleName() + "()";
+		} else if (fieldAccessible) {
+			property.readExpression = "entity." + field.getSimpleName();
+		} else {
+			return null;
+		}
+		if (setter != null) {
+			property.writeStatement = "entity." + setter.getSimpleName() + "(%s);";
+		} else if (fieldAccessible) {
+			property.writeStatement = "entity." + field.getSimpleName() + " = %s;";
+		} else {
+			return null;
+		}
+		return property;
+	}
+
+	private void writeRowConverter(TypeElement typeElement, String packageName, List<Property> properties) throws IOException {
+		String entityName = typeElement.getQualifiedName().toString();
+		String converterName = getRowConverterSimpleName(typeElement);
+		String qualifiedConverterName = packageName.isEmpty() ? converterName : packageName + "." + converterName;
+
+		JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedConverterName, typeElement);
+		try (Writer writer = sourceFile.openWriter()) {
+			StringBuilder source = new StringBuilder();
+			if (!packageName.isEmpty()) {
+				source.append("package ").append(packageName).append(";\n\n");
+			}
+			source.append("import java.util.List;\n")
+			      .append("import ru.rds.data.database.Column;\n")
+			      .append("import ru.rds.data.database.Row;\n")
+			      .append("import ru.rds.data.repository.AbstractRowConverter;\n")
+			      .append("import ru.rds.data.repository.ValueConvertersProvider;\n\n")
+			      .append("/**\n * Конвертер данных для типа {@link ").append(entityName).append("}, созданный <code>").append(getClass().getSimpleName()).append("</code>\n */\n")
+			      .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+			      .append("public class ").append(converterName).append(" extends AbstractRowConverter<").append(entityName).append("> {\n\n");
+
+			boolean hasValueConverters = false;
+			for (int i = 0; i < properties.size(); i++) {
+				Property property = properties.get(i);
+				if (property.valueConverterType != null) {
+					source.append("\tprivate final ").append(property.valueConverterType).append(" valueConverter").append(i)
+					      .append(" = new ").append(property.valueConverterType).append("();\n");
+					hasValueConverters = true;
+				}
+			}
+			if (hasValueConverters) {
+				source.append("\n");
+			}
+
+			source.append("\tpublic ").append(converterName).append("(ValueConvertersProvider provider) {\n\t\tsuper(provider);\n\t}\n\n");
+
+			source.append("\t@Override\n\tpublic ").append(entityName).append(" fromRow(Row row) {\n")
+			      .append("\t\t").append(entityName).append(" entity = new ").append(entityName).append("();\n")
+			      .append("\t\tObject value;\n");
+			for (int i = 0; i < properties.size(); i++) {
+				Property property = properties.get(i);
+				String primitiveAccessor = PRIMITIVE_ACCESSORS.get(property.fieldType);
+				if (property.primitive && primitiveAccessor != null && property.valueConverterType == null) {
+					// Значение примитивного типа читается без упаковки, при отсутствии значения поле не изменяется
+					String accessorExpression = String.format("%s(row, \"%s\", %s)", primitiveAccessor, escape(property.columnName), property.readExpression);
+					source.append("\t\t").append(String.format(property.writeStatement, accessorExpression)).append("\n");
+					continue;
+				}
+				String convertExpression = String.format("toEntityValue(value, %s.class, %s)", property.fieldType, property.valueConverterType == null ? "null" : "valueConverter" + i);
+				source.append("\t\tvalue = row.getValue(\"").append(escape(property.columnName)).append("\").orElse(null);\n")
+				      .append("\t\tif (value != null) {\n");
+				if (property.primitive) {
+					source.append("\t\t\t").append(property.fieldType).append(" property").append(i).append(" = ").append(convertExpression).append(";\n")
+					      .append("\t\t\tif (property").append(i).append(" != null) {\n")
+					      .append("\t\t\t\t").append(String.format(property.writeStatement, "property" + i)).append("\n")
+					      .append("\t\t\t}\n");
+				} else {
+					source.append("\t\t\t").append(String.format(property.writeStatement, convertExpression)).append("\n");
+				}
+				source.append("\t\t}\n");
+			}
+			source.append("\t\treturn entity;\n\t}\n\n");
+
+			source.append("\t@Override\n\tpublic Row toRow(List<Column> columns, ").append(entityName).append(" entity) {\n")
+			      .append("\t\tRow row = new Row(columns);\n")
+			      .append("\t\tfor (Column column : columns) {\n")
+			      .append("\t\t\tswitch (column.getName()) {\n");
+			for (int i = 0; i < properties.size(); i++) {
+				Property property = properties.get(i);
+				source.append("\t\t\t\tcase \"").append(escape(property.columnName)).append("\":\n")
+				      .append("\t\t\t\t\trow.setValue(column.getName(), toRowValue(").append(property.readExpression).append(", column, ").append(property.fieldType).append(".class, ")
+				      .append(property.valueConverterType == null ? "null" : "valueConverter" + i).append("));\n")
+				      .append("\t\t\t\t\tbreak;\n");
+			}
+			source.append("\t\t\t\tdefault:\n\t\t\t\t\tbreak;\n")
+			      .append("\t\t\t}\n\t\t}\n\t\treturn row;\n\t}\n\n}\n");
+
+			writer.write(source.toString());
+		}
+	}
+
+	/**
+	 * Название создаваемого конвертера для класса объекта (для вложенных классов названия объединяются через "_")
+	 *
+	 * @param typeElement
+	 * @return
+	 */
+	private String getRowConverterSimpleName(TypeElement typeElement) {
+		String name = typeElement.getSimpleName().toString();
+		Element enclosingElement = typeElement.getEnclosingElement();
+		while (enclosingElement instanceof TypeElement) {
+			name = enclosingElement.getSimpleName() + "_" + name;
+			enclosingElement = enclosingElement.getEnclosingElement();
+		}
+		return name + ROW_CONVERTER_SUFFIX;
+	}
+
+	private boolean hasAccessibleConstructor(TypeElement typeElement, String packageName) {
+		if (typeElement.getNestingKind() == NestingKind.MEMBER && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+			return false;
+		}
+		if (!isAccessible(typeElement, packageName)) {
+			return false;
+		}
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && isAccessible(constructor, packageName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Поиск доступного get-метода (без параметров, возвращает значение типа поля) либо set-метода (с одним параметром типа поля)
+	 *
+	 * @param typeElement класс объекта
+	 * @param packageName пакет класса объекта
+	 * @param methodName  название метода
+	 * @param fieldType   тип поля
+	 * @param setter      искать set-метод
+	 * @return NULL, если подходящего метода нет
+	 */
+	private ExecutableElement findMethod(TypeElement typeElement, String packageName, String methodName, TypeMirror fieldType, boolean setter) {
+		Types types = processingEnv.getTypeUtils();
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(typeElement))) {
+			if (!method.getSimpleName().contentEquals(methodName) || method.getParameters().size() != (setter ? 1 : 0)
+			    || method.getModifiers().contains(Modifier.STATIC) || !isAccessible(method, packageName)) {
+				continue;
+			}
+			TypeMirror valueType = setter ? method.getParameters().get(0).asType() : method.getReturnType();
+			if (types.isSameType(valueType, fieldType)) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	private boolean isAccessible(Element element, String packageName) {
+		Set<Modifier> modifiers = element.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE)) {
+			return false;
+		}
+		if (modifiers.contains(Modifier.PUBLIC)) {
+			return true;
+		}
+		return packageName.equals(processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString());
+	}
+
+	private AnnotationMirror findAnnotation(Element element, String annotationName) {
+		for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+				return annotationMirror;
+			}
+		}
+		return null;
+	}
+
+	private Object getAnnotationValue(AnnotationMirror annotationMirror, String name) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name)) {
+				return entry.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private void note(TypeElement typeElement, String reason) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format("<RowConverter> для типа <%s> не создан: %s", typeElement.getQualifiedName(), reason), typeElement);
+	}
+
+	private static String capitalize(String name) {
+		return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * Сведения о поле объекта, необходимые для создания конвертера
+	 */
+	private static class Property {
+
+		private String  columnName;
+		private String  fieldType;
+		private boolean primitive;
+		private String  valueConverterType;
+		private String  readExpression;
+		private String  writeStatement;
+
+	}
+
+}
@@ -0,0 +1,200 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+import ru.rds.data.database.Table;
+import ru.rds.data.repository.converters.DoublesValueConverter;
+import ru.rds.data.repository.converters.IntegerBooleanValueConverter;
+import ru.rds.data.repository.converters.IntegersValueConverter;
+import ru.rds.data.repository.converters.LongsValueConverter;
+import ru.rds.data.repository.tasks.TasksDatabase;
+
+@DisplayName("Тестирование чтения значений примитивных типов в <AbstractRowConverter>")
+public class AbstractRowConverterTest {
+
+	private static HikariDataSource dataSource;
+	private static Table            table;
+	private static List<Column>     columns;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("abstractRowConverter");
+		table = TasksDatabase.createTypedTasksRepository(dataSource).getTable();
+		columns = table.getColumns();
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	private static Row createRow(Object counter, Object total, Object ratio, Object active, Object note) {
+		Row row = new Row(columns);
+		row.setValue("COUNTER", counter);
+		row.setValue("TOTAL", total);
+		row.setValue("RATIO", ratio);
+		row.setValue("ACTIVE", active);
+		row.setValue("NOTE", note);
+		return row;
+	}
+
+	@Test
+	@DisplayName("Преобразование в примитивные типы конвертерами по умолчанию")
+	void primitiveConverters() {
+		Assertions.assertEquals(-7, new IntegersValueConverter().convertFromAsInt(-7));
+		Assertions.assertEquals(Long.MIN_VALUE, new LongsValueConverter().convertFromAsLong(Long.MIN_VALUE));
+		Assertions.assertEquals(0.125, new DoublesValueConverter().convertFromAsDouble(0.125));
+
+		IntegerBooleanValueConverter booleanValueConverter = new IntegerBooleanValueConverter();
+		Assertions.assertTrue(booleanValueConverter.convertFromAsBoolean(1));
+		Assertions.assertFalse(booleanValueConverter.convertFromAsBoolean(0));
+		Assertions.assertEquals(1, booleanValueConverter.convertTo(true));
+		Assertions.assertEquals(0, booleanValueConverter.convertTo(null));
+
+		ValueConvertersProvider provider = new ValueConvertersProvider();
+		Assertions.assertTrue(provider.findValueConverter(Integer.class, Integer.class) instanceof IntValueConverter);
+		Assertions.assertTrue(provider.findValueConverter(Long.class, Long.class) instanceof LongValueConverter);
+		Assertions.assertTrue(provider.findValueConverter(Double.class, Double.class) instanceof DoubleValueConverter);
+		Assertions.assertTrue(provider.findValueConverter(Integer.class, Boolean.class) instanceof BooleanValueConverter);
+		Assertions.assertTrue(provider.findValueConverter(Boolean.class, Boolean.class) instanceof BooleanValueConverter);
+		Assertions.assertTrue(provider.findValueConverter(Integer.class, Long.class) instanceof LongValueConverter);
+	}
+
+	@Test
+	@DisplayName("Чтение значений примитивных типов из строки")
+	void primitiveValues() {
+		ProbeRowConverter rowConverter = new ProbeRowConverter(new ValueConvertersProvider());
+		Row row = createRow(42, 1L << 40, -0.5, 1, null);
+
+		Assertions.assertEquals(42, rowConverter.getInt(row, "COUNTER", -1));
+		Assertions.assertEquals(1L << 40, rowConverter.getLong(row, "TOTAL", -1L));
+		Assertions.assertEquals(-0.5, rowConverter.getDouble(row, "RATIO", -1d));
+		Assertions.assertTrue(rowConverter.getBoolean(row, "ACTIVE", false));
+		Assertions.assertFalse(rowConverter.getBoolean(createRow(0, 0L, 0d, 0, null), "ACTIVE", true));
+	}
+
+	@Test
+	@DisplayName("Чтение значений столбцов, тип которых совпадает с целевым или расширяется до него")
+	void matchingTypes() throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+		     Statement statement = connection.createStatement()) {
+			statement.executeUpdate("INSERT INTO TYPED_TASKS (ID, COUNTER, ARCHIVED) VALUES ('matching', 42, TRUE)");
+		}
+		try {
+			Row row = table.getElements(null, null).get(0);
+			ProbeRowConverter rowConverter = new ProbeRowConverter(new ValueConvertersProvider());
+
+			// Столбец BOOLEAN читается без конвертера из Integer, столбец INTEGER - как long
+			Assertions.assertTrue(rowConverter.getBoolean(row, "ARCHIVED", false));
+			Assertions.assertEquals(Boolean.TRUE, rowConverter.getValue(row, "ARCHIVED", Boolean.class));
+			Assertions.assertEquals(42L, rowConverter.getLong(row, "COUNTER", -1L));
+			Assertions.assertEquals(Long.valueOf(42), rowConverter.getValue(row, "COUNTER", Long.class));
+			Assertions.assertEquals(42, rowConverter.toRowValue(42L, column("COUNTER"), long.class, null));
+		} finally {
+			table.deleteElements(null);
+		}
+	}
+
+	private static Column column(String columnName) {
+		return columns.stream()
+		              .filter(column -> column.getName().equals(columnName))
+		              .findFirst()
+		              .orElseThrow(IllegalStateException::new);
+	}
+
+	@Test
+	@DisplayName("Значение по умолчанию возвращается при отсутствии значения или конвертера")
+	void defaultValues() {
+		ProbeRowConverter rowConverter = new ProbeRowConverter(new ValueConvertersProvider());
+		Row row = createRow(null, null, null, null, "Note");
+
+		Assertions.assertEquals(-1, rowConverter.getInt(row, "COUNTER", -1));
+		Assertions.assertEquals(-1L, rowConverter.getLong(row, "TOTAL", -1L));
+		Assertions.assertEquals(-1d, rowConverter.getDouble(row, "RATIO", -1d));
+		Assertions.assertTrue(rowConverter.getBoolean(row, "ACTIVE", true));
+		// Для преобразования String в int конвертер не зарегистрирован
+		Assertions.assertEquals(-1, rowConverter.getInt(row, "NOTE", -1));
+		Assertions.assertEquals(-1, new ProbeRowConverter(null).getInt(createRow(42, null, null, null, null), "COUNTER", -1));
+	}
+
+	@Test
+	@DisplayName("Специализированный конвертер используется без упаковки, обычный конвертер - с упаковкой значения")
+	void specializedConverters() {
+		ProbeRowConverter rowConverter = new ProbeRowConverter(new TextValueConvertersProvider());
+
+		Assertions.assertEquals(42, rowConverter.getInt(createRow(null, null, null, null, "42"), "NOTE", -1));
+		Assertions.assertEquals(42L, rowConverter.getLong(createRow(null, null, null, null, "42"), "NOTE", -1L));
+		// Обычный конвертер вернул NULL
+		Assertions.assertEquals(-1L, rowConverter.getLong(createRow(null, null, null, null, ""), "NOTE", -1L));
+	}
+
+	private static final class ProbeRowConverter extends AbstractRowConverter<Object> {
+
+		private ProbeRowConverter(ValueConvertersProvider provider) {
+			super(provider);
+		}
+
+		@Override
+		public Object fromRow(Row row) {
+			return null;
+		}
+
+		@Override
+		public Row toRow(List<Column> columns, Object entity) {
+			return new Row(columns);
+		}
+
+	}
+
+	private static final class TextValueConvertersProvider extends ValueConvertersProvider {
+
+		private TextValueConvertersProvider() {
+			registerValueConverter(new TextIntValueConverter());
+			registerValueConverter(new TextLongValueConverter());
+		}
+
+	}
+
+	/**
+	 * Конвертер, который можно использовать только без упаковки значения
+	 */
+	private static final class TextIntValueConverter implements IntValueConverter<String> {
+
+		@Override
+		public int convertFromAsInt(String source) {
+			return Integer.parseInt(source);
+		}
+
+		@Override
+		public Integer convertFrom(String source) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String convertTo(Integer object) {
+			return String.valueOf(object);
+		}
+
+	}
+
+	private static final class TextLongValueConverter implements ValueConverter<String, Long> {
+
+		@Override
+		public Long convertFrom(String source) {
+			return source.isEmpty() ? null : Long.valueOf(source);
+		}
+
+		@Override
+		public String convertTo(Long object) {
+			return String.valueOf(object);
+		}
+
+	}
+
+}
@@ -0,0 +1,84 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.DatabaseStorage;
+import ru.rds.data.database.H2DatabaseQueryBuilder;
+import ru.rds.data.repository.cache.BoundedEntityCache;
+import ru.rds.data.repository.tasks.*;
+
+@DisplayName("Тестирование определения идентификатора Репозиторием <AnnotationBasedDatabaseStorageRepository>")
+public class AnnotationBasedDatabaseStorageRepositoryTest {
+
+	private static HikariDataSource dataSource;
+	private static TasksRepository  repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("annotationBased");
+		repository = TasksDatabase.createTasksRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.setEntityCache(null);
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Идентификатор определяется по полю столбца-ключа")
+	void getId() {
+		UUID id = UUID.randomUUID();
+		Assertions.assertEquals(id, repository.getId(new TaskEntity(id, "Task", 1)));
+		Assertions.assertNull(repository.getId(new TaskEntity()));
+	}
+
+	@Test
+	@DisplayName("Изменение сущности обновляет только ее запись в кэше")
+	void entityCache() {
+		BoundedEntityCache<UUID, TaskEntity> cache = new BoundedEntityCache<>(100, 0, TimeUnit.SECONDS,
+		                                                                      task -> new TaskEntity(task.getId(), task.getName(), task.getVersion()));
+		repository.setEntityCache(cache);
+
+		TaskEntity first = repository.insert(new TaskEntity(UUID.randomUUID(), "First", 1));
+		TaskEntity second = repository.insert(new TaskEntity(UUID.randomUUID(), "Second", 1));
+		Assertions.assertEquals(2, cache.size());
+
+		second.setName("Changed");
+		repository.save(second);
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals("Changed", cache.get(second.getId()).getName());
+
+		repository.delete(first);
+		Assertions.assertEquals(1, cache.size());
+		Assertions.assertNull(cache.get(first.getId()));
+	}
+
+	@Test
+	@DisplayName("Сведения об объекте и конвертер для провайдера по-умолчанию используются всеми экземплярами Репозитория")
+	void sharedDetails() {
+		RepositoryDataDetails<TypedTaskEntity> details = RepositoryDataDetails.forDataClass(TypedTaskEntity.class);
+		Assertions.assertSame(details, RepositoryDataDetails.forRepository(TypedTasksRepository.class));
+		Assertions.assertSame(details, RepositoryDataDetails.forDataClass(TypedTaskEntity.class));
+		Assertions.assertSame(details.getDataRowConverter(ValueConvertersProvider.getDefault()), details.getDataRowConverter(ValueConvertersProvider.getDefault()));
+
+		TypedTasksRepository first = new TypedTasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()), null);
+		TypedTasksRepository second = new TypedTasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()), ValueConvertersProvider.getDefault());
+		Assertions.assertSame(details.getDataRowConverter(ValueConvertersProvider.getDefault()), first.getRowConverter());
+		Assertions.assertSame(first.getRowConverter(), second.getRowConverter());
+
+		// Для собственного провайдера создается отдельный конвертер
+		ValueConvertersProvider provider = new ValueConvertersProvider();
+		TypedTasksRepository own = new TypedTasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()), provider);
+		Assertions.assertNotSame(first.getRowConverter(), own.getRowConverter());
+		Assertions.assertNotSame(details.getDataRowConverter(provider), details.getDataRowConverter(provider));
+	}
+
+}
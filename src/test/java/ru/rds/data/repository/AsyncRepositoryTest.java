@@ -0,0 +1,67 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование асинхронного доступа <AsyncRepository>")
+public class AsyncRepositoryTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("async");
+		repository = TasksDatabase.createRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Асинхронный доступ к Репозиторию")
+	void asyncRepository() {
+		try (AsyncRepository<TaskEntity, UUID> asyncRepository = repository.createAsyncRepository(2)) {
+			List<TaskEntity> taskEntities = TasksDatabase.createTasks(3);
+			asyncRepository.insertAllAsync(taskEntities).join();
+
+			List<CompletableFuture<Optional<TaskEntity>>> futures = taskEntities.stream()
+			                                                                    .map(taskEntity -> asyncRepository.findByIdAsync(taskEntity.getId()))
+			                                                                    .collect(Collectors.toList());
+			CompletableFuture<Long> count = asyncRepository.countAsync();
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+			futures.forEach(future -> Assertions.assertTrue(future.join().isPresent()));
+			Assertions.assertEquals(3, count.join());
+		}
+	}
+
+	@Test
+	@DisplayName("Количество одновременно выполняемых операций определяется по размеру пула соединений либо задается явно")
+	void maxConcurrency() {
+		try (AsyncRepository<TaskEntity, UUID> asyncRepository = repository.createAsyncRepository()) {
+			Assertions.assertEquals(dataSource.getMaximumPoolSize(), asyncRepository.getMaxConcurrency());
+		}
+		try (AsyncRepository<TaskEntity, UUID> asyncRepository = TasksDatabase.createRepository(new RepositoryTransactionalDataSource(dataSource))
+		                                                                      .createAsyncRepository()) {
+			Assertions.assertEquals(dataSource.getMaximumPoolSize(), asyncRepository.getMaxConcurrency());
+		}
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new AsyncRepository<>(repository, 0));
+	}
+
+}
@@ -0,0 +1,143 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+import ru.rds.data.storage.ElementsSelectionCondition;
+import ru.rds.data.storage.SelectionConditionExpression;
+import ru.rds.data.storage.SelectionType;
+
+@DisplayName("Тестирование массового изменения данных Репозитория <DatabaseStorageRepository>")
+public class DatabaseStorageRepositoryBatchTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("batch");
+		repository = TasksDatabase.createRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.setBatchSize(DatabaseStorageRepository.DEFAULT_BATCH_SIZE);
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Пакетное изменение сущностей")
+	void batchWrites() {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(5);
+
+		repository.setBatchSize(2);
+		List<RepositoryBatchResult> results = repository.insertAll(tasks);
+		Assertions.assertEquals(3, results.size());
+		Assertions.assertEquals(5, repository.count());
+
+		tasks.forEach(task -> task.setVersion(10));
+		results = repository.saveAll(tasks);
+		Assertions.assertEquals(5, results.stream().mapToLong(RepositoryBatchResult::getAffectedRowsCount).sum());
+		Assertions.assertEquals(10, repository.findById(tasks.get(4).getId()).map(TaskEntity::getVersion).orElseGet(() -> null));
+
+		repository.deleteAll(tasks.subList(0, 3));
+		Assertions.assertEquals(2, repository.count());
+	}
+
+	@Test
+	@DisplayName("Массовое удаление с подсчетом удаленных сущностей")
+	void bulkDeletes() {
+		List<TaskEntity> taskEntities = TasksDatabase.createTasks(5);
+		repository.insertAll(taskEntities);
+
+		long deletedCount = repository.deleteAllById(Arrays.asList(taskEntities.get(0).getId(), taskEntities.get(1).getId(), UUID.randomUUID()));
+		Assertions.assertEquals(2, deletedCount);
+
+		ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
+		selectionCondition.setSpacePropertyName("NAME");
+		selectionCondition.setSpacePropertyValue("Task 2");
+		selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
+		Assertions.assertEquals(1, repository.deleteBy(Collections.singletonList(selectionCondition), SelectionType.AND));
+		Assertions.assertEquals(2, repository.count());
+
+		repository.truncate();
+		Assertions.assertEquals(0, repository.count());
+	}
+
+	@Test
+	@DisplayName("Удаление по нескольким частям идентификаторов отменяется полностью при ошибке в любой части")
+	void bulkDeleteRollback() throws SQLException {
+		List<TaskEntity> taskEntities = TasksDatabase.createTasks(4);
+		repository.insertAll(taskEntities);
+		// Ссылка на последнюю сущность не позволяет удалить ее, поэтому последняя часть идентификаторов не удаляется
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.executeUpdate("CREATE TABLE TASK_LINKS (TASK_ID varchar(36) REFERENCES TASKS (ID))");
+			statement.executeUpdate(String.format("INSERT INTO TASK_LINKS (TASK_ID) VALUES ('%s')", taskEntities.get(3).getId()));
+		}
+		repository.setIdBatchSize(2);
+		try {
+			List<UUID> ids = new ArrayList<>();
+			taskEntities.forEach(task -> ids.add(task.getId()));
+			Assertions.assertThrows(RepositoryException.class, () -> repository.deleteAllById(ids));
+			Assertions.assertEquals(4, repository.count());
+		} finally {
+			repository.setIdBatchSize(DatabaseStorageRepository.DEFAULT_ID_BATCH_SIZE);
+			try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+				statement.executeUpdate("DROP TABLE TASK_LINKS");
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Добавление или сохранение нескольких сущностей")
+	void upsertAll() {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(4);
+
+		List<RepositoryUpsertResult> results = repository.upsertAll(tasks.subList(0, 2));
+		Assertions.assertEquals(Arrays.asList(RepositoryUpsertResult.INSERTED, RepositoryUpsertResult.INSERTED), results);
+		Assertions.assertEquals(2, repository.count());
+
+		tasks.subList(0, 2).forEach(task -> task.setName(task.getName() + " changed"));
+		results = repository.upsertAll(tasks.subList(0, 2));
+		Assertions.assertEquals(Arrays.asList(RepositoryUpsertResult.UPDATED, RepositoryUpsertResult.UPDATED), results);
+		Assertions.assertEquals(2, repository.count());
+		Assertions.assertEquals("Task 1 changed", repository.findById(tasks.get(1).getId()).map(TaskEntity::getName).orElseGet(() -> null));
+
+		// Результаты соответствуют порядку переданных сущностей
+		tasks.get(0).setVersion(10);
+		results = repository.upsertAll(Arrays.asList(tasks.get(2), tasks.get(0), tasks.get(3)));
+		Assertions.assertEquals(Arrays.asList(RepositoryUpsertResult.INSERTED, RepositoryUpsertResult.UPDATED, RepositoryUpsertResult.INSERTED), results);
+		Assertions.assertEquals(4, repository.count());
+		Assertions.assertEquals(10, repository.findById(tasks.get(0).getId()).map(TaskEntity::getVersion).orElseGet(() -> null));
+		Assertions.assertEquals("Task 3", repository.findById(tasks.get(3).getId()).map(TaskEntity::getName).orElseGet(() -> null));
+
+		Assertions.assertEquals(RepositoryUpsertResult.UPDATED, repository.upsert(tasks.get(3)));
+		Assertions.assertTrue(repository.upsertAll(Collections.emptyList()).isEmpty());
+	}
+
+	@Test
+	@DisplayName("Добавление или сохранение без <DataSource> не выполняется")
+	void upsertAllWithoutDataSource() {
+		TasksDatabaseStorageRepository tableRepository = new TasksDatabaseStorageRepository(repository.getTable(), new ValueConvertersProvider());
+		List<TaskEntity> tasks = TasksDatabase.createTasks(2);
+		repository.insert(tasks.get(0));
+		tasks.get(0).setName("Changed");
+
+		Assertions.assertThrows(RepositoryException.class, () -> tableRepository.upsertAll(tasks));
+		Assertions.assertThrows(RepositoryException.class, () -> tableRepository.upsert(tasks.get(1)));
+		Assertions.assertEquals(1, repository.count());
+		Assertions.assertEquals("Task 0", repository.findById(tasks.get(0).getId()).map(TaskEntity::getName).orElseGet(() -> null));
+	}
+
+}
@@ -0,0 +1,168 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование сохранения только измененных столбцов")
+public class DatabaseStorageRepositoryDirtyCheckingTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("dirtyChecking");
+		repository = TasksDatabase.createRepository(dataSource);
+		repository.setDirtyChecking(true);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Сохранение только измененных столбцов")
+	void dirtyChecking() {
+		UUID id = repository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+
+		TaskEntity taskEntity = repository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(taskEntity);
+		repository.save(taskEntity);
+
+		taskEntity.setName("Changed");
+		repository.save(taskEntity);
+
+		taskEntity = repository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(taskEntity);
+		Assertions.assertEquals("Changed", taskEntity.getName());
+		Assertions.assertEquals(1, taskEntity.getVersion());
+	}
+
+	@Test
+	@DisplayName("Запрос изменяет только измененный столбец, а сохранение без изменений не выполняет запрос")
+	void changedColumnsOnly() throws SQLException {
+		UUID id = repository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+		TaskEntity taskEntity = repository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(taskEntity);
+
+		// Изменения, выполненные в БД в обход Репозитория, остаются, если сохранение их не затрагивает
+		updateDirectly(id, "External", 5);
+		repository.save(taskEntity);
+		assertStored(id, "External", 5);
+
+		taskEntity.setName("Changed");
+		repository.save(taskEntity);
+		assertStored(id, "Changed", 5);
+
+		// Снимок обновляется после сохранения
+		updateDirectly(id, "External", 7);
+		repository.save(taskEntity);
+		assertStored(id, "External", 7);
+	}
+
+	@Test
+	@DisplayName("Снимок загруженного объекта формируется из исходной строки без преобразования объекта в строку")
+	void snapshotFromSourceRow() {
+		CountingRepository countingRepository = new CountingRepository(repository);
+		repository.insertAll(TasksDatabase.createTasks(3));
+
+		List<TaskEntity> taskEntities = countingRepository.findAll();
+		Assertions.assertEquals(3, taskEntities.size());
+		Assertions.assertEquals(0, countingRepository.mapToRowCount.get());
+
+		TaskEntity taskEntity = taskEntities.get(0);
+		taskEntity.setName("Changed");
+		countingRepository.save(taskEntity);
+		Assertions.assertEquals(1, countingRepository.mapToRowCount.get());
+		Assertions.assertEquals("Changed", repository.findById(taskEntity.getId()).map(TaskEntity::getName).orElseGet(() -> null));
+	}
+
+	@Test
+	@DisplayName("Параллельное преобразование сохраняет порядок объектов и их снимки")
+	void parallelMapping() throws SQLException {
+		repository.insertAll(TasksDatabase.createTasks(500));
+		List<UUID> expectedIds = repository.findAll().stream().map(TaskEntity::getId).collect(Collectors.toList());
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			repository.setParallelMapping(pool, 2);
+			List<TaskEntity> taskEntities = repository.findAll();
+			Assertions.assertEquals(expectedIds, taskEntities.stream().map(TaskEntity::getId).collect(Collectors.toList()));
+
+			// Снимок каждого объекта соответствует его строке: неизмененные объекты не сохраняются, измененные сохраняются только по измененному столбцу
+			for (TaskEntity taskEntity : taskEntities) {
+				updateDirectly(taskEntity.getId(), "External", taskEntity.getVersion() + 1000);
+				if (taskEntity.getVersion() % 2 == 0) {
+					taskEntity.setName("Changed " + taskEntity.getVersion());
+				}
+			}
+			repository.setParallelMapping(null, DatabaseStorageRepository.DEFAULT_PARALLEL_MAPPING_THRESHOLD);
+			taskEntities.forEach(repository::save);
+			for (TaskEntity taskEntity : taskEntities) {
+				int version = taskEntity.getVersion();
+				assertStored(taskEntity.getId(), version % 2 == 0 ? "Changed " + version : "External", version + 1000);
+			}
+		} finally {
+			repository.setParallelMapping(null, DatabaseStorageRepository.DEFAULT_PARALLEL_MAPPING_THRESHOLD);
+			pool.shutdown();
+		}
+	}
+
+	private static void updateDirectly(UUID id, String name, int version) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+		     PreparedStatement statement = connection.prepareStatement("UPDATE TASKS SET NAME = ?, VERSION = ? WHERE ID = ?")) {
+			statement.setString(1, name);
+			statement.setInt(2, version);
+			statement.setString(3, id.toString());
+			Assertions.assertEquals(1, statement.executeUpdate());
+		}
+	}
+
+	private static void assertStored(UUID id, String name, int version) {
+		TaskEntity storedEntity = repository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(storedEntity);
+		Assertions.assertEquals(name, storedEntity.getName());
+		Assertions.assertEquals(version, storedEntity.getVersion());
+	}
+
+	/**
+	 * Репозиторий, подсчитывающий преобразования объектов в строки
+	 */
+	private static final class CountingRepository extends TasksDatabaseStorageRepository {
+
+		private final AtomicInteger mapToRowCount = new AtomicInteger();
+
+		private CountingRepository(TasksDatabaseStorageRepository repository) {
+			super(repository.getTable(), new ValueConvertersProvider());
+			setDataSource(repository.getDataSource());
+			setDirtyChecking(true);
+		}
+
+		@Override
+		protected Row mapToRow(TaskEntity entity, List<Column> columns) {
+			this.mapToRowCount.incrementAndGet();
+			return super.mapToRow(entity, columns);
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.cache.BoundedEntityCache;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование кэширования сущностей по ID")
+public class DatabaseStorageRepositoryEntityCacheTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("entityCache");
+		repository = TasksDatabase.createRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.setEntityCache(null);
+		repository.deleteAll();
+	}
+
+	private static BoundedEntityCache<UUID, TaskEntity> createCache() {
+		return new BoundedEntityCache<>(100, 0, TimeUnit.SECONDS, task -> new TaskEntity(task.getId(), task.getName(), task.getVersion()));
+	}
+
+	@Test
+	@DisplayName("Кэширование сущностей по ID")
+	void entityCache() {
+		BoundedEntityCache<UUID, TaskEntity> cache = createCache();
+		repository.setEntityCache(cache);
+
+		UUID id = repository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+
+		TaskEntity taskEntity = repository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(taskEntity);
+		Assertions.assertEquals(1, cache.getStatistics().getHitCount());
+
+		// Изменение полученного объекта не влияет на содержимое кэша
+		taskEntity.setName("Changed");
+		Assertions.assertEquals("Task", repository.findById(id).map(TaskEntity::getName).orElseGet(() -> null));
+
+		repository.deleteById(id);
+		Assertions.assertFalse(repository.findById(id).isPresent());
+		Assertions.assertEquals(1, cache.getStatistics().getMissCount());
+	}
+
+	@Test
+	@DisplayName("Сущность, загруженная до ее изменения, не заменяет в кэше измененную")
+	void concurrentSave() {
+		BoundedEntityCache<UUID, TaskEntity> cache = createCache();
+		TaskEntity[] concurrentChange = {null};
+		TasksDatabaseStorageRepository racingRepository = new TasksDatabaseStorageRepository(repository.getTable(), new ValueConvertersProvider()) {
+
+			@Override
+			protected TaskEntity mapFromRow(Row row) {
+				TaskEntity loaded = super.mapFromRow(row);
+				// Изменение выполняется другим участником после чтения строки, но до сохранения загруженной сущности в кэше
+				if (concurrentChange[0] != null) {
+					TaskEntity changed = concurrentChange[0];
+					concurrentChange[0] = null;
+					save(changed);
+				}
+				return loaded;
+			}
+
+		};
+		racingRepository.setDataSource(dataSource);
+		racingRepository.setEntityCache(cache);
+
+		UUID id = racingRepository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+		cache.invalidateAll();
+
+		concurrentChange[0] = new TaskEntity(id, "Changed", 2);
+		Assertions.assertEquals("Task", racingRepository.findById(id).map(TaskEntity::getName).orElseGet(() -> null));
+		Assertions.assertEquals("Changed", racingRepository.findById(id).map(TaskEntity::getName).orElseGet(() -> null));
+
+		concurrentChange[0] = new TaskEntity(id, "Changed again", 3);
+		cache.invalidateAll();
+		Map<UUID, TaskEntity> tasks = racingRepository.findAllById(Collections.singletonList(id));
+		Assertions.assertEquals("Changed", tasks.get(id).getName());
+		Assertions.assertEquals("Changed again", racingRepository.findById(id).map(TaskEntity::getName).orElseGet(() -> null));
+	}
+
+}
@@ -0,0 +1,184 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.DatabaseStorage;
+import ru.rds.data.database.H2DatabaseQueryBuilder;
+import ru.rds.data.repository.tasks.*;
+
+@DisplayName("Тестирование оптимистической блокировки по номеру версии")
+public class DatabaseStorageRepositoryOptimisticLockingTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository versionedRepository;
+	private static VersionedTasksRepository       annotatedRepository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("optimisticLocking");
+		versionedRepository = new TasksDatabaseStorageRepository(TasksDatabase.createRepository(dataSource).getTable(), new ValueConvertersProvider()) {
+
+			@Override
+			protected String getVersionColumnName() {
+				return "VERSION";
+			}
+
+			@Override
+			protected void applyVersion(TaskEntity entity, Object version) {
+				entity.setVersion((Integer) version);
+			}
+
+		};
+		versionedRepository.setDataSource(dataSource);
+		annotatedRepository = new VersionedTasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()), new ValueConvertersProvider());
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		versionedRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Оптимистическая блокировка по номеру версии")
+	void optimisticLocking() {
+		UUID id = versionedRepository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+
+		TaskEntity first = versionedRepository.findById(id).orElseGet(() -> null);
+		TaskEntity second = versionedRepository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(first);
+		Assertions.assertNotNull(second);
+
+		first.setName("First");
+		versionedRepository.save(first);
+		Assertions.assertEquals(2, first.getVersion());
+
+		second.setName("Second");
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> versionedRepository.save(second));
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> versionedRepository.delete(second));
+
+		TaskEntity saved = versionedRepository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(saved);
+		Assertions.assertEquals("First", saved.getName());
+		Assertions.assertEquals(2, saved.getVersion());
+
+		versionedRepository.delete(first);
+		Assertions.assertFalse(versionedRepository.findById(id).isPresent());
+	}
+
+	@Test
+	@DisplayName("Оптимистическая блокировка по полю, аннотированному @RepositoryDataVersion")
+	void annotatedVersion() {
+		UUID id = annotatedRepository.insert(new VersionedTaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+
+		VersionedTaskEntity first = annotatedRepository.findById(id).orElseGet(() -> null);
+		VersionedTaskEntity second = annotatedRepository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(first);
+		Assertions.assertNotNull(second);
+
+		first.setName("First");
+		annotatedRepository.save(first);
+		Assertions.assertEquals(2, first.getVersion());
+
+		second.setName("Second");
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> annotatedRepository.save(second));
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> annotatedRepository.delete(second));
+		Assertions.assertEquals("First", annotatedRepository.findById(id).map(VersionedTaskEntity::getName).orElseGet(() -> null));
+
+		annotatedRepository.delete(first);
+		Assertions.assertFalse(annotatedRepository.findById(id).isPresent());
+	}
+
+	@Test
+	@DisplayName("Добавление или сохранение с проверкой номера версии")
+	void upsert() {
+		UUID id = annotatedRepository.insert(new VersionedTaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+		VersionedTaskEntity stale = new VersionedTaskEntity(id, "Stale", 1);
+		VersionedTaskEntity current = new VersionedTaskEntity(id, "Current", 1);
+
+		Assertions.assertEquals(RepositoryUpsertResult.UPDATED, annotatedRepository.upsert(current));
+		Assertions.assertEquals(2, current.getVersion());
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> annotatedRepository.upsert(stale));
+
+		// Конфликт одного объекта отменяет изменения всех объектов
+		VersionedTaskEntity inserted = new VersionedTaskEntity(UUID.randomUUID(), "Inserted", 1);
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> annotatedRepository.upsertAll(Arrays.asList(inserted, stale)));
+		Assertions.assertFalse(annotatedRepository.findById(inserted.getId()).isPresent());
+		Assertions.assertEquals(1, inserted.getVersion());
+
+		Assertions.assertEquals(Arrays.asList(RepositoryUpsertResult.INSERTED, RepositoryUpsertResult.UPDATED),
+		                        annotatedRepository.upsertAll(Arrays.asList(inserted, current)));
+		Assertions.assertEquals(1, inserted.getVersion());
+		Assertions.assertEquals(3, current.getVersion());
+
+		VersionedTaskEntity saved = annotatedRepository.findById(id).orElseGet(() -> null);
+		Assertions.assertNotNull(saved);
+		Assertions.assertEquals("Current", saved.getName());
+		Assertions.assertEquals(3, saved.getVersion());
+	}
+
+	@Test
+	@DisplayName("Пакетное сохранение и удаление с проверкой номера версии выполняются полностью либо не выполняются")
+	void batch() {
+		VersionedTaskEntity first = annotatedRepository.insert(new VersionedTaskEntity(UUID.randomUUID(), "First", 1));
+		VersionedTaskEntity second = annotatedRepository.insert(new VersionedTaskEntity(UUID.randomUUID(), "Second", 1));
+		VersionedTaskEntity stale = new VersionedTaskEntity(second.getId(), "Stale", 1);
+		annotatedRepository.save(second);
+
+		// Конфликт второго объекта отменяет сохранение первого
+		first.setName("Changed");
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> annotatedRepository.saveAll(Arrays.asList(first, stale)));
+		Assertions.assertEquals(1, first.getVersion());
+		Assertions.assertEquals("First", annotatedRepository.findById(first.getId()).map(VersionedTaskEntity::getName).orElseGet(() -> null));
+
+		List<RepositoryBatchResult> results = annotatedRepository.saveAll(Arrays.asList(first, second));
+		Assertions.assertEquals(2, results.stream().mapToLong(RepositoryBatchResult::getAffectedRowsCount).sum());
+		Assertions.assertEquals(2, first.getVersion());
+		Assertions.assertEquals(3, second.getVersion());
+		Assertions.assertEquals("Changed", annotatedRepository.findById(first.getId()).map(VersionedTaskEntity::getName).orElseGet(() -> null));
+
+		// Конфликт второго объекта отменяет удаление первого
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> annotatedRepository.deleteAll(Arrays.asList(first, stale)));
+		Assertions.assertTrue(annotatedRepository.findById(first.getId()).isPresent());
+
+		annotatedRepository.deleteAll(Arrays.asList(first, second));
+		Assertions.assertFalse(annotatedRepository.findById(first.getId()).isPresent());
+		Assertions.assertFalse(annotatedRepository.findById(second.getId()).isPresent());
+	}
+
+	@Test
+	@DisplayName("Удаление по идентификатору с проверкой номера версии")
+	void deleteById() {
+		UUID id = annotatedRepository.insert(new VersionedTaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+
+		Assertions.assertThrows(RepositoryException.class, () -> annotatedRepository.deleteById(id));
+		Assertions.assertThrows(RepositoryException.class, () -> annotatedRepository.deleteAllById(Collections.singletonList(id)));
+		Assertions.assertThrows(RepositoryOptimisticLockException.class, () -> annotatedRepository.deleteById(id, 2));
+		Assertions.assertTrue(annotatedRepository.findById(id).isPresent());
+
+		annotatedRepository.deleteById(id, 1);
+		Assertions.assertFalse(annotatedRepository.findById(id).isPresent());
+	}
+
+	@Test
+	@DisplayName("Сохранение с проверкой номера версии без <DataSource> не выполняется")
+	void withoutDataSource() {
+		VersionedTaskEntity task = annotatedRepository.insert(new VersionedTaskEntity(UUID.randomUUID(), "Task", 1));
+		VersionedTasksRepository repository = new VersionedTasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()),
+		                                                                   new ValueConvertersProvider());
+		repository.setDataSource(null);
+		task.setName("Changed");
+		Assertions.assertThrows(RepositoryException.class, () -> repository.save(task));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.delete(task));
+		Assertions.assertEquals("Task", annotatedRepository.findById(task.getId()).map(VersionedTaskEntity::getName).orElseGet(() -> null));
+	}
+
+}
@@ -0,0 +1,150 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.DatabaseStorage;
+import ru.rds.data.database.H2DatabaseQueryBuilder;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование выборок Репозитория <DatabaseStorageRepository>")
+public class DatabaseStorageRepositoryQueriesTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("queries");
+		repository = TasksDatabase.createRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Последовательное чтение сущностей")
+	void stream() {
+		repository.insertAll(TasksDatabase.createTasks(5));
+
+		repository.setFetchSize(2);
+		try (Stream<TaskEntity> tasks = repository.stream()) {
+			List<String> names = tasks.map(TaskEntity::getName).sorted().collect(Collectors.toList());
+			Assertions.assertEquals(Arrays.asList("Task 0", "Task 1", "Task 2", "Task 3", "Task 4"), names);
+		} finally {
+			repository.setFetchSize(DatabaseStorageRepository.DEFAULT_FETCH_SIZE);
+		}
+	}
+
+	@Test
+	@DisplayName("Постраничное получение сущностей по ключу")
+	void findPage() {
+		repository.insertAll(TasksDatabase.createTasks(5));
+
+		List<Integer> pageSizes = new ArrayList<>();
+		Set<UUID> ids = new HashSet<>();
+		RepositoryPage<TaskEntity> page = repository.findPage(2);
+		while (true) {
+			pageSizes.add(page.getElements().size());
+			page.getElements().forEach(task -> ids.add(task.getId()));
+			if (!page.hasNext()) {
+				break;
+			}
+			page = repository.findPage(page.getNextPageToken(), 2);
+		}
+		Assertions.assertEquals(Arrays.asList(2, 2, 1), pageSizes);
+		Assertions.assertEquals(5, ids.size());
+	}
+
+	@Test
+	@DisplayName("Получение сущностей по нескольким ID")
+	void findAllById() {
+		List<TaskEntity> taskEntities = TasksDatabase.createTasks(5);
+		repository.insertAll(taskEntities);
+		List<UUID> ids = taskEntities.stream().map(TaskEntity::getId).collect(Collectors.toList());
+
+		repository.setIdBatchSize(2);
+		try {
+			List<UUID> requestedIds = Arrays.asList(ids.get(3), UUID.randomUUID(), ids.get(0), ids.get(4), ids.get(3));
+			Map<UUID, TaskEntity> tasks = repository.findAllById(requestedIds);
+			Assertions.assertEquals(Arrays.asList(ids.get(3), ids.get(0), ids.get(4)), new ArrayList<>(tasks.keySet()));
+			Assertions.assertEquals("Task 3", tasks.get(ids.get(3)).getName());
+		} finally {
+			repository.setIdBatchSize(DatabaseStorageRepository.DEFAULT_ID_BATCH_SIZE);
+		}
+	}
+
+	@Test
+	@DisplayName("Получение сущностей по нескольким ID, тип и масштаб которых отличаются от значений столбца")
+	void findAllByNumericId() throws SQLException {
+		PricesRepository pricesRepository = new PricesRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()));
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.executeUpdate("INSERT INTO PRICES (ID, NAME) VALUES (5, 'Five'), (2.5, 'Two and a half')");
+		}
+		try {
+			// Значения столбца читаются как 5.00 и 2.50
+			Map<Number, String> names = pricesRepository.findAllById(Arrays.asList(5L, new BigDecimal("2.5"), 7));
+			Assertions.assertEquals(Arrays.asList(5L, new BigDecimal("2.5")), new ArrayList<>(names.keySet()));
+			Assertions.assertEquals("Five", names.get(5L));
+			Assertions.assertEquals("Two and a half", names.get(new BigDecimal("2.5")));
+		} finally {
+			pricesRepository.deleteAll();
+		}
+	}
+
+	/**
+	 * Репозиторий названий цен с числовым ключом (объект - название)
+	 */
+	private static final class PricesRepository extends DatabaseStorageRepository<String, Number> {
+
+		private PricesRepository(DatabaseStorage databaseStorage) {
+			super(databaseStorage);
+		}
+
+		@Override
+		protected String getRepositoryName() {
+			return "PRICES";
+		}
+
+		@Override
+		protected RowConverter<String> getRowConverter() {
+			return new RowConverter<String>() {
+
+				@Override
+				public String fromRow(Row row) {
+					return (String) row.getValue("NAME").orElseGet(() -> null);
+				}
+
+				@Override
+				public Row toRow(List<Column> columns, String entity) {
+					throw new UnsupportedOperationException();
+				}
+
+			};
+		}
+
+		@Override
+		protected Object getIdValue(Number id, String idColumnName) {
+			return id;
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.*;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+import ru.rds.data.storage.ElementsSelectionCondition;
+import ru.rds.data.storage.SelectionConditionExpression;
+import ru.rds.data.storage.SelectionType;
+
+@DisplayName("Тестирование Репозитория <DatabaseStorageRepository> без <DataSource>")
+public class DatabaseStorageRepositoryWithoutDataSourceTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("withoutDataSource");
+		// Репозиторий, созданный из Таблицы без источника соединений
+		repository = new TasksDatabaseStorageRepository(TasksDatabase.createRepository(dataSource).getTable(), new ValueConvertersProvider());
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Источник соединений определяется по <DatabaseStorage> и может быть передан вместе с Таблицей")
+	void dataSourceResolution() {
+		Assertions.assertNull(repository.getDataSource());
+		Assertions.assertSame(dataSource, TasksDatabase.createRepository(dataSource).getDataSource());
+		Assertions.assertSame(dataSource, TasksDatabase.createTasksRepository(dataSource).getDataSource());
+
+		TasksDatabaseStorageRepository tableRepository = new TasksDatabaseStorageRepository(repository.getTable(), dataSource, new ValueConvertersProvider());
+		Assertions.assertSame(dataSource, tableRepository.getDataSource());
+		tableRepository.insertAll(TasksDatabase.createTasks(2));
+		try (Stream<TaskEntity> tasks = tableRepository.stream()) {
+			Assertions.assertEquals(2, tasks.count());
+		}
+	}
+
+	@Test
+	@DisplayName("Операции, результат которых не зависит от способа выполнения, выполняются через <Table>")
+	void tableOperations() {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(3);
+		tasks.forEach(repository::insert);
+		repository.save(new TaskEntity(tasks.get(0).getId(), "Changed", 0));
+		repository.delete(tasks.get(1));
+
+		Assertions.assertEquals(2, repository.count());
+		Map<UUID, TaskEntity> found = repository.findAllById(Arrays.asList(tasks.get(0).getId(), tasks.get(1).getId(), tasks.get(2).getId()));
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(tasks.get(0).getId(), tasks.get(2).getId())), found.keySet());
+		Assertions.assertEquals("Changed", found.get(tasks.get(0).getId()).getName());
+
+		repository.truncate();
+		Assertions.assertEquals(0, repository.count());
+	}
+
+	@Test
+	@DisplayName("Операции, которые через <Table> дали бы другой результат, не выполняются")
+	void dataSourceOperations() {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(2);
+		tasks.forEach(repository::insert);
+
+		ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
+		selectionCondition.setSpacePropertyName("NAME");
+		selectionCondition.setSpacePropertyValue("Task 0");
+		selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
+
+		Assertions.assertThrows(RepositoryException.class, repository::stream);
+		Assertions.assertThrows(RepositoryException.class, repository::publisher);
+		Assertions.assertThrows(RepositoryException.class, () -> repository.findPage(10));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.findPageAfter(tasks.get(0).getId(), 10));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.insertAll(TasksDatabase.createTasks(1)));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.saveAll(tasks));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.upsert(tasks.get(0)));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.upsertAll(tasks));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.deleteAll(tasks));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.deleteAllById(Collections.singletonList(tasks.get(0).getId())));
+		Assertions.assertThrows(RepositoryException.class, () -> repository.deleteBy(Collections.singletonList(selectionCondition), SelectionType.AND));
+
+		Assertions.assertEquals(2, repository.count());
+	}
+
+}
@@ -0,0 +1,145 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TypedTaskEntity;
+import ru.rds.data.repository.tasks.TypedTasksRepository;
+
+@DisplayName("Тестирование преобразования на основе аннотаций <RepositoryDataRowConverter>")
+public class RepositoryDataRowConverterTest {
+
+	private static HikariDataSource dataSource;
+	private static List<Column>     columns;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("repositoryDataRowConverter");
+		columns = TasksDatabase.createRepository(dataSource).getTable().getColumns();
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@Test
+	@DisplayName("План записи используется повторно для разных перечней столбцов с теми же названиями и типами")
+	void writePlans() {
+		CountingValueConvertersProvider provider = new CountingValueConvertersProvider();
+		RepositoryDataRowConverter<TaskEntity> rowConverter = new RepositoryDataRowConverter<>(RepositoryDataDetails.forDataClass(TaskEntity.class), provider);
+		TaskEntity taskEntity = new TaskEntity(UUID.randomUUID(), "Task", 1);
+
+		rowConverter.toRow(columns, taskEntity);
+		int lookups = provider.lookups.get();
+		Assertions.assertTrue(lookups > 0);
+		for (int i = 0; i < 100; i++) {
+			List<Column> rowColumns = new ArrayList<>(columns);
+			Row row = rowConverter.toRow(rowColumns, taskEntity);
+			Assertions.assertSame(rowColumns, row.getSpaceProperties());
+			Assertions.assertEquals(taskEntity.getId().toString(), row.getValue("ID").orElseGet(() -> null));
+			Assertions.assertEquals("Task", row.getValue("NAME").orElseGet(() -> null));
+			Assertions.assertEquals(1, row.getValue("VERSION").orElseGet(() -> null));
+		}
+		Assertions.assertEquals(lookups, provider.lookups.get());
+	}
+
+	@Test
+	@DisplayName("Запомненные планы записи сохраняются при использовании большого количества разных перечней столбцов")
+	void writePlansLimit() {
+		CountingValueConvertersProvider provider = new CountingValueConvertersProvider();
+		RepositoryDataRowConverter<TaskEntity> rowConverter = new RepositoryDataRowConverter<>(RepositoryDataDetails.forDataClass(TaskEntity.class), provider);
+		TaskEntity taskEntity = new TaskEntity(UUID.randomUUID(), "Task", 1);
+
+		rowConverter.toRow(columns, taskEntity);
+		int lookups = provider.lookups.get();
+		// Разные наборы столбцов (больше, чем запоминается планов): все последовательности столбцов Таблицы длиной до 3 с повторениями
+		List<List<Column>> sequences = new ArrayList<>();
+		sequences.add(Collections.emptyList());
+		for (int length = 1; length <= 3; length++) {
+			List<List<Column>> longerSequences = new ArrayList<>();
+			for (List<Column> sequence : sequences) {
+				if (sequence.size() == length - 1) {
+					for (Column column : columns) {
+						List<Column> longerSequence = new ArrayList<>(sequence);
+						longerSequence.add(column);
+						longerSequences.add(longerSequence);
+					}
+				}
+			}
+			sequences.addAll(longerSequences);
+		}
+		sequences.forEach(sequence -> rowConverter.toRow(sequence, taskEntity));
+		int subsetLookups = provider.lookups.get();
+		rowConverter.toRow(new ArrayList<>(columns), taskEntity);
+		Assertions.assertEquals(subsetLookups, provider.lookups.get());
+		Assertions.assertTrue(subsetLookups > lookups);
+	}
+
+	@Test
+	@DisplayName("Преобразование значений примитивных типов, отсутствующих значений и значений с конвертером поля")
+	void roundTrip() {
+		TypedTasksRepository typedRepository = TasksDatabase.createTypedTasksRepository(dataSource);
+		List<Column> typedColumns = typedRepository.getTable().getColumns();
+		RepositoryDataRowConverter<TypedTaskEntity> rowConverter = new RepositoryDataRowConverter<>(RepositoryDataDetails.forDataClass(TypedTaskEntity.class),
+		                                                                                            new ValueConvertersProvider());
+		TypedTaskEntity taskEntity = new TypedTaskEntity(UUID.randomUUID(), 7, 1L << 40, 0.25, true, TypedTaskEntity.Priority.HIGH, null);
+
+		Row row = rowConverter.toRow(typedColumns, taskEntity);
+		Assertions.assertEquals(taskEntity.getId().toString(), row.getValue("ID").orElseGet(() -> null));
+		Assertions.assertEquals(7, row.getValue("COUNTER").orElseGet(() -> null));
+		Assertions.assertEquals(1L << 40, row.getValue("TOTAL").orElseGet(() -> null));
+		Assertions.assertEquals(0.25, row.getValue("RATIO").orElseGet(() -> null));
+		Assertions.assertEquals(1, row.getValue("ACTIVE").orElseGet(() -> null));
+		Assertions.assertEquals("high", row.getValue("PRIORITY").orElseGet(() -> null));
+		Assertions.assertFalse(row.getValue("NOTE").isPresent());
+
+		typedRepository.getTable().createElement(row);
+		try {
+			Row storedRow = typedRepository.getTable().getElements(null, null).get(0);
+			TypedTaskEntity storedEntity = rowConverter.fromRow(storedRow);
+			Assertions.assertEquals(taskEntity.getId(), storedEntity.getId());
+			Assertions.assertEquals(7, storedEntity.getCounter());
+			Assertions.assertEquals(1L << 40, storedEntity.getTotal());
+			Assertions.assertEquals(0.25, storedEntity.getRatio());
+			Assertions.assertTrue(storedEntity.isActive());
+			Assertions.assertEquals(TypedTaskEntity.Priority.HIGH, storedEntity.getPriority());
+			Assertions.assertNull(storedEntity.getNote());
+		} finally {
+			typedRepository.deleteAll();
+		}
+
+		// Отсутствующие значения не изменяют поля примитивных типов
+		Row emptyRow = new Row(typedColumns);
+		emptyRow.setValue("ID", taskEntity.getId().toString());
+		TypedTaskEntity emptyEntity = rowConverter.fromRow(emptyRow);
+		Assertions.assertEquals(taskEntity.getId(), emptyEntity.getId());
+		Assertions.assertEquals(0, emptyEntity.getCounter());
+		Assertions.assertEquals(0L, emptyEntity.getTotal());
+		Assertions.assertEquals(0.0, emptyEntity.getRatio());
+		Assertions.assertFalse(emptyEntity.isActive());
+		Assertions.assertNull(emptyEntity.getPriority());
+		Assertions.assertNull(emptyEntity.getNote());
+	}
+
+	/**
+	 * Провайдер конвертеров типов, считающий обращения к поиску конвертеров
+	 */
+	private static final class CountingValueConvertersProvider extends ValueConvertersProvider {
+
+		private final AtomicInteger lookups = new AtomicInteger();
+
+		@Override
+		public <S, T> ValueConverter<S, T> findValueConverter(Class<S> sourceType, Class<T> targetType) {
+			this.lookups.incrementAndGet();
+			return super.findValueConverter(sourceType, targetType);
+		}
+
+	}
+
+}
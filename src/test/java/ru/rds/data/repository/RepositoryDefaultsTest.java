@@ -0,0 +1,119 @@
+package ru.rds.data.repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.storage.ElementsSelectionCondition;
+import ru.rds.data.storage.ElementsSort;
+import ru.rds.data.storage.Section;
+import ru.rds.data.storage.Sectionable;
+import ru.rds.data.storage.SelectionConditionExpression;
+import ru.rds.data.storage.SelectionType;
+
+@DisplayName("Тестирование реализаций по-умолчанию интерфейса <Repository>")
+public class RepositoryDefaultsTest {
+
+	@Test
+	@DisplayName("Получение страниц по ключу не поддерживается реализацией по-умолчанию")
+	void findPage() {
+		MapRepository repository = new MapRepository();
+		repository.insertAll(TasksDatabase.createTasks(3));
+
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> repository.findPage(10));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> repository.findPageAfter(UUID.randomUUID(), 10));
+	}
+
+	@Test
+	@DisplayName("Добавление либо обновление не поддерживается реализацией по-умолчанию")
+	void upsert() {
+		MapRepository repository = new MapRepository();
+		TaskEntity taskEntity = TasksDatabase.createTasks(1).get(0);
+
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> repository.upsert(taskEntity));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> repository.upsertAll(Collections.singletonList(taskEntity)));
+		Assertions.assertEquals(0, repository.count());
+	}
+
+	@Test
+	@DisplayName("Удаление по критериям и по нескольким идентификаторам через методы удаления одного объекта")
+	void deletes() {
+		MapRepository repository = new MapRepository();
+		List<TaskEntity> taskEntities = TasksDatabase.createTasks(4);
+		repository.insertAll(taskEntities);
+
+		ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
+		selectionCondition.setSpacePropertyName("NAME");
+		selectionCondition.setSpacePropertyValue("Task 0");
+		selectionCondition.setSelectionConditionExpression(SelectionConditionExpression.EQUAL);
+		Assertions.assertEquals(1, repository.deleteBy(Collections.singletonList(selectionCondition), SelectionType.AND));
+		Assertions.assertEquals(0, repository.deleteBy(Collections.singletonList(selectionCondition), SelectionType.AND));
+
+		Assertions.assertEquals(2, repository.deleteAllById(Arrays.asList(taskEntities.get(1).getId(), taskEntities.get(2).getId(), UUID.randomUUID())));
+		Assertions.assertEquals(Collections.singletonList(taskEntities.get(3)), repository.findAll());
+	}
+
+	/**
+	 * Репозиторий, реализующий только обязательные методы {@link Repository}
+	 */
+	private static final class MapRepository implements Repository<TaskEntity, UUID> {
+
+		private final Map<UUID, TaskEntity> entities = new LinkedHashMap<>();
+
+		@Override
+		public Optional<TaskEntity> findById(UUID id) {
+			return Optional.ofNullable(this.entities.get(id));
+		}
+
+		@Override
+		public List<TaskEntity> findAll(List<ElementsSort> elementsSorts, List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+			// Поддерживается только отбор по равенству названия
+			return this.entities.values()
+			                    .stream()
+			                    .filter(entity -> selectionConditions == null || selectionConditions.stream()
+			                                                                                       .allMatch(condition -> Objects.equals(condition.getSpacePropertyValue(),
+			                                                                                                                             entity.getName())))
+			                    .collect(Collectors.toList());
+		}
+
+		@Override
+		public Section<TaskEntity> findAll(Sectionable sectionable) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long count(List<ElementsSelectionCondition> selectionConditions, SelectionType selectionType) {
+			return findAll(selectionConditions, selectionType).size();
+		}
+
+		@Override
+		public TaskEntity insert(TaskEntity entity) {
+			this.entities.put(entity.getId(), entity);
+			return entity;
+		}
+
+		@Override
+		public TaskEntity save(TaskEntity entity) {
+			this.entities.replace(entity.getId(), entity);
+			return entity;
+		}
+
+		@Override
+		public void delete(TaskEntity entity) {
+			deleteById(entity.getId());
+		}
+
+		@Override
+		public void deleteById(UUID id) {
+			this.entities.remove(id);
+		}
+
+		@Override
+		public void deleteAll() {
+			this.entities.clear();
+		}
+
+	}
+
+}
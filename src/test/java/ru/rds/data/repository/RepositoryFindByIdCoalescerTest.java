@@ -0,0 +1,216 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование объединения запросов поиска по идентификатору <RepositoryFindByIdCoalescer>")
+public class RepositoryFindByIdCoalescerTest {
+
+	// Интервал, который не истекает в ходе теста
+	private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+	private static HikariDataSource    dataSource;
+	private static RecordingRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("findByIdCoalescer");
+		repository = new RecordingRepository(TasksDatabase.createRepository(dataSource));
+		repository.setDataSource(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.setFindByIdCoalescing(0, 0);
+		repository.reset();
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Одинаковые идентификаторы запрашиваются один раз")
+	void deduplication() throws Exception {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(2);
+		tasks.forEach(repository::insert);
+		try (RepositoryFindByIdCoalescer<TaskEntity, UUID> coalescer = new RepositoryFindByIdCoalescer<>(repository, NEVER, 10)) {
+			CompletableFuture<Optional<TaskEntity>> first = coalescer.findById(tasks.get(0).getId());
+			CompletableFuture<Optional<TaskEntity>> second = coalescer.findById(tasks.get(1).getId());
+			CompletableFuture<Optional<TaskEntity>> repeated = coalescer.findById(tasks.get(0).getId());
+			Assertions.assertSame(first, repeated);
+
+			coalescer.flush();
+			Assertions.assertEquals("Task 0", first.get(10, TimeUnit.SECONDS).map(TaskEntity::getName).orElseGet(() -> null));
+			Assertions.assertEquals("Task 1", second.get(10, TimeUnit.SECONDS).map(TaskEntity::getName).orElseGet(() -> null));
+		}
+		Assertions.assertEquals(1, repository.requests.size());
+		Assertions.assertEquals(2, repository.requests.get(0).size());
+	}
+
+	@Test
+	@DisplayName("Заполненная группа выполняется сразу исполнителем групп")
+	void maxBatchSize() throws Exception {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(3);
+		tasks.forEach(repository::insert);
+		try (RepositoryFindByIdCoalescer<TaskEntity, UUID> coalescer = new RepositoryFindByIdCoalescer<>(repository, NEVER, 2)) {
+			CompletableFuture<Optional<TaskEntity>> first = coalescer.findById(tasks.get(0).getId());
+			CompletableFuture<Optional<TaskEntity>> second = coalescer.findById(tasks.get(1).getId());
+			CompletableFuture<Optional<TaskEntity>> third = coalescer.findById(tasks.get(2).getId());
+
+			Assertions.assertTrue(first.get(10, TimeUnit.SECONDS).isPresent());
+			Assertions.assertTrue(second.get(10, TimeUnit.SECONDS).isPresent());
+			Assertions.assertFalse(third.isDone());
+			Assertions.assertEquals(1, repository.requests.size());
+			Assertions.assertTrue(repository.threadNames.get(0).startsWith("repository-find-by-id-"));
+			Assertions.assertFalse(repository.threadNames.get(0).startsWith("repository-find-by-id-timer-"));
+		}
+	}
+
+	@Test
+	@DisplayName("Группа выполняется по истечении интервала накопления")
+	void windowExpiry() throws Exception {
+		TaskEntity task = repository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1));
+		try (RepositoryFindByIdCoalescer<TaskEntity, UUID> coalescer = new RepositoryFindByIdCoalescer<>(repository, 200, 100)) {
+			CompletableFuture<Optional<TaskEntity>> future = coalescer.findById(task.getId());
+			CompletableFuture<Optional<TaskEntity>> missing = coalescer.findById(UUID.randomUUID());
+
+			Assertions.assertEquals("Task", future.get(10, TimeUnit.SECONDS).map(TaskEntity::getName).orElseGet(() -> null));
+			Assertions.assertFalse(missing.get(10, TimeUnit.SECONDS).isPresent());
+			Assertions.assertEquals(1, repository.requests.size());
+			Assertions.assertTrue(repository.threadNames.get(0).startsWith("repository-find-by-id-"));
+			Assertions.assertFalse(repository.threadNames.get(0).startsWith("repository-find-by-id-timer-"));
+		}
+	}
+
+	@Test
+	@DisplayName("Долгая группа не задерживает выполнение следующих групп")
+	void slowBatch() throws Exception {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(2);
+		tasks.forEach(repository::insert);
+		CountDownLatch release = new CountDownLatch(1);
+		repository.blockOn(tasks.get(0).getId(), release);
+		try (RepositoryFindByIdCoalescer<TaskEntity, UUID> coalescer = new RepositoryFindByIdCoalescer<>(repository, 50, 100)) {
+			CompletableFuture<Optional<TaskEntity>> slow = coalescer.findById(tasks.get(0).getId());
+			TimeUnit.MILLISECONDS.sleep(200);
+			CompletableFuture<Optional<TaskEntity>> fast = coalescer.findById(tasks.get(1).getId());
+
+			Assertions.assertTrue(fast.get(10, TimeUnit.SECONDS).isPresent());
+			Assertions.assertFalse(slow.isDone());
+			release.countDown();
+			Assertions.assertTrue(slow.get(10, TimeUnit.SECONDS).isPresent());
+		}
+	}
+
+	@Test
+	@DisplayName("Группы выполняются переданным исполнителем")
+	void customExecutor() throws Exception {
+		List<TaskEntity> tasks = TasksDatabase.createTasks(2);
+		tasks.forEach(repository::insert);
+		// Заполненная группа выполняется в потоке запроса, заполнившего группу
+		try (RepositoryFindByIdCoalescer<TaskEntity, UUID> coalescer = new RepositoryFindByIdCoalescer<>(repository, NEVER, 2, Runnable::run)) {
+			CompletableFuture<Optional<TaskEntity>> first = coalescer.findById(tasks.get(0).getId());
+			CompletableFuture<Optional<TaskEntity>> second = coalescer.findById(tasks.get(1).getId());
+
+			Assertions.assertTrue(first.isDone());
+			Assertions.assertTrue(second.get(10, TimeUnit.SECONDS).isPresent());
+			Assertions.assertEquals(Collections.singletonList(Thread.currentThread().getName()), repository.threadNames);
+		}
+	}
+
+	@Test
+	@DisplayName("Ошибка выполнения группы передается всем ожидающим")
+	void exceptionPropagation() {
+		IllegalStateException error = new IllegalStateException("Ошибка поиска");
+		repository.failWith(error);
+		try (RepositoryFindByIdCoalescer<TaskEntity, UUID> coalescer = new RepositoryFindByIdCoalescer<>(repository, NEVER, 3)) {
+			List<CompletableFuture<Optional<TaskEntity>>> futures = Arrays.asList(coalescer.findById(UUID.randomUUID()),
+			                                                                      coalescer.findById(UUID.randomUUID()),
+			                                                                      coalescer.findById(UUID.randomUUID()));
+			for (CompletableFuture<Optional<TaskEntity>> future : futures) {
+				ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+				Assertions.assertSame(error, exception.getCause());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Поиск в транзакции и в единице работы выполняется без объединения")
+	void bypass() {
+		UUID id = repository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+		repository.setFindByIdCoalescing(NEVER, 100);
+		RepositoryTransactionalDataSource transactionalDataSource = new RepositoryTransactionalDataSource(dataSource);
+
+		RepositoryTransactions.inTransaction(transactionalDataSource, () -> Assertions.assertTrue(repository.findById(id).isPresent()));
+		try (RepositoryUnitOfWork ignored = RepositoryUnitOfWork.begin()) {
+			Assertions.assertTrue(repository.findById(id).isPresent());
+		}
+		Assertions.assertTrue(repository.requests.isEmpty());
+	}
+
+	/**
+	 * Репозиторий, запоминающий запросы поиска по нескольким идентификаторам и потоки, в которых они выполнены
+	 */
+	private static final class RecordingRepository extends TasksDatabaseStorageRepository {
+
+		private final List<Collection<UUID>> requests    = Collections.synchronizedList(new ArrayList<>());
+		private final List<String>           threadNames = Collections.synchronizedList(new ArrayList<>());
+
+		private volatile RuntimeException error;
+
+		// Поиск идентификатора blockedId ожидает открытия blockedLatch
+		private volatile UUID           blockedId;
+		private volatile CountDownLatch blockedLatch;
+
+		private RecordingRepository(TasksDatabaseStorageRepository repository) {
+			super(repository.getTable(), new ValueConvertersProvider());
+		}
+
+		private void reset() {
+			this.requests.clear();
+			this.threadNames.clear();
+			this.error = null;
+			this.blockedId = null;
+			this.blockedLatch = null;
+		}
+
+		private void failWith(RuntimeException error) {
+			this.error = error;
+		}
+
+		private void blockOn(UUID id, CountDownLatch latch) {
+			this.blockedId = id;
+			this.blockedLatch = latch;
+		}
+
+		@Override
+		public Map<UUID, TaskEntity> findAllById(Collection<UUID> ids) {
+			this.requests.add(new ArrayList<>(ids));
+			this.threadNames.add(Thread.currentThread().getName());
+			RuntimeException currentError = this.error;
+			if (currentError != null) {
+				throw currentError;
+			}
+			if (ids.contains(this.blockedId)) {
+				try {
+					this.blockedLatch.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return super.findAllById(ids);
+		}
+
+	}
+
+}
@@ -10,6 +10,7 @@ import ru.rds.data.database.DatabaseQueryBuilder;
 import ru.rds.data.database.DatabaseStorage;
 import ru.rds.data.database.H2DatabaseQueryBuilder;
 import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TaskEntity_RowConverter;
 import ru.rds.data.repository.tasks.TasksRepository;
 import ru.rds.data.storage.ElementsSelectionCondition;
 import ru.rds.data.storage.SelectionConditionExpression;
@@ -126,4 +127,11 @@ public class RepositoryTest {
 		Assertions.assertNull(taskEntity);
 	}
 
+	@Test
+	@DisplayName("Использование конвертера, созданного обработчиком аннотаций")
+	@Order(8)
+	void generatedRowConverter() {
+		Assertions.assertInstanceOf(TaskEntity_RowConverter.class, repository.getRowConverter());
+	}
+
 }
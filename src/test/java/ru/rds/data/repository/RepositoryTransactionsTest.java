@@ -0,0 +1,135 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.cache.BoundedEntityCache;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование транзакций <RepositoryTransactions>")
+public class RepositoryTransactionsTest {
+
+	private static HikariDataSource                  dataSource;
+	private static TasksDatabaseStorageRepository    repository;
+	private static RepositoryTransactionalDataSource transactionalDataSource;
+	private static TasksDatabaseStorageRepository    transactionalRepository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("transactions");
+		repository = TasksDatabase.createRepository(dataSource);
+		transactionalDataSource = new RepositoryTransactionalDataSource(dataSource);
+		transactionalRepository = TasksDatabase.createRepository(transactionalDataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Транзакция с одним соединением для нескольких операций")
+	void inTransaction() {
+		UUID committedId = UUID.randomUUID();
+		RepositoryTransactions.inTransaction(transactionalDataSource, () -> {
+			transactionalRepository.insert(new TaskEntity(committedId, "Committed", 1));
+			transactionalRepository.insertAll(Collections.singletonList(new TaskEntity(UUID.randomUUID(), "Committed", 1)));
+			Assertions.assertEquals(2, transactionalRepository.count());
+		});
+		Assertions.assertEquals(2, repository.count());
+
+		UUID rolledBackId = UUID.randomUUID();
+		Assertions.assertThrows(IllegalStateException.class, () -> RepositoryTransactions.inTransaction(transactionalDataSource, () -> {
+			transactionalRepository.insert(new TaskEntity(rolledBackId, "Rolled back", 1));
+			transactionalRepository.deleteById(committedId);
+			throw new IllegalStateException();
+		}));
+		Assertions.assertFalse(RepositoryTransactions.isActive());
+		Assertions.assertFalse(repository.findById(rolledBackId).isPresent());
+		Assertions.assertTrue(repository.findById(committedId).isPresent());
+	}
+
+	@Test
+	@DisplayName("Откат вложенной транзакции другого источника отменяет только ее действия после фиксации")
+	void nestedRollback() {
+		RepositoryTransactionalDataSource otherDataSource = new RepositoryTransactionalDataSource(dataSource);
+		List<String> actions = new ArrayList<>();
+		RepositoryTransactions.inTransaction(transactionalDataSource, () -> {
+			RepositoryTransactions.afterCommit(() -> actions.add("outer"));
+			Assertions.assertThrows(IllegalStateException.class, () -> RepositoryTransactions.inTransaction(otherDataSource, () -> {
+				RepositoryTransactions.afterCommit(() -> actions.add("inner"));
+				throw new IllegalStateException();
+			}));
+			RepositoryTransactions.afterCommit(() -> actions.add("after inner"));
+		});
+		Assertions.assertEquals(Arrays.asList("outer", "after inner"), actions);
+	}
+
+	@Test
+	@DisplayName("Не зафиксированные изменения не видны другим потокам через кэш объектов")
+	void entityCache() {
+		BoundedEntityCache<UUID, TaskEntity> cache = new BoundedEntityCache<>(100, 0, TimeUnit.SECONDS,
+		                                                                      task -> new TaskEntity(task.getId(), task.getName(), task.getVersion()));
+		transactionalRepository.setEntityCache(cache);
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		try {
+			UUID id = transactionalRepository.insert(new TaskEntity(UUID.randomUUID(), "Committed", 1)).getId();
+
+			RepositoryTransactions.inTransaction(transactionalDataSource, () -> {
+				transactionalRepository.save(new TaskEntity(id, "Uncommitted", 2));
+				Assertions.assertEquals("Uncommitted", transactionalRepository.findById(id).map(TaskEntity::getName).orElseGet(() -> null));
+				// Другой поток читает зафиксированное состояние и сохраняет его в кэше
+				Assertions.assertEquals("Committed", readName(reader, id));
+				Assertions.assertEquals("Committed", readName(reader, id));
+			});
+			Assertions.assertEquals("Uncommitted", readName(reader, id));
+			Assertions.assertEquals("Uncommitted", Optional.ofNullable(cache.get(id)).map(TaskEntity::getName).orElseGet(() -> null));
+
+			Assertions.assertThrows(IllegalStateException.class, () -> RepositoryTransactions.inTransaction(transactionalDataSource, () -> {
+				transactionalRepository.save(new TaskEntity(id, "Rolled back", 3));
+				Assertions.assertEquals("Uncommitted", readName(reader, id));
+				throw new IllegalStateException();
+			}));
+			Assertions.assertEquals("Uncommitted", readName(reader, id));
+			Assertions.assertEquals("Uncommitted", transactionalRepository.findById(id).map(TaskEntity::getName).orElseGet(() -> null));
+		} finally {
+			reader.shutdownNow();
+			transactionalRepository.setEntityCache(null);
+		}
+	}
+
+	/**
+	 * Название объекта, прочитанного через Репозиторий в другом потоке (вне транзакции текущего потока)
+	 *
+	 * @param reader
+	 * @param id
+	 * @return
+	 */
+	private static String readName(ExecutorService reader, UUID id) {
+		try {
+			return reader.submit(() -> transactionalRepository.findById(id).map(TaskEntity::getName).orElseGet(() -> null)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.UUID;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование единицы работы <RepositoryUnitOfWork>")
+public class RepositoryUnitOfWorkTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("unitOfWork");
+		repository = TasksDatabase.createRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Получение сущностей в рамках единицы работы")
+	void unitOfWork() {
+		UUID id = repository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)).getId();
+
+		try (RepositoryUnitOfWork ignored = RepositoryUnitOfWork.begin()) {
+			TaskEntity taskEntity = repository.findById(id).orElseGet(() -> null);
+			Assertions.assertNotNull(taskEntity);
+			Assertions.assertSame(taskEntity, repository.findById(id).orElseGet(() -> null));
+
+			repository.delete(taskEntity);
+			Assertions.assertFalse(repository.findById(id).isPresent());
+		}
+		Assertions.assertFalse(RepositoryUnitOfWork.current().isPresent());
+	}
+
+}
@@ -0,0 +1,235 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование отложенной записи <RepositoryWriteBehindBuffer>")
+public class RepositoryWriteBehindBufferTest {
+
+	// Интервал, за который фоновая запись не успевает выполниться в ходе теста
+	private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+	private static HikariDataSource dataSource;
+	private static RecordingRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("writeBehind");
+		repository = new RecordingRepository(TasksDatabase.createRepository(dataSource));
+		repository.setDataSource(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.reset();
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Добавление и последующее удаление не записываются")
+	void insertThenDelete() {
+		try (RepositoryWriteBehindBuffer<TaskEntity, UUID> buffer = repository.createWriteBehindBuffer(10, 10, NEVER)) {
+			TaskEntity taskEntity = new TaskEntity(UUID.randomUUID(), "Task", 1);
+			buffer.insert(taskEntity);
+			buffer.delete(taskEntity);
+			Assertions.assertEquals(0, buffer.getPendingCount());
+
+			buffer.flush();
+			Assertions.assertTrue(repository.operations.isEmpty());
+		}
+		Assertions.assertEquals(0, repository.count());
+	}
+
+	@Test
+	@DisplayName("Удаление и последующее добавление записываются как сохранение")
+	void deleteThenInsert() {
+		TaskEntity taskEntity = repository.insert(new TaskEntity(UUID.randomUUID(), "Task", 1));
+		try (RepositoryWriteBehindBuffer<TaskEntity, UUID> buffer = repository.createWriteBehindBuffer(10, 10, NEVER)) {
+			buffer.delete(taskEntity);
+			buffer.insert(new TaskEntity(taskEntity.getId(), "Inserted again", 2));
+			Assertions.assertEquals(1, buffer.getPendingCount());
+
+			buffer.flush();
+			Assertions.assertEquals(Collections.singletonList("saveAll"), repository.operations);
+		}
+		TaskEntity saved = repository.findById(taskEntity.getId()).orElseGet(() -> null);
+		Assertions.assertNotNull(saved);
+		Assertions.assertEquals("Inserted again", saved.getName());
+	}
+
+	@Test
+	@DisplayName("Повторные изменения объекта записываются одним изменением с последним состоянием")
+	void mergeSaves() {
+		try (RepositoryWriteBehindBuffer<TaskEntity, UUID> buffer = repository.createWriteBehindBuffer(10, 10, NEVER)) {
+			UUID id = UUID.randomUUID();
+			buffer.insert(new TaskEntity(id, "Task", 1));
+			buffer.save(new TaskEntity(id, "Saved", 2));
+			buffer.save(new TaskEntity(id, "Saved again", 3));
+			Assertions.assertEquals(1, buffer.getPendingCount());
+
+			buffer.flush();
+			Assertions.assertEquals(Collections.singletonList("insertAll"), repository.operations);
+			Assertions.assertEquals("Saved again", repository.findById(id).map(TaskEntity::getName).orElseGet(() -> null));
+		}
+	}
+
+	@Test
+	@DisplayName("При заполнении очереди вызывающий поток ожидает записи не дольше заданного времени и может быть прерван")
+	void backpressure() throws InterruptedException {
+		CountDownLatch writeStarted = new CountDownLatch(1);
+		CountDownLatch writeAllowed = new CountDownLatch(1);
+		repository.blockInsert(writeStarted, writeAllowed);
+		RepositoryWriteBehindBuffer<TaskEntity, UUID> buffer = repository.createWriteBehindBuffer(2, 2, NEVER);
+		try {
+			buffer.setEnqueueTimeoutMillis(100);
+			List<TaskEntity> tasks = TasksDatabase.createTasks(5);
+			buffer.insert(tasks.get(0));
+			buffer.insert(tasks.get(1));
+			// Запись первых двух объектов начата в фоновом потоке и не завершается, пока не будет разрешена
+			Assertions.assertTrue(writeStarted.await(10, TimeUnit.SECONDS));
+			buffer.insert(tasks.get(2));
+			buffer.insert(tasks.get(3));
+
+			long start = System.nanoTime();
+			Assertions.assertThrows(RepositoryException.class, () -> buffer.insert(tasks.get(4)));
+			Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+			buffer.setEnqueueTimeoutMillis(TimeUnit.MINUTES.toMillis(1));
+			AtomicReference<Throwable> producerError = new AtomicReference<>();
+			boolean[] interrupted = {false};
+			Thread producer = new Thread(() -> {
+				try {
+					buffer.insert(tasks.get(4));
+				} catch (Throwable e) {
+					producerError.set(e);
+					interrupted[0] = Thread.currentThread().isInterrupted();
+				}
+			});
+			producer.start();
+			producer.interrupt();
+			producer.join(TimeUnit.SECONDS.toMillis(10));
+			Assertions.assertFalse(producer.isAlive());
+			Assertions.assertInstanceOf(RepositoryException.class, producerError.get());
+			Assertions.assertTrue(interrupted[0]);
+		} finally {
+			writeAllowed.countDown();
+			buffer.close();
+		}
+		Assertions.assertEquals(4, repository.count());
+	}
+
+	@Test
+	@DisplayName("Завершение работы записывает все накопленные изменения")
+	void closeDrains() {
+		RepositoryWriteBehindBuffer<TaskEntity, UUID> buffer = repository.createWriteBehindBuffer(100, 100, NEVER);
+		List<TaskEntity> tasks = TasksDatabase.createTasks(5);
+		tasks.forEach(buffer::insert);
+		buffer.save(new TaskEntity(tasks.get(0).getId(), "Changed", 1));
+		buffer.delete(tasks.get(1));
+
+		buffer.close();
+		Assertions.assertEquals(0, buffer.getPendingCount());
+		Assertions.assertEquals(4, repository.count());
+		Assertions.assertEquals("Changed", repository.findById(tasks.get(0).getId()).map(TaskEntity::getName).orElseGet(() -> null));
+		Assertions.assertThrows(RepositoryException.class, () -> buffer.insert(new TaskEntity(UUID.randomUUID(), "Task", 1)));
+	}
+
+	@Test
+	@DisplayName("Объект, который не удалось записать за заданное количество попыток, передается обработчику и не блокирует остальные")
+	void deadLetter() {
+		repository.failInsertOf("Poison");
+		List<TaskEntity> deadLetters = new ArrayList<>();
+		try (RepositoryWriteBehindBuffer<TaskEntity, UUID> buffer = repository.createWriteBehindBuffer(10, 10, NEVER)) {
+			buffer.setMaxAttempts(2);
+			buffer.setDeadLetterHandler((entities, error) -> deadLetters.addAll(entities));
+			buffer.insert(new TaskEntity(UUID.randomUUID(), "Task", 1));
+			buffer.insert(new TaskEntity(UUID.randomUUID(), "Poison", 1));
+
+			Assertions.assertThrows(IllegalStateException.class, buffer::flush);
+			Assertions.assertEquals(2, buffer.getPendingCount());
+			Assertions.assertTrue(deadLetters.isEmpty());
+
+			Assertions.assertThrows(IllegalStateException.class, buffer::flush);
+			Assertions.assertEquals(0, buffer.getPendingCount());
+		}
+		Assertions.assertEquals(1, deadLetters.size());
+		Assertions.assertEquals("Poison", deadLetters.get(0).getName());
+		Assertions.assertEquals(1, repository.count());
+	}
+
+	/**
+	 * Репозиторий, запоминающий выполненные пакетные операции и позволяющий приостановить или сорвать добавление
+	 */
+	private static final class RecordingRepository extends TasksDatabaseStorageRepository {
+
+		private final List<String> operations = Collections.synchronizedList(new ArrayList<>());
+
+		private volatile CountDownLatch writeStarted;
+		private volatile CountDownLatch writeAllowed;
+		private volatile String         poisonName;
+
+		private RecordingRepository(TasksDatabaseStorageRepository repository) {
+			super(repository.getTable(), new ValueConvertersProvider());
+		}
+
+		private void reset() {
+			this.operations.clear();
+			this.writeStarted = null;
+			this.writeAllowed = null;
+			this.poisonName = null;
+		}
+
+		private void blockInsert(CountDownLatch writeStarted, CountDownLatch writeAllowed) {
+			this.writeStarted = writeStarted;
+			this.writeAllowed = writeAllowed;
+		}
+
+		private void failInsertOf(String poisonName) {
+			this.poisonName = poisonName;
+		}
+
+		@Override
+		public List<RepositoryBatchResult> insertAll(Collection<TaskEntity> entities) {
+			this.operations.add("insertAll");
+			CountDownLatch started = this.writeStarted;
+			if (started != null) {
+				started.countDown();
+				try {
+					this.writeAllowed.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (entities.stream().anyMatch(entity -> entity.getName().equals(this.poisonName))) {
+				throw new IllegalStateException("Ошибка записи");
+			}
+			return super.insertAll(entities);
+		}
+
+		@Override
+		public List<RepositoryBatchResult> saveAll(Collection<TaskEntity> entities) {
+			this.operations.add("saveAll");
+			return super.saveAll(entities);
+		}
+
+		@Override
+		public List<RepositoryBatchResult> deleteAll(Collection<TaskEntity> entities) {
+			this.operations.add("deleteAll");
+			return super.deleteAll(entities);
+		}
+
+	}
+
+}
@@ -0,0 +1,82 @@
+package ru.rds.data.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+
+@DisplayName("Тестирование описания строк <RowDescriptor>")
+public class RowDescriptorTest {
+
+	private static HikariDataSource dataSource;
+	private static List<Column>     columns;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("rowDescriptor");
+		columns = TasksDatabase.createRepository(dataSource).getTable().getColumns();
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@Test
+	@DisplayName("Строки с другим перечнем столбцов с теми же названиями соответствуют описанию")
+	void matches() {
+		RowDescriptor descriptor = RowDescriptor.of(columns);
+		Assertions.assertTrue(descriptor.matches(new Row(columns)));
+		Assertions.assertTrue(descriptor.matches(new Row(new ArrayList<>(columns))));
+
+		List<Column> reversedColumns = new ArrayList<>(columns);
+		Collections.reverse(reversedColumns);
+		Assertions.assertFalse(descriptor.matches(new Row(reversedColumns)));
+		Assertions.assertFalse(descriptor.matches(new Row(columns.subList(0, columns.size() - 1))));
+
+		Assertions.assertEquals(descriptor, RowDescriptor.of(new ArrayList<>(columns)));
+		Assertions.assertEquals(descriptor.hashCode(), RowDescriptor.of(new ArrayList<>(columns)).hashCode());
+		Assertions.assertNotEquals(descriptor, RowDescriptor.of(reversedColumns));
+	}
+
+	@Test
+	@DisplayName("Порядковые номера и значения столбцов")
+	void values() {
+		RowDescriptor descriptor = RowDescriptor.of(columns);
+		Row row = new Row(new ArrayList<>(columns));
+		row.setValue("NAME", "Task");
+
+		int nameIndex = descriptor.indexOf("NAME");
+		Assertions.assertEquals(columns.size(), descriptor.getColumnsCount());
+		Assertions.assertEquals("NAME", descriptor.getColumnName(nameIndex));
+		Assertions.assertEquals("Task", descriptor.getValue(row, nameIndex));
+		Assertions.assertNull(descriptor.getValue(row, descriptor.indexOf("VERSION")));
+		Assertions.assertEquals(-1, descriptor.indexOf("UNKNOWN"));
+	}
+
+	@Test
+	@DisplayName("Преобразование строк с разными перечнями столбцов одним конвертером")
+	void indexedRowConverter() {
+		IndexedRowConverter<TaskEntity> rowConverter = new RepositoryDataRowConverter<>(RepositoryDataDetails.forDataClass(TaskEntity.class),
+		                                                                                new ValueConvertersProvider());
+		UUID id = UUID.randomUUID();
+		List<Column> reversedColumns = new ArrayList<>(columns);
+		Collections.reverse(reversedColumns);
+		for (List<Column> rowColumns : Arrays.asList(columns, new ArrayList<>(columns), reversedColumns, columns)) {
+			Row row = new Row(rowColumns);
+			row.setValue("ID", id.toString());
+			row.setValue("NAME", "Task");
+			row.setValue("VERSION", 3);
+
+			for (TaskEntity taskEntity : Arrays.asList(rowConverter.fromRow(row), rowConverter.fromRow(row, RowDescriptor.of(rowColumns)))) {
+				Assertions.assertEquals(id, taskEntity.getId());
+				Assertions.assertEquals("Task", taskEntity.getName());
+				Assertions.assertEquals(3, taskEntity.getVersion());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package ru.rds.data.repository;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Date;
+import org.junit.jupiter.api.*;
+
+@DisplayName("Тестирование провайдера конвертеров данных")
+public class ValueConvertersProviderTest {
+
+	@Test
+	@DisplayName("Конвертер родительского исходного типа подходит для дочернего")
+	void sourceSupertype() {
+		ValueConvertersProvider provider = new ValueConvertersProvider();
+		DateStringConverter dateStringConverter = new DateStringConverter();
+		provider.registerValueConverter(dateStringConverter);
+
+		ValueConverter<Timestamp, String> valueConverter = provider.findValueConverter(Timestamp.class, String.class);
+		Assertions.assertSame(dateStringConverter, valueConverter);
+		Assertions.assertEquals("1000", valueConverter.convertFrom(new Timestamp(1000)));
+		Assertions.assertSame(dateStringConverter, provider.findValueConverter(Date.class, String.class));
+	}
+
+	@Test
+	@DisplayName("Выбор наиболее конкретного из совместимых целевых типов не зависит от порядка добавления конвертеров")
+	void mostSpecificTarget() {
+		ValueConvertersProvider provider = new ValueConvertersProvider();
+		provider.registerValueConverter(new CodeNumberConverter());
+		provider.registerValueConverter(new CodeIntegerConverter());
+		provider.registerValueConverter(new CodeLongConverter());
+
+		ValueConvertersProvider reversedProvider = new ValueConvertersProvider();
+		reversedProvider.registerValueConverter(new CodeLongConverter());
+		reversedProvider.registerValueConverter(new CodeIntegerConverter());
+		reversedProvider.registerValueConverter(new CodeNumberConverter());
+
+		for (ValueConvertersProvider currentProvider : new ValueConvertersProvider[]{provider, reversedProvider}) {
+			Assertions.assertEquals(CodeNumberConverter.class, currentProvider.findValueConverter(Code.class, Number.class).getClass());
+			Assertions.assertEquals(CodeIntegerConverter.class, currentProvider.findValueConverter(Code.class, int.class).getClass());
+			// Integer и Long - несвязанные наиболее конкретные типы: выбор был бы произвольным
+			Assertions.assertNull(currentProvider.findValueConverter(Code.class, Object.class));
+			Assertions.assertNull(currentProvider.findValueConverter(Code.class, Comparable.class));
+		}
+	}
+
+	@Test
+	@DisplayName("Единственный совместимый целевой тип выбирается и для целевого типа Object")
+	void singleCompatibleTarget() {
+		ValueConvertersProvider provider = new ValueConvertersProvider();
+		CodeIntegerConverter codeIntegerConverter = new CodeIntegerConverter();
+		provider.registerValueConverter(codeIntegerConverter);
+
+		Assertions.assertSame(codeIntegerConverter, provider.findValueConverter(Code.class, Object.class));
+		Assertions.assertSame(codeIntegerConverter, provider.findValueConverter(Code.class, Serializable.class));
+
+		provider.registerValueConverter(new CodeLongConverter());
+		Assertions.assertNull(provider.findValueConverter(Code.class, Object.class));
+		Assertions.assertSame(codeIntegerConverter, provider.findValueConverter(Code.class, Integer.class));
+	}
+
+	@Test
+	@DisplayName("Отсутствие конвертера запоминается до добавления нового конвертера")
+	void negativeLookup() {
+		ValueConvertersProvider provider = new ValueConvertersProvider();
+		Assertions.assertNull(provider.findValueConverter(Code.class, Integer.class));
+		Assertions.assertNull(provider.findValueConverter(Code.class, Integer.class));
+		Assertions.assertFalse(provider.getValueConverter(Code.class, Integer.class).isPresent());
+		Assertions.assertNull(provider.findValueConverter(Code.class, null));
+
+		CodeIntegerConverter codeIntegerConverter = new CodeIntegerConverter();
+		provider.registerValueConverter(codeIntegerConverter);
+		Assertions.assertSame(codeIntegerConverter, provider.findValueConverter(Code.class, Integer.class));
+		Assertions.assertSame(codeIntegerConverter, provider.findValueConverter(Code.class, Number.class));
+		Assertions.assertNull(provider.findValueConverter(Code.class, Long.class));
+
+		// Повторное добавление конвертера для той же пары типов не заменяет имеющийся
+		provider.registerValueConverter(new CodeIntegerConverter());
+		Assertions.assertSame(codeIntegerConverter, provider.findValueConverter(Code.class, Integer.class));
+	}
+
+	private static final class Code {
+
+		private final int value;
+
+		private Code(int value) {
+			this.value = value;
+		}
+
+	}
+
+	private static final class DateStringConverter implements ValueConverter<Date, String> {
+
+		@Override
+		public String convertFrom(Date source) {
+			return String.valueOf(source.getTime());
+		}
+
+		@Override
+		public Date convertTo(String object) {
+			return new Date(Long.parseLong(object));
+		}
+
+	}
+
+	private static final class CodeNumberConverter implements ValueConverter<Code, Number> {
+
+		@Override
+		public Number convertFrom(Code source) {
+			return source.value;
+		}
+
+		@Override
+		public Code convertTo(Number object) {
+			return new Code(object.intValue());
+		}
+
+	}
+
+	private static final class CodeIntegerConverter implements ValueConverter<Code, Integer> {
+
+		@Override
+		public Integer convertFrom(Code source) {
+			return source.value;
+		}
+
+		@Override
+		public Code convertTo(Integer object) {
+			return new Code(object);
+		}
+
+	}
+
+	private static final class CodeLongConverter implements ValueConverter<Code, Long> {
+
+		@Override
+		public Long convertFrom(Code source) {
+			return (long) source.value;
+		}
+
+		@Override
+		public Code convertTo(Long object) {
+			return new Code(object.intValue());
+		}
+
+	}
+
+}
@@ -0,0 +1,150 @@
+package ru.rds.data.repository.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Column;
+import ru.rds.data.repository.ValueConvertersProvider;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TaskRowConverter;
+import ru.rds.data.repository.tasks.TasksDatabase;
+
+@DisplayName("Тестирование кэша объектов вне кучи")
+public class OffHeapEntityCacheTest {
+
+	private static final int SEGMENT_SIZE = 1024;
+
+	private static HikariDataSource dataSource;
+	private static List<Column>     columns;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("offHeapEntityCache");
+		columns = TasksDatabase.createRepository(dataSource).getTable().getColumns();
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	private static OffHeapEntityCache<UUID, TaskEntity> createCache(int segments) {
+		return new OffHeapEntityCache<>(new TaskRowConverter(new ValueConvertersProvider()), columns, (long) segments * SEGMENT_SIZE, SEGMENT_SIZE);
+	}
+
+	private static TaskEntity createTask(int number) {
+		char[] name = new char[100];
+		Arrays.fill(name, 'x');
+		return new TaskEntity(UUID.randomUUID(), "Task " + number + " " + new String(name), number);
+	}
+
+	private static Object roundTrip(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			RowValueCodec.write(output, value);
+		}
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			Object result = RowValueCodec.read(input);
+			Assertions.assertEquals(-1, input.read());
+			return result;
+		}
+	}
+
+	@Test
+	@DisplayName("Запись и чтение значений всех поддерживаемых типов")
+	void codecRoundTrip() throws IOException {
+		char[] longString = new char[70 * 1024];
+		Arrays.fill(longString, 'ж');
+		Timestamp timestamp = new Timestamp(1_600_000_000_000L);
+		timestamp.setNanos(123_456_789);
+
+		List<Object> values = Arrays.asList("Строка", new String(longString), 42, 42L, 4.2d, 4.2f, (short) 42, (byte) 42, true,
+		                                    new BigDecimal("-12345678901234567890.0123"), timestamp, new java.sql.Date(1_600_000_000_000L),
+		                                    new Time(43_200_000L), new Date(1_600_000_000_000L), UUID.randomUUID(), LocalDate.of(2020, 9, 13));
+		for (Object value : values) {
+			Object result = roundTrip(value);
+			Assertions.assertEquals(value.getClass(), result.getClass());
+			Assertions.assertEquals(value, result);
+		}
+		Assertions.assertEquals(123_456_789, ((Timestamp) roundTrip(timestamp)).getNanos());
+		Assertions.assertNull(roundTrip(null));
+		Assertions.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) roundTrip(new byte[]{1, 2, 3}));
+		Assertions.assertThrows(NotSerializableException.class, () -> roundTrip(new Object()));
+	}
+
+	@Test
+	@DisplayName("Каждый вызов get возвращает новый экземпляр объекта")
+	void getCopies() {
+		OffHeapEntityCache<UUID, TaskEntity> cache = createCache(2);
+		TaskEntity task = createTask(1);
+		cache.put(task.getId(), task);
+
+		TaskEntity cached = cache.get(task.getId());
+		Assertions.assertNotSame(task, cached);
+		Assertions.assertEquals(task.getName(), cached.getName());
+		Assertions.assertEquals(task.getVersion(), cached.getVersion());
+		Assertions.assertNotSame(cached, cache.get(task.getId()));
+
+		cache.invalidate(task.getId());
+		Assertions.assertNull(cache.get(task.getId()));
+		Assertions.assertEquals(2, cache.getStatistics().getHitCount());
+		Assertions.assertEquals(1, cache.getStatistics().getMissCount());
+	}
+
+	@Test
+	@DisplayName("Память замененных записей используется повторно без вытеснения остальных")
+	void replacedEntries() {
+		OffHeapEntityCache<UUID, TaskEntity> cache = createCache(2);
+		TaskEntity stable = createTask(0);
+		cache.put(stable.getId(), stable);
+
+		TaskEntity changing = createTask(1);
+		for (int i = 0; i < 1000; i++) {
+			changing.setVersion(i);
+			cache.put(changing.getId(), changing);
+		}
+
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals(0, cache.getStatistics().getEvictionCount());
+		Assertions.assertEquals(stable.getName(), cache.get(stable.getId()).getName());
+		Assertions.assertEquals(999, cache.get(changing.getId()).getVersion());
+		Assertions.assertTrue(cache.getAllocatedBytes() <= 2 * SEGMENT_SIZE);
+	}
+
+	@Test
+	@DisplayName("Объем памяти и размер сегмента меньше минимального не принимаются")
+	void tooSmallBudget() {
+		TaskRowConverter rowConverter = new TaskRowConverter(new ValueConvertersProvider());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new OffHeapEntityCache<>(rowConverter, columns, 100));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new OffHeapEntityCache<>(rowConverter, columns, 4 * SEGMENT_SIZE, 100));
+
+		OffHeapEntityCache<UUID, TaskEntity> cache = new OffHeapEntityCache<>(rowConverter, columns, SEGMENT_SIZE, 4 * SEGMENT_SIZE);
+		TaskEntity task = createTask(0);
+		cache.put(task.getId(), task);
+		Assertions.assertEquals(SEGMENT_SIZE, cache.getAllocatedBytes());
+	}
+
+	@Test
+	@DisplayName("Вытеснение самых старых записей при превышении объема памяти")
+	void evictionUnderBudget() {
+		OffHeapEntityCache<UUID, TaskEntity> cache = createCache(3);
+		List<TaskEntity> tasks = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			TaskEntity task = createTask(i);
+			tasks.add(task);
+			cache.put(task.getId(), task);
+		}
+
+		Assertions.assertTrue(cache.getAllocatedBytes() <= 3 * SEGMENT_SIZE);
+		Assertions.assertTrue(cache.size() > 0 && cache.size() < 100);
+		Assertions.assertEquals(100 - cache.size(), cache.getStatistics().getEvictionCount());
+		Assertions.assertNull(cache.get(tasks.get(0).getId()));
+		Assertions.assertEquals(99, cache.get(tasks.get(99).getId()).getVersion());
+	}
+
+}
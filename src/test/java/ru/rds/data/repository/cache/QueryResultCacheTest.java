@@ -0,0 +1,172 @@
+package ru.rds.data.repository.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+import ru.rds.data.storage.ElementsSelectionCondition;
+import ru.rds.data.storage.SelectionConditionExpression;
+import ru.rds.data.storage.SelectionType;
+
+@DisplayName("Тестирование кэша результатов выборок")
+public class QueryResultCacheTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("queryResultCache");
+		repository = TasksDatabase.createRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.setQueryResultCache(null);
+		repository.deleteAll();
+	}
+
+	private static ElementsSelectionCondition condition(String name, Object value, SelectionConditionExpression expression) {
+		ElementsSelectionCondition selectionCondition = new ElementsSelectionCondition();
+		selectionCondition.setSpacePropertyName(name);
+		selectionCondition.setSpacePropertyValue(value);
+		selectionCondition.setSelectionConditionExpression(expression);
+		return selectionCondition;
+	}
+
+	@Test
+	@DisplayName("Порядок критериев отбора не влияет на ключ")
+	void reorderedConditions() {
+		QueryResultCache<String> cache = new QueryResultCache<>(100);
+		AtomicInteger loads = new AtomicInteger();
+
+		ElementsSelectionCondition name = condition("NAME", "Task", SelectionConditionExpression.EQUAL);
+		ElementsSelectionCondition version = condition("VERSION", 1, SelectionConditionExpression.GREATER_THAN_OR_EQUAL);
+		cache.getElements(null, Arrays.asList(name, version), SelectionType.AND, () -> {
+			loads.incrementAndGet();
+			return Collections.singletonList("Task");
+		});
+		List<String> result = cache.getElements(null,
+		                                        Arrays.asList(condition("VERSION", 1, SelectionConditionExpression.GREATER_THAN_OR_EQUAL),
+		                                                      condition("NAME", "Task", SelectionConditionExpression.EQUAL)),
+		                                        SelectionType.AND, () -> {
+					loads.incrementAndGet();
+					return Collections.emptyList();
+				});
+
+		Assertions.assertEquals(Collections.singletonList("Task"), result);
+		Assertions.assertEquals(1, loads.get());
+		Assertions.assertEquals(1, cache.getStatistics().getHitCount());
+
+		// Повторение критерия отбора изменяет ключ
+		cache.getElements(null, Arrays.asList(name, version, version), SelectionType.AND, () -> {
+			loads.incrementAndGet();
+			return Collections.emptyList();
+		});
+		Assertions.assertEquals(2, loads.get());
+	}
+
+	@Test
+	@DisplayName("Значения-массивы сравниваются по содержимому и копируются в ключ")
+	void arrayValues() {
+		QueryResultCache<String> cache = new QueryResultCache<>(100);
+		AtomicInteger loads = new AtomicInteger();
+
+		String[] names = {"Task 0", "Task 1"};
+		cache.getCount(Collections.singletonList(condition("NAME", names, SelectionConditionExpression.EQUAL)), SelectionType.AND, () -> {
+			loads.incrementAndGet();
+			return 2;
+		});
+		Assertions.assertEquals(2, cache.getCount(Collections.singletonList(condition("NAME", new String[]{"Task 0", "Task 1"},
+		                                                                              SelectionConditionExpression.EQUAL)), SelectionType.AND, () -> {
+			loads.incrementAndGet();
+			return 0;
+		}));
+		Assertions.assertEquals(1, loads.get());
+
+		// Изменение исходного массива не изменяет ключ сохраненного результата
+		names[1] = "Task 2";
+		Assertions.assertEquals(0, cache.getCount(Collections.singletonList(condition("NAME", names, SelectionConditionExpression.EQUAL)),
+		                                          SelectionType.AND, () -> {
+					loads.incrementAndGet();
+					return 0;
+				}));
+		Assertions.assertEquals(2, loads.get());
+	}
+
+	@Test
+	@DisplayName("Изменение данных через Репозиторий очищает кэш")
+	void invalidationOnWrite() {
+		QueryResultCache<TaskEntity> cache = new QueryResultCache<>(100, task -> new TaskEntity(task.getId(), task.getName(), task.getVersion()));
+		repository.setQueryResultCache(cache);
+		repository.insertAll(TasksDatabase.createTasks(3));
+
+		List<ElementsSelectionCondition> conditions =
+				Collections.singletonList(condition("VERSION", 1, SelectionConditionExpression.GREATER_THAN_OR_EQUAL));
+		Assertions.assertEquals(2, repository.findAll(conditions, SelectionType.AND).size());
+		Assertions.assertEquals(2, repository.count(conditions, SelectionType.AND));
+		Assertions.assertEquals(2, repository.findAll(conditions, SelectionType.AND).size());
+		Assertions.assertEquals(1, cache.getStatistics().getHitCount());
+
+		repository.insert(new TaskEntity(java.util.UUID.randomUUID(), "Task 3", 3));
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertEquals(3, repository.findAll(conditions, SelectionType.AND).size());
+		Assertions.assertEquals(3, repository.count(conditions, SelectionType.AND));
+	}
+
+	@Test
+	@DisplayName("Кэш Репозитория копирует объекты при сохранении и получении результата")
+	void repositoryCopies() {
+		QueryResultCache<TaskEntity> cache = repository.createQueryResultCache(100);
+		repository.setQueryResultCache(cache);
+		repository.insertAll(TasksDatabase.createTasks(2));
+
+		List<ElementsSelectionCondition> conditions = Collections.singletonList(condition("NAME", "Task 0", SelectionConditionExpression.EQUAL));
+		TaskEntity loaded = repository.findAll(conditions, SelectionType.AND).get(0);
+		loaded.setName("Changed");
+		TaskEntity cached = repository.findAll(conditions, SelectionType.AND).get(0);
+		Assertions.assertEquals("Task 0", cached.getName());
+		Assertions.assertEquals(1, cache.getStatistics().getHitCount());
+
+		cached.setName("Changed");
+		Assertions.assertEquals("Task 0", repository.findAll(conditions, SelectionType.AND).get(0).getName());
+	}
+
+	@Test
+	@DisplayName("Вытеснение результатов при превышении суммарного количества объектов")
+	void weightEviction() {
+		QueryResultCache<String> cache = new QueryResultCache<>(3);
+		AtomicInteger loads = new AtomicInteger();
+
+		for (String name : Arrays.asList("Task 0", "Task 1", "Task 2")) {
+			cache.getElements(null, Collections.singletonList(condition("NAME", name, SelectionConditionExpression.EQUAL)), SelectionType.AND, () -> {
+				loads.incrementAndGet();
+				return Arrays.asList(name, name);
+			});
+		}
+		// Каждый результат содержит два объекта, поэтому в кэше остается только последний
+		Assertions.assertEquals(1, cache.size());
+		Assertions.assertEquals(2, cache.getStatistics().getEvictionCount());
+
+		cache.getElements(null, Collections.singletonList(condition("NAME", "Task 2", SelectionConditionExpression.EQUAL)), SelectionType.AND, () -> {
+			loads.incrementAndGet();
+			return Collections.emptyList();
+		});
+		cache.getElements(null, Collections.singletonList(condition("NAME", "Task 0", SelectionConditionExpression.EQUAL)), SelectionType.AND, () -> {
+			loads.incrementAndGet();
+			return Collections.emptyList();
+		});
+		Assertions.assertEquals(4, loads.get());
+	}
+
+}
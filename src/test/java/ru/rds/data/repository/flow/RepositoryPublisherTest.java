@@ -0,0 +1,158 @@
+package ru.rds.data.repository.flow;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TaskEntity;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TasksDatabaseStorageRepository;
+
+@DisplayName("Тестирование последовательного чтения по запросу получателя <RepositoryPublisher>")
+public class RepositoryPublisherTest {
+
+	private static HikariDataSource               dataSource;
+	private static TasksDatabaseStorageRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("publisher");
+		repository = TasksDatabase.createRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Последовательное чтение по запросу получателя")
+	void publisher() {
+		repository.insertAll(TasksDatabase.createTasks(5));
+
+		List<TaskEntity> received = new ArrayList<>();
+		boolean[] completed = {false};
+		repository.publisher().subscribe(new Subscriber<TaskEntity>() {
+
+			private Subscription subscription;
+
+			@Override
+			public void onSubscribe(Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(2);
+			}
+
+			@Override
+			public void onNext(TaskEntity item) {
+				received.add(item);
+				if (received.size() == 3) {
+					this.subscription.cancel();
+				} else if (received.size() == 2) {
+					this.subscription.request(10);
+				}
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				Assertions.fail(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				completed[0] = true;
+			}
+
+		});
+		Assertions.assertEquals(3, received.size());
+		Assertions.assertFalse(completed[0]);
+	}
+
+	@Test
+	@DisplayName("Отмена подписки из другого потока прерывает выполняемый запрос")
+	void cancelWhileReading() throws Exception {
+		CountDownLatch reading = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		AtomicBoolean closed = new AtomicBoolean();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		// Чтение первой строки ожидает прерывания запроса
+		RepositoryPublisher<String> publisher = new RepositoryPublisher<>(cancellation -> {
+			cancellation.accept(interrupted::countDown);
+			Iterator<String> rows = new Iterator<String>() {
+
+				@Override
+				public boolean hasNext() {
+					reading.countDown();
+					try {
+						return !interrupted.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+				}
+
+				@Override
+				public String next() {
+					return "row";
+				}
+
+			};
+			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+			                    .onClose(() -> closed.set(true));
+		}, executor);
+
+		try {
+			AtomicReference<Subscription> subscription = new AtomicReference<>();
+			List<Object> signals = new ArrayList<>();
+			publisher.subscribe(new Subscriber<String>() {
+
+				@Override
+				public void onSubscribe(Subscription value) {
+					subscription.set(value);
+				}
+
+				@Override
+				public void onNext(String item) {
+					signals.add(item);
+				}
+
+				@Override
+				public void onError(Throwable throwable) {
+					signals.add(throwable);
+				}
+
+				@Override
+				public void onComplete() {
+					signals.add("complete");
+				}
+
+			});
+			subscription.get().request(1);
+			Assertions.assertTrue(reading.await(10, TimeUnit.SECONDS));
+			subscription.get().cancel();
+			Assertions.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+
+			executor.shutdown();
+			Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			Assertions.assertTrue(closed.get());
+			Assertions.assertTrue(signals.isEmpty());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package ru.rds.data.repository.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.*;
+import ru.rds.data.repository.tasks.TasksDatabase;
+
+@DisplayName("Тестирование диалектов СУБД <JdbcDialect>")
+public class JdbcDialectTest {
+
+	@Test
+	@DisplayName("Названия заключаются в кавычки по правилам диалекта")
+	void quote() {
+		Assertions.assertEquals("\"TASKS\"", JdbcDialect.H2.quote("tasks"));
+		Assertions.assertEquals("\"PUBLIC\".\"ORDER\"", JdbcDialect.H2.quote("public.order"));
+		Assertions.assertEquals("\"tasks\"", JdbcDialect.POSTGRESQL.quote("TASKS"));
+		Assertions.assertEquals("`Tasks`", JdbcDialect.MYSQL.quote("Tasks"));
+		Assertions.assertEquals("\"TASKS\"", JdbcDialect.GENERIC.quote("Tasks"));
+
+		// Названия, которые нельзя записать без кавычек, не изменяются
+		Assertions.assertEquals("\"Task list\"", JdbcDialect.H2.quote("Task list"));
+		Assertions.assertEquals("\"a\"\"b\"", JdbcDialect.POSTGRESQL.quote("a\"b"));
+		Assertions.assertEquals("\"Tasks\"", JdbcDialect.POSTGRESQL.quote("\"Tasks\""));
+	}
+
+	@Test
+	@DisplayName("Диалект определяется по источнику соединений")
+	void of() throws Exception {
+		try (HikariDataSource dataSource = TasksDatabase.createDataSource("jdbcDialect")) {
+			Assertions.assertEquals(JdbcDialect.H2, JdbcDialect.of(dataSource));
+			Assertions.assertEquals(JdbcDialect.H2, JdbcOperations.dialect(dataSource));
+		}
+	}
+
+}
@@ -0,0 +1,230 @@
+package ru.rds.data.repository.processor;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.*;
+import ru.rds.data.database.Column;
+import ru.rds.data.database.DatabaseStorage;
+import ru.rds.data.database.H2DatabaseQueryBuilder;
+import ru.rds.data.database.Row;
+import ru.rds.data.repository.*;
+import ru.rds.data.repository.annotations.RepositoryData;
+import ru.rds.data.repository.annotations.RepositoryDataConverter;
+import ru.rds.data.repository.annotations.RepositoryDataProperty;
+import ru.rds.data.repository.tasks.TasksDatabase;
+import ru.rds.data.repository.tasks.TypedTaskEntity;
+import ru.rds.data.repository.tasks.TypedTasksRepository;
+
+@DisplayName("Тестирование конвертеров, созданных обработчиком аннотаций <RepositoryDataProcessor>")
+public class RepositoryDataProcessorTest {
+
+	private static HikariDataSource     dataSource;
+	private static TypedTasksRepository repository;
+
+	@BeforeAll
+	static void init() {
+		dataSource = TasksDatabase.createDataSource("repositoryDataProcessor");
+		repository = TasksDatabase.createTypedTasksRepository(dataSource);
+	}
+
+	@AfterAll
+	static void destroy() {
+		dataSource.close();
+	}
+
+	@AfterEach
+	void clear() {
+		repository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Для класса с аннотациями создается конвертер, который используется вместо преобразования на основе аннотаций")
+	void generatedConverter() {
+		RepositoryDataDetails<TypedTaskEntity> details = RepositoryDataDetails.forDataClass(TypedTaskEntity.class);
+		Assertions.assertNotNull(details.getGeneratedDataConverterClass());
+		Assertions.assertEquals(TypedTaskEntity.class.getName() + RepositoryDataProcessor.ROW_CONVERTER_SUFFIX, details.getGeneratedDataConverterClass().getName());
+
+		RowConverter<TypedTaskEntity> rowConverter = details.getDataRowConverter(new ValueConvertersProvider());
+		Assertions.assertEquals(details.getGeneratedDataConverterClass(), rowConverter.getClass());
+		Assertions.assertTrue(rowConverter instanceof AbstractRowConverter);
+		// Названия столбцов записаны в созданном конвертере константами, описание строк ему не требуется (см. RepositoryDataProcessor)
+		Assertions.assertFalse(rowConverter instanceof IndexedRowConverter);
+	}
+
+	@Test
+	@DisplayName("Созданный конвертер и преобразование на основе аннотаций дают одинаковый результат")
+	void sameAsAnnotationBased() {
+		RepositoryDataDetails<TypedTaskEntity> details = RepositoryDataDetails.forDataClass(TypedTaskEntity.class);
+		ValueConvertersProvider provider = new ValueConvertersProvider();
+		RowConverter<TypedTaskEntity> generatedConverter = details.createGeneratedDataConverterInstance(provider);
+		RowConverter<TypedTaskEntity> annotationBasedConverter = new RepositoryDataRowConverter<>(details, provider);
+		List<Column> columns = repository.getTable().getColumns();
+
+		for (TypedTaskEntity taskEntity : new TypedTaskEntity[]{new TypedTaskEntity(UUID.randomUUID(), -3, Long.MAX_VALUE, -0.5, true, TypedTaskEntity.Priority.LOW, "Note"),
+		                                                         new TypedTaskEntity(UUID.randomUUID(), 0, 0, 0, false, null, null)}) {
+			Row generatedRow = generatedConverter.toRow(columns, taskEntity);
+			Row annotationBasedRow = annotationBasedConverter.toRow(columns, taskEntity);
+			for (Column column : columns) {
+				Assertions.assertEquals(annotationBasedRow.getValue(column.getName()), generatedRow.getValue(column.getName()), column.getName());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Сохранение и загрузка значений примитивных типов, отсутствующих значений и значений с конвертером поля")
+	void roundTrip() {
+		TypedTaskEntity full = repository.insert(new TypedTaskEntity(UUID.randomUUID(), 7, 1L << 40, 0.25, true, TypedTaskEntity.Priority.HIGH, "Note"));
+		TypedTaskEntity empty = repository.insert(new TypedTaskEntity(UUID.randomUUID(), 0, 0, 0, false, null, null));
+
+		TypedTaskEntity loaded = repository.findById(full.getId()).orElseGet(() -> null);
+		Assertions.assertNotNull(loaded);
+		Assertions.assertEquals(7, loaded.getCounter());
+		Assertions.assertEquals(1L << 40, loaded.getTotal());
+		Assertions.assertEquals(0.25, loaded.getRatio());
+		Assertions.assertTrue(loaded.isActive());
+		Assertions.assertEquals(TypedTaskEntity.Priority.HIGH, loaded.getPriority());
+		Assertions.assertEquals("Note", loaded.getNote());
+
+		loaded = repository.findById(empty.getId()).orElseGet(() -> null);
+		Assertions.assertNotNull(loaded);
+		Assertions.assertEquals(0, loaded.getCounter());
+		Assertions.assertFalse(loaded.isActive());
+		Assertions.assertNull(loaded.getPriority());
+		Assertions.assertNull(loaded.getNote());
+
+		// Значение с конвертером поля хранится в представлении конвертера
+		Row storedRow = repository.getTable()
+		                          .getElements(null, null)
+		                          .stream()
+		                          .filter(row -> full.getId().toString().equals(row.getValue("ID").orElseGet(() -> null)))
+		                          .findFirst()
+		                          .orElseGet(() -> null);
+		Assertions.assertNotNull(storedRow);
+		Assertions.assertEquals("high", storedRow.getValue("PRIORITY").orElseGet(() -> null));
+		Assertions.assertEquals(1, storedRow.getValue("ACTIVE").orElseGet(() -> null));
+	}
+
+	@Test
+	@DisplayName("Для класса с явно указанным конвертером конвертер не создается")
+	void explicitConverter() {
+		RepositoryDataDetails<LabeledTask> details = RepositoryDataDetails.forDataClass(LabeledTask.class);
+		Assertions.assertNull(details.getGeneratedDataConverterClass());
+		Assertions.assertTrue(details.getDataConverterInstance() instanceof LabeledTaskRowConverter);
+
+		LabeledTasksRepository labeledRepository = new LabeledTasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()));
+		try {
+			LabeledTask task = new LabeledTask();
+			task.id = UUID.randomUUID();
+			task.name = "Task";
+			labeledRepository.insert(task);
+
+			Assertions.assertEquals("label:Task", labeledRepository.getTable().getElements(null, null).get(0).getValue("NAME").orElseGet(() -> null));
+			Assertions.assertEquals("Task", labeledRepository.findById(task.id).map(loaded -> loaded.name).orElseGet(() -> null));
+		} finally {
+			labeledRepository.deleteAll();
+		}
+	}
+
+	@Test
+	@DisplayName("Методы, тип значения которых отличается от типа поля, не используются созданным конвертером")
+	void mismatchedAccessors() {
+		RepositoryDataDetails<MismatchedTask> details = RepositoryDataDetails.forDataClass(MismatchedTask.class);
+		Assertions.assertNotNull(details.getGeneratedDataConverterClass());
+		RowConverter<MismatchedTask> rowConverter = details.createGeneratedDataConverterInstance(new ValueConvertersProvider());
+
+		MismatchedTask task = new MismatchedTask();
+		task.id = UUID.randomUUID();
+		task.name = "Task";
+		task.version = 3;
+		List<Column> columns = TasksDatabase.createRepository(dataSource).getTable().getColumns();
+		Row row = rowConverter.toRow(columns, task);
+		Assertions.assertEquals("Task", row.getValue("NAME").orElseGet(() -> null));
+
+		MismatchedTask loaded = rowConverter.fromRow(row);
+		Assertions.assertEquals("Task", loaded.name);
+		Assertions.assertEquals(3, loaded.version);
+	}
+
+	@RepositoryData(repositoryName = "TASKS")
+	public static class MismatchedTask {
+
+		@RepositoryDataProperty(columnName = "ID")
+		UUID id;
+
+		@RepositoryDataProperty(columnName = "NAME")
+		String name;
+
+		@RepositoryDataProperty(columnName = "VERSION")
+		int version;
+
+		public Optional<String> getName() {
+			return Optional.ofNullable(name);
+		}
+
+		public void setVersion(String version) {
+			this.version = Integer.parseInt(version);
+		}
+
+	}
+
+	@RepositoryData(repositoryName = "TASKS")
+	@RepositoryDataConverter(LabeledTaskRowConverter.class)
+	public static class LabeledTask {
+
+		@RepositoryDataProperty(columnName = "ID")
+		UUID id;
+
+		@RepositoryDataProperty(columnName = "NAME")
+		String name;
+
+	}
+
+	/**
+	 * Конвертер, сохраняющий название с префиксом
+	 */
+	public static class LabeledTaskRowConverter extends AbstractRowConverter<LabeledTask> {
+
+		public LabeledTaskRowConverter(ValueConvertersProvider provider) {
+			super(provider);
+		}
+
+		@Override
+		public LabeledTask fromRow(Row row) {
+			LabeledTask task = new LabeledTask();
+			task.id = getValue(row, "ID", UUID.class);
+			String name = getValue(row, "NAME", String.class);
+			task.name = name == null ? null : name.substring("label:".length());
+			return task;
+		}
+
+		@Override
+		public Row toRow(List<Column> columns, LabeledTask entity) {
+			Row row = new Row(columns);
+			columns.forEach(column -> {
+				if ("ID".equals(column.getName())) {
+					row.setValue(column.getName(), entity.id == null ? null : entity.id.toString());
+				} else if ("NAME".equals(column.getName())) {
+					row.setValue(column.getName(), entity.name == null ? null : "label:" + entity.name);
+				}
+			});
+			return row;
+		}
+
+	}
+
+	private static final class LabeledTasksRepository extends AnnotationBasedDatabaseStorageRepository<LabeledTask, UUID> {
+
+		private LabeledTasksRepository(DatabaseStorage databaseStorage) {
+			super(databaseStorage);
+		}
+
+		@Override
+		protected String getIdValue(UUID uuid, String idColumnName) {
+			return uuid == null ? null : uuid.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,20 @@
+package ru.rds.data.repository.tasks;
+
+import ru.rds.data.repository.ValueConverter;
+
+/**
+ * Приоритет хранится в БД строкой в нижнем регистре
+ */
+public class PriorityValueConverter implements ValueConverter<String, TypedTaskEntity.Priority> {
+
+	@Override
+	public TypedTaskEntity.Priority convertFrom(String source) {
+		return source == null ? null : TypedTaskEntity.Priority.valueOf(source.toUpperCase());
+	}
+
+	@Override
+	public String convertTo(TypedTaskEntity.Priority object) {
+		return object == null ? null : object.name().toLowerCase();
+	}
+
+}
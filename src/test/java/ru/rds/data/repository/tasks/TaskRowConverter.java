@@ -1,7 +1,6 @@
 package ru.rds.data.repository.tasks;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 import ru.rds.data.database.Column;
 import ru.rds.data.database.Row;
@@ -16,14 +15,10 @@ public class TaskRowConverter extends AbstractRowConverter<TaskEntity> {
 
 	@Override
 	public TaskEntity fromRow(Row row) {
-		Optional<UUID> id = convertRowValue(row.getValue("ID"), UUID.class);
-		Optional<String> name = convertRowValue(row.getValue("NAME"), String.class);
-		Optional<Integer> version = convertRowValue(row.getValue("VERSION"), Integer.class);
-
 		TaskEntity entity = new TaskEntity();
-		entity.setId(id.orElseGet(() -> null));
-		entity.setName(name.orElseGet(() -> null));
-		entity.setVersion(version.orElseGet(() -> null));
+		entity.setId(getValue(row, "ID", UUID.class));
+		entity.setName(getValue(row, "NAME", String.class));
+		entity.setVersion(getValue(row, "VERSION", Integer.class));
 
 		return entity;
 	}
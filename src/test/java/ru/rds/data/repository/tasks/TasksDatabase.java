@@ -0,0 +1,78 @@
+package ru.rds.data.repository.tasks;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import ru.rds.data.database.DatabaseStorage;
+import ru.rds.data.database.H2DatabaseQueryBuilder;
+import ru.rds.data.repository.ValueConvertersProvider;
+
+/**
+ * Общие средства подготовки тестов: отдельная БД H2 в памяти с таблицей <code>TASKS</code> для каждого тестового класса, Репозиторий и объекты
+ */
+public final class TasksDatabase {
+
+	private TasksDatabase() {
+	}
+
+	/**
+	 * Источник соединений к БД H2 в памяти (БД с одним и тем же названием используется совместно, поэтому каждому тестовому классу нужно свое название)
+	 *
+	 * @param databaseName название БД
+	 * @return
+	 */
+	public static HikariDataSource createDataSource(String databaseName) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setDriverClassName("org.h2.Driver");
+		dataSource.setJdbcUrl("jdbc:h2:mem:" + databaseName + ";DATABASE_TO_UPPER=false;INIT=RUNSCRIPT FROM 'classpath:h2init.sql'");
+		dataSource.setUsername("sa");
+		dataSource.setPassword("sa");
+		return dataSource;
+	}
+
+	/**
+	 * Репозиторий, выполняющий операции через {@link ru.rds.data.database.Table} и напрямую через JDBC с источником соединений {@link DatabaseStorage}
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	public static TasksDatabaseStorageRepository createRepository(DataSource dataSource) {
+		return new TasksDatabaseStorageRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()), new ValueConvertersProvider());
+	}
+
+	/**
+	 * Репозиторий на основе аннотаций {@link TaskEntity} с источником соединений {@link DatabaseStorage} для операций через JDBC
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	public static TasksRepository createTasksRepository(DataSource dataSource) {
+		return new TasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()), new ValueConvertersProvider());
+	}
+
+	/**
+	 * Репозиторий на основе аннотаций {@link TypedTaskEntity} (значения примитивных типов и значение с конвертером поля)
+	 *
+	 * @param dataSource
+	 * @return
+	 */
+	public static TypedTasksRepository createTypedTasksRepository(DataSource dataSource) {
+		return new TypedTasksRepository(new DatabaseStorage(dataSource, new H2DatabaseQueryBuilder()), new ValueConvertersProvider());
+	}
+
+	/**
+	 * Объекты с названиями "Task 0", "Task 1", ... и номером версии, равным порядковому номеру
+	 *
+	 * @param count количество объектов
+	 * @return
+	 */
+	public static List<TaskEntity> createTasks(int count) {
+		return IntStream.range(0, count)
+		                .mapToObj(i -> new TaskEntity(UUID.randomUUID(), "Task " + i, i))
+		                .collect(Collectors.toList());
+	}
+
+}
@@ -28,6 +28,11 @@ public class TasksDatabaseStorageRepository extends DatabaseStorageRepository<Ta
 		init(provider);
 	}
 
+	public TasksDatabaseStorageRepository(Table table, DataSource dataSource, ValueConvertersProvider provider) {
+		super(table, dataSource);
+		init(provider);
+	}
+
 	private void init(ValueConvertersProvider provider) {
 		this.rowConverter = new TaskRowConverter(provider);
 	}
@@ -50,4 +55,9 @@ public class TasksDatabaseStorageRepository extends DatabaseStorageRepository<Ta
 		return null;
 	}
 
+	@Override
+	protected UUID getId(TaskEntity entity) {
+		return entity.getId();
+	}
+
 }
@@ -0,0 +1,104 @@
+package ru.rds.data.repository.tasks;
+
+import java.util.UUID;
+import ru.rds.data.repository.annotations.RepositoryData;
+import ru.rds.data.repository.annotations.RepositoryDataProperty;
+
+@RepositoryData(repositoryName = "TYPED_TASKS")
+public class TypedTaskEntity {
+
+	public enum Priority {
+		LOW, HIGH
+	}
+
+	@RepositoryDataProperty(columnName = "ID")
+	private UUID id;
+
+	@RepositoryDataProperty(columnName = "COUNTER")
+	private int counter;
+
+	@RepositoryDataProperty(columnName = "TOTAL")
+	private long total;
+
+	@RepositoryDataProperty(columnName = "RATIO")
+	private double ratio;
+
+	@RepositoryDataProperty(columnName = "ACTIVE")
+	private boolean active;
+
+	@RepositoryDataProperty(columnName = "PRIORITY", valueConverter = PriorityValueConverter.class)
+	private Priority priority;
+
+	@RepositoryDataProperty(columnName = "NOTE")
+	private String note;
+
+	public TypedTaskEntity() {
+	}
+
+	public TypedTaskEntity(UUID id, int counter, long total, double ratio, boolean active, Priority priority, String note) {
+		this.id = id;
+		this.counter = counter;
+		this.total = total;
+		this.ratio = ratio;
+		this.active = active;
+		this.priority = priority;
+		this.note = note;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public void setId(UUID id) {
+		this.id = id;
+	}
+
+	public int getCounter() {
+		return counter;
+	}
+
+	public void setCounter(int counter) {
+		this.counter = counter;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+
+	public double getRatio() {
+		return ratio;
+	}
+
+	public void setRatio(double ratio) {
+		this.ratio = ratio;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	public Priority getPriority() {
+		return priority;
+	}
+
+	public void setPriority(Priority priority) {
+		this.priority = priority;
+	}
+
+	public String getNote() {
+		return note;
+	}
+
+	public void setNote(String note) {
+		this.note = note;
+	}
+
+}
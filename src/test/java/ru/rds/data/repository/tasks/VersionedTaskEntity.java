@@ -0,0 +1,63 @@
+package ru.rds.data.repository.tasks;
+
+import java.util.UUID;
+import ru.rds.data.repository.annotations.RepositoryData;
+import ru.rds.data.repository.annotations.RepositoryDataProperty;
+import ru.rds.data.repository.annotations.RepositoryDataVersion;
+
+@RepositoryData(repositoryName = "TASKS")
+public class VersionedTaskEntity {
+
+	@RepositoryDataProperty(columnName = "ID")
+	private UUID id;
+
+	@RepositoryDataProperty(columnName = "NAME")
+	private String name;
+
+	@RepositoryDataVersion
+	@RepositoryDataProperty(columnName = "VERSION")
+	private Integer version;
+
+	public VersionedTaskEntity() {
+	}
+
+	public VersionedTaskEntity(UUID id, String name, Integer version) {
+		this.id = id;
+		this.name = name;
+		this.version = version;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public void setId(UUID id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Integer getVersion() {
+		return version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
+	@Override
+	public String toString() {
+		return "VersionedTaskEntity{" +
+		       "id=" + id +
+		       ", name='" + name + '\'' +
+		       ", version=" + version +
+		       '}';
+	}
+
+}
@@ -1,4 +1,6 @@
 CREATE SCHEMA IF NOT EXISTS public;
 SET SCHEMA public;
 
-CREATE TABLE IF NOT EXISTS TASKS (ID varchar(36) NOT NULL UNIQUE, NAME varchar(255), VERSION integer, PRIMARY KEY (ID));
\ No newline at end of file
+CREATE TABLE IF NOT EXISTS TASKS (ID varchar(36) NOT NULL UNIQUE, NAME varchar(255), VERSION integer, PRIMARY KEY (ID));
+CREATE TABLE IF NOT EXISTS TYPED_TASKS (ID varchar(36) NOT NULL UNIQUE, COUNTER integer, TOTAL bigint, RATIO double, ACTIVE integer, PRIORITY varchar(16), NOTE varchar(255), ARCHIVED boolean, PRIMARY KEY (ID));
+CREATE TABLE IF NOT EXISTS PRICES (ID numeric(10, 2) NOT NULL, NAME varchar(255), PRIMARY KEY (ID));
\ No newline at end of file